@@ -0,0 +1,31 @@
+package com.parker.david;
+
+import java.util.SplittableRandom;
+
+/**
+ * random problems for the benchmarks. cities are scattered uniformly over a square and distances are computed from their coordinates,
+ * so even the largest problems need no distance matrix
+ */
+final class BenchmarkInstances {
+
+	private BenchmarkInstances() {
+	}
+
+	/**
+	 * makes a random euclidean problem
+	 *
+	 * @param cityCount             the number of cities
+	 * @param randomNumberGenerator the random number generator the cities are placed with
+	 * @return the problem
+	 */
+	static TSPInstance randomInstance(int cityCount, SplittableRandom randomNumberGenerator) {
+		double[] x = new double[cityCount];
+		double[] y = new double[cityCount];
+		for (int city = 0; city < cityCount; city++) {
+			x[city] = randomNumberGenerator.nextInt(1_000_000);
+			y[city] = randomNumberGenerator.nextInt(1_000_000);
+		}
+		CoordinateDistanceMatrix distances = new CoordinateDistanceMatrix(CoordinateMetric.EUC_2D, x, y);
+		return new TSPInstance(distances, distances);
+	}
+}
@@ -0,0 +1,85 @@
+package com.parker.david;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmarks of the crossover algorithms on large problems. the parents are random tours improved by local search,
+ * as they would be in a memetic run, and each crossover breeds random pairs of them into two offspring slots
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CrossoverBenchmark {
+
+	/**
+	 * the number of parents in the pool bred from
+	 */
+	private static final int PARENT_COUNT = 16;
+
+	/**
+	 * the number of cities in the problem
+	 */
+	@Param({"1000", "5000", "20000"})
+	public int cityCount;
+
+	/**
+	 * the crossover algorithm
+	 */
+	@Param({"TWO_POINT", "ORDER", "PARTIALLY_MAPPED", "EDGE_RECOMBINATION", "EDGE_ASSEMBLY"})
+	public CrossoverMethod method;
+
+	private PopulationArena parents;
+
+	private PairwiseCrossover crossover;
+
+	private BreedingWorkspace workspace;
+
+	private SplittableRandom randomNumberGenerator;
+
+	@Setup
+	public void setUp() {
+		RandomStreams randomStreams = new RandomStreams(1);
+		randomNumberGenerator = randomStreams.newStream();
+		TSPInstance instance = BenchmarkInstances.randomInstance(cityCount, randomNumberGenerator);
+		parents = new PopulationArena(instance, PARENT_COUNT, 2);
+		new RandomGeneration().initialise(parents, randomNumberGenerator);
+		workspace = new BreedingWorkspace(cityCount);
+		TwoOptOrOpt localSearch = new TwoOptOrOpt(instance, 8);
+		for (int slot = 0; slot < PARENT_COUNT; slot++) {
+			localSearch.improveSlot(parents, slot, workspace);
+		}
+		crossover = method.create(instance, randomStreams.newStream());
+	}
+
+	/**
+	 * breeds two offspring from a random pair of parents, and evaluates them
+	 */
+	@Benchmark
+	public int breedPair() {
+		int offspring = parents.firstOffspringSlot();
+		int parent1 = randomNumberGenerator.nextInt(PARENT_COUNT);
+		int parent2 = randomNumberGenerator.nextInt(PARENT_COUNT - 1);
+		if (parent2 >= parent1)
+			parent2++;
+		crossover.breedSlots(parents, parent1, parent2, offspring, offspring + 1, randomNumberGenerator, workspace);
+		parents.evaluate(offspring);
+		parents.evaluate(offspring + 1);
+		return parents.getFitness()[offspring] + parents.getFitness()[offspring + 1];
+	}
+}
@@ -0,0 +1,82 @@
+package com.parker.david;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmarks of a full generation: crossover, mutation and replacement, breeding as many offspring as there are parents.
+ * the object based generation is the loop body of Main.runGeneticAlgorithm, without the reporting, the arena based one is ArenaEvolution.evolveGeneration.
+ * each invocation evolves the population further, as a run would
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GenerationBenchmark {
+
+	/**
+	 * the number of cities in the problem
+	 */
+	@Param({"100", "1000", "10000", "100000"})
+	public int cityCount;
+
+	/**
+	 * the number of parents, and of offspring bred each generation
+	 */
+	@Param({"16", "256"})
+	public int populationSize;
+
+	private SolutionPopulation population;
+
+	private TwoPointCrossOver breeder;
+
+	private SwapTwoCities mutator;
+
+	private ElitistSelection replacement;
+
+	private ArenaEvolution evolution;
+
+	@Setup
+	public void setUp() {
+		SplittableRandom randomNumberGenerator = new SplittableRandom(1);
+		TSPInstance instance = BenchmarkInstances.randomInstance(cityCount, randomNumberGenerator);
+		population = new RandomGeneration(randomNumberGenerator.split()).initialise(instance, populationSize);
+		breeder = new TwoPointCrossOver(randomNumberGenerator.split());
+		mutator = new SwapTwoCities(randomNumberGenerator.split());
+		replacement = new ElitistSelection();
+		evolution = new ArenaEvolution(instance, populationSize, populationSize, 3, randomNumberGenerator.split());
+	}
+
+	/**
+	 * evolves one generation of candidate solution objects
+	 */
+	@Benchmark
+	public SolutionPopulation objectGeneration() {
+		SolutionPopulation offspring = mutator.mutatePopulation(breeder.breed(population, populationSize));
+		population = replacement.replace(population, offspring);
+		return population;
+	}
+
+	/**
+	 * evolves one generation in a population arena
+	 */
+	@Benchmark
+	public int arenaGeneration() {
+		evolution.evolveGeneration();
+		return evolution.getBestFitness();
+	}
+}
@@ -0,0 +1,97 @@
+package com.parker.david;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmarks of the operations on whole populations of candidate solutions: mutation, parent selection and elitist replacement
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PopulationBenchmark {
+
+	/**
+	 * the number of cities in the problem
+	 */
+	@Param({"100", "1000", "10000", "100000"})
+	public int cityCount;
+
+	/**
+	 * the number of solutions in the parent and offspring populations
+	 */
+	@Param({"16", "256"})
+	public int populationSize;
+
+	private SolutionPopulation parents;
+
+	private SolutionPopulation sortedParents;
+
+	private SolutionPopulation offspring;
+
+	private SwapTwoCities mutator;
+
+	private TournamentSelection selector;
+
+	private ElitistSelection replacement;
+
+	@Setup
+	public void setUp() {
+		SplittableRandom randomNumberGenerator = new SplittableRandom(1);
+		TSPInstance instance = BenchmarkInstances.randomInstance(cityCount, randomNumberGenerator);
+		RandomGeneration initialiser = new RandomGeneration(randomNumberGenerator.split());
+		parents = initialiser.initialise(instance, populationSize);
+		offspring = initialiser.initialise(instance, populationSize);
+		mutator = new SwapTwoCities(randomNumberGenerator.split());
+		selector = new TournamentSelection(3, randomNumberGenerator.split());
+		replacement = new ElitistSelection();
+		sortedParents = replacement.replace(parents, initialiser.initialise(instance, populationSize));
+	}
+
+	/**
+	 * copies a population and mutates one of its solutions
+	 */
+	@Benchmark
+	public SolutionPopulation mutatePopulation() {
+		return mutator.mutatePopulation(offspring);
+	}
+
+	/**
+	 * selects one parent by tournament
+	 */
+	@Benchmark
+	public CandidateSolution getParent() {
+		return selector.getParent(parents);
+	}
+
+	/**
+	 * selects the next generation from unsorted parents, as in the first generation of a run
+	 */
+	@Benchmark
+	public SolutionPopulation replace() {
+		return replacement.replace(parents, offspring);
+	}
+
+	/**
+	 * selects the next generation from parents left sorted by the previous replacement, as in every later generation of a run
+	 */
+	@Benchmark
+	public SolutionPopulation replaceSorted() {
+		return replacement.replace(sortedParents, offspring);
+	}
+}
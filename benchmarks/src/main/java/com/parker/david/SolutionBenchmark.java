@@ -0,0 +1,97 @@
+package com.parker.david;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * benchmarks of the operations on a single solution or pair of solutions: fitness evaluation and two-point crossover,
+ * both on candidate solution objects and on tours in a population arena
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolutionBenchmark {
+
+	/**
+	 * the number of cities in the problem
+	 */
+	@Param({"100", "1000", "10000", "100000"})
+	public int cityCount;
+
+	private TSPInstance instance;
+
+	private CandidateSolution parent1;
+
+	private CandidateSolution parent2;
+
+	private PopulationArena arena;
+
+	private TwoPointCrossOver crossover;
+
+	private BreedingWorkspace workspace;
+
+	private SplittableRandom randomNumberGenerator;
+
+	@Setup
+	public void setUp() {
+		randomNumberGenerator = new SplittableRandom(1);
+		instance = BenchmarkInstances.randomInstance(cityCount, randomNumberGenerator);
+		RandomGeneration initialiser = new RandomGeneration(randomNumberGenerator.split());
+		ArrayList<CandidateSolution> parents = initialiser.initialise(instance, 2).getSolutions();
+		parent1 = parents.get(0);
+		parent2 = parents.get(1);
+		arena = new PopulationArena(instance, 2, 2);
+		initialiser.initialise(arena, randomNumberGenerator);
+		crossover = new TwoPointCrossOver(randomNumberGenerator.split());
+		workspace = new BreedingWorkspace(cityCount);
+	}
+
+	/**
+	 * evaluates the length of a tour
+	 */
+	@Benchmark
+	public int evaluateFitness() {
+		return CandidateSolution.tourLength(parent1.getTour(), 0, cityCount, instance.getDistances());
+	}
+
+	/**
+	 * creates a candidate solution sharing an existing tour, which evaluates the tour
+	 */
+	@Benchmark
+	public CandidateSolution createSolution() {
+		return new CandidateSolution(instance, parent1.getTour());
+	}
+
+	/**
+	 * breeds two offspring objects from two parent objects, including evaluating the offspring
+	 */
+	@Benchmark
+	public ArrayList<CandidateSolution> breedPair() {
+		return crossover.breedPair(parent1, parent2);
+	}
+
+	/**
+	 * breeds two offspring into arena slots from two arena parents, without evaluating them
+	 */
+	@Benchmark
+	public int[] breedSlots() {
+		crossover.breedSlots(arena, 0, 1, 2, 3, randomNumberGenerator, workspace);
+		return arena.getTours();
+	}
+}
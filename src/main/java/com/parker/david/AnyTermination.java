@@ -0,0 +1,34 @@
+package com.parker.david;
+
+import java.util.List;
+
+/**
+ * stops a run as soon as any one of several conditions is met, such as a deadline or stagnation, whichever comes first
+ */
+public class AnyTermination implements TerminationCondition {
+
+	/**
+	 * the conditions, checked in order
+	 */
+	private final TerminationCondition[] conditions;
+
+	/**
+	 * constructor
+	 *
+	 * @param conditions the conditions, at least one
+	 */
+	AnyTermination(List<TerminationCondition> conditions) {
+		if (conditions.isEmpty())
+			throw new IllegalArgumentException("at least one termination condition is needed");
+		this.conditions = conditions.toArray(new TerminationCondition[0]);
+	}
+
+	@Override
+	public boolean isMet(RunProgress progress) {
+		for (TerminationCondition condition : conditions) {
+			if (condition.isMet(progress))
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,340 @@
+package com.parker.david;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * everything needed to resume an arena based genetic algorithm: the parents, the incumbent, the generation number,
+ * the number of generations since the incumbent improved, the number of evaluations made, and the seed of the stream of random numbers.
+ * a checkpoint is written in a compact big endian binary format, the int MAGIC and the int VERSION, then the int number of cities,
+ * the int population size, the int generation number, the int generations since the incumbent improved, the long random seed, the long evaluation count,
+ * the int incumbent fitness and its tour, the int fitness of every parent, every parent tour one after another,
+ * and finally the long CRC32 of everything before it.
+ * it is written to a temporary file which is forced to disk and then atomically renamed over the checkpoint,
+ * so a crash at any point leaves either the old checkpoint or the new one, never a torn one
+ */
+public class ArenaCheckpoint {
+
+	/**
+	 * the first four bytes of every checkpoint, "TSPC" in ascii
+	 */
+	static final int MAGIC = 0x54535043;
+
+	/**
+	 * the version of the format
+	 */
+	static final int VERSION = 2;
+
+	/**
+	 * the size of the buffer checkpoints are written and read through, in bytes
+	 */
+	private static final int BUFFER_SIZE = 1 << 20;
+
+	/**
+	 * the number of cities in every tour
+	 */
+	private final int cityCount;
+
+	/**
+	 * the number of parents
+	 */
+	private final int populationSize;
+
+	/**
+	 * the number of generations evolved before the checkpoint
+	 */
+	private int generationNumber;
+
+	/**
+	 * the number of generations since the incumbent last improved
+	 */
+	private int generationsSinceImprovedIncumbent;
+
+	/**
+	 * the seed of the stream of random numbers the evolution continues with
+	 */
+	private long randomSeed;
+
+	/**
+	 * the number of evaluations made before the checkpoint
+	 */
+	private long evaluationCount;
+
+	/**
+	 * the fitness of the incumbent
+	 */
+	private int incumbentFitness;
+
+	/**
+	 * the tour of the incumbent
+	 */
+	private final int[] incumbentTour;
+
+	/**
+	 * the fitnesses of the parents
+	 */
+	private final int[] parentFitness;
+
+	/**
+	 * the tours of the parents, one after another. a captured checkpoint reads them from the arena's pinned tour buffer,
+	 * which may hold offspring after the parents, a checkpoint read from a file holds exactly the parents
+	 */
+	private int[] parentTours;
+
+	/**
+	 * constructor, allocates room for a checkpoint of a population, to be filled by capture or read.
+	 * the parent tours are not allocated, capture pins them in the arena and read allocates them
+	 *
+	 * @param cityCount      the number of cities in every tour
+	 * @param populationSize the number of parents
+	 */
+	ArenaCheckpoint(int cityCount, int populationSize) {
+		if ((long) cityCount * populationSize > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("population of " + populationSize + " tours of " + cityCount + " cities does not fit in a checkpoint");
+		this.cityCount = cityCount;
+		this.populationSize = populationSize;
+		this.incumbentTour = new int[cityCount];
+		this.parentFitness = new int[populationSize];
+	}
+
+	/**
+	 * captures the state of an evolution into this checkpoint. this reseeds the evolution's stream of random numbers,
+	 * see ArenaEvolution.reseed, and pins the arena's parents rather than copying them, see PopulationArena.pinParents,
+	 * so it must be called on the thread evolving the population, between generations, and the parents unpinned once the checkpoint is written
+	 *
+	 * @param evolution                         the evolution to capture, with the same number of cities and parents as this checkpoint
+	 * @param incumbent                         the best solution found so far
+	 * @param generationsSinceImprovedIncumbent the number of generations since the incumbent last improved
+	 */
+	void capture(ArenaEvolution evolution, CandidateSolution incumbent, int generationsSinceImprovedIncumbent) {
+		PopulationArena arena = evolution.getArena();
+		checkShape(arena);
+		this.generationNumber = evolution.getGenerationNumber();
+		this.generationsSinceImprovedIncumbent = generationsSinceImprovedIncumbent;
+		this.randomSeed = evolution.reseed();
+		this.evaluationCount = evolution.getEvaluationCount();
+		this.incumbentFitness = incumbent.getFitness();
+		System.arraycopy(incumbent.getTour(), 0, incumbentTour, 0, cityCount);
+		System.arraycopy(arena.getFitness(), 0, parentFitness, 0, populationSize);
+		this.parentTours = arena.pinParents();
+	}
+
+	/**
+	 * resumes an evolution from this checkpoint
+	 *
+	 * @param evolution the evolution to resume, with the same number of cities and parents as this checkpoint
+	 */
+	void restore(ArenaEvolution evolution) {
+		checkShape(evolution.getArena());
+		evolution.resume(parentTours, parentFitness, generationNumber, evaluationCount, randomSeed);
+	}
+
+	/**
+	 * checks that an arena holds populations of the same shape as this checkpoint
+	 *
+	 * @param arena the arena to check
+	 */
+	private void checkShape(PopulationArena arena) {
+		if (arena.cityCount() != cityCount || arena.getPopulationSize() != populationSize)
+			throw new IllegalArgumentException("checkpoint of " + populationSize + " tours of " + cityCount + " cities does not match a population of "
+					+ arena.getPopulationSize() + " tours of " + arena.cityCount() + " cities");
+	}
+
+	/**
+	 * accessor for the number of generations evolved before the checkpoint
+	 *
+	 * @return the int generation number
+	 */
+	public int getGenerationNumber() {
+		return generationNumber;
+	}
+
+	/**
+	 * accessor for the number of generations since the incumbent last improved
+	 *
+	 * @return the int stagnation count
+	 */
+	public int getGenerationsSinceImprovedIncumbent() {
+		return generationsSinceImprovedIncumbent;
+	}
+
+	/**
+	 * materialises the incumbent of the checkpoint as a candidate solution
+	 *
+	 * @param instance the problem the checkpoint belongs to
+	 * @return a new candidate solution holding a copy of the incumbent tour
+	 */
+	CandidateSolution getIncumbent(TSPInstance instance) {
+		return new CandidateSolution(instance, incumbentTour.clone(), incumbentFitness);
+	}
+
+	/**
+	 * writes this checkpoint to a file, replacing it atomically
+	 *
+	 * @param file the checkpoint file
+	 * @throws IOException if the checkpoint cannot be written
+	 */
+	void write(Path file) throws IOException {
+		Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			CRC32 checksum = new CRC32();
+			buffer.putInt(MAGIC).putInt(VERSION).putInt(cityCount).putInt(populationSize)
+					.putInt(generationNumber).putInt(generationsSinceImprovedIncumbent).putLong(randomSeed).putLong(evaluationCount).putInt(incumbentFitness);
+			writeInts(channel, buffer, checksum, incumbentTour, cityCount);
+			writeInts(channel, buffer, checksum, parentFitness, populationSize);
+			writeInts(channel, buffer, checksum, parentTours, cityCount * populationSize);
+			drain(channel, buffer, checksum);
+			buffer.putLong(checksum.getValue());
+			buffer.flip();
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(true);
+		}
+		Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * writes the start of an int array through the buffer, big endian
+	 *
+	 * @param channel  the channel being written
+	 * @param buffer   the buffer, in write mode
+	 * @param checksum the checksum of everything written so far
+	 * @param values   the ints to write
+	 * @param count    the number of ints to write, from the start of the array
+	 * @throws IOException if the channel cannot be written to
+	 */
+	private static void writeInts(FileChannel channel, ByteBuffer buffer, CRC32 checksum, int[] values, int count) throws IOException {
+		int written = 0;
+		while (written < count) {
+			if (buffer.remaining() < Integer.BYTES)
+				drain(channel, buffer, checksum);
+			int length = Math.min(buffer.remaining() / Integer.BYTES, count - written);
+			buffer.asIntBuffer().put(values, written, length);
+			buffer.position(buffer.position() + length * Integer.BYTES);
+			written += length;
+		}
+	}
+
+	/**
+	 * writes everything in the buffer to the channel, adding it to the checksum, and empties the buffer
+	 *
+	 * @param channel  the channel being written
+	 * @param buffer   the buffer, in write mode
+	 * @param checksum the checksum of everything written so far
+	 * @throws IOException if the channel cannot be written to
+	 */
+	private static void drain(FileChannel channel, ByteBuffer buffer, CRC32 checksum) throws IOException {
+		buffer.flip();
+		checksum.update(buffer.duplicate());
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * reads a checkpoint from a file
+	 *
+	 * @param file the checkpoint file
+	 * @return the checkpoint
+	 * @throws IOException if the file cannot be read, or is not a complete checkpoint
+	 */
+	static ArenaCheckpoint read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			buffer.limit(0);
+			CRC32 checksum = new CRC32();
+			fill(channel, buffer, checksum, 6 * Integer.BYTES + 2 * Long.BYTES);
+			if (buffer.getInt() != MAGIC)
+				throw new IOException(file + " is not a checkpoint");
+			int version = buffer.getInt();
+			if (version != VERSION)
+				throw new IOException(file + " is a version " + version + " checkpoint, expected version " + VERSION);
+			int cityCount = buffer.getInt();
+			int populationSize = buffer.getInt();
+			if (cityCount < 0 || populationSize < 0)
+				throw new IOException(file + " is not a valid checkpoint");
+			ArenaCheckpoint checkpoint = new ArenaCheckpoint(cityCount, populationSize);
+			checkpoint.generationNumber = buffer.getInt();
+			checkpoint.generationsSinceImprovedIncumbent = buffer.getInt();
+			checkpoint.randomSeed = buffer.getLong();
+			checkpoint.evaluationCount = buffer.getLong();
+			fill(channel, buffer, checksum, Integer.BYTES);
+			checkpoint.incumbentFitness = buffer.getInt();
+			readInts(channel, buffer, checksum, checkpoint.incumbentTour);
+			readInts(channel, buffer, checksum, checkpoint.parentFitness);
+			checkpoint.parentTours = new int[cityCount * populationSize];
+			readInts(channel, buffer, checksum, checkpoint.parentTours);
+
+			//everything read so far must match the checksum at the end
+			settle(buffer, checksum);
+			long expected = checksum.getValue();
+			fill(channel, buffer, checksum, Long.BYTES);
+			if (buffer.getLong() != expected)
+				throw new IOException(file + " is a corrupt checkpoint, its checksum does not match");
+			return checkpoint;
+		}
+	}
+
+	/**
+	 * reads an int array through the buffer, big endian
+	 *
+	 * @param channel  the channel being read
+	 * @param buffer   the buffer, in read mode
+	 * @param checksum the checksum of everything consumed so far
+	 * @param values   the array to read into, filled completely
+	 * @throws IOException if the channel cannot be read, or ends too soon
+	 */
+	private static void readInts(FileChannel channel, ByteBuffer buffer, CRC32 checksum, int[] values) throws IOException {
+		int read = 0;
+		while (read < values.length) {
+			fill(channel, buffer, checksum, Integer.BYTES);
+			int length = Math.min(buffer.remaining() / Integer.BYTES, values.length - read);
+			buffer.asIntBuffer().get(values, read, length);
+			buffer.position(buffer.position() + length * Integer.BYTES);
+			read += length;
+		}
+	}
+
+	/**
+	 * makes sure the buffer holds at least a number of unconsumed bytes, reading more from the channel if it does not
+	 *
+	 * @param channel  the channel being read
+	 * @param buffer   the buffer, in read mode
+	 * @param checksum the checksum of everything consumed so far
+	 * @param needed   the number of bytes needed, at most the size of the buffer
+	 * @throws IOException if the channel cannot be read, or ends too soon
+	 */
+	private static void fill(FileChannel channel, ByteBuffer buffer, CRC32 checksum, int needed) throws IOException {
+		if (buffer.remaining() >= needed)
+			return;
+		settle(buffer, checksum);
+		buffer.compact();
+		while (buffer.position() < needed) {
+			if (channel.read(buffer) < 0)
+				throw new IOException("checkpoint ends too soon, it was not completely written");
+		}
+		buffer.flip();
+	}
+
+	/**
+	 * adds the bytes consumed from the buffer to the checksum, and drops them from the buffer
+	 *
+	 * @param buffer   the buffer, in read mode
+	 * @param checksum the checksum of everything consumed so far
+	 */
+	private static void settle(ByteBuffer buffer, CRC32 checksum) {
+		ByteBuffer consumed = buffer.duplicate();
+		consumed.flip();
+		checksum.update(consumed);
+		buffer.compact().flip();
+	}
+}
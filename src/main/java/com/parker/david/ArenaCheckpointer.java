@@ -0,0 +1,137 @@
+package com.parker.david;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * periodically checkpoints an arena based genetic algorithm to a file, so a long run can be resumed after a crash or restart.
+ * the evolving thread only reseeds its random numbers, copies the fitnesses and incumbent into a snapshot allocated up front,
+ * and pins the arena's tour buffer holding the parents, so no tour is copied. encoding the parents straight from the pinned buffer,
+ * forcing to disk and renaming the checkpoint happens on a background thread, and the buffer is unpinned once that is done.
+ * if the previous checkpoint is still being written when the next is due, the next is skipped rather than stalling the evolution.
+ * the stream of random numbers is reseeded at every due checkpoint, written or not, so a seeded run stays replayable
+ */
+public class ArenaCheckpointer implements Closeable {
+
+	/**
+	 * the checkpoint file
+	 */
+	private final Path file;
+
+	/**
+	 * the number of generations between checkpoints
+	 */
+	private final int checkpointInterval;
+
+	/**
+	 * the arena of the evolution being checkpointed, whose parents are pinned while a write is pending
+	 */
+	private final PopulationArena arena;
+
+	/**
+	 * the snapshot the evolution is captured into, owned by the writer thread while a write is pending
+	 */
+	private final ArenaCheckpoint snapshot;
+
+	/**
+	 * the thread checkpoints are written on
+	 */
+	private final ExecutorService writerThread;
+
+	/**
+	 * the write in progress or last finished, null before the first checkpoint
+	 */
+	private Future<Void> pendingWrite;
+
+	/**
+	 * constructor, allocates the snapshot
+	 *
+	 * @param file               the checkpoint file
+	 * @param checkpointInterval the number of generations between checkpoints
+	 * @param evolution          the evolution that will be checkpointed
+	 */
+	ArenaCheckpointer(Path file, int checkpointInterval, ArenaEvolution evolution) {
+		if (checkpointInterval < 1)
+			throw new IllegalArgumentException("the checkpoint interval must be at least 1, found " + checkpointInterval);
+		this.file = file;
+		this.checkpointInterval = checkpointInterval;
+		this.arena = evolution.getArena();
+		this.snapshot = new ArenaCheckpoint(arena.cityCount(), arena.getPopulationSize());
+		this.writerThread = Executors.newSingleThreadExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "checkpoint writer");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * checkpoints the evolution if a checkpoint is due this generation. must be called on the thread evolving the population, between generations
+	 *
+	 * @param evolution                         the evolution to checkpoint
+	 * @param incumbent                         the best solution found so far
+	 * @param generationsSinceImprovedIncumbent the number of generations since the incumbent last improved
+	 * @return true if a checkpoint was started
+	 * @throws IOException if the previous checkpoint could not be written
+	 */
+	boolean checkpoint(ArenaEvolution evolution, CandidateSolution incumbent, int generationsSinceImprovedIncumbent) throws IOException {
+		if (evolution.getGenerationNumber() % checkpointInterval != 0)
+			return false;
+
+		//skip this checkpoint if the last one is still being written, but reseed anyway so the random numbers do not depend on timing
+		if (pendingWrite != null && !pendingWrite.isDone()) {
+			evolution.reseed();
+			return false;
+		}
+		finishPendingWrite();
+
+		snapshot.capture(evolution, incumbent, generationsSinceImprovedIncumbent);
+		pendingWrite = writerThread.submit(() -> {
+			snapshot.write(file);
+			return null;
+		});
+		return true;
+	}
+
+	/**
+	 * waits for the pending write, if any, to finish, then unpins the parents it was written from
+	 *
+	 * @throws IOException if the pending checkpoint could not be written
+	 */
+	private void finishPendingWrite() throws IOException {
+		if (pendingWrite == null)
+			return;
+		try {
+			pendingWrite.get();
+			arena.unpinParents();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("interrupted while writing checkpoint " + file, e);
+		} catch (ExecutionException e) {
+			arena.unpinParents();
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw new IOException("could not write checkpoint " + file, e.getCause());
+		} finally {
+			pendingWrite = null;
+		}
+	}
+
+	/**
+	 * waits for the pending checkpoint to be written, and stops the writer thread
+	 *
+	 * @throws IOException if the pending checkpoint could not be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			finishPendingWrite();
+		} finally {
+			writerThread.shutdown();
+		}
+	}
+}
@@ -0,0 +1,25 @@
+package com.parker.david;
+
+import java.util.SplittableRandom;
+
+/**
+ * an interface allowing multiple crossover methods within a population arena.
+ * implementations must be reentrant: they may be called from several threads at once, so must keep no mutable state,
+ * take all randomness from the random number generator passed in, and use the caller's workspace for scratch space
+ */
+public interface ArenaCrossover {
+	/**
+	 * breeds two parents of the arena's current generation into two offspring slots.
+	 * implementations may only write to the two offspring slots' tours, the fitness of the offspring is evaluated by the caller
+	 *
+	 * @param arena                 the arena holding the parents and offspring
+	 * @param parent1Slot           the slot of the first parent
+	 * @param parent2Slot           the slot of the second parent
+	 * @param offspring1Slot        the slot the first offspring is written to
+	 * @param offspring2Slot        the slot the second offspring is written to
+	 * @param randomNumberGenerator the random number generator of the calling thread
+	 * @param workspace             scratch space owned by the calling thread
+	 */
+	void breedSlots(PopulationArena arena, int parent1Slot, int parent2Slot, int offspring1Slot, int offspring2Slot,
+					SplittableRandom randomNumberGenerator, BreedingWorkspace workspace);
+}
@@ -0,0 +1,454 @@
+package com.parker.david;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * a genetic algorithm that evolves a population held in a population arena.
+ * uses the same strategies as the object based algorithm: random generation, tournament parent selection, two-point crossover,
+ * swapping two cities of one offspring as mutation, and elitist replacement, but each of them works on the arena's primitive buffers.
+ * all buffers and scratch space are allocated when this object is created, so evolving a generation allocates nothing.
+ * the strategies are reentrant, so subclasses may produce offspring on several threads at once.
+ * as no records are kept, solutions are only materialised as objects when the best solution is requested
+ */
+public class ArenaEvolution {
+
+	/**
+	 * the arena holding the population being evolved
+	 */
+	private final PopulationArena arena;
+
+	/**
+	 * the strategy used to select parents for crossover
+	 */
+	private final ArenaParentSelector selector;
+
+	/**
+	 * the strategy used to breed offspring
+	 */
+	private final ArenaCrossover breeder;
+
+	/**
+	 * the strategy used to mutate an offspring
+	 */
+	private final ArenaMutator mutator;
+
+	/**
+	 * the local search improving each offspring before replacement, or null for a plain genetic algorithm
+	 */
+	private ArenaLocalSearch localSearch;
+
+	/**
+	 * the number of fitnesses each thread producing offspring caches, or 0 to not cache fitnesses
+	 */
+	private int fitnessCacheCapacity;
+
+	/**
+	 * how mutation and restarts react to the diversity of the parents, or null to not track diversity
+	 */
+	private DiversityControl diversityControl;
+
+	/**
+	 * the edge frequencies of the parents, kept up to date by replacement while there is a diversity control, otherwise null
+	 */
+	private EdgeFrequencies edgeFrequencies;
+
+	/**
+	 * the number of offspring mutated each generation, adapted to the diversity of the parents
+	 */
+	private int mutatedOffspring = 1;
+
+	/**
+	 * the number of times the population has restarted after collapsing
+	 */
+	private int restartCount;
+
+	/**
+	 * the metrics each phase of a generation is timed into, or null to not time them
+	 */
+	private PhaseMetrics metrics;
+
+	/**
+	 * the strategy used to select the next generation from parents and offspring
+	 */
+	private ElitistSelection replacement;
+
+	/**
+	 * scratch space for breeding on the thread evolving this population
+	 */
+	private final BreedingWorkspace workspace;
+
+	/**
+	 * the stream of random numbers of the thread evolving this population, replaced with a freshly seeded one by reseed
+	 */
+	private SplittableRandom randomNumberGenerator;
+
+	/**
+	 * the number of tours evaluated in full so far, starting with the random first generation. added to by every thread producing offspring
+	 */
+	private final LongAdder evaluationCount = new LongAdder();
+
+	/**
+	 * the number of generations evolved so far
+	 */
+	private int generationNumber;
+
+	/**
+	 * constructor, allocates the arena and all scratch space, and randomly initialises the first generation
+	 *
+	 * @param instance              the problem to solve
+	 * @param populationSize        the number of parents in a generation
+	 * @param offspringCount        the number of offspring bred each generation, must be even as offspring are bred in pairs
+	 * @param tournamentSize        the number of parents drawn into each tournament for parent selection
+	 * @param randomNumberGenerator the stream of random numbers this population evolves with, this object takes ownership of it
+	 */
+	ArenaEvolution(TSPInstance instance, int populationSize, int offspringCount, int tournamentSize, SplittableRandom randomNumberGenerator) {
+		this(instance, populationSize, offspringCount, new TournamentSelection(tournamentSize), new TwoPointCrossOver(), new SwapTwoCities(), randomNumberGenerator);
+	}
+
+	/**
+	 * constructor, allocates the arena and all scratch space, and randomly initialises the first generation
+	 *
+	 * @param instance              the problem to solve
+	 * @param populationSize        the number of parents in a generation
+	 * @param offspringCount        the number of offspring bred each generation, must be even as offspring are bred in pairs
+	 * @param selector              the strategy used to select parents for crossover
+	 * @param breeder               the strategy used to breed offspring
+	 * @param mutator               the strategy used to mutate an offspring
+	 * @param randomNumberGenerator the stream of random numbers this population evolves with, this object takes ownership of it
+	 */
+	ArenaEvolution(TSPInstance instance, int populationSize, int offspringCount,
+				   ArenaParentSelector selector, ArenaCrossover breeder, ArenaMutator mutator, SplittableRandom randomNumberGenerator) {
+		if (offspringCount % 2 != 0)
+			throw new IllegalArgumentException("offspring are bred in pairs, so the offspring count must be even, found " + offspringCount);
+		if (populationSize < 2)
+			throw new IllegalArgumentException("at least two parents are needed to breed, found " + populationSize);
+		if (instance.cityCount() < 3)
+			throw new IllegalArgumentException("two-point crossover needs at least three cities, found " + instance.cityCount());
+		this.arena = new PopulationArena(instance, populationSize, offspringCount);
+		this.selector = selector;
+		this.breeder = breeder;
+		this.mutator = mutator;
+		this.replacement = new ElitistSelection();
+		this.workspace = new BreedingWorkspace(instance.cityCount());
+		this.randomNumberGenerator = randomNumberGenerator;
+		new RandomGeneration().initialise(arena, randomNumberGenerator);
+		evaluationCount.add(populationSize);
+	}
+
+	/**
+	 * sets a local search to improve every offspring after mutation and before replacement, making this a memetic algorithm
+	 *
+	 * @param localSearch the local search to use, or null for none
+	 */
+	void setLocalSearch(ArenaLocalSearch localSearch) {
+		this.localSearch = localSearch;
+	}
+
+	/**
+	 * sets the number of fitnesses each thread producing offspring caches by tour hash, so offspring that are the same tour as a recent
+	 * one, up to rotation, and reversal on a symmetric problem, are not re-evaluated. each thread has its own cache, created the first time it produces offspring
+	 *
+	 * @param fitnessCacheCapacity the number of fitnesses to cache per thread, or 0 to not cache fitnesses
+	 */
+	void setFitnessCacheCapacity(int fitnessCacheCapacity) {
+		if (fitnessCacheCapacity < 0)
+			throw new IllegalArgumentException("the fitness cache capacity cannot be negative, found " + fitnessCacheCapacity);
+		this.fitnessCacheCapacity = fitnessCacheCapacity;
+	}
+
+	/**
+	 * sets whether replacement rejects offspring that are the same tour as a solution already selected, see ElitistSelection
+	 *
+	 * @param rejectDuplicates true to keep the population free of duplicates while there are enough distinct tours
+	 */
+	void setRejectDuplicates(boolean rejectDuplicates) {
+		this.replacement = new ElitistSelection(rejectDuplicates);
+	}
+
+	/**
+	 * sets how mutation and restarts react to the diversity of the parents, which is tracked from then on by counting their edges
+	 *
+	 * @param diversityControl the diversity control, or null to stop tracking diversity
+	 */
+	void setDiversityControl(DiversityControl diversityControl) {
+		this.diversityControl = diversityControl;
+		this.edgeFrequencies = diversityControl != null ? new EdgeFrequencies(arena) : null;
+		this.mutatedOffspring = diversityControl != null ? diversityControl.mutatedOffspring(edgeFrequencies.diversity(), arena.getOffspringCount()) : 1;
+	}
+
+	/**
+	 * accessor for the edge frequencies of the parents
+	 *
+	 * @return the edge frequencies, or null if diversity is not tracked
+	 */
+	public EdgeFrequencies getEdgeFrequencies() {
+		return edgeFrequencies;
+	}
+
+	/**
+	 * the number of times the population has restarted after collapsing
+	 *
+	 * @return the int restart count
+	 */
+	public int getRestartCount() {
+		return restartCount;
+	}
+
+	/**
+	 * sets the metrics to time the selection, crossover, evaluation, mutation, local search and replacement of every generation into.
+	 * generations are not ended, that is left to whoever drives the evolution, so that reporting can be counted as part of them
+	 *
+	 * @param metrics the metrics, or null to not time anything
+	 */
+	void setMetrics(PhaseMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * accessor for the arena holding the population
+	 *
+	 * @return the population arena
+	 */
+	public PopulationArena getArena() {
+		return arena;
+	}
+
+	/**
+	 * the number of generations evolved so far
+	 *
+	 * @return the int generation number, starting at 0 before any evolution
+	 */
+	public int getGenerationNumber() {
+		return generationNumber;
+	}
+
+	/**
+	 * the number of tours evaluated in full so far, including the first generation but not fitnesses found in a fitness cache
+	 * or derived by delta, as mutation and local search do
+	 *
+	 * @return the long number of evaluations
+	 */
+	public long getEvaluationCount() {
+		return evaluationCount.sum();
+	}
+
+	/**
+	 * replaces the stream of random numbers with one seeded from it, and returns that seed.
+	 * the state of a splittable random cannot be read, so this is how a checkpoint captures it: a run resumed with the returned seed
+	 * draws exactly the same random numbers as this run does from here on
+	 *
+	 * @return the long seed of the new stream
+	 */
+	long reseed() {
+		long seed = randomNumberGenerator.nextLong();
+		randomNumberGenerator = new SplittableRandom(seed);
+		return seed;
+	}
+
+	/**
+	 * resumes evolution from a checkpoint, replacing the parents, generation number, evaluation count and stream of random numbers
+	 *
+	 * @param parentTours      the tours of the parents, populationSize tours of cityCount cities one after another
+	 * @param parentFitness    the fitnesses of the parents
+	 * @param generationNumber the number of generations evolved before the checkpoint
+	 * @param evaluationCount  the number of evaluations made before the checkpoint
+	 * @param randomSeed       the seed returned by reseed when the checkpoint was taken
+	 */
+	void resume(int[] parentTours, int[] parentFitness, int generationNumber, long evaluationCount, long randomSeed) {
+		arena.loadParents(parentTours, parentFitness);
+		if (diversityControl != null) {
+			edgeFrequencies.reset(arena);
+			mutatedOffspring = diversityControl.mutatedOffspring(edgeFrequencies.diversity(), arena.getOffspringCount());
+		}
+		this.generationNumber = generationNumber;
+		this.evaluationCount.reset();
+		this.evaluationCount.add(evaluationCount);
+		this.randomNumberGenerator = new SplittableRandom(randomSeed);
+	}
+
+	/**
+	 * evolves one generation: breeds, evaluates and mutates offspring into the offspring slots,
+	 * then replaces the parents with the best of parents and offspring
+	 */
+	public void evolveGeneration() {
+		//pick the first offspring that will be mutated up front, so that offspring can be produced in any order
+		int mutatedSlot = -1;
+		if (arena.getOffspringCount() > 0)
+			mutatedSlot = arena.firstOffspringSlot() + randomNumberGenerator.nextInt(arena.getOffspringCount());
+
+		produceOffspring(mutatedSlot);
+
+		//select the next generation
+		long lapStart = metrics != null ? PhaseMetrics.start() : 0;
+		replacement.replace(arena, edgeFrequencies);
+		if (diversityControl != null)
+			adaptToDiversity();
+		if (metrics != null)
+			metrics.lap(Phase.REPLACE, lapStart);
+		generationNumber++;
+	}
+
+	/**
+	 * reacts to the diversity of the new parents: restarts the population if it has collapsed, then sets the mutation intensity
+	 */
+	private void adaptToDiversity() {
+		if (diversityControl.shouldRestart(edgeFrequencies.diversity()))
+			restart();
+		mutatedOffspring = diversityControl.mutatedOffspring(edgeFrequencies.diversity(), arena.getOffspringCount());
+	}
+
+	/**
+	 * replaces every parent but the best with a copy of the best, mutated by many swaps, then counts the parents' edges afresh
+	 */
+	private void restart() {
+		int best = arena.bestSlot();
+		int swaps = diversityControl.restartSwaps(arena.cityCount());
+		for (int slot = 0; slot < arena.getPopulationSize(); slot++) {
+			if (slot == best)
+				continue;
+			arena.copySlot(best, slot);
+			for (int swap = 0; swap < swaps; swap++) {
+				mutator.mutateSlot(arena, slot, randomNumberGenerator);
+			}
+		}
+		edgeFrequencies.reset(arena);
+		restartCount++;
+	}
+
+	/**
+	 * overwrites a parent with a solution from elsewhere, such as a migrant from another island, keeping the edge frequencies up to date
+	 *
+	 * @param slot     the parent slot to overwrite
+	 * @param solution a solution of this evolution's problem
+	 */
+	void storeParent(int slot, CandidateSolution solution) {
+		if (edgeFrequencies != null)
+			edgeFrequencies.remove(arena.getTours(), arena.offset(slot));
+		arena.store(slot, solution);
+		if (edgeFrequencies != null)
+			edgeFrequencies.add(arena.getTours(), arena.offset(slot));
+	}
+
+	/**
+	 * produces every offspring of the current generation. this implementation produces them all on the calling thread
+	 *
+	 * @param mutatedSlot the first offspring slot that should be mutated, or -1 for none
+	 */
+	void produceOffspring(int mutatedSlot) {
+		produceOffspring(arena.firstOffspringSlot(), arena.slotCount(), mutatedSlot, randomNumberGenerator, workspace);
+	}
+
+	/**
+	 * accessor for the stream of random numbers of the thread evolving this population.
+	 * subclasses producing offspring on other threads should only use this on the evolving thread, to seed streams for the others
+	 *
+	 * @return the random number generator
+	 */
+	SplittableRandom getRandomNumberGenerator() {
+		return randomNumberGenerator;
+	}
+
+	/**
+	 * produces a range of offspring: selects a pair of parents for each pair of offspring slots, breeds them,
+	 * evaluates the offspring, mutates those of them picked for mutation, then applies any local search.
+	 * only the slots within the range are written to, so disjoint ranges may be produced on different threads at once
+	 *
+	 * @param fromSlot              the first offspring slot to produce, must be an even distance from the first offspring slot
+	 * @param toSlot                the slot after the last offspring slot to produce
+	 * @param mutatedSlot           the first offspring slot that should be mutated, or -1 for none
+	 * @param randomNumberGenerator the random number generator of the calling thread
+	 * @param workspace             scratch space owned by the calling thread
+	 */
+	void produceOffspring(int fromSlot, int toSlot, int mutatedSlot, SplittableRandom randomNumberGenerator, BreedingWorkspace workspace) {
+		//time each phase into the metrics, if any, reading the field once as several threads may be producing offspring
+		PhaseMetrics metrics = this.metrics;
+		if (fitnessCacheCapacity > 0 && (workspace.fitnessCache == null || workspace.fitnessCache.capacity() != fitnessCacheCapacity))
+			workspace.fitnessCache = new FitnessCache(fitnessCacheCapacity);
+		FitnessCache fitnessCache = fitnessCacheCapacity > 0 ? workspace.fitnessCache : null;
+		long lapStart = metrics != null ? PhaseMetrics.start() : 0;
+		for (int slot = fromSlot; slot < toSlot; slot += 2) {
+			//select a pair of parents and breed them straight into the offspring slots
+			int parent1 = selector.getParentSlot(arena, -1, randomNumberGenerator);
+			int parent2 = selector.getParentSlot(arena, parent1, randomNumberGenerator);
+			if (metrics != null)
+				lapStart = metrics.lap(Phase.SELECT, lapStart);
+			breeder.breedSlots(arena, parent1, parent2, slot, slot + 1, randomNumberGenerator, workspace);
+			if (metrics != null)
+				lapStart = metrics.lap(Phase.CROSSOVER, lapStart);
+			int evaluations = 2;
+			if (fitnessCache != null) {
+				//only tours missing from the cache are actually evaluated
+				long missesBefore = fitnessCache.getMisses();
+				arena.evaluate(slot, fitnessCache);
+				arena.evaluate(slot + 1, fitnessCache);
+				evaluations = (int) (fitnessCache.getMisses() - missesBefore);
+			} else {
+				arena.evaluate(slot);
+				arena.evaluate(slot + 1);
+			}
+			evaluationCount.add(evaluations);
+			if (metrics != null) {
+				metrics.countEvaluations(evaluations);
+				lapStart = metrics.lap(Phase.EVALUATE, lapStart);
+			}
+
+			//mutate the offspring picked for mutation, their fitness is updated by delta
+			if (isMutated(slot, mutatedSlot) || isMutated(slot + 1, mutatedSlot)) {
+				EdgeFrequencies fixedEdges = diversityControl != null && diversityControl.fixesBackbone() ? edgeFrequencies : null;
+				for (int mutated = slot; mutated < slot + 2; mutated++) {
+					if (isMutated(mutated, mutatedSlot))
+						mutator.mutateSlot(arena, mutated, randomNumberGenerator, fixedEdges);
+				}
+				if (metrics != null)
+					lapStart = metrics.lap(Phase.MUTATE, lapStart);
+			}
+
+			if (localSearch != null) {
+				localSearch.improveSlot(arena, slot, workspace);
+				localSearch.improveSlot(arena, slot + 1, workspace);
+				if (metrics != null)
+					lapStart = metrics.lap(Phase.LOCAL_SEARCH, lapStart);
+			}
+		}
+	}
+
+	/**
+	 * the fitness of the best parent of the current generation
+	 *
+	 * @return the int best fitness
+	 */
+	public int getBestFitness() {
+		return arena.getFitness()[arena.bestSlot()];
+	}
+
+	/**
+	 * materialises the best parent of the current generation as a candidate solution
+	 *
+	 * @return a new candidate solution holding a copy of the best tour
+	 */
+	public CandidateSolution getBestSolution() {
+		return arena.toSolution(arena.bestSlot());
+	}
+
+	/**
+	 * the mean fitness of the parents of the current generation
+	 *
+	 * @return a double for mean population fitness
+	 */
+	public double meanFitness() {
+		return (double) arena.parentFitnessSum() / arena.getPopulationSize();
+	}
+
+	/**
+	 * checks if an offspring slot is to be mutated. the mutated offspring run on from the first one picked,
+	 * wrapping around from the last offspring slot to the first, so just the picked one is mutated unless diversity is low
+	 *
+	 * @param slot        the offspring slot
+	 * @param mutatedSlot the first offspring slot to mutate, or -1 for none
+	 * @return true to mutate the slot
+	 */
+	private boolean isMutated(int slot, int mutatedSlot) {
+		return mutatedSlot >= 0 && Math.floorMod(slot - mutatedSlot, arena.getOffspringCount()) < mutatedOffspring;
+	}
+}
@@ -0,0 +1,18 @@
+package com.parker.david;
+
+/**
+ * an interface allowing multiple local search methods within a population arena.
+ * implementations must be reentrant: they may be called from several threads at once, so must keep no mutable state,
+ * and must use the caller's workspace for scratch space
+ */
+public interface ArenaLocalSearch {
+	/**
+	 * improves a slot of the arena's current generation in place, keeping its fitness up to date.
+	 * implementations may only write to the given slot
+	 *
+	 * @param arena     the arena holding the tour to improve
+	 * @param slot      the slot to improve
+	 * @param workspace scratch space owned by the calling thread
+	 */
+	void improveSlot(PopulationArena arena, int slot, BreedingWorkspace workspace);
+}
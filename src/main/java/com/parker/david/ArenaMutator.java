@@ -0,0 +1,33 @@
+package com.parker.david;
+
+import java.util.SplittableRandom;
+
+/**
+ * an interface allowing multiple mutation methods within a population arena.
+ * implementations must be reentrant: they may be called from several threads at once, so must keep no mutable state,
+ * and must take all randomness from the random number generator passed in
+ */
+public interface ArenaMutator {
+	/**
+	 * mutates a slot of the arena's current generation in place, keeping its fitness up to date.
+	 * implementations may only write to the given slot
+	 *
+	 * @param arena                 the arena holding the tour to mutate
+	 * @param slot                  the slot to mutate
+	 * @param randomNumberGenerator the random number generator of the calling thread
+	 */
+	void mutateSlot(PopulationArena arena, int slot, SplittableRandom randomNumberGenerator);
+
+	/**
+	 * mutates a slot of the arena's current generation in place, keeping off the backbone edges of the population where it can.
+	 * by default the backbone is ignored, implementations that can pick where they mutate should override this
+	 *
+	 * @param arena                 the arena holding the tour to mutate
+	 * @param slot                  the slot to mutate
+	 * @param randomNumberGenerator the random number generator of the calling thread
+	 * @param fixedEdges            the edge frequencies of the parents, whose backbone edges should be kept, or null to mutate anywhere
+	 */
+	default void mutateSlot(PopulationArena arena, int slot, SplittableRandom randomNumberGenerator, EdgeFrequencies fixedEdges) {
+		mutateSlot(arena, slot, randomNumberGenerator);
+	}
+}
@@ -0,0 +1,21 @@
+package com.parker.david;
+
+import java.util.SplittableRandom;
+
+/**
+ * an interface allowing multiple methods of parent selection within a population arena.
+ * implementations must be reentrant: they may be called from several threads at once, so must keep no mutable state,
+ * and must take all randomness from the random number generator passed in
+ */
+public interface ArenaParentSelector {
+	/**
+	 * method to get a parent slot from the parents of an arena's current generation.
+	 * implementations must not modify the arena
+	 *
+	 * @param arena                 the arena holding the parent population
+	 * @param excludedSlot          a slot that may not be selected, or -1 if any slot may be selected
+	 * @param randomNumberGenerator the random number generator of the calling thread
+	 * @return the int slot of the selected parent
+	 */
+	int getParentSlot(PopulationArena arena, int excludedSlot, SplittableRandom randomNumberGenerator);
+}
@@ -0,0 +1,67 @@
+package com.parker.david;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * reports a run in a compact big endian binary format, for runs too long to report as text.
+ * the report starts with the int MAGIC and the int VERSION. each reported generation is then a GENERATION_RECORD int, followed by
+ * the int generation number, the int best fitness, the int incumbent fitness and the double mean fitness, 24 bytes in all.
+ * the result of the run is a RESULT_RECORD int, followed by the int incumbent fitness, the int number of cities, and the int city IDs of the tour
+ */
+public class BinaryReporter extends ChannelReporter {
+
+	/**
+	 * the first four bytes of every binary report, "TSPR" in ascii
+	 */
+	static final int MAGIC = 0x54535052;
+
+	/**
+	 * the version of the format
+	 */
+	static final int VERSION = 1;
+
+	/**
+	 * the int that starts a generation record
+	 */
+	static final int GENERATION_RECORD = 1;
+
+	/**
+	 * the int that starts the result record
+	 */
+	static final int RESULT_RECORD = 2;
+
+	/**
+	 * constructor, writes the magic number and version
+	 *
+	 * @param sampleInterval the number of generations between reported generations, 1 to report every generation
+	 * @param channels       the channels the report is written to
+	 * @param owned          for each channel, true if this reporter should close it when it is closed
+	 * @throws IOException if the header cannot be written
+	 */
+	BinaryReporter(int sampleInterval, WritableByteChannel[] channels, boolean[] owned) throws IOException {
+		super(sampleInterval, channels, owned);
+		writeInt(MAGIC);
+		writeInt(VERSION);
+	}
+
+	@Override
+	void writeGeneration(GAPopulationGeneration generation, CandidateSolution incumbent) throws IOException {
+		writeInt(GENERATION_RECORD);
+		writeInt(generation.getGenerationNumber());
+		writeInt(generation.getBestSolutionThisGeneration().getFitness());
+		writeInt(incumbent.getFitness());
+		writeDouble(generation.getMeanFitness());
+	}
+
+	@Override
+	void writeResult(CandidateSolution incumbent) throws IOException {
+		int[] tour = incumbent.getTour();
+		writeInt(RESULT_RECORD);
+		writeInt(incumbent.getFitness());
+		writeInt(tour.length);
+		for (int city : tour) {
+			writeInt(city);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package com.parker.david;
+
+/**
+ * scratch space used while producing offspring, by crossover and local search. each thread producing offspring owns its own workspace,
+ * so that the arena operators can stay stateless and reentrant without allocating
+ */
+public class BreedingWorkspace {
+
+	/**
+	 * marks, indexed by city ID, for the cities of the first parent that an offspring takes directly
+	 */
+	final boolean[] inParent1Middle;
+
+	/**
+	 * marks, indexed by city ID, for the cities of the second parent that an offspring takes directly
+	 */
+	final boolean[] inParent2Middle;
+
+	/**
+	 * the position of each city in a tour, indexed by city ID: the tour being improved by local search, or a parent being bred
+	 */
+	final int[] positions;
+
+	/**
+	 * the position of each city in a second tour, indexed by city ID
+	 */
+	final int[] otherPositions;
+
+	/**
+	 * a list of cities: the circular queue of cities local search still has to look at, or the cities a crossover has still to place
+	 */
+	final int[] queue;
+
+	/**
+	 * the don't-look bits of local search, inverted: true for the cities currently in the queue, indexed by city ID
+	 */
+	final boolean[] queued;
+
+	/**
+	 * the edges of the parents being bred, four entries per city
+	 */
+	final int[] edgeTable;
+
+	/**
+	 * the number of entries in use in the edge table, two counts per city: one for each parent's half of its entries
+	 */
+	final int[] edgeCounts;
+
+	/**
+	 * the cities of a walk along the parents' edges, which visits each edge at most once
+	 */
+	final int[] path;
+
+	/**
+	 * the cities of each AB-cycle of edge assembly crossover, one cycle after another
+	 */
+	final int[] cycles;
+
+	/**
+	 * the index in cycles of the start of each AB-cycle, followed by the index of the end of the last one
+	 */
+	final int[] cycleStarts;
+
+	/**
+	 * the two neighbours of each city in an offspring being assembled from edges
+	 */
+	final int[] links;
+
+	/**
+	 * the subtour each city of an offspring being assembled belongs to, indexed by city ID
+	 */
+	final int[] subtours;
+
+	/**
+	 * the number of cities in each subtour, zero once it has been merged into another
+	 */
+	final int[] subtourSizes;
+
+	/**
+	 * a city of each subtour, that it can be walked from
+	 */
+	final int[] subtourStarts;
+
+	/**
+	 * the fitness cache of the thread owning this workspace, created by the evolution the first time it is needed, or null for none
+	 */
+	FitnessCache fitnessCache;
+
+	/**
+	 * constructor, allocates scratch space for tours of the given number of cities
+	 *
+	 * @param cityCount the number of cities in a tour
+	 */
+	BreedingWorkspace(int cityCount) {
+		this.inParent1Middle = new boolean[cityCount];
+		this.inParent2Middle = new boolean[cityCount];
+		this.positions = new int[cityCount];
+		this.otherPositions = new int[cityCount];
+		this.queue = new int[cityCount];
+		this.queued = new boolean[cityCount];
+		this.edgeTable = new int[4 * cityCount];
+		this.edgeCounts = new int[2 * cityCount];
+		this.path = new int[2 * cityCount + 1];
+		this.cycles = new int[2 * cityCount];
+		this.cycleStarts = new int[cityCount + 1];
+		this.links = new int[2 * cityCount];
+		this.subtours = new int[cityCount];
+		this.subtourSizes = new int[cityCount];
+		this.subtourStarts = new int[cityCount];
+	}
+}
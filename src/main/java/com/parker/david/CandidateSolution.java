@@ -1,20 +1,27 @@
 package com.parker.david;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.stream.Collectors;
 
 /**
- * the candidate solution, contains an array of cities as its core data structure.
+ * the candidate solution, contains an array of city IDs as its core data structure.
  * This is a vectorized permutation encoding as each city as a unique ID
  * fitness of a solution is seen as the sum of the edges of a route
- * as this object only contains references to the underlying cities, it should have a low memory footprint
+ * as the tour is a primitive array of city indices, it has a low memory footprint and can be copied with a single array copy.
+ * city objects are only created from the IDs when a solution is reported
  */
 public class CandidateSolution implements Comparable<CandidateSolution> {
 
 	/**
-	 * the core data structure, stores the references to cities in an order. the order of these cities is what defines a solution
+	 * the core data structure, stores the IDs of cities in an order. the order of these cities is what defines a solution
 	 */
-	private final ArrayList<City> cities;
+	private final int[] tour;
+
+	/**
+	 * the problem this solution is a tour of, used to look up distances and to materialise cities
+	 */
+	private final TSPInstance instance;
 
 	/**
 	 * an internal fitness value calculated at creation of the solution.
@@ -24,14 +31,48 @@ public class CandidateSolution implements Comparable<CandidateSolution> {
 	private final int fitness;
 
 	/**
-	 * an accessor for the internal city data structure
+	 * the canonical hash of the tour, see TourHash, calculated the first time it is needed unless it was known at creation
+	 */
+	private long tourHash;
+
+	/**
+	 * true once the tour hash is known
+	 */
+	private boolean tourHashKnown;
+
+	/**
+	 * an accessor for the cities of this solution, in tour order.
+	 * the city objects are materialised from the tour on every call, so this should only be used when reporting
 	 *
 	 * @return an array list of unique cities
 	 */
 	public ArrayList<City> getCities() {
+		ArrayList<City> cities = new ArrayList<>(tour.length);
+		for (int cityId : tour) {
+			cities.add(instance.getCity(cityId));
+		}
 		return cities;
 	}
 
+	/**
+	 * an accessor for the internal tour of city IDs.
+	 * the array is shared with this solution, and must not be modified
+	 *
+	 * @return the array of city IDs in tour order
+	 */
+	int[] getTour() {
+		return tour;
+	}
+
+	/**
+	 * an accessor for the problem this solution belongs to
+	 *
+	 * @return the TSP instance
+	 */
+	public TSPInstance getInstance() {
+		return instance;
+	}
+
 	/**
 	 * accessor for the fitness property
 	 *
@@ -42,58 +83,221 @@ public class CandidateSolution implements Comparable<CandidateSolution> {
 	}
 
 	/**
-	 * the constructor. takes in cities, and calculates fitness upon creation
+	 * the constructor. takes in a tour of city IDs, and calculates fitness upon creation.
+	 * the tour array is owned by this solution from this point on, and must not be modified by the caller
 	 *
-	 * @param cities an array list of cities in an order which corresponds to the other the salesman in the TSP would follow
+	 * @param instance the problem the tour belongs to
+	 * @param tour     an array of city IDs in an order which corresponds to the other the salesman in the TSP would follow
 	 */
-	CandidateSolution(ArrayList<City> cities) {
-		this.cities = cities;
+	CandidateSolution(TSPInstance instance, int[] tour) {
+		this.instance = instance;
+		this.tour = tour;
 		this.fitness = calculateSolutionFitness(); //eagerly calculate fitness upon creation of this solution
 	}
 
+	/**
+	 * a constructor for when the fitness of the tour is already known, such as for copies,
+	 * or for operators that derive the fitness of a new tour from its parent's by delta
+	 *
+	 * @param instance the problem the tour belongs to
+	 * @param tour     an array of city IDs in tour order
+	 * @param fitness  the already known fitness of the tour
+	 */
+	CandidateSolution(TSPInstance instance, int[] tour, int fitness) {
+		this.instance = instance;
+		this.tour = tour;
+		this.fitness = fitness;
+	}
+
+	/**
+	 * a constructor for when both the fitness and the canonical hash of the tour are already known, such as for fitnesses found in a cache
+	 *
+	 * @param instance the problem the tour belongs to
+	 * @param tour     an array of city IDs in tour order
+	 * @param fitness  the already known fitness of the tour
+	 * @param tourHash the already known canonical hash of the tour
+	 */
+	CandidateSolution(TSPInstance instance, int[] tour, int fitness, long tourHash) {
+		this(instance, tour, fitness);
+		this.tourHash = tourHash;
+		this.tourHashKnown = true;
+	}
+
+	/**
+	 * accessor for the canonical hash of the tour, the same for every rotation of it, and on a symmetric problem every reversal, see TourHash.
+	 * the hash is calculated the first time it is needed, in time linear in the number of cities
+	 *
+	 * @return the long tour hash
+	 */
+	long getTourHash() {
+		if (!tourHashKnown) {
+			tourHash = TourHash.hash(tour, !instance.isSymmetric());
+			tourHashKnown = true;
+		}
+		return tourHash;
+	}
+
 	/**
 	 * an accessor to the number of cities in the TSP route
 	 *
 	 * @return the int number of cities in the solution
 	 */
 	public int cityCount() {
-		return cities.size();
+		return tour.length;
 	}
 
 	/**
-	 * a semi-deep copy method. the new candidate solution has a brand new array list that is not linked at all to the initial one
-	 * cities in the array list are shared. There will only ever be n cities ever created in the JVM where n is the number of cities in the TSP route
+	 * a deep copy method. the new candidate solution has a brand new tour array that is not linked at all to the initial one.
+	 * as the fitness of the tour is already known, it is not recalculated
 	 *
 	 * @return a brand new solution that has the same order of cities as the current one
 	 */
 	CandidateSolution copy() {
-		ArrayList<City> solutionCities = new ArrayList<>();
-		for (City city : cities) {
-			solutionCities.add(city);
-		}
-		return new CandidateSolution(solutionCities);
+		return new CandidateSolution(instance, tour.clone(), fitness);
 	}
 
 	/**
-	 * the fitness calculation. iterates through the cities stored and checks the distance to the next city.
-	 * loops back to the start for the last city's distance, summing the distances as it goes.
+	 * creates a new solution with the cities at two positions of this solution's tour swapped.
+	 * the fitness of the new solution is derived from this solution's fitness by only re-costing the (at most four)
+	 * edges touching the swapped positions, rather than re-summing the whole tour. if this solution's tour hash is known,
+	 * the new solution's is derived the same way.
+	 * this solution is left intact
 	 *
-	 * @return an int fitness(total distance) of this solution
+	 * @param position1 the position in the tour of the first city to swap
+	 * @param position2 the position in the tour of the second city to swap
+	 * @return a new solution with the two cities swapped
 	 */
-	private int calculateSolutionFitness() {
-		int cityCount = cities.size();
+	CandidateSolution swapCities(int position1, int position2) {
+		int swappedFitness = fitness + swapDelta(tour, instance.getDistances(), position1, position2);
+
+		int[] swappedTour = tour.clone();
+		swappedTour[position1] = tour[position2];
+		swappedTour[position2] = tour[position1];
+		if (tourHashKnown)
+			return new CandidateSolution(instance, swappedTour, swappedFitness, tourHash + TourHash.swapDelta(tour, 0, tour.length, position1, position2, !instance.isSymmetric()));
+		return new CandidateSolution(instance, swappedTour, swappedFitness);
+	}
+
+	/**
+	 * the change in tour length that swapping the cities at two positions of a tour would cause, without changing the tour.
+	 * only the edges either side of the two positions change, so this is constant time regardless of the number of cities.
+	 * when the positions are adjacent (including across the end of the tour) the edges they share are only counted once
+	 *
+	 * @param tour      the tour of city IDs
+	 * @param distances the distances between the cities
+	 * @param position1 the position of the first city to swap
+	 * @param position2 the position of the second city to swap
+	 * @return the new tour length minus the old tour length
+	 */
+	static int swapDelta(int[] tour, DistanceMatrix distances, int position1, int position2) {
+		return swapDelta(tour, 0, tour.length, distances, position1, position2);
+	}
+
+	/**
+	 * the change in tour length that swapping the cities at two positions of a tour would cause, for a tour stored
+	 * at an offset of a larger array such as a population arena
+	 *
+	 * @param tours     the array holding the tour
+	 * @param offset    the index of the tour's first city
+	 * @param cityCount the number of cities in the tour
+	 * @param distances the distances between the cities
+	 * @param position1 the position of the first city to swap
+	 * @param position2 the position of the second city to swap
+	 * @return the new tour length minus the old tour length
+	 */
+	static int swapDelta(int[] tours, int offset, int cityCount, DistanceMatrix distances, int position1, int position2) {
+		if (position1 == position2)
+			return 0;
+
+		//the edges touching a position start at the position before it, and at the position itself
+		int edge1 = (position1 + cityCount - 1) % cityCount;
+		int edge2 = position1;
+		int edge3 = (position2 + cityCount - 1) % cityCount;
+		int edge4 = position2;
+
+		int delta = edgeDelta(tours, offset, cityCount, distances, position1, position2, edge1);
+		if (edge2 != edge1)
+			delta += edgeDelta(tours, offset, cityCount, distances, position1, position2, edge2);
+		if (edge3 != edge1 && edge3 != edge2)
+			delta += edgeDelta(tours, offset, cityCount, distances, position1, position2, edge3);
+		if (edge4 != edge1 && edge4 != edge2 && edge4 != edge3)
+			delta += edgeDelta(tours, offset, cityCount, distances, position1, position2, edge4);
+		return delta;
+	}
+
+	/**
+	 * the change in length of the single edge starting at a position of a tour, if the cities at two positions were swapped
+	 *
+	 * @param tours     the array holding the tour
+	 * @param offset    the index of the tour's first city
+	 * @param cityCount the number of cities in the tour
+	 * @param distances the distances between the cities
+	 * @param position1 the position of the first city to swap
+	 * @param position2 the position of the second city to swap
+	 * @param edgeStart the position the edge departs from, the edge arrives at the next position in the cycle
+	 * @return the new edge length minus the old edge length
+	 */
+	private static int edgeDelta(int[] tours, int offset, int cityCount, DistanceMatrix distances, int position1, int position2, int edgeStart) {
+		int edgeEnd = (edgeStart + 1) % cityCount;
+		int before = distances.getDistance(tours[offset + edgeStart], tours[offset + edgeEnd]);
+		int after = distances.getDistance(
+				tours[offset + positionAfterSwap(position1, position2, edgeStart)],
+				tours[offset + positionAfterSwap(position1, position2, edgeEnd)]);
+		return after - before;
+	}
+
+	/**
+	 * the position whose city would be at a given position of a tour, if the cities at two positions were swapped
+	 *
+	 * @param position1 the position of the first city to swap
+	 * @param position2 the position of the second city to swap
+	 * @param position  the position we want the city at
+	 * @return the position that city is at before the swap
+	 */
+	static int positionAfterSwap(int position1, int position2, int position) {
+		if (position == position1)
+			return position2;
+		if (position == position2)
+			return position1;
+		return position;
+	}
+
+	/**
+	 * the length of a tour stored at an offset of a larger array, such as a population arena.
+	 * iterates through the cities and checks the distance to the next city, looping back to the start for the last city
+	 *
+	 * @param tours     the array holding the tour
+	 * @param offset    the index of the tour's first city
+	 * @param cityCount the number of cities in the tour
+	 * @param distances the distances between the cities
+	 * @return the int total distance of the tour
+	 */
+	static int tourLength(int[] tours, int offset, int cityCount, DistanceMatrix distances) {
+		if (cityCount == 0)
+			return 0;
 		int totalDistance = 0;
 
 		//loop through all cities and add up the distances between each one and the next in the cycle
-		for (int i = 0; i < cityCount; i++) {
-			City departureCity = cities.get(i);
-			City destinationCity = cities.get((i + 1) % cityCount);//reference the next city (or first city for the last city)
-
-			totalDistance += departureCity.getDistanceToCity(destinationCity);
+		int departureCityId = tours[offset + cityCount - 1];//start with the edge from the last city back to the first
+		for (int i = offset; i < offset + cityCount; i++) {
+			int destinationCityId = tours[i];
+			totalDistance += distances.getDistance(departureCityId, destinationCityId);
+			departureCityId = destinationCityId;
 		}
 		return totalDistance;
 	}
 
+	/**
+	 * the fitness calculation. iterates through the cities stored and checks the distance to the next city.
+	 * loops back to the start for the last city's distance, summing the distances as it goes.
+	 * distances are read straight from the shared distance matrix rather than through each city
+	 *
+	 * @return an int fitness(total distance) of this solution
+	 */
+	private int calculateSolutionFitness() {
+		return tourLength(tour, 0, tour.length, instance.getDistances());
+	}
+
 	/**
 	 * an implementation of the Comparable interface. This allows java's collections library to make comparisons between
 	 * Candidate solution objects directly.
@@ -114,6 +318,6 @@ public class CandidateSolution implements Comparable<CandidateSolution> {
 	 */
 	@Override
 	public String toString() {
-		return "[" + cities.stream().map(City::toString).collect(Collectors.joining("-")) + "]";
+		return "[" + Arrays.stream(tour).mapToObj(Integer::toString).collect(Collectors.joining("-")) + "]";
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,159 @@
+package com.parker.david;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * the common part of reporters that stream their report through NIO channels.
+ * everything is written into one fixed size buffer, which is written out to every channel when it fills, and after every reported
+ * generation so the report can be followed while the run goes on. memory use does not grow with the length of the run.
+ * only every sampleInterval-th generation is reported, starting with generation 0
+ */
+public abstract class ChannelReporter implements RunReporter {
+
+	/**
+	 * the size of the buffer, in bytes
+	 */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * the buffer everything is written into before it goes out to the channels
+	 */
+	private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	/**
+	 * the channels the report is written to
+	 */
+	private final WritableByteChannel[] channels;
+
+	/**
+	 * for each channel, true if this reporter should close it when it is closed, false for channels such as standard output
+	 */
+	private final boolean[] owned;
+
+	/**
+	 * the number of generations between reported generations
+	 */
+	private final int sampleInterval;
+
+	/**
+	 * constructor
+	 *
+	 * @param sampleInterval the number of generations between reported generations, 1 to report every generation
+	 * @param channels       the channels the report is written to
+	 * @param owned          for each channel, true if this reporter should close it when it is closed
+	 */
+	ChannelReporter(int sampleInterval, WritableByteChannel[] channels, boolean[] owned) {
+		if (sampleInterval < 1)
+			throw new IllegalArgumentException("the sample interval must be at least 1, found " + sampleInterval);
+		this.sampleInterval = sampleInterval;
+		this.channels = channels;
+		this.owned = owned;
+	}
+
+	/**
+	 * writes out a generation if it is one of the sampled generations
+	 */
+	@Override
+	public final void reportGeneration(GAPopulationGeneration generation, CandidateSolution incumbent) throws IOException {
+		if (generation.getGenerationNumber() % sampleInterval != 0)
+			return;
+		writeGeneration(generation, incumbent);
+		flush();
+	}
+
+	@Override
+	public final void reportResult(CandidateSolution incumbent) throws IOException {
+		writeResult(incumbent);
+		flush();
+	}
+
+	/**
+	 * writes a sampled generation into the buffer
+	 *
+	 * @param generation the completed generation
+	 * @param incumbent  the best solution found so far in the run
+	 * @throws IOException if the buffer fills and cannot be written out
+	 */
+	abstract void writeGeneration(GAPopulationGeneration generation, CandidateSolution incumbent) throws IOException;
+
+	/**
+	 * writes the result of the run into the buffer
+	 *
+	 * @param incumbent the best solution found in the run
+	 * @throws IOException if the buffer fills and cannot be written out
+	 */
+	abstract void writeResult(CandidateSolution incumbent) throws IOException;
+
+	/**
+	 * writes text into the buffer
+	 *
+	 * @param text the text to write, encoded as UTF-8
+	 * @throws IOException if the buffer fills and cannot be written out
+	 */
+	void write(String text) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		int written = 0;
+		while (written < bytes.length) {
+			if (!buffer.hasRemaining())
+				flush();
+			int length = Math.min(buffer.remaining(), bytes.length - written);
+			buffer.put(bytes, written, length);
+			written += length;
+		}
+	}
+
+	/**
+	 * writes an int into the buffer, big endian
+	 *
+	 * @param value the value to write
+	 * @throws IOException if the buffer fills and cannot be written out
+	 */
+	void writeInt(int value) throws IOException {
+		if (buffer.remaining() < Integer.BYTES)
+			flush();
+		buffer.putInt(value);
+	}
+
+	/**
+	 * writes a double into the buffer, big endian
+	 *
+	 * @param value the value to write
+	 * @throws IOException if the buffer fills and cannot be written out
+	 */
+	void writeDouble(double value) throws IOException {
+		if (buffer.remaining() < Double.BYTES)
+			flush();
+		buffer.putDouble(value);
+	}
+
+	/**
+	 * writes everything in the buffer out to every channel, and empties it
+	 *
+	 * @throws IOException if a channel cannot be written to
+	 */
+	void flush() throws IOException {
+		buffer.flip();
+		for (WritableByteChannel channel : channels) {
+			ByteBuffer pending = buffer.duplicate();
+			while (pending.hasRemaining()) {
+				channel.write(pending);
+			}
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * writes out anything left in the buffer, and closes the channels this reporter owns
+	 */
+	@Override
+	public void close() throws IOException {
+		flush();
+		for (int i = 0; i < channels.length; i++) {
+			if (owned[i])
+				channels[i].close();
+		}
+	}
+}
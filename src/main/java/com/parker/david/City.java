@@ -1,17 +1,14 @@
 package com.parker.david;
 
-import java.util.ArrayList;
-
 /**
  * the lowest level object, representing a single city. Has an ID, and can find distances to the other cities
  */
 public class City {
 
 	/**
-	 * this is a vector indicating distance to other cities.
-	 * eg for [3,0,4] this city is 3 from city 0; 0 from city 1; and 4 from city 2
+	 * the distance matrix shared by all cities of the problem. this city's distances are looked up using its ID
 	 */
-	private final ArrayList<Integer> distancesToOtherCities;
+	private final DistanceMatrix distances;
 
 	/**
 	 * this city's ID, this also this city's index in other city's distance vectors
@@ -28,11 +25,20 @@ public class City {
 	}
 
 	/**
-	 * constructor, requires this city's ID as well as a distance vector to all other city IDs
+	 * an accessor for the distance matrix this city belongs to
+	 *
+	 * @return the distance matrix shared by all cities
+	 */
+	DistanceMatrix getDistanceMatrix() {
+		return distances;
+	}
+
+	/**
+	 * constructor, requires this city's ID as well as the distance matrix holding the distances to all other city IDs
 	 */
-	City(int cityId, ArrayList<Integer> distanceVector) {
+	City(int cityId, DistanceMatrix distances) {
 		this.cityId = cityId;
-		this.distancesToOtherCities = distanceVector;
+		this.distances = distances;
 	}
 
 	/**
@@ -42,7 +48,7 @@ public class City {
 	 * @return int corresponding to distance to the city in question
 	 */
 	public int getDistanceToCity(City otherCity) {
-		return distancesToOtherCities.get(otherCity.getCityId());
+		return distances.getDistance(cityId, otherCity.getCityId());
 	}
 
 	/**
@@ -0,0 +1,185 @@
+package com.parker.david;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * a distance matrix that stores only the coordinates of each city, and computes distances on demand with a coordinate metric.
+ * this uses memory proportional to the number of cities rather than its square, which is the only way to hold very large problems.
+ * an optional bounded cache remembers recently computed distances, which pays off for metrics that are expensive to compute, such as GEO.
+ * the cache is a direct mapped table: each pair can only live in one slot, and a newer pair simply overwrites an older one.
+ * a slot is two longs, the pair key and a stamped distance, and is shared between threads without locking as a sequence lock:
+ * a writer claims the slot by making its stamp odd with a compare and set, writes the key, then publishes the distance with an even stamp,
+ * while a reader only trusts a key read between two identical even stamps. a writer that finds a slot claimed skips caching
+ */
+public class CoordinateDistanceMatrix implements DistanceMatrix {
+
+	/**
+	 * the key of an empty cache slot, which matches no pair as city IDs are never negative
+	 */
+	private static final long EMPTY_KEY = -1L;
+
+	/**
+	 * access to the cache with memory ordering, as it is shared between threads
+	 */
+	private static final VarHandle CACHE = MethodHandles.arrayElementVarHandle(long[].class);
+
+	/**
+	 * the metric distances are computed with
+	 */
+	private final CoordinateMetric metric;
+
+	/**
+	 * the x coordinate of each city, in the metric's internal form
+	 */
+	private final double[] xCoordinates;
+
+	/**
+	 * the y coordinate of each city, in the metric's internal form
+	 */
+	private final double[] yCoordinates;
+
+	/**
+	 * the cache of computed distances, or null if caching is off. each slot is two longs: the key of the pair, the higher city ID
+	 * in the high 32 bits and the lower in the low 32 bits, then the stamp of the slot in the high 32 bits and the distance in the low 32 bits
+	 */
+	private final long[] cache;
+
+	/**
+	 * the mask selecting a cache slot from a hash, the cache size is always a power of two
+	 */
+	private final int cacheMask;
+
+	/**
+	 * constructor, without a cache
+	 *
+	 * @param metric       the metric distances are computed with
+	 * @param xCoordinates the x coordinate of each city, in the metric's internal form. the array is not copied
+	 * @param yCoordinates the y coordinate of each city, in the metric's internal form. the array is not copied
+	 */
+	CoordinateDistanceMatrix(CoordinateMetric metric, double[] xCoordinates, double[] yCoordinates) {
+		this(metric, xCoordinates, yCoordinates, 0);
+	}
+
+	/**
+	 * constructor
+	 *
+	 * @param metric       the metric distances are computed with
+	 * @param xCoordinates the x coordinate of each city, in the metric's internal form. the array is not copied
+	 * @param yCoordinates the y coordinate of each city, in the metric's internal form. the array is not copied
+	 * @param cacheSize    the number of distances to cache, rounded up to a power of two, or 0 for no cache
+	 */
+	CoordinateDistanceMatrix(CoordinateMetric metric, double[] xCoordinates, double[] yCoordinates, int cacheSize) {
+		if (xCoordinates.length != yCoordinates.length)
+			throw new IllegalArgumentException("found " + xCoordinates.length + " x coordinates but " + yCoordinates.length + " y coordinates");
+		if (cacheSize > 1 << 29)
+			throw new IllegalArgumentException("cache of " + cacheSize + " distances is too large");
+		this.metric = metric;
+		this.xCoordinates = xCoordinates;
+		this.yCoordinates = yCoordinates;
+		if (cacheSize > 0) {
+			int size = Integer.highestOneBit(cacheSize - 1) << 1;
+			this.cacheMask = Math.max(1, size) - 1;
+			this.cache = new long[2 * (cacheMask + 1)];
+			for (int slot = 0; slot <= cacheMask; slot++) {
+				cache[2 * slot] = EMPTY_KEY;
+			}
+		} else {
+			this.cache = null;
+			this.cacheMask = 0;
+		}
+	}
+
+	/**
+	 * accessor for the metric distances are computed with
+	 *
+	 * @return the coordinate metric
+	 */
+	public CoordinateMetric getMetric() {
+		return metric;
+	}
+
+	/**
+	 * accessor for a city's x coordinate, in the metric's internal form
+	 *
+	 * @param cityId the ID of the city
+	 * @return the double x coordinate
+	 */
+	public double getX(int cityId) {
+		return xCoordinates[cityId];
+	}
+
+	/**
+	 * accessor for a city's y coordinate, in the metric's internal form
+	 *
+	 * @param cityId the ID of the city
+	 * @return the double y coordinate
+	 */
+	public double getY(int cityId) {
+		return yCoordinates[cityId];
+	}
+
+	@Override
+	public int getDistance(int fromCityId, int toCityId) {
+		if (cache == null || fromCityId == toCityId)
+			return computeDistance(fromCityId, toCityId);
+
+		//every metric is symmetric, so order the pair to share one cache entry between both directions
+		int low = Math.min(fromCityId, toCityId);
+		int high = Math.max(fromCityId, toCityId);
+		long key = ((long) high << 32) | low;
+		int index = 2 * ((int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & cacheMask);
+
+		//the key is only trusted if the stamp was even, and unchanged, either side of reading it
+		long stampedDistance = (long) CACHE.getAcquire(cache, index + 1);
+		if ((stampedDistance & (1L << 32)) == 0 && (long) CACHE.getAcquire(cache, index) == key
+				&& (long) CACHE.getAcquire(cache, index + 1) == stampedDistance)
+			return (int) stampedDistance;
+
+		int distance = computeDistance(low, high);
+		store(index, key, distance);
+		return distance;
+	}
+
+	/**
+	 * caches a distance in a slot, unless another thread is writing to the slot, in which case the distance is simply not cached
+	 *
+	 * @param index    the index in the cache of the slot's key
+	 * @param key      the key of the pair
+	 * @param distance the distance between the pair
+	 */
+	private void store(int index, long key, int distance) {
+		long stampedDistance = (long) CACHE.getAcquire(cache, index + 1);
+		long stamp = stampedDistance >>> 32;
+		if ((stamp & 1) != 0 || !CACHE.compareAndSet(cache, index + 1, stampedDistance, ((stamp + 1) << 32) | (stampedDistance & 0xFFFFFFFFL)))
+			return;
+		CACHE.setRelease(cache, index, key);
+		CACHE.setRelease(cache, index + 1, (((stamp + 2) & 0xFFFFFFFFL) << 32) | (distance & 0xFFFFFFFFL));
+	}
+
+	/**
+	 * computes the distance between two cities from their coordinates
+	 *
+	 * @param fromCityId the ID of the first city
+	 * @param toCityId   the ID of the second city
+	 * @return the int distance between them
+	 */
+	private int computeDistance(int fromCityId, int toCityId) {
+		return metric.distance(xCoordinates[fromCityId], yCoordinates[fromCityId], xCoordinates[toCityId], yCoordinates[toCityId]);
+	}
+
+	@Override
+	public int cityCount() {
+		return xCoordinates.length;
+	}
+
+	/**
+	 * every coordinate metric is symmetric
+	 *
+	 * @return true
+	 */
+	@Override
+	public boolean isSymmetric() {
+		return true;
+	}
+}
@@ -0,0 +1,97 @@
+package com.parker.david;
+
+/**
+ * the ways of measuring an integer distance between two cities from their coordinates, as defined by TSPLIB.
+ * coordinates are first converted to the metric's internal form with toInternal, which lets the geographical metric convert
+ * degrees to radians once per city rather than once per distance
+ */
+public enum CoordinateMetric {
+	/**
+	 * euclidean distance rounded to the nearest integer
+	 */
+	EUC_2D {
+		@Override
+		int distance(double x1, double y1, double x2, double y2) {
+			double dx = x1 - x2;
+			double dy = y1 - y2;
+			return (int) (Math.sqrt(dx * dx + dy * dy) + 0.5);
+		}
+	},
+
+	/**
+	 * euclidean distance rounded up to the next integer
+	 */
+	CEIL_2D {
+		@Override
+		int distance(double x1, double y1, double x2, double y2) {
+			double dx = x1 - x2;
+			double dy = y1 - y2;
+			return (int) Math.ceil(Math.sqrt(dx * dx + dy * dy));
+		}
+	},
+
+	/**
+	 * the pseudo-euclidean distance used by the att48 and att532 instances
+	 */
+	ATT {
+		@Override
+		int distance(double x1, double y1, double x2, double y2) {
+			double dx = x1 - x2;
+			double dy = y1 - y2;
+			double r = Math.sqrt((dx * dx + dy * dy) / 10.0);
+			int t = (int) (r + 0.5);
+			return t < r ? t + 1 : t;
+		}
+	},
+
+	/**
+	 * the distance over the earth's surface, for coordinates given as latitude (x) and longitude (y) in DDD.MM degrees and minutes
+	 */
+	GEO {
+		/**
+		 * the value of pi TSPLIB uses for this metric, which must be used to reproduce its published distances
+		 */
+		private static final double PI = 3.141592;
+
+		/**
+		 * the radius of the earth TSPLIB uses for this metric
+		 */
+		private static final double RRR = 6378.388;
+
+		@Override
+		double toInternal(double coordinate) {
+			int degrees = (int) coordinate;
+			double minutes = coordinate - degrees;
+			return PI * (degrees + 5.0 * minutes / 3.0) / 180.0;
+		}
+
+		@Override
+		int distance(double x1, double y1, double x2, double y2) {
+			double q1 = Math.cos(y1 - y2);
+			double q2 = Math.cos(x1 - x2);
+			double q3 = Math.cos(x1 + x2);
+			return (int) (RRR * Math.acos(0.5 * ((1.0 + q1) * q2 - (1.0 - q1) * q3)) + 1.0);
+		}
+	};
+
+	/**
+	 * converts a coordinate as written in a TSPLIB file to the form distance expects. most metrics use coordinates as they are
+	 *
+	 * @param coordinate a single coordinate as written in the file
+	 * @return the coordinate in this metric's internal form
+	 */
+	double toInternal(double coordinate) {
+		return coordinate;
+	}
+
+	/**
+	 * the distance between two cities, given their coordinates in this metric's internal form
+	 *
+	 * @param x1 the first city's x coordinate
+	 * @param y1 the first city's y coordinate
+	 * @param x2 the second city's x coordinate
+	 * @param y2 the second city's y coordinate
+	 * @return the int distance between the cities
+	 */
+	abstract int distance(double x1, double y1, double x2, double y2);
+}
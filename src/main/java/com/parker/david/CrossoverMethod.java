@@ -0,0 +1,76 @@
+package com.parker.david;
+
+import java.util.SplittableRandom;
+
+/**
+ * the crossover algorithms available to a run, by name
+ */
+public enum CrossoverMethod {
+	/**
+	 * two-point crossover, swapping the middles of the parents
+	 */
+	TWO_POINT,
+
+	/**
+	 * order crossover (OX)
+	 */
+	ORDER,
+
+	/**
+	 * partially mapped crossover (PMX)
+	 */
+	PARTIALLY_MAPPED,
+
+	/**
+	 * edge recombination crossover (ERX)
+	 */
+	EDGE_RECOMBINATION,
+
+	/**
+	 * edge assembly crossover (EAX)
+	 */
+	EDGE_ASSEMBLY;
+
+	/**
+	 * the number of nearest neighbours edge assembly crossover searches when merging subtours
+	 */
+	private static final int EDGE_ASSEMBLY_NEIGHBOURS = 10;
+
+	/**
+	 * creates a crossover of this kind
+	 *
+	 * @param instance              the problem whose tours are bred
+	 * @param randomNumberGenerator the random number generator the crossover takes ownership of
+	 * @return the crossover
+	 */
+	PairwiseCrossover create(TSPInstance instance, SplittableRandom randomNumberGenerator) {
+		switch (this) {
+			case TWO_POINT:
+				return new TwoPointCrossOver(randomNumberGenerator);
+			case ORDER:
+				return new OrderCrossover(randomNumberGenerator);
+			case PARTIALLY_MAPPED:
+				return new PartiallyMappedCrossover(randomNumberGenerator);
+			case EDGE_RECOMBINATION:
+				return new EdgeRecombinationCrossover(randomNumberGenerator);
+			case EDGE_ASSEMBLY:
+				return new EdgeAssemblyCrossover(instance, EDGE_ASSEMBLY_NEIGHBOURS, randomNumberGenerator);
+			default:
+				throw new IllegalStateException("unknown crossover " + this);
+		}
+	}
+
+	/**
+	 * finds a crossover by name, ignoring case and allowing dashes for underscores, such as edge-assembly
+	 *
+	 * @param name the name of the crossover
+	 * @return the crossover with that name
+	 */
+	static CrossoverMethod fromName(String name) {
+		try {
+			return valueOf(name.toUpperCase().replace('-', '_'));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("unknown crossover " + name + ", expected one of two-point, order, partially-mapped, edge-recombination, edge-assembly");
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.parker.david;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * reports a run as comma separated values, one line per reported generation with its best, mean and incumbent fitness,
+ * and the incumbent tour. the last line, with a generation of "final", holds the result of the run
+ */
+public class CsvReporter extends ChannelReporter {
+
+	/**
+	 * the header line, naming each column
+	 */
+	private static final String HEADER = "generation,best fitness,mean fitness,incumbent fitness,incumbent\n";
+
+	/**
+	 * constructor, writes the header line
+	 *
+	 * @param sampleInterval the number of generations between reported generations, 1 to report every generation
+	 * @param channels       the channels the report is written to
+	 * @param owned          for each channel, true if this reporter should close it when it is closed
+	 * @throws IOException if the header cannot be written
+	 */
+	CsvReporter(int sampleInterval, WritableByteChannel[] channels, boolean[] owned) throws IOException {
+		super(sampleInterval, channels, owned);
+		write(HEADER);
+	}
+
+	@Override
+	void writeGeneration(GAPopulationGeneration generation, CandidateSolution incumbent) throws IOException {
+		write(generation.getGenerationNumber() + "," + generation.getBestSolutionThisGeneration().getFitness() + ","
+				+ generation.getMeanFitness() + "," + incumbent.getFitness() + "," + incumbent + "\n");
+	}
+
+	@Override
+	void writeResult(CandidateSolution incumbent) throws IOException {
+		write("final,,," + incumbent.getFitness() + "," + incumbent + "\n");
+	}
+}
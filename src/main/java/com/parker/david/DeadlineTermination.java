@@ -0,0 +1,31 @@
+package com.parker.david;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * stops a run once it has taken a given wall clock time. the deadline is checked between generations,
+ * so a run overruns it by at most the time of one generation
+ */
+public class DeadlineTermination implements TerminationCondition {
+
+	/**
+	 * the time the run may take, in nanoseconds
+	 */
+	private final long budgetNanos;
+
+	/**
+	 * constructor
+	 *
+	 * @param budgetMillis the time the run may take, in milliseconds
+	 */
+	DeadlineTermination(long budgetMillis) {
+		if (budgetMillis < 0)
+			throw new IllegalArgumentException("the time budget cannot be negative, found " + budgetMillis);
+		this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+	}
+
+	@Override
+	public boolean isMet(RunProgress progress) {
+		return progress.elapsedNanos() >= budgetNanos;
+	}
+}
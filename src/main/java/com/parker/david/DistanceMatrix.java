@@ -0,0 +1,66 @@
+package com.parker.david;
+
+/**
+ * an interface for the distances between every pair of cities in a TSP problem.
+ * cities are referred to by their city ID, which is also their index in the matrix.
+ * implementations should store distances as primitives so that fitness evaluation, the hottest loop of the algorithm, does not unbox
+ */
+public interface DistanceMatrix {
+
+	/**
+	 * get the distance from one city to another
+	 *
+	 * @param fromCityId the ID of the city we are departing from
+	 * @param toCityId   the ID of the city we are travelling to
+	 * @return int corresponding to the distance between the two cities
+	 */
+	int getDistance(int fromCityId, int toCityId);
+
+	/**
+	 * the number of cities this matrix holds distances for
+	 *
+	 * @return the int number of cities
+	 */
+	int cityCount();
+
+	/**
+	 * checks if the distance from a to b is the same as from b to a for every pair of cities.
+	 * operators that reverse parts of a tour are only valid on symmetric problems.
+	 * this default checks every pair, implementations that are symmetric by construction should override it
+	 *
+	 * @return true if the matrix is symmetric
+	 */
+	default boolean isSymmetric() {
+		for (int from = 0; from < cityCount(); from++) {
+			for (int to = 0; to < from; to++) {
+				if (getDistance(from, to) != getDistance(to, from))
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * creates a distance matrix from a square array of rows, where rows[i][j] is the distance from city i to city j.
+	 * if the rows are symmetric the distances are packed into a triangular matrix, halving the memory used
+	 *
+	 * @param rows a square array of distances
+	 * @return a distance matrix holding the same distances as the rows
+	 */
+	static DistanceMatrix fromRows(int[][] rows) {
+		int cityCount = rows.length;
+		for (int[] row : rows) {
+			if (row.length != cityCount)
+				throw new IllegalArgumentException("distance matrix must be square, found a row of length " + row.length + " for " + cityCount + " cities");
+		}
+
+		//check for symmetry, we can only pack the matrix if distance(a,b) == distance(b,a) for all cities
+		for (int from = 0; from < cityCount; from++) {
+			for (int to = 0; to < from; to++) {
+				if (rows[from][to] != rows[to][from])
+					return new FlatDistanceMatrix(rows);
+			}
+		}
+		return new TriangularDistanceMatrix(rows);
+	}
+}
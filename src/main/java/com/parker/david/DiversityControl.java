@@ -0,0 +1,117 @@
+package com.parker.david;
+
+/**
+ * how an arena evolution reacts to the diversity of its population, as measured by the edge frequencies of its parents.
+ * while diversity is above the target, one offspring is mutated each generation as usual. below it, the fraction of offspring
+ * mutated rises linearly to the maximum rate as diversity falls to nothing, since offspring bred from near clones are near clones too,
+ * and mutation is then the only source of new tours. once diversity falls to the restart level the population has collapsed,
+ * so every parent but the best is replaced by a heavily mutated copy of the best.
+ * optionally, mutation keeps the backbone fixed: it avoids cities whose edges are both shared by every parent,
+ * so mutation only works on the parts of the tour the population still disagrees on.
+ * this pays off with crossovers that keep the edges parents share, such as edge assembly, which converge on a backbone quickly
+ */
+public class DiversityControl {
+
+	/**
+	 * the diversity below which mutation intensifies
+	 */
+	private final double targetDiversity;
+
+	/**
+	 * the fraction of offspring mutated when diversity has fallen to nothing
+	 */
+	private final double maxMutationRate;
+
+	/**
+	 * the diversity at or below which the population restarts
+	 */
+	private final double restartDiversity;
+
+	/**
+	 * the fraction of the cities swapped in each mutated copy of the best parent when restarting
+	 */
+	private final double restartSwapFraction;
+
+	/**
+	 * true to keep mutation off the backbone edges
+	 */
+	private final boolean fixBackbone;
+
+	/**
+	 * constructor
+	 *
+	 * @param targetDiversity     the diversity below which mutation intensifies, between 0 and 1
+	 * @param maxMutationRate     the fraction of offspring mutated when diversity has fallen to nothing, between 0 and 1
+	 * @param restartDiversity    the diversity at or below which the population restarts, no more than the target, or negative to never restart
+	 * @param restartSwapFraction the fraction of the cities swapped in each mutated copy of the best parent when restarting, between 0 and 1
+	 * @param fixBackbone         true to keep mutation off the backbone edges
+	 */
+	DiversityControl(double targetDiversity, double maxMutationRate, double restartDiversity, double restartSwapFraction, boolean fixBackbone) {
+		if (targetDiversity < 0 || targetDiversity > 1)
+			throw new IllegalArgumentException("the target diversity must be between 0 and 1, found " + targetDiversity);
+		if (maxMutationRate < 0 || maxMutationRate > 1)
+			throw new IllegalArgumentException("the maximum mutation rate must be between 0 and 1, found " + maxMutationRate);
+		if (restartDiversity > targetDiversity)
+			throw new IllegalArgumentException("the restart diversity cannot be above the target diversity, found " + restartDiversity);
+		if (restartSwapFraction < 0 || restartSwapFraction > 1)
+			throw new IllegalArgumentException("the restart swap fraction must be between 0 and 1, found " + restartSwapFraction);
+		this.targetDiversity = targetDiversity;
+		this.maxMutationRate = maxMutationRate;
+		this.restartDiversity = restartDiversity;
+		this.restartSwapFraction = restartSwapFraction;
+		this.fixBackbone = fixBackbone;
+	}
+
+	/**
+	 * the control used by --adaptive runs: mutate more offspring below a diversity of 0.2, up to all of them, restart only once the
+	 * parents are practically clones, with a twentieth of the cities swapped, and keep the backbone fixed
+	 *
+	 * @return a new diversity control
+	 */
+	static DiversityControl defaults() {
+		return new DiversityControl(0.2, 1, 0.001, 0.05, true);
+	}
+
+	/**
+	 * the number of offspring to mutate at a given diversity
+	 *
+	 * @param diversity      the diversity of the parents
+	 * @param offspringCount the number of offspring bred each generation
+	 * @return the int number of offspring to mutate, 1 at or above the target, rising to the maximum rate of the offspring at no diversity
+	 */
+	int mutatedOffspring(double diversity, int offspringCount) {
+		if (diversity >= targetDiversity)
+			return 1;
+		int mostMutated = Math.max(1, (int) Math.round(maxMutationRate * offspringCount));
+		return 1 + (int) Math.round((mostMutated - 1) * (1 - diversity / targetDiversity));
+	}
+
+	/**
+	 * checks if the population has collapsed far enough to restart
+	 *
+	 * @param diversity the diversity of the parents
+	 * @return true to restart
+	 */
+	boolean shouldRestart(double diversity) {
+		return diversity <= restartDiversity;
+	}
+
+	/**
+	 * the number of swaps in each mutated copy of the best parent when restarting
+	 *
+	 * @param cityCount the number of cities in a tour
+	 * @return the int number of swaps, at least 1
+	 */
+	int restartSwaps(int cityCount) {
+		return Math.max(1, (int) (cityCount * restartSwapFraction));
+	}
+
+	/**
+	 * checks if mutation should keep off the backbone edges
+	 *
+	 * @return true to keep the backbone fixed
+	 */
+	boolean fixesBackbone() {
+		return fixBackbone;
+	}
+}
@@ -0,0 +1,374 @@
+package com.parker.david;
+
+import java.util.SplittableRandom;
+
+/**
+ * the implementation of edge assembly crossover (EAX), with a single AB-cycle per offspring.
+ * the edges of the two parents that are not shared form AB-cycles, which alternate between an edge of the first parent and an edge
+ * of the second. an offspring is its own parent with one random AB-cycle's edges swapped for the other parent's, which keeps every
+ * city with two edges but may split the tour into subtours. subtours are then merged, smallest first, by the cheapest exchange of an
+ * edge of the subtour for an edge to a nearby city's subtour.
+ * finding the AB-cycles and swapping edges costs time linear in the number of cities, and merging costs time linear in the size
+ * of the subtours merged, using nearest neighbour lists rather than searching every city
+ */
+public class EdgeAssemblyCrossover extends PairwiseCrossover {
+
+	/**
+	 * the distances used to find the cheapest way to merge subtours
+	 */
+	private final DistanceMatrix distances;
+
+	/**
+	 * the nearest neighbours of every city, searched for subtours to merge with
+	 */
+	private final NeighbourLists neighbourLists;
+
+	/**
+	 * the number of nearest neighbours searched for each city
+	 */
+	private final int neighbourCount;
+
+	/**
+	 * constructor, with a random number generator of its own
+	 *
+	 * @param instance       the problem whose tours are bred
+	 * @param neighbourCount the number of nearest neighbours searched for each city when merging subtours
+	 */
+	EdgeAssemblyCrossover(TSPInstance instance, int neighbourCount) {
+		this(instance, neighbourCount, new SplittableRandom());
+	}
+
+	/**
+	 * constructor
+	 *
+	 * @param instance              the problem whose tours are bred
+	 * @param neighbourCount        the number of nearest neighbours searched for each city when merging subtours
+	 * @param randomNumberGenerator the random number generator used by this object, this object takes ownership of it
+	 */
+	EdgeAssemblyCrossover(TSPInstance instance, int neighbourCount, SplittableRandom randomNumberGenerator) {
+		super(randomNumberGenerator);
+		this.distances = instance.getDistances();
+		this.neighbourLists = instance.getNeighbourLists(neighbourCount);
+		this.neighbourCount = Math.min(neighbourCount, neighbourLists.neighbourCount());
+	}
+
+	@Override
+	void crossTours(SplittableRandom randomNumberGenerator,
+					int[] parent1Tours, int parent1Offset, int[] parent2Tours, int parent2Offset,
+					int[] offspring1Tours, int offspring1Offset, int[] offspring2Tours, int offspring2Offset,
+					int count, BreedingWorkspace workspace) {
+		int cycleCount = findCycles(randomNumberGenerator, parent1Tours, parent1Offset, parent2Tours, parent2Offset, count, workspace);
+
+		//parents with the same edges have no AB-cycles, and can only breed copies of themselves
+		if (cycleCount == 0) {
+			System.arraycopy(parent1Tours, parent1Offset, offspring1Tours, offspring1Offset, count);
+			System.arraycopy(parent2Tours, parent2Offset, offspring2Tours, offspring2Offset, count);
+			return;
+		}
+
+		//the first offspring swaps a cycle's first parent edges for its second parent edges, the second offspring the other way round
+		assemble(parent1Tours, parent1Offset, randomNumberGenerator.nextInt(cycleCount), 0, offspring1Tours, offspring1Offset, count, workspace);
+		assemble(parent2Tours, parent2Offset, randomNumberGenerator.nextInt(cycleCount), 1, offspring2Tours, offspring2Offset, count, workspace);
+	}
+
+	/**
+	 * finds the AB-cycles of two parents, by randomly walking their unshared edges, alternating between the parents,
+	 * and cutting a cycle out of the walk whenever it comes back to a city it left by an edge of the first parent.
+	 * the cities of every cycle are stored in the workspace's cycles array, starting with an edge of the first parent
+	 *
+	 * @param randomNumberGenerator the random number generator used to pick which edge to walk along
+	 * @param parent1Tours          the array holding the first parent's tour
+	 * @param parent1Offset         the index of the first parent's first city
+	 * @param parent2Tours          the array holding the second parent's tour
+	 * @param parent2Offset         the index of the second parent's first city
+	 * @param count                 the number of cities in a tour
+	 * @param workspace             scratch space for the edges, the walk and the cycles
+	 * @return the number of AB-cycles found
+	 */
+	private static int findCycles(SplittableRandom randomNumberGenerator,
+								  int[] parent1Tours, int parent1Offset, int[] parent2Tours, int parent2Offset,
+								  int count, BreedingWorkspace workspace) {
+		//each city's first two edge table entries are its neighbours in the first parent, the last two its neighbours in the second
+		int[] edgeTable = workspace.edgeTable;
+		int[] edgeCounts = workspace.edgeCounts;
+		for (int city = 0; city < count; city++) {
+			edgeCounts[city] = 2;
+			edgeCounts[count + city] = 2;
+		}
+		for (int i = 0; i < count; i++) {
+			int previous = i == 0 ? count - 1 : i - 1;
+			int city1 = parent1Tours[parent1Offset + i];
+			int city2 = parent2Tours[parent2Offset + i];
+			edgeTable[city1 * 4] = parent1Tours[parent1Offset + previous];
+			edgeTable[city1 * 4 + 1] = parent1Tours[parent1Offset + (i + 1 == count ? 0 : i + 1)];
+			edgeTable[city2 * 4 + 2] = parent2Tours[parent2Offset + previous];
+			edgeTable[city2 * 4 + 3] = parent2Tours[parent2Offset + (i + 1 == count ? 0 : i + 1)];
+		}
+
+		//shared edges are in no AB-cycle, so leave them out of the walk
+		for (int city = 0; city < count; city++) {
+			for (int i = edgeCounts[city] - 1; i >= 0; i--) {
+				int neighbour = edgeTable[city * 4 + i];
+				if (removeEdge(edgeTable, edgeCounts, count, city, neighbour, 1)) {
+					edgeTable[city * 4 + i] = edgeTable[city * 4 + --edgeCounts[city]];
+				}
+			}
+		}
+
+		//walk the remaining edges. the walk takes first parent edges from even positions, and second parent edges from odd positions
+		int[] path = workspace.path;
+		int[] evenPositions = workspace.positions;
+		int[] cycles = workspace.cycles;
+		int[] cycleStarts = workspace.cycleStarts;
+		for (int city = 0; city < count; city++) {
+			evenPositions[city] = -1;
+		}
+		int cycleCount = 0;
+		int stored = 0;
+		for (int start = 0; start < count; start++) {
+			int length = 0;
+			path[length++] = start;
+			evenPositions[start] = 0;
+			while (true) {
+				int city = path[length - 1];
+				if ((length & 1) == 1) {
+					//leaving an even position by a first parent edge. only the start of the walk can run out of them
+					if (edgeCounts[city] == 0) {
+						evenPositions[city] = -1;
+						break;
+					}
+					int next = edgeTable[city * 4 + randomNumberGenerator.nextInt(edgeCounts[city])];
+					removeEdge(edgeTable, edgeCounts, count, city, next, 0);
+					removeEdge(edgeTable, edgeCounts, count, next, city, 0);
+					path[length++] = next;
+				} else {
+					//leaving an odd position by a second parent edge, which may come back to a city at an even position
+					int next = edgeTable[city * 4 + 2 + randomNumberGenerator.nextInt(edgeCounts[count + city])];
+					removeEdge(edgeTable, edgeCounts, count, city, next, 1);
+					removeEdge(edgeTable, edgeCounts, count, next, city, 1);
+					int earlier = evenPositions[next];
+					if (earlier < 0) {
+						evenPositions[next] = length;
+						path[length++] = next;
+						continue;
+					}
+
+					//cut the cycle out of the walk, leaving the walk at the city it came back to
+					cycleStarts[cycleCount++] = stored;
+					for (int i = earlier; i < length; i++) {
+						cycles[stored++] = path[i];
+						if (i > earlier && (i & 1) == 0)
+							evenPositions[path[i]] = -1;
+					}
+					length = earlier + 1;
+				}
+			}
+		}
+		cycleStarts[cycleCount] = stored;
+		return cycleCount;
+	}
+
+	/**
+	 * removes a neighbour from one of a city's two halves of the edge table, if it is there
+	 *
+	 * @param edgeTable  the edge table
+	 * @param edgeCounts the number of neighbours in each half of the edge table, the first parent's counts then the second's
+	 * @param count      the number of cities in a tour
+	 * @param city       the city whose neighbours are changed
+	 * @param neighbour  the neighbour to remove
+	 * @param parent     0 for the first parent's half, 1 for the second's
+	 * @return true if the neighbour was found and removed
+	 */
+	private static boolean removeEdge(int[] edgeTable, int[] edgeCounts, int count, int city, int neighbour, int parent) {
+		int base = city * 4 + parent * 2;
+		int countIndex = parent * count + city;
+		for (int i = 0; i < edgeCounts[countIndex]; i++) {
+			if (edgeTable[base + i] == neighbour) {
+				edgeTable[base + i] = edgeTable[base + --edgeCounts[countIndex]];
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * builds an offspring from a parent by swapping the edges of an AB-cycle, then merging the subtours this leaves
+	 *
+	 * @param parentTours     the array holding the parent's tour
+	 * @param parentOffset    the index of the parent's first city
+	 * @param cycle           the index of the AB-cycle to swap edges along
+	 * @param removedParity   0 if the parent is the first parent, whose edges start at even indices of a cycle, 1 for the second parent
+	 * @param offspringTours  the array the offspring is written to
+	 * @param offspringOffset the index the offspring's first city is written to
+	 * @param count           the number of cities in a tour
+	 * @param workspace       scratch space holding the AB-cycles, the offspring's edges and its subtours
+	 */
+	private void assemble(int[] parentTours, int parentOffset, int cycle, int removedParity,
+						  int[] offspringTours, int offspringOffset, int count, BreedingWorkspace workspace) {
+		//each city's two links are its neighbours in the offspring, starting as its neighbours in the parent
+		int[] links = workspace.links;
+		for (int i = 0; i < count; i++) {
+			int city = parentTours[parentOffset + i];
+			links[city * 2] = parentTours[parentOffset + (i == 0 ? count - 1 : i - 1)];
+			links[city * 2 + 1] = parentTours[parentOffset + (i + 1 == count ? 0 : i + 1)];
+		}
+
+		//swap the parent's edges of the cycle for the other parent's. removing them all first leaves a free link for every added edge
+		int[] cycles = workspace.cycles;
+		int from = workspace.cycleStarts[cycle];
+		int to = workspace.cycleStarts[cycle + 1];
+		for (int i = from + removedParity; i < to; i += 2) {
+			int city1 = cycles[i];
+			int city2 = cycles[i + 1 == to ? from : i + 1];
+			replaceLink(links, city1, city2, -1);
+			replaceLink(links, city2, city1, -1);
+		}
+		for (int i = from + 1 - removedParity; i < to; i += 2) {
+			int city1 = cycles[i];
+			int city2 = cycles[i + 1 == to ? from : i + 1];
+			replaceLink(links, city1, -1, city2);
+			replaceLink(links, city2, -1, city1);
+		}
+
+		mergeSubtours(links, count, workspace);
+
+		//walk the links to write out the tour
+		int previous = links[0];
+		int city = 0;
+		for (int i = 0; i < count; i++) {
+			offspringTours[offspringOffset + i] = city;
+			int next = links[city * 2] == previous ? links[city * 2 + 1] : links[city * 2];
+			previous = city;
+			city = next;
+		}
+	}
+
+	/**
+	 * merges the subtours of an offspring's links into one tour. the smallest subtour is merged first, by removing one of its edges
+	 * and an edge of another subtour, and reconnecting their ends in whichever way is cheapest.
+	 * the other subtour is found through the nearest neighbours of the smallest subtour's cities
+	 *
+	 * @param links     each city's two neighbours in the offspring
+	 * @param count     the number of cities in a tour
+	 * @param workspace scratch space for the subtours
+	 */
+	private void mergeSubtours(int[] links, int count, BreedingWorkspace workspace) {
+		//label every city with its subtour
+		int[] subtours = workspace.subtours;
+		int[] subtourSizes = workspace.subtourSizes;
+		int[] subtourStarts = workspace.subtourStarts;
+		for (int city = 0; city < count; city++) {
+			subtours[city] = -1;
+		}
+		int subtourCount = 0;
+		for (int start = 0; start < count; start++) {
+			if (subtours[start] >= 0)
+				continue;
+			int previous = links[start * 2];
+			int city = start;
+			int size = 0;
+			do {
+				subtours[city] = subtourCount;
+				size++;
+				int next = links[city * 2] == previous ? links[city * 2 + 1] : links[city * 2];
+				previous = city;
+				city = next;
+			} while (city != start);
+			subtourSizes[subtourCount] = size;
+			subtourStarts[subtourCount++] = start;
+		}
+
+		int[] members = workspace.queue;
+		for (int remaining = subtourCount; remaining > 1; remaining--) {
+			//find the smallest subtour, and list its cities
+			int smallest = -1;
+			for (int subtour = 0; subtour < subtourCount; subtour++) {
+				if (subtourSizes[subtour] > 0 && (smallest < 0 || subtourSizes[subtour] < subtourSizes[smallest]))
+					smallest = subtour;
+			}
+			int size = subtourSizes[smallest];
+			int previous = links[subtourStarts[smallest] * 2];
+			int city = subtourStarts[smallest];
+			for (int i = 0; i < size; i++) {
+				members[i] = city;
+				int next = links[city * 2] == previous ? links[city * 2 + 1] : links[city * 2];
+				previous = city;
+				city = next;
+			}
+
+			//find the cheapest exchange of an edge (u, uNext) of the subtour for an edge (v, vNext) of another
+			int bestDelta = Integer.MAX_VALUE;
+			int bestU = -1, bestUNext = -1, bestV = -1, bestVNext = -1;
+			boolean bestCrossed = false;
+			for (int i = 0; i < size; i++) {
+				int u = members[i];
+				for (int rank = 0; rank < neighbourCount; rank++) {
+					int v = neighbourLists.getNeighbour(u, rank);
+					if (subtours[v] == smallest)
+						continue;
+					for (int uSide = 0; uSide < 2; uSide++) {
+						int uNext = links[u * 2 + uSide];
+						int removed = distances.getDistance(u, uNext);
+						for (int vSide = 0; vSide < 2; vSide++) {
+							int vNext = links[v * 2 + vSide];
+							int removedBoth = removed + distances.getDistance(v, vNext);
+							int straight = distances.getDistance(u, v) + distances.getDistance(uNext, vNext) - removedBoth;
+							int crossed = distances.getDistance(u, vNext) + distances.getDistance(uNext, v) - removedBoth;
+							if (straight < bestDelta || crossed < bestDelta) {
+								bestDelta = Math.min(straight, crossed);
+								bestCrossed = crossed < straight;
+								bestU = u;
+								bestUNext = uNext;
+								bestV = v;
+								bestVNext = vNext;
+							}
+						}
+					}
+				}
+			}
+
+			//if no neighbour is in another subtour, merge with any other subtour instead
+			if (bestU < 0) {
+				int v = 0;
+				while (subtours[v] == smallest)
+					v++;
+				bestU = members[0];
+				bestUNext = links[bestU * 2];
+				bestV = v;
+				bestVNext = links[v * 2];
+				bestCrossed = false;
+			}
+
+			//reconnect the ends of the removed edges, u to v and uNext to vNext, or crossed over
+			int uPartner = bestCrossed ? bestVNext : bestV;
+			int uNextPartner = bestCrossed ? bestV : bestVNext;
+			replaceLink(links, bestU, bestUNext, uPartner);
+			replaceLink(links, bestUNext, bestU, uNextPartner);
+			replaceLink(links, bestV, bestVNext, bestCrossed ? bestUNext : bestU);
+			replaceLink(links, bestVNext, bestV, bestCrossed ? bestU : bestUNext);
+
+			//the smallest subtour is now part of the other
+			int merged = subtours[bestV];
+			for (int i = 0; i < size; i++) {
+				subtours[members[i]] = merged;
+			}
+			subtourSizes[merged] += size;
+			subtourSizes[smallest] = 0;
+		}
+	}
+
+	/**
+	 * replaces one of a city's links
+	 *
+	 * @param links       each city's two neighbours
+	 * @param city        the city whose link is replaced
+	 * @param oldNeighbour the neighbour to replace, or -1 for a free link
+	 * @param newNeighbour the new neighbour, or -1 to free the link
+	 */
+	private static void replaceLink(int[] links, int city, int oldNeighbour, int newNeighbour) {
+		if (links[city * 2] == oldNeighbour)
+			links[city * 2] = newNeighbour;
+		else
+			links[city * 2 + 1] = newNeighbour;
+	}
+}
@@ -0,0 +1,337 @@
+package com.parker.david;
+
+import java.util.Arrays;
+
+/**
+ * counts how many tours of a population use each undirected edge, kept up to date as replacement admits and evicts tours,
+ * so the diversity of a population can be read every generation without looking at every tour again.
+ * the counts are held in an open addressing table keyed by the packed city pair, which grows as distinct edges appear,
+ * along with a histogram of the counts and a fixed point sum of count times log count, so that the entropy of the edge
+ * distribution and the number of backbone edges, the edges every tour shares, are both read in constant time.
+ * the counts must only be changed by one thread at a time, and not while they are being read
+ */
+public class EdgeFrequencies {
+
+	/**
+	 * the key of an empty bucket. keys pack the lower city ID into the high half and the higher into the low half, so are never -1
+	 */
+	private static final long EMPTY = -1L;
+
+	/**
+	 * the number of fractional bits of the fixed point sum of count times log count. the sum is kept as an integer,
+	 * so adding and then removing a tour leaves it exactly as it was, however many generations go by
+	 */
+	private static final int FRACTION_BITS = 20;
+
+	/**
+	 * the number of cities in each tour
+	 */
+	private final int cityCount;
+
+	/**
+	 * the most tours that may be counted at once
+	 */
+	private final int maxTours;
+
+	/**
+	 * count times log count for every count up to the most tours, in fixed point
+	 */
+	private final long[] countLogCounts;
+
+	/**
+	 * the number of distinct edges with each count, indexed by count. edges with no count are not in the table, so index 0 is unused
+	 */
+	private final int[] countHistogram;
+
+	/**
+	 * the edge in each bucket of the table, or EMPTY
+	 */
+	private long[] keys;
+
+	/**
+	 * the number of counted tours using the edge in each bucket
+	 */
+	private int[] counts;
+
+	/**
+	 * the number of buckets minus one, the number of buckets is a power of two
+	 */
+	private int mask;
+
+	/**
+	 * the number of distinct edges used by the counted tours
+	 */
+	private int distinctEdges;
+
+	/**
+	 * the number of tours counted
+	 */
+	private int tourCount;
+
+	/**
+	 * the sum over distinct edges of count times log count, in fixed point
+	 */
+	private long countLogCountSum;
+
+	/**
+	 * constructor
+	 *
+	 * @param cityCount the number of cities in each tour, at least three
+	 * @param maxTours  the most tours that may be counted at once, the population size
+	 */
+	EdgeFrequencies(int cityCount, int maxTours) {
+		if (cityCount < 3)
+			throw new IllegalArgumentException("tours need at least three cities to have distinct edges, found " + cityCount);
+		if (maxTours < 1)
+			throw new IllegalArgumentException("at least one tour must be counted, found " + maxTours);
+		this.cityCount = cityCount;
+		this.maxTours = maxTours;
+		this.countLogCounts = new long[maxTours + 1];
+		for (int count = 2; count <= maxTours; count++) {
+			countLogCounts[count] = Math.round(count * Math.log(count) * (1L << FRACTION_BITS));
+		}
+		this.countHistogram = new int[maxTours + 1];
+		allocate(Integer.highestOneBit(cityCount) << 2);
+	}
+
+	/**
+	 * constructor, counting the parents of an arena
+	 *
+	 * @param arena the arena whose parents are counted
+	 */
+	EdgeFrequencies(PopulationArena arena) {
+		this(arena.cityCount(), arena.getPopulationSize());
+		reset(arena);
+	}
+
+	/**
+	 * forgets every tour, then counts the parents of an arena afresh, for when they are replaced other than through add and remove
+	 *
+	 * @param arena the arena whose parents are counted
+	 */
+	void reset(PopulationArena arena) {
+		Arrays.fill(keys, EMPTY);
+		Arrays.fill(counts, 0);
+		Arrays.fill(countHistogram, 0);
+		distinctEdges = 0;
+		tourCount = 0;
+		countLogCountSum = 0;
+		for (int slot = 0; slot < arena.getPopulationSize(); slot++) {
+			add(arena.getTours(), arena.offset(slot));
+		}
+	}
+
+	/**
+	 * counts the edges of a tour
+	 *
+	 * @param tours  the array holding the tour
+	 * @param offset the index of the tour's first city
+	 */
+	void add(int[] tours, int offset) {
+		if (tourCount == maxTours)
+			throw new IllegalStateException("already counting the most tours, " + maxTours);
+		tourCount++;
+		//keep the table at most half full, even if every edge of the tour is new
+		while (distinctEdges + cityCount > (mask + 1) >> 1) {
+			allocate((mask + 1) << 1);
+		}
+		int departureCityId = tours[offset + cityCount - 1];
+		for (int i = offset; i < offset + cityCount; i++) {
+			int bucket = find(departureCityId, tours[i]);
+			if (keys[bucket] == EMPTY) {
+				keys[bucket] = key(departureCityId, tours[i]);
+				distinctEdges++;
+			}
+			changeCount(bucket, 1);
+			departureCityId = tours[i];
+		}
+	}
+
+	/**
+	 * stops counting the edges of a tour, which must have been added
+	 *
+	 * @param tours  the array holding the tour
+	 * @param offset the index of the tour's first city
+	 */
+	void remove(int[] tours, int offset) {
+		if (tourCount == 0)
+			throw new IllegalStateException("no tours are being counted");
+		tourCount--;
+		int departureCityId = tours[offset + cityCount - 1];
+		for (int i = offset; i < offset + cityCount; i++) {
+			int bucket = find(departureCityId, tours[i]);
+			if (keys[bucket] == EMPTY)
+				throw new IllegalStateException("the edge " + departureCityId + "-" + tours[i] + " is not being counted");
+			changeCount(bucket, -1);
+			if (counts[bucket] == 0) {
+				delete(bucket);
+				distinctEdges--;
+			}
+			departureCityId = tours[i];
+		}
+	}
+
+	/**
+	 * the number of counted tours using an edge
+	 *
+	 * @param city1 the ID of the city at one end of the edge
+	 * @param city2 the ID of the city at the other end
+	 * @return the int count, 0 if no counted tour uses the edge
+	 */
+	int count(int city1, int city2) {
+		return counts[find(city1, city2)];
+	}
+
+	/**
+	 * checks if an edge is part of the backbone, used by every counted tour
+	 *
+	 * @param city1 the ID of the city at one end of the edge
+	 * @param city2 the ID of the city at the other end
+	 * @return true if every counted tour uses the edge
+	 */
+	boolean isBackbone(int city1, int city2) {
+		return tourCount > 0 && count(city1, city2) == tourCount;
+	}
+
+	/**
+	 * the number of backbone edges, used by every counted tour
+	 *
+	 * @return the int number of backbone edges
+	 */
+	public int backboneEdgeCount() {
+		return tourCount > 0 ? countHistogram[tourCount] : 0;
+	}
+
+	/**
+	 * the number of distinct edges used by the counted tours, from cityCount when they are all the same tour
+	 * to tourCount times cityCount when they share no edges
+	 *
+	 * @return the int number of distinct edges
+	 */
+	public int distinctEdgeCount() {
+		return distinctEdges;
+	}
+
+	/**
+	 * the number of tours counted
+	 *
+	 * @return the int tour count
+	 */
+	public int tourCount() {
+		return tourCount;
+	}
+
+	/**
+	 * the entropy, in nats, of the edge an edge picked at random from all the counted tours turns out to be.
+	 * it is log cityCount when the tours are all the same, and log of tourCount times cityCount when they share no edges
+	 *
+	 * @return the double entropy
+	 */
+	public double entropy() {
+		if (tourCount == 0)
+			return 0;
+		double edgeOccurrences = (double) tourCount * cityCount;
+		return Math.log(edgeOccurrences) - countLogCountSum / (double) (1L << FRACTION_BITS) / edgeOccurrences;
+	}
+
+	/**
+	 * the entropy scaled to run from 0 when the counted tours are all the same, to 1 when they share no edges
+	 *
+	 * @return the double diversity, 1 when fewer than two tours are counted
+	 */
+	public double diversity() {
+		if (tourCount < 2)
+			return 1;
+		return (entropy() - Math.log(cityCount)) / Math.log(tourCount);
+	}
+
+	/**
+	 * changes the count of the edge in a bucket, keeping the histogram and sum of count times log count in step
+	 *
+	 * @param bucket the bucket of the edge
+	 * @param change the change in count, plus or minus one
+	 */
+	private void changeCount(int bucket, int change) {
+		int count = counts[bucket];
+		if (count > 0)
+			countHistogram[count]--;
+		countLogCountSum -= countLogCounts[count];
+		count += change;
+		if (count > 0)
+			countHistogram[count]++;
+		countLogCountSum += countLogCounts[count];
+		counts[bucket] = count;
+	}
+
+	/**
+	 * the bucket holding an edge, or the empty bucket it would go in
+	 *
+	 * @param city1 the ID of the city at one end of the edge
+	 * @param city2 the ID of the city at the other end
+	 * @return the int bucket
+	 */
+	private int find(int city1, int city2) {
+		long key = key(city1, city2);
+		int bucket = (int) TourHash.edgeHash(city1, city2) & mask;
+		while (keys[bucket] != EMPTY && keys[bucket] != key) {
+			bucket = (bucket + 1) & mask;
+		}
+		return bucket;
+	}
+
+	/**
+	 * empties a bucket, shifting back any later entries of its probe run so that lookups never stop short of them
+	 *
+	 * @param bucket the bucket to empty
+	 */
+	private void delete(int bucket) {
+		int hole = bucket;
+		int next = (hole + 1) & mask;
+		while (keys[next] != EMPTY) {
+			int home = (int) TourHash.edgeHash((int) (keys[next] >>> 32), (int) keys[next]) & mask;
+			//move the entry back into the hole unless its home lies cyclically after the hole, up to the entry itself
+			if (((next - home) & mask) >= ((next - hole) & mask)) {
+				keys[hole] = keys[next];
+				counts[hole] = counts[next];
+				hole = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[hole] = EMPTY;
+		counts[hole] = 0;
+	}
+
+	/**
+	 * allocates a table of the given number of buckets, moving any edges already counted into it
+	 *
+	 * @param bucketCount the number of buckets, a power of two
+	 */
+	private void allocate(int bucketCount) {
+		long[] oldKeys = keys;
+		int[] oldCounts = counts;
+		keys = new long[bucketCount];
+		counts = new int[bucketCount];
+		mask = bucketCount - 1;
+		Arrays.fill(keys, EMPTY);
+		if (oldKeys == null)
+			return;
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int bucket = find((int) (oldKeys[i] >>> 32), (int) oldKeys[i]);
+				keys[bucket] = oldKeys[i];
+				counts[bucket] = oldCounts[i];
+			}
+		}
+	}
+
+	/**
+	 * the key of an undirected edge, the same whichever way round the cities are given
+	 *
+	 * @param city1 the ID of the city at one end of the edge
+	 * @param city2 the ID of the city at the other end
+	 * @return the long key
+	 */
+	private static long key(int city1, int city2) {
+		return city1 < city2 ? ((long) city1 << 32) | city2 : ((long) city2 << 32) | city1;
+	}
+}
@@ -0,0 +1,161 @@
+package com.parker.david;
+
+import java.util.SplittableRandom;
+
+/**
+ * the implementation of edge recombination crossover (ERX). an edge table lists every city's neighbours in either parent,
+ * and each offspring is built by walking it: from the current city, go to a neighbour it shares in both parents if there is one,
+ * else to the neighbour with the fewest neighbours left, breaking ties at random, else to a random unvisited city.
+ * this keeps most of the parents' edges, rather than their positions or order. every city has at most four neighbours in the table,
+ * so building an offspring costs time linear in the number of cities
+ */
+public class EdgeRecombinationCrossover extends PairwiseCrossover {
+
+	/**
+	 * the most neighbours a city can have in the edge table, two from each parent
+	 */
+	private static final int MAX_NEIGHBOURS = 4;
+
+	/**
+	 * constructor, with a random number generator of its own
+	 */
+	EdgeRecombinationCrossover() {
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * constructor
+	 *
+	 * @param randomNumberGenerator the random number generator used by this object, this object takes ownership of it
+	 */
+	EdgeRecombinationCrossover(SplittableRandom randomNumberGenerator) {
+		super(randomNumberGenerator);
+	}
+
+	@Override
+	void crossTours(SplittableRandom randomNumberGenerator,
+					int[] parent1Tours, int parent1Offset, int[] parent2Tours, int parent2Offset,
+					int[] offspring1Tours, int offspring1Offset, int[] offspring2Tours, int offspring2Offset,
+					int count, BreedingWorkspace workspace) {
+		//the edge table is used up building an offspring, so it is built again for the second
+		buildOffspring(randomNumberGenerator, parent1Tours, parent1Offset, parent2Tours, parent2Offset,
+				parent1Tours[parent1Offset], offspring1Tours, offspring1Offset, count, workspace);
+		buildOffspring(randomNumberGenerator, parent1Tours, parent1Offset, parent2Tours, parent2Offset,
+				parent2Tours[parent2Offset], offspring2Tours, offspring2Offset, count, workspace);
+	}
+
+	/**
+	 * builds one offspring by walking the parents' edge table from a given city
+	 *
+	 * @param randomNumberGenerator the random number generator used to break ties
+	 * @param parent1Tours          the array holding the first parent's tour
+	 * @param parent1Offset         the index of the first parent's first city
+	 * @param parent2Tours          the array holding the second parent's tour
+	 * @param parent2Offset         the index of the second parent's first city
+	 * @param firstCity             the city the offspring starts at
+	 * @param offspringTours        the array the offspring is written to
+	 * @param offspringOffset       the index the offspring's first city is written to
+	 * @param count                 the number of cities in a tour
+	 * @param workspace             scratch space holding the edge table, and the list of unvisited cities
+	 */
+	private static void buildOffspring(SplittableRandom randomNumberGenerator,
+									   int[] parent1Tours, int parent1Offset, int[] parent2Tours, int parent2Offset, int firstCity,
+									   int[] offspringTours, int offspringOffset, int count, BreedingWorkspace workspace) {
+		//the edge table holds each neighbour shifted left by one, with the lowest bit set if both parents share the edge
+		int[] edgeTable = workspace.edgeTable;
+		int[] neighbourCounts = workspace.edgeCounts;
+		int[] unvisited = workspace.queue;
+		int[] unvisitedIndex = workspace.otherPositions;
+		for (int city = 0; city < count; city++) {
+			neighbourCounts[city] = 0;
+			unvisited[city] = city;
+			unvisitedIndex[city] = city;
+		}
+		for (int i = 0; i < count; i++) {
+			int next = i + 1 == count ? 0 : i + 1;
+			addEdge(edgeTable, neighbourCounts, parent1Tours[parent1Offset + i], parent1Tours[parent1Offset + next]);
+			addEdge(edgeTable, neighbourCounts, parent2Tours[parent2Offset + i], parent2Tours[parent2Offset + next]);
+		}
+		int unvisitedCount = count;
+
+		int city = firstCity;
+		for (int position = 0; position < count; position++) {
+			offspringTours[offspringOffset + position] = city;
+
+			//remove the city from the unvisited cities, and from the neighbours of its neighbours
+			int index = unvisitedIndex[city];
+			int last = unvisited[--unvisitedCount];
+			unvisited[index] = last;
+			unvisitedIndex[last] = index;
+			int base = city * MAX_NEIGHBOURS;
+			for (int i = 0; i < neighbourCounts[city]; i++) {
+				removeEdge(edgeTable, neighbourCounts, edgeTable[base + i] >>> 1, city);
+			}
+			if (unvisitedCount == 0)
+				break;
+
+			//go to a shared neighbour, else the neighbour with fewest neighbours left, else anywhere unvisited
+			int next = -1;
+			int fewest = Integer.MAX_VALUE;
+			int ties = 0;
+			for (int i = 0; i < neighbourCounts[city]; i++) {
+				int entry = edgeTable[base + i];
+				int neighbour = entry >>> 1;
+				if ((entry & 1) != 0) {
+					next = neighbour;
+					break;
+				}
+				int neighbourCount = neighbourCounts[neighbour];
+				if (neighbourCount < fewest) {
+					fewest = neighbourCount;
+					next = neighbour;
+					ties = 1;
+				} else if (neighbourCount == fewest && randomNumberGenerator.nextInt(++ties) == 0)
+					next = neighbour;
+			}
+			city = next >= 0 ? next : unvisited[randomNumberGenerator.nextInt(unvisitedCount)];
+		}
+	}
+
+	/**
+	 * adds an edge to both of its cities' entries in the edge table, marking it as shared if it is already there
+	 *
+	 * @param edgeTable       the edge table
+	 * @param neighbourCounts the number of neighbours of each city in the edge table
+	 * @param city1           one end of the edge
+	 * @param city2           the other end of the edge
+	 */
+	private static void addEdge(int[] edgeTable, int[] neighbourCounts, int city1, int city2) {
+		addNeighbour(edgeTable, neighbourCounts, city1, city2);
+		addNeighbour(edgeTable, neighbourCounts, city2, city1);
+	}
+
+	private static void addNeighbour(int[] edgeTable, int[] neighbourCounts, int city, int neighbour) {
+		int base = city * MAX_NEIGHBOURS;
+		for (int i = 0; i < neighbourCounts[city]; i++) {
+			if (edgeTable[base + i] >>> 1 == neighbour) {
+				edgeTable[base + i] |= 1;
+				return;
+			}
+		}
+		edgeTable[base + neighbourCounts[city]++] = neighbour << 1;
+	}
+
+	/**
+	 * removes a neighbour from a city's entry in the edge table, if it is there
+	 *
+	 * @param edgeTable       the edge table
+	 * @param neighbourCounts the number of neighbours of each city in the edge table
+	 * @param city            the city whose entry is changed
+	 * @param neighbour       the neighbour to remove
+	 */
+	private static void removeEdge(int[] edgeTable, int[] neighbourCounts, int city, int neighbour) {
+		int base = city * MAX_NEIGHBOURS;
+		for (int i = 0; i < neighbourCounts[city]; i++) {
+			if (edgeTable[base + i] >>> 1 == neighbour) {
+				edgeTable[base + i] = edgeTable[base + --neighbourCounts[city]];
+				return;
+			}
+		}
+	}
+}
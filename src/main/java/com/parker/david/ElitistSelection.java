@@ -1,34 +1,356 @@
 package com.parker.david;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 
 /**
  * this is an elitist selection strategy, it joins the parents and offspring into a single pool
- * and selects the best solutions from that pool, not caring whether it is a parent or offspring
+ * and selects the best solutions from that pool, not caring whether it is a parent or offspring.
+ * the selected population is kept sorted by fitness, so when the parents are the result of an earlier replacement only the offspring
+ * need sorting, and the best of both are found by merging them in time linear in the population size.
+ * optionally, solutions that are the same tour as one already selected, up to rotation, and reversal on a symmetric problem, are rejected,
+ * so a converging population does not fill up with copies. duplicates always have equal fitness, so tour hashes are only
+ * calculated for solutions that tie on fitness. if there are not enough distinct tours to fill the population,
+ * the best of the rejected duplicates fill the rest
  */
 public class ElitistSelection implements PopulationReplacement {
+
+	/**
+	 * set in the low 32 bits of a packed ranking long once its slot is selected. slots are never negative, so the bit is otherwise clear
+	 */
+	private static final long SELECTED = 1L << 31;
+
+	/**
+	 * true to reject solutions that are the same tour as one already selected
+	 */
+	private final boolean rejectDuplicates;
+
+	/**
+	 * the hashes of the selected solutions tied on fitness with the solution being considered, allocated when first needed
+	 */
+	private TourHashSet tiedTours;
+
+	/**
+	 * constructor, for plain elitist selection that keeps duplicates
+	 */
+	ElitistSelection() {
+		this(false);
+	}
+
 	/**
-	 * using parents and offspring select a new set of solutions that are the best of according to best fitness
+	 * constructor
+	 *
+	 * @param rejectDuplicates true to reject solutions that are the same tour as one already selected, while there are enough distinct tours
+	 */
+	ElitistSelection(boolean rejectDuplicates) {
+		this.rejectDuplicates = rejectDuplicates;
+	}
+	/**
+	 * using parents and offspring select a new set of solutions that are the best of according to best fitness.
+	 * on equal fitness, parents are preferred over offspring, and earlier solutions over later ones
 	 *
 	 * @param offspring the offspring population generated from the parents
 	 * @param parents   the parent population that started this generation
-	 * @return the best of both parents and offspring
+	 * @return the best of both parents and offspring, as a sorted population
 	 */
 	@Override
 	public SolutionPopulation replace(SolutionPopulation parents, SolutionPopulation offspring) {
-		//put all solutions into a single list
-		ArrayList<CandidateSolution> allSolutions = new ArrayList<>();
-		allSolutions.addAll(parents.getSolutions());
-		allSolutions.addAll(offspring.getSolutions());
+		//sort whichever of the two populations is not sorted already (based on fitness, as implemented in CandidateSolution)
+		ArrayList<CandidateSolution> sortedParents = sortedSolutions(parents);
+		ArrayList<CandidateSolution> sortedOffspring = sortedSolutions(offspring);
 
-		//sort solutions (based on fitness, as implemented in CandidateSolution)
-		Collections.sort(allSolutions);
-
-		//using the size of the original population, select a new population (based on them being ordered by fitness)
-		ArrayList<CandidateSolution> bestSolutions = new ArrayList<>(allSolutions.subList(0, parents.getPopulationSize()));
+		//merge the two, taking the better head each time until we have the size of the original population
+		int populationSize = parents.getPopulationSize();
+		if (rejectDuplicates)
+			return replaceRejectingDuplicates(sortedParents, sortedOffspring, populationSize);
+		ArrayList<CandidateSolution> bestSolutions = new ArrayList<>(populationSize);
+		int parentIndex = 0;
+		int offspringIndex = 0;
+		while (bestSolutions.size() < populationSize) {
+			if (offspringIndex == sortedOffspring.size()
+					|| sortedParents.get(parentIndex).compareTo(sortedOffspring.get(offspringIndex)) <= 0)
+				bestSolutions.add(sortedParents.get(parentIndex++));
+			else
+				bestSolutions.add(sortedOffspring.get(offspringIndex++));
+		}
 
 		//return a new population object
-		return new SolutionPopulation(bestSolutions);
+		return SolutionPopulation.ofSorted(bestSolutions);
+	}
+
+	/**
+	 * selects the best distinct solutions from sorted parents and offspring, filling up with the best duplicates if there are too few
+	 *
+	 * @param sortedParents   the parents, in order of fitness
+	 * @param sortedOffspring the offspring, in order of fitness
+	 * @param populationSize  the number of solutions to select
+	 * @return the selected solutions, as a sorted population
+	 */
+	private SolutionPopulation replaceRejectingDuplicates(ArrayList<CandidateSolution> sortedParents, ArrayList<CandidateSolution> sortedOffspring,
+														  int populationSize) {
+		//merge all of the parents and offspring in order, preferring parents on ties
+		ArrayList<CandidateSolution> candidates = new ArrayList<>(sortedParents.size() + sortedOffspring.size());
+		int parentIndex = 0;
+		int offspringIndex = 0;
+		while (parentIndex < sortedParents.size() || offspringIndex < sortedOffspring.size()) {
+			if (offspringIndex == sortedOffspring.size() || (parentIndex < sortedParents.size()
+					&& sortedParents.get(parentIndex).compareTo(sortedOffspring.get(offspringIndex)) <= 0))
+				candidates.add(sortedParents.get(parentIndex++));
+			else
+				candidates.add(sortedOffspring.get(offspringIndex++));
+		}
+
+		//select distinct candidates, a candidate can only be a duplicate of an earlier one with the same fitness
+		boolean[] selected = new boolean[candidates.size()];
+		TourHashSet tied = tiedTours(populationSize);
+		int selectedCount = 0;
+		int runStart = 0;
+		for (int i = 0; i < candidates.size() && selectedCount < populationSize; i++) {
+			CandidateSolution candidate = candidates.get(i);
+			if (i == 0 || candidate.getFitness() != candidates.get(i - 1).getFitness()) {
+				//the first of a run of equal fitness can not be a duplicate
+				tied.clear();
+				runStart = i;
+			} else {
+				if (i == runStart + 1)
+					tied.add(candidates.get(runStart).getTourHash());
+				if (!tied.add(candidate.getTourHash()))
+					continue;
+			}
+			selected[i] = true;
+			selectedCount++;
+		}
+
+		//fill up with the best duplicates if there were not enough distinct candidates, and keep the selection in order
+		for (int i = 0; i < candidates.size() && selectedCount < populationSize; i++) {
+			if (!selected[i]) {
+				selected[i] = true;
+				selectedCount++;
+			}
+		}
+		ArrayList<CandidateSolution> bestSolutions = new ArrayList<>(populationSize);
+		for (int i = 0; i < candidates.size(); i++) {
+			if (selected[i])
+				bestSolutions.add(candidates.get(i));
+		}
+		return SolutionPopulation.ofSorted(bestSolutions);
+	}
+
+	/**
+	 * the set of tied tour hashes, allocated when first needed
+	 *
+	 * @param populationSize the number of solutions selected, the most that can tie
+	 * @return an empty tour hash set
+	 */
+	private TourHashSet tiedTours(int populationSize) {
+		if (tiedTours == null || tiedTours.capacity() < populationSize)
+			tiedTours = new TourHashSet(populationSize);
+		tiedTours.clear();
+		return tiedTours;
+	}
+
+	/**
+	 * the solutions of a population in order of fitness, sorting a copy if the population is not sorted already
+	 *
+	 * @param population the population
+	 * @return the population's own list if it is sorted, else a sorted copy
+	 */
+	private static ArrayList<CandidateSolution> sortedSolutions(SolutionPopulation population) {
+		if (population.isSorted())
+			return population.getSolutions();
+		ArrayList<CandidateSolution> solutions = new ArrayList<>(population.getSolutions());
+		Collections.sort(solutions);
+		return solutions;
+	}
+
+	/**
+	 * elitist replacement within a population arena. the parents and offspring of the current generation are ranked by fitness,
+	 * and the best populationSize of them are copied into the parent slots of the next generation, which then becomes current.
+	 * slots are ranked as packed (fitness, slot) longs in the arena's scratch space, so no objects are allocated.
+	 * the parents are left sorted, so next generation only the offspring are ranked, and merged with the parents in linear time
+	 *
+	 * @param arena the arena holding the parents and offspring of the current generation
+	 */
+	void replace(PopulationArena arena) {
+		replace(arena, null);
+	}
+
+	/**
+	 * elitist replacement within a population arena, as replace, also keeping the edge frequencies of the parents up to date.
+	 * the parents evicted are removed from the frequencies before the offspring admitted are added, so only changed tours are counted
+	 *
+	 * @param arena           the arena holding the parents and offspring of the current generation
+	 * @param edgeFrequencies the edge frequencies of the parents, or null to not count edges
+	 */
+	void replace(PopulationArena arena, EdgeFrequencies edgeFrequencies) {
+		if (rejectDuplicates) {
+			replaceRejectingDuplicates(arena, edgeFrequencies);
+			return;
+		}
+		int[] fitness = arena.getFitness();
+		int[] tours = arena.getTours();
+		long[] ranking = arena.getRanking();
+		int populationSize = arena.getPopulationSize();
+		long fitnessSum = 0;
+
+		if (!arena.parentsSorted()) {
+			//pack each slot's fitness into the high bits and its slot into the low bits, so sorting the longs sorts by fitness
+			int slotCount = arena.slotCount();
+			for (int slot = 0; slot < slotCount; slot++) {
+				ranking[slot] = ((long) fitness[slot] << 32) | slot;
+			}
+			Arrays.sort(ranking, 0, slotCount);
+
+			//copy the best solutions into the next generation
+			for (int rank = 0; rank < populationSize; rank++) {
+				int slot = (int) ranking[rank];
+				arena.copyToNext(slot, rank);
+				fitnessSum += fitness[slot];
+			}
+
+			//the parents ranked too low are evicted, and the offspring ranked high enough admitted
+			if (edgeFrequencies != null) {
+				for (int rank = populationSize; rank < slotCount; rank++) {
+					if ((int) ranking[rank] < populationSize)
+						edgeFrequencies.remove(tours, arena.offset((int) ranking[rank]));
+				}
+				for (int rank = 0; rank < populationSize; rank++) {
+					if ((int) ranking[rank] >= populationSize)
+						edgeFrequencies.add(tours, arena.offset((int) ranking[rank]));
+				}
+			}
+		} else {
+			//only the offspring need ranking, the parents are already in order
+			int firstOffspring = arena.firstOffspringSlot();
+			int offspringCount = arena.getOffspringCount();
+			for (int i = 0; i < offspringCount; i++) {
+				ranking[i] = ((long) fitness[firstOffspring + i] << 32) | (firstOffspring + i);
+			}
+			Arrays.sort(ranking, 0, offspringCount);
+
+			//merge parents and offspring into the next generation. packing the slot in the low bits breaks ties in favour of parents
+			int parent = 0;
+			int offspringRank = 0;
+			for (int rank = 0; rank < populationSize; rank++) {
+				long parentKey = ((long) fitness[parent] << 32) | parent;
+				int slot;
+				if (offspringRank < offspringCount && ranking[offspringRank] < parentKey)
+					slot = (int) ranking[offspringRank++];
+				else
+					slot = parent++;
+				arena.copyToNext(slot, rank);
+				fitnessSum += fitness[slot];
+			}
+
+			//the parents are taken in order, so those left untaken are evicted, and the offspring taken are admitted
+			if (edgeFrequencies != null) {
+				for (int evicted = parent; evicted < populationSize; evicted++) {
+					edgeFrequencies.remove(tours, arena.offset(evicted));
+				}
+				for (int rank = 0; rank < offspringRank; rank++) {
+					edgeFrequencies.add(tours, arena.offset((int) ranking[rank]));
+				}
+			}
+		}
+
+		//make the next generation the current one, its parents are now sorted
+		arena.swapBuffers();
+		arena.markParentsSorted(fitnessSum);
+	}
+
+	/**
+	 * elitist replacement within a population arena, rejecting slots that are the same tour as one already selected.
+	 * every slot is ranked, by merging the offspring into the parents if the parents are sorted, then the best distinct slots
+	 * are marked as selected in the ranking, topped up with the best duplicates if there are too few, and copied in rank order
+	 *
+	 * @param arena           the arena holding the parents and offspring of the current generation
+	 * @param edgeFrequencies the edge frequencies of the parents, or null to not count edges
+	 */
+	private void replaceRejectingDuplicates(PopulationArena arena, EdgeFrequencies edgeFrequencies) {
+		int[] fitness = arena.getFitness();
+		int[] tours = arena.getTours();
+		long[] ranking = arena.getRanking();
+		int populationSize = arena.getPopulationSize();
+		int slotCount = arena.slotCount();
+
+		if (!arena.parentsSorted()) {
+			for (int slot = 0; slot < slotCount; slot++) {
+				ranking[slot] = ((long) fitness[slot] << 32) | slot;
+			}
+			Arrays.sort(ranking, 0, slotCount);
+		} else {
+			//rank the offspring behind the parents' places, then merge the parents in front to back. a rank is never
+			//written before the offspring there has been taken, as the write position never passes the read position
+			for (int slot = populationSize; slot < slotCount; slot++) {
+				ranking[slot] = ((long) fitness[slot] << 32) | slot;
+			}
+			Arrays.sort(ranking, populationSize, slotCount);
+			int parent = 0;
+			int offspringRank = populationSize;
+			for (int rank = 0; rank < slotCount; rank++) {
+				long parentKey = parent < populationSize ? ((long) fitness[parent] << 32) | parent : Long.MAX_VALUE;
+				if (offspringRank < slotCount && ranking[offspringRank] < parentKey)
+					ranking[rank] = ranking[offspringRank++];
+				else {
+					ranking[rank] = parentKey;
+					parent++;
+				}
+			}
+		}
+
+		//select distinct slots, a slot can only be a duplicate of an earlier one with the same fitness
+		TourHashSet tied = tiedTours(populationSize);
+		int cityCount = arena.cityCount();
+		boolean directed = !arena.getInstance().isSymmetric();
+		int selectedCount = 0;
+		int runStart = 0;
+		for (int rank = 0; rank < slotCount && selectedCount < populationSize; rank++) {
+			if (rank == 0 || (ranking[rank] >>> 32) != (ranking[rank - 1] >>> 32)) {
+				//the first of a run of equal fitness can not be a duplicate
+				tied.clear();
+				runStart = rank;
+			} else {
+				if (rank == runStart + 1)
+					tied.add(TourHash.hash(tours, arena.offset((int) ranking[runStart] & ~(int) SELECTED), cityCount, directed));
+				if (!tied.add(TourHash.hash(tours, arena.offset((int) ranking[rank]), cityCount, directed)))
+					continue;
+			}
+			ranking[rank] |= SELECTED;
+			selectedCount++;
+		}
+
+		//fill up with the best duplicates if there were not enough distinct slots, then copy the selection in rank order
+		for (int rank = 0; rank < slotCount && selectedCount < populationSize; rank++) {
+			if ((ranking[rank] & SELECTED) == 0) {
+				ranking[rank] |= SELECTED;
+				selectedCount++;
+			}
+		}
+
+		//the parents not selected are evicted, and the offspring selected admitted
+		if (edgeFrequencies != null) {
+			for (int rank = 0; rank < slotCount; rank++) {
+				if ((ranking[rank] & SELECTED) == 0 && (int) ranking[rank] < populationSize)
+					edgeFrequencies.remove(tours, arena.offset((int) ranking[rank]));
+			}
+			for (int rank = 0; rank < slotCount; rank++) {
+				if ((ranking[rank] & SELECTED) != 0 && (int) (ranking[rank] & ~SELECTED) >= populationSize)
+					edgeFrequencies.add(tours, arena.offset((int) (ranking[rank] & ~SELECTED)));
+			}
+		}
+		long fitnessSum = 0;
+		int nextSlot = 0;
+		for (int rank = 0; rank < slotCount; rank++) {
+			if ((ranking[rank] & SELECTED) != 0) {
+				int slot = (int) (ranking[rank] & ~SELECTED);
+				arena.copyToNext(slot, nextSlot++);
+				fitnessSum += fitness[slot];
+			}
+		}
+
+		//make the next generation the current one, its parents are now sorted
+		arena.swapBuffers();
+		arena.markParentsSorted(fitnessSum);
 	}
 }
@@ -0,0 +1,29 @@
+package com.parker.david;
+
+/**
+ * stops a run once a given number of tours have had their fitness evaluated in full, a budget that does not depend on the machine.
+ * it is checked between generations, so a run overruns it by at most the offspring of one generation
+ */
+public class EvaluationTermination implements TerminationCondition {
+
+	/**
+	 * the number of evaluations the run may make
+	 */
+	private final long evaluationLimit;
+
+	/**
+	 * constructor
+	 *
+	 * @param evaluationLimit the number of evaluations the run may make
+	 */
+	EvaluationTermination(long evaluationLimit) {
+		if (evaluationLimit < 0)
+			throw new IllegalArgumentException("the evaluation limit cannot be negative, found " + evaluationLimit);
+		this.evaluationLimit = evaluationLimit;
+	}
+
+	@Override
+	public boolean isMet(RunProgress progress) {
+		return progress.getEvaluationCount() >= evaluationLimit;
+	}
+}
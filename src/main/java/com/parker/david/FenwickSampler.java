@@ -0,0 +1,136 @@
+package com.parker.david;
+
+import java.util.SplittableRandom;
+
+/**
+ * draws indices at random in proportion to their weights, using a Fenwick (binary indexed) tree of the weights.
+ * building the tree takes linear time, and drawing an index or changing a weight, such as setting it to zero to remove the index
+ * from the draw, takes time logarithmic in the number of indices
+ */
+class FenwickSampler {
+
+	/**
+	 * the tree, indexed from one: element i holds the sum of the weights of the (i & -i) indices up to and including i - 1
+	 */
+	private final long[] tree;
+
+	/**
+	 * the weight of each index
+	 */
+	private final long[] weights;
+
+	/**
+	 * the number of indices
+	 */
+	private final int size;
+
+	/**
+	 * the highest power of two no greater than the number of indices, where the search down the tree starts
+	 */
+	private final int topStep;
+
+	/**
+	 * the sum of all the weights
+	 */
+	private long total;
+
+	/**
+	 * the number of indices with a weight above zero
+	 */
+	private int remaining;
+
+	/**
+	 * constructor, builds the tree in linear time
+	 *
+	 * @param weights the weight of each index, none of which may be negative. the array is copied
+	 */
+	FenwickSampler(long[] weights) {
+		this.size = weights.length;
+		this.weights = weights.clone();
+		this.tree = new long[size + 1];
+		this.topStep = size == 0 ? 0 : Integer.highestOneBit(size);
+		for (int i = 1; i <= size; i++) {
+			long weight = weights[i - 1];
+			if (weight < 0)
+				throw new IllegalArgumentException("weights may not be negative, found " + weight + " at index " + (i - 1));
+			if (weight > 0)
+				remaining++;
+			total += weight;
+			tree[i] += weight;
+			int parent = i + (i & -i);
+			if (parent <= size)
+				tree[parent] += tree[i];
+		}
+	}
+
+	/**
+	 * the sum of all the weights
+	 *
+	 * @return the long total weight
+	 */
+	long total() {
+		return total;
+	}
+
+	/**
+	 * the number of indices that can still be drawn
+	 *
+	 * @return the int number of indices with a weight above zero
+	 */
+	int remaining() {
+		return remaining;
+	}
+
+	/**
+	 * accessor for the weight of an index
+	 *
+	 * @param index the index
+	 * @return the long weight of the index
+	 */
+	long weight(int index) {
+		return weights[index];
+	}
+
+	/**
+	 * changes the weight of an index. a weight of zero removes the index from the draw
+	 *
+	 * @param index  the index
+	 * @param weight the new weight, not negative
+	 */
+	void setWeight(int index, long weight) {
+		if (weight < 0)
+			throw new IllegalArgumentException("weights may not be negative, found " + weight);
+		long change = weight - weights[index];
+		if (weights[index] == 0 && weight > 0)
+			remaining++;
+		else if (weights[index] > 0 && weight == 0)
+			remaining--;
+		weights[index] = weight;
+		total += change;
+		for (int i = index + 1; i <= size; i += i & -i) {
+			tree[i] += change;
+		}
+	}
+
+	/**
+	 * draws an index at random, in proportion to its weight, by walking down the tree to the index whose range of weights holds a
+	 * random number
+	 *
+	 * @param randomNumberGenerator the random number generator to draw from
+	 * @return the int index drawn
+	 */
+	int draw(SplittableRandom randomNumberGenerator) {
+		if (remaining == 0)
+			throw new IllegalStateException("no index has a weight above zero");
+		long target = randomNumberGenerator.nextLong(total);
+		int position = 0;
+		for (int step = topStep; step > 0; step >>>= 1) {
+			int next = position + step;
+			if (next <= size && tree[next] <= target) {
+				position = next;
+				target -= tree[next];
+			}
+		}
+		return position;
+	}
+}
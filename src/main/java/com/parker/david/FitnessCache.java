@@ -0,0 +1,245 @@
+package com.parker.david;
+
+/**
+ * a bounded cache of tour fitnesses, keyed by canonical tour hash, that evicts the least recently used fitness when full.
+ * once a run starts converging the same tours are bred over and over, and looking their fitness up by hash saves re-summing their edges.
+ * everything is held in primitive arrays allocated up front: the entries, a doubly linked list of them in order of use,
+ * and an open addressing index from hash to entry, so using the cache allocates nothing.
+ * a cache must only be used by one thread at a time
+ */
+public class FitnessCache {
+
+	/**
+	 * returned by get when a hash is not in the cache. fitnesses are tour lengths, so are never negative
+	 */
+	static final int MISSING = -1;
+
+	/**
+	 * the hash of each entry
+	 */
+	private final long[] hashes;
+
+	/**
+	 * the fitness of each entry
+	 */
+	private final int[] fitnesses;
+
+	/**
+	 * the entry used just after each entry, or -1 for the most recently used
+	 */
+	private final int[] newer;
+
+	/**
+	 * the entry used just before each entry, or -1 for the least recently used
+	 */
+	private final int[] older;
+
+	/**
+	 * the open addressing index, each bucket holds an entry plus one, or 0 when empty. probed linearly
+	 */
+	private final int[] index;
+
+	/**
+	 * the number of index buckets minus one, the number of buckets is a power of two at least twice the capacity
+	 */
+	private final int indexMask;
+
+	/**
+	 * the number of entries in use
+	 */
+	private int size;
+
+	/**
+	 * the most recently used entry, or -1 when empty
+	 */
+	private int newest = -1;
+
+	/**
+	 * the least recently used entry, or -1 when empty
+	 */
+	private int oldest = -1;
+
+	/**
+	 * the number of lookups that found a fitness
+	 */
+	private long hits;
+
+	/**
+	 * the number of lookups that found nothing
+	 */
+	private long misses;
+
+	/**
+	 * constructor, allocates room for every entry
+	 *
+	 * @param capacity the most fitnesses to hold at once
+	 */
+	FitnessCache(int capacity) {
+		if (capacity < 1 || capacity > 1 << 28)
+			throw new IllegalArgumentException("the capacity must be between 1 and " + (1 << 28) + ", found " + capacity);
+		this.hashes = new long[capacity];
+		this.fitnesses = new int[capacity];
+		this.newer = new int[capacity];
+		this.older = new int[capacity];
+		this.index = new int[Integer.highestOneBit(capacity) << 2];
+		this.indexMask = index.length - 1;
+	}
+
+	/**
+	 * looks up the fitness of a tour, marking it as the most recently used if it is found
+	 *
+	 * @param tourHash the canonical hash of the tour
+	 * @return the int fitness of the tour, or MISSING if it is not in the cache
+	 */
+	int get(long tourHash) {
+		int bucket = find(tourHash);
+		if (index[bucket] == 0) {
+			misses++;
+			return MISSING;
+		}
+		hits++;
+		int entry = index[bucket] - 1;
+		unlink(entry);
+		linkNewest(entry);
+		return fitnesses[entry];
+	}
+
+	/**
+	 * adds the fitness of a tour as the most recently used, evicting the least recently used fitness if the cache is full
+	 *
+	 * @param tourHash the canonical hash of the tour
+	 * @param fitness  the fitness of the tour
+	 */
+	void put(long tourHash, int fitness) {
+		int bucket = find(tourHash);
+		int entry;
+		if (index[bucket] != 0) {
+			//already cached, just refresh it
+			entry = index[bucket] - 1;
+			unlink(entry);
+		} else {
+			if (size < hashes.length) {
+				entry = size++;
+			} else {
+				//reuse the least recently used entry
+				entry = oldest;
+				unlink(entry);
+				removeFromIndex(find(hashes[entry]));
+				bucket = find(tourHash);
+			}
+			hashes[entry] = tourHash;
+			index[bucket] = entry + 1;
+		}
+		fitnesses[entry] = fitness;
+		linkNewest(entry);
+	}
+
+	/**
+	 * the bucket a hash is indexed in, or the empty bucket it would be indexed in
+	 *
+	 * @param tourHash the hash
+	 * @return the int bucket
+	 */
+	private int find(long tourHash) {
+		int bucket = home(tourHash);
+		while (index[bucket] != 0 && hashes[index[bucket] - 1] != tourHash) {
+			bucket = (bucket + 1) & indexMask;
+		}
+		return bucket;
+	}
+
+	/**
+	 * the first bucket probed for a hash
+	 *
+	 * @param tourHash the hash
+	 * @return the int bucket
+	 */
+	private int home(long tourHash) {
+		return (int) (tourHash ^ (tourHash >>> 32)) & indexMask;
+	}
+
+	/**
+	 * empties an index bucket, shifting back any later entries of the probe run that would otherwise no longer be found
+	 *
+	 * @param bucket the bucket to empty
+	 */
+	private void removeFromIndex(int bucket) {
+		int hole = bucket;
+		for (int next = (hole + 1) & indexMask; index[next] != 0; next = (next + 1) & indexMask) {
+			//an entry can fill the hole if the hole lies between its home bucket and where it is now
+			int home = home(hashes[index[next] - 1]);
+			if (((next - home) & indexMask) >= ((next - hole) & indexMask)) {
+				index[hole] = index[next];
+				hole = next;
+			}
+		}
+		index[hole] = 0;
+	}
+
+	/**
+	 * takes an entry out of the list of entries in order of use
+	 *
+	 * @param entry the entry
+	 */
+	private void unlink(int entry) {
+		if (older[entry] >= 0)
+			newer[older[entry]] = newer[entry];
+		else
+			oldest = newer[entry];
+		if (newer[entry] >= 0)
+			older[newer[entry]] = older[entry];
+		else
+			newest = older[entry];
+	}
+
+	/**
+	 * puts an entry at the most recently used end of the list of entries in order of use
+	 *
+	 * @param entry the entry
+	 */
+	private void linkNewest(int entry) {
+		older[entry] = newest;
+		newer[entry] = -1;
+		if (newest >= 0)
+			newer[newest] = entry;
+		else
+			oldest = entry;
+		newest = entry;
+	}
+
+	/**
+	 * the most fitnesses the cache holds at once
+	 *
+	 * @return the int capacity
+	 */
+	int capacity() {
+		return hashes.length;
+	}
+
+	/**
+	 * the number of fitnesses held
+	 *
+	 * @return the int number of entries
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * the number of lookups that found a fitness
+	 *
+	 * @return the long number of hits
+	 */
+	long getHits() {
+		return hits;
+	}
+
+	/**
+	 * the number of lookups that found nothing
+	 *
+	 * @return the long number of misses
+	 */
+	long getMisses() {
+		return misses;
+	}
+}
@@ -0,0 +1,56 @@
+package com.parker.david;
+
+/**
+ * a full distance matrix, stored row by row in a single flat primitive array.
+ * this supports asymmetric problems, where the distance from a to b is not the same as the distance from b to a
+ */
+public class FlatDistanceMatrix implements DistanceMatrix {
+
+	/**
+	 * the distances, stored row-major. the distance from city a to city b is at index a * cityCount + b
+	 */
+	private final int[] distances;
+
+	/**
+	 * the number of cities, which is also the length of a row
+	 */
+	private final int cityCount;
+
+	/**
+	 * constructor, copies a square array of rows into the flat array
+	 *
+	 * @param rows a square array of distances where rows[i][j] is the distance from city i to city j
+	 */
+	FlatDistanceMatrix(int[][] rows) {
+		this.cityCount = rows.length;
+		if ((long) cityCount * cityCount > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("too many cities for a full distance matrix: " + cityCount);
+		this.distances = new int[cityCount * cityCount];
+		for (int from = 0; from < cityCount; from++) {
+			System.arraycopy(rows[from], 0, distances, from * cityCount, cityCount);
+		}
+	}
+
+	/**
+	 * constructor, wraps an already flattened row-major array of distances. the array is not copied
+	 *
+	 * @param distances the row-major distances
+	 * @param cityCount the number of cities
+	 */
+	FlatDistanceMatrix(int[] distances, int cityCount) {
+		if (distances.length != (long) cityCount * cityCount)
+			throw new IllegalArgumentException("expected " + (long) cityCount * cityCount + " distances, found " + distances.length);
+		this.distances = distances;
+		this.cityCount = cityCount;
+	}
+
+	@Override
+	public int getDistance(int fromCityId, int toCityId) {
+		return distances[fromCityId * cityCount + toCityId];
+	}
+
+	@Override
+	public int cityCount() {
+		return cityCount;
+	}
+}
@@ -2,9 +2,6 @@ package com.parker.david;
 
 import de.vandermeer.asciitable.AsciiTable;
 
-import java.util.ArrayList;
-import java.util.stream.Collectors;
-
 /**
  * a class to hold information about this generation, and allows initialisation of the next generation
  */
@@ -36,6 +33,15 @@ public class GAPopulationGeneration {
 		return mutatedPopulation;
 	}
 
+	/**
+	 * accessor for the mutated offspring after local search for this generation, the mutated offspring if there was no local search
+	 *
+	 * @return a solution population
+	 */
+	public SolutionPopulation getImprovedPopulation() {
+		return improvedPopulation != null ? improvedPopulation : mutatedPopulation;
+	}
+
 	/**
 	 * accessor for the next population after selection from this generation (also is the parent population of the next generation)
 	 *
@@ -60,20 +66,25 @@ public class GAPopulationGeneration {
 	 */
 	private SolutionPopulation mutatedPopulation;
 
+	/**
+	 * the underlying data objects for the population improved by local search, null if there was no local search
+	 */
+	private SolutionPopulation improvedPopulation;
+
 	/**
 	 * the underlying data objects for the output of selection phase population
 	 */
 	private SolutionPopulation nextPopulation;
 
 	/**
-	 * an array list of records indicating how crossover was performed
+	 * the log this generation's lineage, how crossover and mutation were performed, is recorded in, or null if lineage is not recorded
 	 */
-	private ArrayList<FamilyRecord> familyRecords;
+	private LineageLog lineageLog;
 
 	/**
-	 * an array list of records indicating how mutation was performed
+	 * the number of the lineage log entry this generation's lineage starts at, or LineageLog.NOT_RECORDED
 	 */
-	private ArrayList<MutantRecord> mutantRecords;
+	private long lineageStart = LineageLog.NOT_RECORDED;
 
 	/**
 	 * an integer corresponding to this generation, starting at generation 0
@@ -101,12 +112,32 @@ public class GAPopulationGeneration {
 	}
 
 	/**
-	 * a setter for the family record array list
+	 * accessor for the number of this generation, starting at generation 0
+	 *
+	 * @return the int generation number
+	 */
+	public int getGenerationNumber() {
+		return generationNumber;
+	}
+
+	/**
+	 * accessor for the mean fitness of the output from this generation
+	 *
+	 * @return a double for mean fitness
+	 */
+	public double getMeanFitness() {
+		return meanFitness;
+	}
+
+	/**
+	 * a setter for where this generation's lineage is recorded
 	 *
-	 * @param familyRecords a family record array list
+	 * @param lineageLog   the lineage log
+	 * @param lineageStart the number of the log entry this generation's lineage starts at, or LineageLog.NOT_RECORDED if it is not recorded
 	 */
-	public void setFamilyRecords(ArrayList<FamilyRecord> familyRecords) {
-		this.familyRecords = familyRecords;
+	void setLineage(LineageLog lineageLog, long lineageStart) {
+		this.lineageLog = lineageLog;
+		this.lineageStart = lineageStart;
 	}
 
 	/**
@@ -128,12 +159,12 @@ public class GAPopulationGeneration {
 	}
 
 	/**
-	 * a setter for the mutant records for this generation
+	 * a setter for the population improved by local search
 	 *
-	 * @param mutantRecords a mutant record array list
+	 * @param improvedPopulation a solution population, the same size and order as the mutated population
 	 */
-	public void setMutantRecords(ArrayList<MutantRecord> mutantRecords) {
-		this.mutantRecords = mutantRecords;
+	public void setImprovedPopulation(SolutionPopulation improvedPopulation) {
+		this.improvedPopulation = improvedPopulation;
 	}
 
 	/**
@@ -169,6 +200,13 @@ public class GAPopulationGeneration {
 		return nextGen;
 	}
 
+	/**
+	 * adds this generation to a table, a row for each parent alongside the offspring and selected solution at the same index.
+	 * the parents and mutation of each offspring are looked up by index in the lineage log, and left blank if they were not recorded
+	 *
+	 * @param table     the table to add to
+	 * @param incumbent the best solution found so far
+	 */
 	public void addToTable(AsciiTable table, CandidateSolution incumbent) {
 
 		//print the header
@@ -185,27 +223,23 @@ public class GAPopulationGeneration {
 
 			//if there is an offspring left to put into this row, overwrite the default offspring strings
 			if ((i < mutatedPopulation.getPopulationSize())) {
-				//grab the final offspring (post crossover and mutation)
+				//grab the offspring after mutation, and the final offspring (post crossover, mutation and any local search)
 				CandidateSolution offspring = mutatedPopulation.getSolutions().get(i);
+				CandidateSolution improvedOffspring = getImprovedPopulation().getSolutions().get(i);
 
 				//set the offspring string
-				finalOffspring = offspring.toString();
+				finalOffspring = improvedOffspring.toString();
 
 				//set the offspring fitness
-				finalOffspringFitness = "" + offspring.getFitness();
-
-				//check if the offspring was mutated
-				finalOffspringMutation = mutantRecords.stream()
-						.map(mutantRecord -> mutantRecord.unmutatedIfMutatedMatches(offspring))
-						.collect(Collectors.joining(""));
-
-				//if mutation exists, we look for the original unmutated offspring as the lookup
-				CandidateSolution parentRecordLookup = (!finalOffspringMutation.isEmpty()) ? mutantRecords.get(0).getUnmutated() : offspring;
-
-				//output get the parents
-				finalOffspringParents = familyRecords.stream()
-						.map(familyRecord -> familyRecord.parentsIfOffspringMatches(parentRecordLookup))
-						.collect(Collectors.joining(""));
+				finalOffspringFitness = "" + improvedOffspring.getFitness();
+
+				//look up the offspring's parents, and whether it was mutated, if they were recorded
+				if (lineageStart != LineageLog.NOT_RECORDED) {
+					finalOffspringParents = "[" + parentPopulation.getSolutions().get(lineageLog.getParent1(lineageStart, i)) + ","
+							+ parentPopulation.getSolutions().get(lineageLog.getParent2(lineageStart, i)) + "]";
+					if (lineageLog.isMutated(lineageStart, i))
+						finalOffspringMutation = offspringPopulation.getSolutions().get(i) + "->" + offspring;
+				}
 			}
 			//add a row to the table
 			table.addRow(
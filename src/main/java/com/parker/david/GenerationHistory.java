@@ -0,0 +1,82 @@
+package com.parker.david;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * an interface allowing for multiple policies for keeping the generations of a run.
+ * each generation holds several populations and the records of how they were made, so keeping every generation of a long run
+ * keeps every tour it ever created. a history decides which generations are kept, and where
+ */
+public interface GenerationHistory extends Closeable {
+
+	/**
+	 * the number of sampled generations kept by a history made from an "every:k" policy
+	 */
+	int SAMPLED_CAPACITY = 64;
+
+	/**
+	 * records a generation once selection has completed it
+	 *
+	 * @param generation the completed generation
+	 * @throws IOException if the generation cannot be written out
+	 */
+	void record(GAPopulationGeneration generation) throws IOException;
+
+	/**
+	 * accessor for the generations still held in memory, oldest first
+	 *
+	 * @return the retained generations
+	 */
+	List<GAPopulationGeneration> getRetainedGenerations();
+
+	/**
+	 * the number of most recent generations this history may still hold in memory, counted back from the latest recorded,
+	 * so that anything a retained generation refers to, such as its lineage, can be kept for that long and no longer
+	 *
+	 * @return the int number of generations, 0 if the history keeps nothing in memory
+	 */
+	int getRetainedSpan();
+
+	/**
+	 * closes anything the history has open, by default nothing
+	 *
+	 * @throws IOException if the history cannot be closed
+	 */
+	@Override
+	default void close() throws IOException {
+	}
+
+	/**
+	 * makes a history from a policy. "none" keeps nothing, "last:n" keeps the last n generations, "every:k" keeps every k-th generation,
+	 * the most recent SAMPLED_CAPACITY of them, and "spill:file" appends every generation to a log file and keeps none in memory
+	 *
+	 * @param policy the retention policy
+	 * @return the history, which must be closed once the run is over
+	 * @throws IOException if the spill file cannot be opened
+	 */
+	static GenerationHistory fromPolicy(String policy) throws IOException {
+		int separator = policy.indexOf(':');
+		String name = separator < 0 ? policy : policy.substring(0, separator);
+		String argument = separator < 0 ? null : policy.substring(separator + 1);
+		switch (name.toLowerCase()) {
+			case "none":
+				return new RingHistory(0, 1);
+			case "last":
+				if (argument != null)
+					return new RingHistory(Integer.parseInt(argument), 1);
+				break;
+			case "every":
+				if (argument != null)
+					return new RingHistory(SAMPLED_CAPACITY, Integer.parseInt(argument));
+				break;
+			case "spill":
+				if (argument != null)
+					return new SpillingHistory(Paths.get(argument));
+				break;
+		}
+		throw new IllegalArgumentException("unknown history policy " + policy + ", expected one of none, last:n, every:k, spill:file");
+	}
+}
@@ -0,0 +1,222 @@
+package com.parker.david;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * an island model genetic algorithm. several independent populations (islands) each evolve on their own thread,
+ * and every few generations (an epoch) the best solutions of each island migrate to its neighbours under a migration topology.
+ * islands share nothing while evolving, so there is no synchronisation cost other than the migration at the end of each epoch.
+ * each island has its own stream of random numbers, and migration happens at the same point of every run, so runs are reproducible from their seed
+ */
+public class IslandModel implements AutoCloseable {
+
+	/**
+	 * the islands, each an independently evolving arena genetic algorithm
+	 */
+	private final ArrayList<ArenaEvolution> islands;
+
+	/**
+	 * the number of generations each island evolves between migrations
+	 */
+	private final int migrationInterval;
+
+	/**
+	 * the number of best solutions each island sends to each neighbour on migration
+	 */
+	private final int migrantCount;
+
+	/**
+	 * how the islands are connected for migration
+	 */
+	private final MigrationTopology topology;
+
+	/**
+	 * the executor running each island on its own thread
+	 */
+	private final ExecutorService islandThreads;
+
+	/**
+	 * the best solution found on any island so far
+	 */
+	private CandidateSolution incumbent;
+
+	/**
+	 * the number of epochs evolved so far
+	 */
+	private int epochNumber;
+
+	/**
+	 * constructor, creates and initialises every island, and a thread for each of them
+	 *
+	 * @param instance          the problem to solve
+	 * @param islandCount       the number of islands
+	 * @param populationSize    the number of parents on each island
+	 * @param offspringCount    the number of offspring bred on each island each generation, must be even
+	 * @param tournamentSize    the number of parents drawn into each tournament for parent selection
+	 * @param migrationInterval the number of generations each island evolves between migrations
+	 * @param migrantCount      the number of best solutions each island sends to each neighbour on migration
+	 * @param topology          how the islands are connected for migration
+	 * @param randomStreams     the source of each island's own stream of random numbers
+	 */
+	IslandModel(TSPInstance instance, int islandCount, int populationSize, int offspringCount, int tournamentSize,
+				int migrationInterval, int migrantCount, MigrationTopology topology, RandomStreams randomStreams) {
+		if (islandCount < 1)
+			throw new IllegalArgumentException("at least one island is needed, found " + islandCount);
+		if (migrationInterval < 1)
+			throw new IllegalArgumentException("islands must evolve at least one generation between migrations, found " + migrationInterval);
+		int neighbourCount = topology == MigrationTopology.RING ? 1 : islandCount - 1;
+		if (migrantCount * neighbourCount >= populationSize)
+			throw new IllegalArgumentException("an island of " + populationSize + " cannot take in " + migrantCount * neighbourCount + " migrants");
+		this.migrationInterval = migrationInterval;
+		this.migrantCount = migrantCount;
+		this.topology = topology;
+		this.islands = new ArrayList<>(islandCount);
+		for (int i = 0; i < islandCount; i++) {
+			islands.add(new ArenaEvolution(instance, populationSize, offspringCount, tournamentSize, randomStreams.newStream()));
+		}
+		this.islandThreads = Executors.newFixedThreadPool(islandCount);
+		updateIncumbent();
+	}
+
+	/**
+	 * accessor for the islands
+	 *
+	 * @return an array list of the islands' genetic algorithms
+	 */
+	public ArrayList<ArenaEvolution> getIslands() {
+		return islands;
+	}
+
+	/**
+	 * accessor for the best solution found on any island so far
+	 *
+	 * @return the incumbent candidate solution
+	 */
+	public CandidateSolution getIncumbent() {
+		return incumbent;
+	}
+
+	/**
+	 * the number of epochs evolved so far
+	 *
+	 * @return the int epoch number, starting at 0 before any evolution
+	 */
+	public int getEpochNumber() {
+		return epochNumber;
+	}
+
+	/**
+	 * the total number of generations each island has evolved
+	 *
+	 * @return the int generation number
+	 */
+	public int getGenerationNumber() {
+		return epochNumber * migrationInterval;
+	}
+
+	/**
+	 * the number of tours evaluated in full so far, across all islands
+	 *
+	 * @return the long number of evaluations
+	 */
+	public long getEvaluationCount() {
+		long total = 0;
+		for (ArenaEvolution island : islands) {
+			total += island.getEvaluationCount();
+		}
+		return total;
+	}
+
+	/**
+	 * evolves one epoch: every island evolves migrationInterval generations on its own thread,
+	 * then, once all islands are done, migrants are exchanged and the incumbent is updated
+	 *
+	 * @return true if the incumbent improved during this epoch
+	 */
+	public boolean evolveEpoch() throws InterruptedException {
+		//evolve every island on its own thread, and wait for them all
+		ArrayList<Callable<Void>> epochs = new ArrayList<>(islands.size());
+		for (ArenaEvolution island : islands) {
+			epochs.add(() -> {
+				for (int generation = 0; generation < migrationInterval; generation++) {
+					island.evolveGeneration();
+				}
+				return null;
+			});
+		}
+		for (Future<Void> epoch : islandThreads.invokeAll(epochs)) {
+			try {
+				epoch.get();
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("an island failed to evolve", e.getCause());
+			}
+		}
+
+		migrate();
+		epochNumber++;
+		return updateIncumbent();
+	}
+
+	/**
+	 * exchanges migrants between the islands. every island's best solutions are collected before any are received,
+	 * so migrants only travel one step of the topology per epoch. migrants replace the least fit parents of the receiving island
+	 */
+	private void migrate() {
+		int islandCount = islands.size();
+
+		//collect each island's best solutions before any island is changed
+		ArrayList<ArrayList<CandidateSolution>> migrants = new ArrayList<>(islandCount);
+		for (ArenaEvolution island : islands) {
+			int[] ranked = island.getArena().rankedParentSlots();
+			ArrayList<CandidateSolution> best = new ArrayList<>(migrantCount);
+			for (int rank = 0; rank < migrantCount; rank++) {
+				best.add(island.getArena().toSolution(ranked[rank]));
+			}
+			migrants.add(best);
+		}
+
+		//each island replaces its least fit parents with the migrants sent to it
+		for (int to = 0; to < islandCount; to++) {
+			ArenaEvolution island = islands.get(to);
+			int[] ranked = island.getArena().rankedParentSlots();
+			int replaced = 0;
+			for (int from = 0; from < islandCount; from++) {
+				if (!topology.sendsTo(from, to, islandCount))
+					continue;
+				for (CandidateSolution migrant : migrants.get(from)) {
+					island.storeParent(ranked[ranked.length - 1 - replaced++], migrant);
+				}
+			}
+		}
+	}
+
+	/**
+	 * checks every island for a solution better than the incumbent, and takes the best one as the new incumbent
+	 *
+	 * @return true if the incumbent improved
+	 */
+	private boolean updateIncumbent() {
+		ArenaEvolution bestIsland = islands.get(0);
+		for (ArenaEvolution island : islands) {
+			if (island.getBestFitness() < bestIsland.getBestFitness())
+				bestIsland = island;
+		}
+		if (incumbent != null && bestIsland.getBestFitness() >= incumbent.getFitness())
+			return false;
+		incumbent = bestIsland.getBestSolution();
+		return true;
+	}
+
+	/**
+	 * stops the island threads. the islands may not be evolved after this
+	 */
+	@Override
+	public void close() {
+		islandThreads.shutdownNow();
+	}
+}
@@ -0,0 +1,277 @@
+package com.parker.david;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+
+/**
+ * a minimal JSON reader and writer for the solve server, enough for requests of numbers, strings, arrays and objects.
+ * objects are read as linked hash maps of member names to values, arrays as array lists, numbers as doubles,
+ * and true, false and null as booleans and null
+ */
+class Json {
+
+	/**
+	 * the text being read
+	 */
+	private final String text;
+
+	/**
+	 * the index of the next character to read
+	 */
+	private int position;
+
+	/**
+	 * constructor
+	 *
+	 * @param text the text to read
+	 */
+	private Json(String text) {
+		this.text = text;
+	}
+
+	/**
+	 * reads a JSON value
+	 *
+	 * @param text the JSON text, holding a single value
+	 * @return the value
+	 * @throws IllegalArgumentException if the text is not valid JSON
+	 */
+	static Object parse(String text) {
+		Json reader = new Json(text);
+		Object value = reader.readValue();
+		reader.skipWhitespace();
+		if (reader.position < text.length())
+			throw reader.malformed("unexpected text after the value");
+		return value;
+	}
+
+	/**
+	 * writes a string as a JSON string, quoted and escaped
+	 *
+	 * @param builder the builder to write to
+	 * @param string  the string to write
+	 * @return the builder
+	 */
+	static StringBuilder quote(StringBuilder builder, String string) {
+		builder.append('"');
+		for (int i = 0; i < string.length(); i++) {
+			char character = string.charAt(i);
+			switch (character) {
+				case '"':
+					builder.append("\\\"");
+					break;
+				case '\\':
+					builder.append("\\\\");
+					break;
+				case '\n':
+					builder.append("\\n");
+					break;
+				case '\r':
+					builder.append("\\r");
+					break;
+				case '\t':
+					builder.append("\\t");
+					break;
+				default:
+					if (character < 0x20)
+						builder.append(String.format("\\u%04x", (int) character));
+					else
+						builder.append(character);
+			}
+		}
+		return builder.append('"');
+	}
+
+	/**
+	 * reads the value starting at the next non whitespace character
+	 *
+	 * @return the value
+	 */
+	private Object readValue() {
+		skipWhitespace();
+		if (position == text.length())
+			throw malformed("expected a value");
+		char character = text.charAt(position);
+		switch (character) {
+			case '{':
+				return readObject();
+			case '[':
+				return readArray();
+			case '"':
+				return readString();
+			case 't':
+				return readLiteral("true", Boolean.TRUE);
+			case 'f':
+				return readLiteral("false", Boolean.FALSE);
+			case 'n':
+				return readLiteral("null", null);
+			default:
+				return readNumber();
+		}
+	}
+
+	/**
+	 * reads an object, from its opening brace
+	 *
+	 * @return the members of the object, in the order they were written
+	 */
+	private LinkedHashMap<String, Object> readObject() {
+		LinkedHashMap<String, Object> members = new LinkedHashMap<>();
+		position++;
+		skipWhitespace();
+		if (consume('}'))
+			return members;
+		do {
+			skipWhitespace();
+			if (position == text.length() || text.charAt(position) != '"')
+				throw malformed("expected a member name");
+			String name = readString();
+			skipWhitespace();
+			if (!consume(':'))
+				throw malformed("expected : after member " + name);
+			members.put(name, readValue());
+			skipWhitespace();
+		} while (consume(','));
+		if (!consume('}'))
+			throw malformed("expected , or }");
+		return members;
+	}
+
+	/**
+	 * reads an array, from its opening bracket
+	 *
+	 * @return the elements of the array
+	 */
+	private ArrayList<Object> readArray() {
+		ArrayList<Object> elements = new ArrayList<>();
+		position++;
+		skipWhitespace();
+		if (consume(']'))
+			return elements;
+		do {
+			elements.add(readValue());
+			skipWhitespace();
+		} while (consume(','));
+		if (!consume(']'))
+			throw malformed("expected , or ]");
+		return elements;
+	}
+
+	/**
+	 * reads a string, from its opening quote
+	 *
+	 * @return the string, unescaped
+	 */
+	private String readString() {
+		StringBuilder string = new StringBuilder();
+		position++;
+		while (position < text.length()) {
+			char character = text.charAt(position++);
+			if (character == '"')
+				return string.toString();
+			if (character != '\\') {
+				string.append(character);
+				continue;
+			}
+			if (position == text.length())
+				break;
+			char escaped = text.charAt(position++);
+			switch (escaped) {
+				case 'b':
+					string.append('\b');
+					break;
+				case 'f':
+					string.append('\f');
+					break;
+				case 'n':
+					string.append('\n');
+					break;
+				case 'r':
+					string.append('\r');
+					break;
+				case 't':
+					string.append('\t');
+					break;
+				case 'u':
+					if (position + 4 > text.length())
+						throw malformed("incomplete unicode escape");
+					try {
+						string.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+					} catch (NumberFormatException e) {
+						throw malformed("invalid unicode escape");
+					}
+					position += 4;
+					break;
+				default:
+					string.append(escaped);//quotes, backslashes and slashes stand for themselves
+			}
+		}
+		throw malformed("unterminated string");
+	}
+
+	/**
+	 * reads a number
+	 *
+	 * @return the Double value of the number
+	 */
+	private Double readNumber() {
+		int start = position;
+		while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+			position++;
+		}
+		if (start == position)
+			throw malformed("unexpected character " + text.charAt(position));
+		try {
+			return Double.valueOf(text.substring(start, position));
+		} catch (NumberFormatException e) {
+			throw malformed("invalid number " + text.substring(start, position));
+		}
+	}
+
+	/**
+	 * reads one of the literals true, false and null
+	 *
+	 * @param literal the literal expected
+	 * @param value   the value it stands for
+	 * @return the value
+	 */
+	private Object readLiteral(String literal, Object value) {
+		if (!text.startsWith(literal, position))
+			throw malformed("unexpected character " + text.charAt(position));
+		position += literal.length();
+		return value;
+	}
+
+	/**
+	 * moves past the next character if it is the one expected
+	 *
+	 * @param expected the character expected
+	 * @return true if it was there
+	 */
+	private boolean consume(char expected) {
+		if (position < text.length() && text.charAt(position) == expected) {
+			position++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * moves past any whitespace
+	 */
+	private void skipWhitespace() {
+		while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+			position++;
+		}
+	}
+
+	/**
+	 * an exception for text that is not valid JSON, saying where it went wrong
+	 *
+	 * @param message what was wrong
+	 * @return the exception to throw
+	 */
+	private IllegalArgumentException malformed(String message) {
+		return new IllegalArgumentException("malformed JSON at character " + position + ": " + message);
+	}
+}
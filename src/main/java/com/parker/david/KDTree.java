@@ -0,0 +1,266 @@
+package com.parker.david;
+
+/**
+ * a k-d tree over points of two or three dimensions, used to find the nearest neighbours of every city in O(n log n) overall.
+ * the tree is stored implicitly in a permutation of the point indices: the median of each range is the node splitting that range,
+ * so no node objects are created
+ */
+class KDTree {
+
+	/**
+	 * the coordinates of the points, coordinates[d][i] is coordinate d of point i
+	 */
+	private final double[][] coordinates;
+
+	/**
+	 * the point indices, permuted so that every range [from, to) has its splitting point at its middle,
+	 * points before the middle no greater and points after it no smaller on the range's split dimension
+	 */
+	private final int[] points;
+
+	/**
+	 * the dimension each range's middle point splits on, indexed by the middle point's position in points
+	 */
+	private final byte[] splitDimension;
+
+	/**
+	 * constructor, builds the tree by recursively partitioning around the median of the widest dimension
+	 *
+	 * @param coordinates the coordinates of the points, coordinates[d][i] is coordinate d of point i
+	 */
+	KDTree(double[][] coordinates) {
+		this.coordinates = coordinates;
+		int count = coordinates[0].length;
+		this.points = new int[count];
+		this.splitDimension = new byte[count];
+		for (int i = 0; i < count; i++) {
+			points[i] = i;
+		}
+		build(0, count);
+	}
+
+	/**
+	 * builds the subtree of a range of points, iterating over the larger half to bound the stack depth
+	 *
+	 * @param from the first position of the range
+	 * @param to   the position after the last of the range
+	 */
+	private void build(int from, int to) {
+		while (to - from > 1) {
+			int dimension = widestDimension(from, to);
+			int middle = (from + to) >>> 1;
+			select(from, to, middle, dimension);
+			splitDimension[middle] = (byte) dimension;
+			if (middle - from < to - middle - 1) {
+				build(from, middle);
+				from = middle + 1;
+			} else {
+				build(middle + 1, to);
+				to = middle;
+			}
+		}
+	}
+
+	/**
+	 * finds the dimension along which a range of points is most spread out
+	 *
+	 * @param from the first position of the range
+	 * @param to   the position after the last of the range
+	 * @return the int dimension with the largest extent
+	 */
+	private int widestDimension(int from, int to) {
+		int widest = 0;
+		double widestExtent = -1;
+		for (int dimension = 0; dimension < coordinates.length; dimension++) {
+			double min = Double.POSITIVE_INFINITY;
+			double max = Double.NEGATIVE_INFINITY;
+			for (int i = from; i < to; i++) {
+				double value = coordinates[dimension][points[i]];
+				min = Math.min(min, value);
+				max = Math.max(max, value);
+			}
+			if (max - min > widestExtent) {
+				widestExtent = max - min;
+				widest = dimension;
+			}
+		}
+		return widest;
+	}
+
+	/**
+	 * quickselect: partially sorts a range of points along a dimension so that the point at position k is the one a full sort would put there,
+	 * with no greater points before it and no smaller points after it
+	 *
+	 * @param from      the first position of the range
+	 * @param to        the position after the last of the range
+	 * @param k         the position to select
+	 * @param dimension the dimension to compare on
+	 */
+	private void select(int from, int to, int k, int dimension) {
+		double[] values = coordinates[dimension];
+		int left = from;
+		int right = to - 1;
+		while (right > left) {
+			double pivot = values[points[(left + right) >>> 1]];
+			int i = left;
+			int j = right;
+			while (i <= j) {
+				while (values[points[i]] < pivot)
+					i++;
+				while (values[points[j]] > pivot)
+					j--;
+				if (i <= j) {
+					int swapped = points[i];
+					points[i] = points[j];
+					points[j] = swapped;
+					i++;
+					j--;
+				}
+			}
+			if (k <= j)
+				right = j;
+			else if (k >= i)
+				left = i;
+			else
+				return;
+		}
+	}
+
+	/**
+	 * finds the nearest points to a point of the tree, by squared euclidean distance, excluding the point itself
+	 *
+	 * @param point            the index of the point whose neighbours we want
+	 * @param neighbours       the array to write the neighbour indices to, its length is the number of neighbours wanted
+	 * @param squaredDistances scratch space of the same length as neighbours
+	 * @return the int number of neighbours found, fewer than wanted only if the tree has too few points
+	 */
+	int nearest(int point, int[] neighbours, double[] squaredDistances) {
+		//the search compares against the farthest neighbour found so far, so needs room for at least one
+		if (neighbours.length == 0)
+			return 0;
+		NearestSearch search = new NearestSearch(point, neighbours, squaredDistances);
+		search.visit(0, points.length);
+		return search.found;
+	}
+
+	/**
+	 * the state of a single nearest neighbour search. the best neighbours found so far are kept as a max-heap on distance,
+	 * so the worst of them, the one a closer point replaces, is always at the root
+	 */
+	private class NearestSearch {
+
+		/**
+		 * the point whose neighbours are searched for
+		 */
+		private final int point;
+
+		/**
+		 * the heap of neighbours found so far
+		 */
+		private final int[] heap;
+
+		/**
+		 * the squared distance of each neighbour in the heap
+		 */
+		private final double[] heapDistances;
+
+		/**
+		 * the number of neighbours in the heap
+		 */
+		private int found;
+
+		/**
+		 * constructor
+		 *
+		 * @param point         the point whose neighbours are searched for
+		 * @param heap          the array the neighbours are collected in
+		 * @param heapDistances scratch space for the neighbours' squared distances
+		 */
+		NearestSearch(int point, int[] heap, double[] heapDistances) {
+			this.point = point;
+			this.heap = heap;
+			this.heapDistances = heapDistances;
+		}
+
+		/**
+		 * searches a range of the tree, nearer half first, only visiting the farther half if it could hold a closer point
+		 *
+		 * @param from the first position of the range
+		 * @param to   the position after the last of the range
+		 */
+		void visit(int from, int to) {
+			if (from >= to)
+				return;
+			int middle = (from + to) >>> 1;
+			int candidate = points[middle];
+			if (candidate != point)
+				offer(candidate, squaredDistance(candidate));
+			if (to - from == 1)
+				return;
+
+			int dimension = splitDimension[middle];
+			double offset = coordinates[dimension][point] - coordinates[dimension][candidate];
+			if (offset < 0) {
+				visit(from, middle);
+				if (found < heap.length || offset * offset <= heapDistances[0])
+					visit(middle + 1, to);
+			} else {
+				visit(middle + 1, to);
+				if (found < heap.length || offset * offset <= heapDistances[0])
+					visit(from, middle);
+			}
+		}
+
+		/**
+		 * the squared euclidean distance from the searched point to another point
+		 *
+		 * @param other the other point
+		 * @return the double squared distance
+		 */
+		private double squaredDistance(int other) {
+			double total = 0;
+			for (double[] dimension : coordinates) {
+				double difference = dimension[point] - dimension[other];
+				total += difference * difference;
+			}
+			return total;
+		}
+
+		/**
+		 * adds a point to the heap if there is room, or if it is closer than the farthest point in the heap
+		 *
+		 * @param candidate the point
+		 * @param distance  its squared distance from the searched point
+		 */
+		private void offer(int candidate, double distance) {
+			if (found < heap.length) {
+				//sift the new point up from the bottom of the heap
+				int child = found++;
+				while (child > 0 && heapDistances[(child - 1) / 2] < distance) {
+					heap[child] = heap[(child - 1) / 2];
+					heapDistances[child] = heapDistances[(child - 1) / 2];
+					child = (child - 1) / 2;
+				}
+				heap[child] = candidate;
+				heapDistances[child] = distance;
+			} else if (distance < heapDistances[0]) {
+				//replace the farthest point at the root, and sift the new point down
+				int parent = 0;
+				while (true) {
+					int child = 2 * parent + 1;
+					if (child >= found)
+						break;
+					if (child + 1 < found && heapDistances[child + 1] > heapDistances[child])
+						child++;
+					if (heapDistances[child] <= distance)
+						break;
+					heap[parent] = heap[child];
+					heapDistances[parent] = heapDistances[child];
+					parent = child;
+				}
+				heap[parent] = candidate;
+				heapDistances[parent] = distance;
+			}
+		}
+	}
+}
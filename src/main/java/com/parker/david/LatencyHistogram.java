@@ -0,0 +1,142 @@
+package com.parker.david;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * a histogram of latencies in nanoseconds, with log-linear buckets: every power of two is split into SUB_BUCKETS equal buckets,
+ * so any latency is placed within 25% of its value, from a nanosecond up to centuries, in a fixed 248 buckets.
+ * recording is lock free, so latencies can be recorded from several threads at once
+ */
+public class LatencyHistogram implements LatencyHistogramMXBean {
+
+	/**
+	 * the number of bits of a latency below its highest set bit used to pick its bucket within a power of two
+	 */
+	private static final int SUB_BUCKET_BITS = 2;
+
+	/**
+	 * the number of buckets each power of two is split into
+	 */
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	/**
+	 * the number of latencies recorded in each bucket
+	 */
+	private final AtomicLongArray buckets = new AtomicLongArray((64 - SUB_BUCKET_BITS) * SUB_BUCKETS);
+
+	/**
+	 * the number of latencies recorded
+	 */
+	private final AtomicLong count = new AtomicLong();
+
+	/**
+	 * the total of all recorded latencies, in nanoseconds
+	 */
+	private final AtomicLong totalNanos = new AtomicLong();
+
+	/**
+	 * the longest recorded latency, in nanoseconds
+	 */
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	/**
+	 * records a latency
+	 *
+	 * @param nanos the latency in nanoseconds, negative latencies from a clock adjustment are recorded as 0
+	 */
+	void record(long nanos) {
+		nanos = Math.max(0, nanos);
+		buckets.incrementAndGet(bucket(nanos));
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	/**
+	 * the bucket a latency falls in
+	 *
+	 * @param nanos a latency of at least 0 nanoseconds
+	 * @return the int index of the bucket
+	 */
+	static int bucket(long nanos) {
+		if (nanos < SUB_BUCKETS)
+			return (int) nanos;
+		int highestBit = 63 - Long.numberOfLeadingZeros(nanos);
+		int subBucket = (int) (nanos >>> (highestBit - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (highestBit - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	/**
+	 * the largest latency that falls in a bucket
+	 *
+	 * @param bucket the index of the bucket
+	 * @return the long upper bound of the bucket, in nanoseconds
+	 */
+	static long bucketUpperBound(int bucket) {
+		if (bucket < SUB_BUCKETS)
+			return bucket;
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowerBound = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+
+	/**
+	 * the latency below which a fraction of recorded latencies fall, to the resolution of the buckets
+	 *
+	 * @param fraction the fraction, between 0 and 1
+	 * @return the long upper bound of the bucket holding the percentile, in nanoseconds, 0 if nothing was recorded
+	 */
+	long percentileNanos(double fraction) {
+		long recorded = count.get();
+		if (recorded == 0)
+			return 0;
+		long rank = Math.max(1, (long) Math.ceil(fraction * recorded));
+		long seen = 0;
+		for (int bucket = 0; bucket < buckets.length(); bucket++) {
+			seen += buckets.get(bucket);
+			if (seen >= rank)
+				return Math.min(bucketUpperBound(bucket), maxNanos.get());
+		}
+		return maxNanos.get();
+	}
+
+	@Override
+	public long getCount() {
+		return count.get();
+	}
+
+	@Override
+	public double getTotalMillis() {
+		return totalNanos.get() / 1e6;
+	}
+
+	@Override
+	public double getMeanMicros() {
+		long recorded = count.get();
+		return recorded == 0 ? 0 : totalNanos.get() / 1e3 / recorded;
+	}
+
+	@Override
+	public double getP50Micros() {
+		return percentileNanos(0.5) / 1e3;
+	}
+
+	@Override
+	public double getP90Micros() {
+		return percentileNanos(0.9) / 1e3;
+	}
+
+	@Override
+	public double getP99Micros() {
+		return percentileNanos(0.99) / 1e3;
+	}
+
+	@Override
+	public double getMaxMicros() {
+		return maxNanos.get() / 1e3;
+	}
+}
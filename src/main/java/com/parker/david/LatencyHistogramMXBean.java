@@ -0,0 +1,42 @@
+package com.parker.david;
+
+/**
+ * the JMX view of a latency histogram. times are in microseconds, percentiles are the upper bound of the bucket they fall in
+ */
+public interface LatencyHistogramMXBean {
+
+	/**
+	 * @return the number of latencies recorded
+	 */
+	long getCount();
+
+	/**
+	 * @return the total of all recorded latencies, in milliseconds
+	 */
+	double getTotalMillis();
+
+	/**
+	 * @return the mean recorded latency, in microseconds
+	 */
+	double getMeanMicros();
+
+	/**
+	 * @return the median recorded latency, in microseconds
+	 */
+	double getP50Micros();
+
+	/**
+	 * @return the 90th percentile recorded latency, in microseconds
+	 */
+	double getP90Micros();
+
+	/**
+	 * @return the 99th percentile recorded latency, in microseconds
+	 */
+	double getP99Micros();
+
+	/**
+	 * @return the longest recorded latency, in microseconds
+	 */
+	double getMaxMicros();
+}
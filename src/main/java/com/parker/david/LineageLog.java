@@ -0,0 +1,214 @@
+package com.parker.david;
+
+import java.util.Arrays;
+
+/**
+ * an append only log of where the offspring of the default genetic algorithm came from: which two parents each was bred from,
+ * and whether it was then mutated. parents and offspring are recorded by their index in their generation's populations,
+ * so the log is a pair of ints per offspring, held in a single growable array, rather than a graph of records holding solutions.
+ * a log either records every generation, or samples one generation in every so many, so that lineage can be kept for a long run
+ * at a fraction of the cost. runs that need no lineage at all have no log, and their operators record nothing.
+ * a log only keeps the lineage of the generations that can still be read: the generation being bred, and those the run's history
+ * may still hold. entries are numbered from the start of the run, and the entries of older generations are dropped
+ * once the array is full, so the log stays the size of the generations it keeps however long the run
+ */
+public class LineageLog {
+
+	/**
+	 * the start of a generation that is not recorded
+	 */
+	static final long NOT_RECORDED = -1;
+
+	/**
+	 * the bit of an offspring's second parent entry marking that the offspring was mutated
+	 */
+	private static final int MUTATED = 1 << 31;
+
+	/**
+	 * the number of generations between recorded generations, 1 to record every generation
+	 */
+	private final int sampleInterval;
+
+	/**
+	 * the parent indices of every kept offspring, two entries each, one recorded generation after another
+	 */
+	private int[] entries = new int[64];
+
+	/**
+	 * the number of entries in use
+	 */
+	private int size;
+
+	/**
+	 * the number of the entry held at index 0 of the array, counting every entry recorded since the start of the run
+	 */
+	private long firstEntry;
+
+	/**
+	 * the number of the entry each kept recorded generation starts at, a ring with the oldest kept generation replaced first
+	 */
+	private final long[] keptStarts;
+
+	/**
+	 * the number of recorded generations so far, the next one's start goes in keptStarts[recordedCount % keptStarts.length]
+	 */
+	private long recordedCount;
+
+	/**
+	 * the number of the entry the oldest kept recorded generation starts at, entries before it may be dropped
+	 */
+	private long oldestKept;
+
+	/**
+	 * the number of the entry the generation being bred starts at, or NOT_RECORDED
+	 */
+	private long generationStart = NOT_RECORDED;
+
+	/**
+	 * constructor
+	 *
+	 * @param sampleInterval      the number of generations between recorded generations, 1 to record every generation
+	 * @param retainedGenerations the number of generations before the one being bred whose lineage must still be readable,
+	 *                            such as the span of the run's history, see GenerationHistory.getRetainedSpan
+	 */
+	LineageLog(int sampleInterval, int retainedGenerations) {
+		if (sampleInterval < 1)
+			throw new IllegalArgumentException("the sample interval must be at least 1, found " + sampleInterval);
+		if (retainedGenerations < 0)
+			throw new IllegalArgumentException("the number of retained generations cannot be negative, found " + retainedGenerations);
+		this.sampleInterval = sampleInterval;
+
+		//the generation being bred, and every recorded generation among the retained ones before it, at most one in every sampleInterval
+		this.keptStarts = new long[(int) Math.min(Integer.MAX_VALUE - 8, ((long) retainedGenerations + sampleInterval - 1) / sampleInterval + 1)];
+	}
+
+	/**
+	 * makes a log from a policy: "full" records every generation, "sampled:k" every k generations, and "off" records nothing
+	 *
+	 * @param policy              the lineage policy
+	 * @param retainedGenerations the number of generations before the one being bred whose lineage must still be readable
+	 * @return the log, or null for off
+	 */
+	static LineageLog fromPolicy(String policy, int retainedGenerations) {
+		int separator = policy.indexOf(':');
+		String name = separator < 0 ? policy : policy.substring(0, separator);
+		String argument = separator < 0 ? null : policy.substring(separator + 1);
+		switch (name.toLowerCase()) {
+			case "off":
+				return null;
+			case "full":
+				return new LineageLog(1, retainedGenerations);
+			case "sampled":
+				if (argument != null)
+					return new LineageLog(Integer.parseInt(argument), retainedGenerations);
+				break;
+		}
+		throw new IllegalArgumentException("unknown lineage policy " + policy + ", expected one of off, sampled:k, full");
+	}
+
+	/**
+	 * starts a generation, which is recorded if its number falls on the sample interval.
+	 * the lineage of the oldest kept generation is given up if keeping this one would keep more than the retained generations
+	 *
+	 * @param generationNumber the number of the generation about to be bred
+	 * @return the number of the entry the generation's lineage starts at, or NOT_RECORDED
+	 */
+	long beginGeneration(int generationNumber) {
+		if (generationNumber % sampleInterval != 0) {
+			generationStart = NOT_RECORDED;
+			return generationStart;
+		}
+		generationStart = firstEntry + size;
+		keptStarts[(int) (recordedCount % keptStarts.length)] = generationStart;
+		recordedCount++;
+		oldestKept = keptStarts[(int) (recordedCount < keptStarts.length ? 0 : recordedCount % keptStarts.length)];
+		return generationStart;
+	}
+
+	/**
+	 * records the parents of the next offspring of the generation being bred, if it is recorded
+	 *
+	 * @param parent1Index the index of the first parent in the parent population
+	 * @param parent2Index the index of the second parent in the parent population
+	 */
+	void recordOffspring(int parent1Index, int parent2Index) {
+		if (generationStart == NOT_RECORDED)
+			return;
+		if (size + 2 > entries.length)
+			makeRoom();
+		entries[size++] = parent1Index;
+		entries[size++] = parent2Index;
+	}
+
+	/**
+	 * makes room for more entries in a full array, first by dropping the entries of generations no longer kept,
+	 * then, if that leaves the array more than half full, by doubling it, so each entry is moved a constant number of times on average
+	 */
+	private void makeRoom() {
+		int dropped = (int) (oldestKept - firstEntry);
+		if (dropped > 0) {
+			System.arraycopy(entries, dropped, entries, 0, size - dropped);
+			size -= dropped;
+			firstEntry = oldestKept;
+		}
+		if (size + 2 > entries.length / 2)
+			entries = Arrays.copyOf(entries, entries.length * 2);
+	}
+
+	/**
+	 * the index in the array of an entry of a kept generation
+	 *
+	 * @param generationStart the number of the entry the generation starts at, as returned by beginGeneration
+	 * @param entry           the entry within the generation
+	 * @return the int index of the entry in the array
+	 */
+	private int index(long generationStart, int entry) {
+		if (generationStart < firstEntry)
+			throw new IllegalStateException("the lineage of the generation starting at entry " + generationStart + " is no longer kept");
+		return (int) (generationStart - firstEntry) + entry;
+	}
+
+	/**
+	 * records that an offspring of the generation being bred was mutated, if the generation is recorded
+	 *
+	 * @param offspringIndex the index of the offspring in the offspring population, whose parents are already recorded
+	 */
+	void recordMutation(int offspringIndex) {
+		if (generationStart == NOT_RECORDED)
+			return;
+		entries[index(generationStart, 2 * offspringIndex + 1)] |= MUTATED;
+	}
+
+	/**
+	 * the first parent of a recorded offspring
+	 *
+	 * @param generationStart the number of the entry the generation starts at, as returned by beginGeneration
+	 * @param offspringIndex  the index of the offspring in the offspring population
+	 * @return the int index of the parent in the parent population
+	 */
+	int getParent1(long generationStart, int offspringIndex) {
+		return entries[index(generationStart, 2 * offspringIndex)];
+	}
+
+	/**
+	 * the second parent of a recorded offspring
+	 *
+	 * @param generationStart the number of the entry the generation starts at, as returned by beginGeneration
+	 * @param offspringIndex  the index of the offspring in the offspring population
+	 * @return the int index of the parent in the parent population
+	 */
+	int getParent2(long generationStart, int offspringIndex) {
+		return entries[index(generationStart, 2 * offspringIndex + 1)] & ~MUTATED;
+	}
+
+	/**
+	 * checks if a recorded offspring was mutated
+	 *
+	 * @param generationStart the number of the entry the generation starts at, as returned by beginGeneration
+	 * @param offspringIndex  the index of the offspring in the offspring population
+	 * @return true if the offspring was mutated
+	 */
+	boolean isMutated(long generationStart, int offspringIndex) {
+		return (entries[index(generationStart, 2 * offspringIndex + 1)] & MUTATED) != 0;
+	}
+}
@@ -1,39 +1,226 @@
 package com.parker.david;
 
-import de.vandermeer.asciitable.AsciiTable;
-import de.vandermeer.asciitable.CWC_LongestLine;
-import de.vandermeer.asciithemes.TA_Grid;
-import de.vandermeer.asciithemes.TA_GridConfig;
-import de.vandermeer.skb.interfaces.transformers.textformat.TextAlignment;
-
-import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main {
 	/**
-	 * entry point, initialises the cities, and the kicks off the GA
+	 * the number of nearest neighbours the local search tries for each city in memetic runs
 	 */
-	public static void main(String[] args) throws IOException {
+	private static final int LOCAL_SEARCH_NEIGHBOURS = 8;
 
-		//initialise our cities with the distances to the other cities to set everything up for our algorithm
+	/**
+	 * the conditions a run stops on unless --stop says otherwise: 10 generations, or epochs, in a row without improving the incumbent
+	 */
+	static final String DEFAULT_TERMINATION = "stagnation:10";
+
+	/**
+	 * the longest time, in milliseconds, a request to the solve server waits to join a full queue before it is turned away
+	 */
+	private static final long SERVER_QUEUE_WAIT_MILLIS = 1000;
+
+	/**
+	 * the longest time, in milliseconds, the solve server lets a solve run, whatever its own termination condition
+	 */
+	private static final long SERVER_MAX_SOLVE_MILLIS = 60_000;
+
+	/**
+	 * entry point, initialises the cities, and the kicks off the GA.
+	 * passing --arena runs the allocation free arena based GA instead, which only reports a summary of each generation.
+	 * passing --parallel runs the arena based GA with offspring produced on all available cores.
+	 * passing --islands runs an island model of arena based GAs, one island per available core, migrating in a ring.
+	 * passing --crossover followed by two-point, order, partially-mapped, edge-recombination or edge-assembly picks the crossover,
+	 * in every mode but --islands.
+	 * passing --mutation followed by swap or neighbour picks the mutation of --arena and --parallel runs, by default swap.
+	 * passing --report followed by table, csv or binary picks the format the default GA reports in, to output.txt, output.csv or output.bin,
+	 * and --report-interval followed by a number reports only every that many generations.
+	 * passing --history followed by none, last:n, every:k or spill:file picks which generations of the default GA are kept, by default none.
+	 * passing --lineage followed by off, sampled:k or full picks which generations of the default GA record the parents and mutation
+	 * of each offspring, by default full for table reports, which show them, and off for the others.
+	 * passing --checkpoint followed by a file checkpoints --arena and --parallel runs to that file, resuming from it first if it exists,
+	 * and --checkpoint-interval followed by a number checkpoints every that many generations, by default every 10.
+	 * passing --metrics followed by a file times every phase of each generation of the default, --arena and --parallel GAs,
+	 * exposes the timings over JMX, and dumps them to that file as CSV every --metrics-interval generations, by default every 10.
+	 * passing --fitness-cache followed by a number caches that many fitnesses by tour hash, so repeated tours are not re-evaluated,
+	 * and passing --unique rejects offspring that repeat a tour already selected, while there are enough distinct tours, in every mode but --islands.
+	 * passing --adaptive tracks the diversity of the parents from their edge frequencies in every arena mode, intensifying mutation
+	 * as diversity falls, restarting the population when it collapses, and keeping mutation off the edges every parent shares.
+	 * passing --stop followed by a comma separated list of stagnation:n, deadline:ms, evaluations:n and target:f stops the run as soon as
+	 * any of them is met, in any mode, by default stagnation:10. the best solution found is always reported when the run stops.
+	 * passing --memetic also improves every offspring with 2-opt and or-opt local search, in any mode.
+	 * passing --seed followed by a number seeds every random number generator of the run, so the run can be replayed.
+	 * passing --serve runs a solve server on the loopback address instead, which solves problems posted to it as JSON, see SolveServer,
+	 * on one thread per available core, listening on the port given by --port, by default 8080,
+	 * and queueing as many requests as given by --queue, by default four per thread. every solve stops within a minute, whatever it asks for.
+	 * passing the path of a TSPLIB file solves the problem in that file, rather than the built in six city problem
+	 */
+	public static void main(String[] args) throws IOException, InterruptedException {
+
+		//initialise our distance matrix, and the cities that use it, to set everything up for our algorithm
+		DistanceMatrix distances = DistanceMatrix.fromRows(new int[][]{
+				{0, 41, 26, 31, 27, 35},
+				{41, 0, 29, 32, 40, 33},
+				{26, 29, 0, 25, 34, 42},
+				{31, 32, 25, 0, 28, 34},
+				{27, 40, 34, 28, 0, 36},
+				{35, 33, 42, 34, 36, 0}
+		});
 		ArrayList<City> cities = new ArrayList<>();
-		int cityid = 0;
-		cities.add(new City(cityid++, new ArrayList<>(Arrays.asList(0, 41, 26, 31, 27, 35))));
-		cities.add(new City(cityid++, new ArrayList<>(Arrays.asList(41, 0, 29, 32, 40, 33))));
-		cities.add(new City(cityid++, new ArrayList<>(Arrays.asList(26, 29, 0, 25, 34, 42))));
-		cities.add(new City(cityid++, new ArrayList<>(Arrays.asList(31, 32, 25, 0, 28, 34))));
-		cities.add(new City(cityid++, new ArrayList<>(Arrays.asList(27, 40, 34, 28, 0, 36))));
-		cities.add(new City(cityid++, new ArrayList<>(Arrays.asList(35, 33, 42, 34, 36, 0))));
+		for (int cityid = 0; cityid < distances.cityCount(); cityid++) {
+			cities.add(new City(cityid, distances));
+		}
+
+		//read the mode, seed and problem file from the arguments
+		String mode = "";
+		boolean memetic = false;
+		CrossoverMethod crossover = CrossoverMethod.TWO_POINT;
+		MutationMethod mutation = MutationMethod.SWAP;
+		ReportFormat reportFormat = ReportFormat.TABLE;
+		int reportInterval = 1;
+		String historyPolicy = "none";
+		String lineagePolicy = null;
+		Path checkpointFile = null;
+		int checkpointInterval = 10;
+		Path metricsFile = null;
+		int metricsInterval = 10;
+		int fitnessCacheCapacity = 0;
+		boolean rejectDuplicates = false;
+		DiversityControl diversityControl = null;
+		TerminationCondition termination = TerminationCondition.fromSpecification(DEFAULT_TERMINATION);
+		RandomStreams randomStreams = null;
+		int port = 8080;
+		int queueCapacity = -1;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("--seed") && i + 1 < args.length)
+				randomStreams = new RandomStreams(Long.parseLong(args[++i]));
+			else if (args[i].equals("--crossover") && i + 1 < args.length)
+				crossover = CrossoverMethod.fromName(args[++i]);
+			else if (args[i].equals("--mutation") && i + 1 < args.length)
+				mutation = MutationMethod.fromName(args[++i]);
+			else if (args[i].equals("--report") && i + 1 < args.length)
+				reportFormat = ReportFormat.fromName(args[++i]);
+			else if (args[i].equals("--report-interval") && i + 1 < args.length)
+				reportInterval = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--checkpoint") && i + 1 < args.length)
+				checkpointFile = Paths.get(args[++i]);
+			else if (args[i].equals("--checkpoint-interval") && i + 1 < args.length)
+				checkpointInterval = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--metrics") && i + 1 < args.length)
+				metricsFile = Paths.get(args[++i]);
+			else if (args[i].equals("--metrics-interval") && i + 1 < args.length)
+				metricsInterval = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--history") && i + 1 < args.length)
+				historyPolicy = args[++i];
+			else if (args[i].equals("--lineage") && i + 1 < args.length)
+				lineagePolicy = args[++i];
+			else if (args[i].equals("--fitness-cache") && i + 1 < args.length)
+				fitnessCacheCapacity = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--unique"))
+				rejectDuplicates = true;
+			else if (args[i].equals("--stop") && i + 1 < args.length)
+				termination = TerminationCondition.fromSpecification(args[++i]);
+			else if (args[i].equals("--adaptive"))
+				diversityControl = DiversityControl.defaults();
+			else if (args[i].equals("--port") && i + 1 < args.length)
+				port = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--queue") && i + 1 < args.length)
+				queueCapacity = Integer.parseInt(args[++i]);
+			else if (args[i].equals("--memetic"))
+				memetic = true;
+			else if (args[i].startsWith("--"))
+				mode = args[i];
+			else
+				cities = TSPLibLoader.load(Paths.get(args[i])).getCities();
+		}
+		if (mode.equals("--serve")) {
+			serve(port, queueCapacity);
+			return;
+		}
+		if (randomStreams == null)
+			randomStreams = new RandomStreams();
+		System.out.println("seed: " + randomStreams.getSeed());
+
+		TSPInstance instance = new TSPInstance(cities);
+		TwoOptOrOpt localSearch = memetic ? new TwoOptOrOpt(instance, LOCAL_SEARCH_NEIGHBOURS) : null;
+
+		//time every phase of the run, if asked to. the island model is not timed
+		try (PhaseMetrics metrics = metricsFile != null ? PhaseMetrics.open(metricsFile, metricsInterval) : null) {
+			switch (mode) {
+				case "--arena":
+					ArenaEvolution evolution = new ArenaEvolution(instance, 8, 6, new TournamentSelection(3),
+							crossover.create(instance, new SplittableRandom()), mutation.create(instance), randomStreams.newStream());
+					evolution.setLocalSearch(localSearch);
+					evolution.setMetrics(metrics);
+					evolution.setFitnessCacheCapacity(fitnessCacheCapacity);
+					evolution.setRejectDuplicates(rejectDuplicates);
+					evolution.setDiversityControl(diversityControl);
+					runArenaGeneticAlgorithm(evolution, termination, checkpointFile, checkpointInterval, metrics);
+					return;
+				case "--parallel":
+					ArenaEvolution parallelEvolution = new ParallelArenaEvolution(instance, 8, 6, new TournamentSelection(3),
+							crossover.create(instance, new SplittableRandom()), mutation.create(instance), randomStreams.newStream(), ForkJoinPool.commonPool());
+					parallelEvolution.setLocalSearch(localSearch);
+					parallelEvolution.setMetrics(metrics);
+					parallelEvolution.setFitnessCacheCapacity(fitnessCacheCapacity);
+					parallelEvolution.setRejectDuplicates(rejectDuplicates);
+					parallelEvolution.setDiversityControl(diversityControl);
+					runArenaGeneticAlgorithm(parallelEvolution, termination, checkpointFile, checkpointInterval, metrics);
+					return;
+				case "--islands":
+					int islandCount = Math.max(2, Runtime.getRuntime().availableProcessors());
+					try (IslandModel islands = new IslandModel(instance, islandCount, 8, 6, 3, 5, 1, MigrationTopology.RING, randomStreams)) {
+						for (ArenaEvolution island : islands.getIslands()) {
+							island.setLocalSearch(localSearch);
+							island.setDiversityControl(diversityControl);
+						}
+						runIslandGeneticAlgorithm(islands, termination);
+					}
+					return;
+			}
+
+			//delete old output file
+			Files.deleteIfExists(reportFormat.getDefaultFile());
+
+			//run the genetic algorithm, reporting each generation as it completes
+			try (RunReporter reporter = reportFormat.open(reportFormat.getDefaultFile(), reportInterval);
+				 GenerationHistory history = GenerationHistory.fromPolicy(historyPolicy)) {
+				if (lineagePolicy == null)
+					lineagePolicy = reportFormat == ReportFormat.TABLE ? "full" : "off";
+				runGeneticAlgorithm(instance, randomStreams, crossover, localSearch, reporter, history, LineageLog.fromPolicy(lineagePolicy, history.getRetainedSpan()),
+						metrics, fitnessCacheCapacity, rejectDuplicates, termination);
+			}
+		}
 
-		//delete old output file
-		new File("output.txt").delete();
+	}
 
-		//run the genetic algorithm
-		runGeneticAlgorithm(cities);
+	/**
+	 * runs a solve server until the JVM is stopped, with one solver thread per available core
+	 *
+	 * @param port          the port to listen on
+	 * @param queueCapacity the number of requests that may wait for a solver thread, or negative for four per thread
+	 */
+	private static void serve(int port, int queueCapacity) throws IOException, InterruptedException {
+		int threadCount = Runtime.getRuntime().availableProcessors();
+		SolveServer server = new SolveServer(port, threadCount, queueCapacity < 0 ? 4 * threadCount : queueCapacity, SERVER_QUEUE_WAIT_MILLIS, SERVER_MAX_SOLVE_MILLIS);
+		Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+		System.out.println("serving on http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/solve"
+				+ " with " + threadCount + " solver threads");
+		Thread.currentThread().join();
+	}
 
+	/**
+	 * a method that runs the genetic algorithm on the TSP problem with a given set of cities, from a randomly chosen seed
+	 *
+	 * @param cities the set of already created cities for which we want to optimise the TSP route
+	 * @return the best solution found
+	 */
+	public static CandidateSolution runGeneticAlgorithm(ArrayList<City> cities) throws IOException {
+		return runGeneticAlgorithm(cities, new RandomStreams());
 	}
 
 	/**
@@ -41,73 +228,226 @@ public class Main {
 	 * uses random generation, two-point crossover, element swap mutation, and elitist selection.
 	 * stops when incumbent does not improve for 10 iterations
 	 *
-	 * @param cities the set of already created cities for which we want to optimise the TSP route
+	 * @param cities        the set of already created cities for which we want to optimise the TSP route
+	 * @param randomStreams the source of each strategy's own stream of random numbers
+	 * @return the best solution found
 	 */
-	public static void runGeneticAlgorithm(ArrayList<City> cities) throws IOException {
+	public static CandidateSolution runGeneticAlgorithm(ArrayList<City> cities, RandomStreams randomStreams) throws IOException {
+		try (RunReporter reporter = ReportFormat.TABLE.open(ReportFormat.TABLE.getDefaultFile(), 1);
+			 GenerationHistory history = GenerationHistory.fromPolicy("none")) {
+			return runGeneticAlgorithm(new TSPInstance(cities), randomStreams, CrossoverMethod.TWO_POINT, null, reporter, history,
+					new LineageLog(1, history.getRetainedSpan()), null, 0, false, TerminationCondition.fromSpecification(DEFAULT_TERMINATION));
+		}
+	}
 
-		//select our strategies for our genetic algorithm
-		PopulationInitialiser initialiser = new RandomGeneration();//random generation of initial population as initialisation strategy
-		PopulationCrossover breeder = new TwoPointCrossOver();//two-point crossover as crossover strategy
-		PopulationMutator mutator = new SwapTwoCities();//swap of two elements as mutation strategy
-		PopulationReplacement selector = new ElitistSelection();//elitism as selection strategy
+	/**
+	 * a method that runs the genetic algorithm on a TSP problem with a given crossover, optionally as a memetic algorithm.
+	 * the local search, if any, improves the mutated offspring before selection
+	 *
+	 * @param instance      the problem for which we want to optimise the TSP route
+	 * @param randomStreams the source of each strategy's own stream of random numbers
+	 * @param crossover     the crossover strategy
+	 * @param localSearch   the local search strategy, or null for a plain genetic algorithm
+	 * @param reporter      the reporter each generation is written to as it completes, and the result at the end
+	 * @param history       the history that decides which completed generations are kept
+	 * @param lineageLog    the log the parents and mutation of each offspring are recorded in, or null to not record them
+	 * @param metrics       the metrics every phase of each generation is timed into, or null to not time them
+	 * @param fitnessCacheCapacity the number of offspring fitnesses to cache by tour hash, or 0 to not cache them
+	 * @param rejectDuplicates     true to reject offspring that repeat a tour already selected, while there are enough distinct tours
+	 * @param termination          the conditions the run stops on, checked before every generation
+	 * @return the best solution found by the time the run stopped
+	 */
+	static CandidateSolution runGeneticAlgorithm(TSPInstance instance, RandomStreams randomStreams, CrossoverMethod crossover,
+												 PopulationLocalSearch localSearch, RunReporter reporter, GenerationHistory history,
+												 LineageLog lineageLog, PhaseMetrics metrics, int fitnessCacheCapacity, boolean rejectDuplicates,
+												 TerminationCondition termination) throws IOException {
 
-		//create a generation history object to track all generations
-		ArrayList<GAPopulationGeneration> generationHistory = new ArrayList<>();
+		//select our strategies for our genetic algorithm
+		PopulationInitialiser initialiser = new RandomGeneration(randomStreams.newStream());//random generation of initial population as initialisation strategy
+		PairwiseCrossover breeder = crossover.create(instance, randomStreams.newStream());//two-point crossover by default as crossover strategy
+		PopulationMutator mutator = new SwapTwoCities(randomStreams.newStream());//swap of two elements as mutation strategy
+		PopulationReplacement selector = new ElitistSelection(rejectDuplicates);//elitism as selection strategy
+		breeder.setMetrics(metrics);//the breeder times its own selection, crossover and evaluation
+		breeder.setLineageLog(lineageLog);//the breeder and mutator record the lineage of each offspring, if it is recorded
+		mutator.setLineageLog(lineageLog);
+		if (fitnessCacheCapacity > 0)
+			breeder.setFitnessCache(new FitnessCache(fitnessCacheCapacity));//the breeder looks offspring up before evaluating them
 
 		//create our first generation and randomly generate its initial solutions
-		GAPopulationGeneration generation = new GAPopulationGeneration(initialiser.initialise(cities, 8));
-
-		// create our output table
-		AsciiTable outputTable = new AsciiTable();
-		outputTable.addHeavyRule();
+		long lapStart = metrics != null ? PhaseMetrics.start() : 0;
+		GAPopulationGeneration generation = new GAPopulationGeneration(initialiser.initialise(instance, 8));
+		if (metrics != null) {
+			metrics.countEvaluations(8);
+			metrics.lap(Phase.INITIALISE, lapStart);
+		}
 
-		// create our incumbent and stopping criterion tracker
+		// create our incumbent and the progress the termination condition is checked against
 		CandidateSolution incumbent = generation.getParentPopulation().getBestSolution();
-		int generationSinceImprovedIncumbent = 0;
+		RunProgress progress = new RunProgress(incumbent.getFitness(), 0, 8);
+
+		//loop until the termination condition is met
+		while (!termination.isMet(progress)) {
 
-		//loop until 10 iterations without improved incumbent
-		while (generationSinceImprovedIncumbent <= 10) {
+			//start recording this generation's lineage, if it is sampled
+			if (lineageLog != null)
+				generation.setLineage(lineageLog, lineageLog.beginGeneration(generation.getGenerationNumber()));
 
 			//take parents and crossover to create 6 offspring. record the results for displaying later
 			generation.setOffspringPopulation(breeder.breed(generation.getParentPopulation(), 6));
-			generation.setFamilyRecords(breeder.getFamilies());
 
 			//take offspring and perform mutation. record the results for displaying later
+			lapStart = metrics != null ? PhaseMetrics.start() : 0;
 			generation.setMutatedPopulation(mutator.mutatePopulation(generation.getOffspringPopulation()));
-			generation.setMutantRecords(mutator.getMutations());
+			if (metrics != null)
+				lapStart = metrics.lap(Phase.MUTATE, lapStart);
 
-			//take mutated offspring and perform selection.
-			generation.setNextPopulation(selector.replace(generation.getParentPopulation(), generation.getMutatedPopulation()));
+			//improve the mutated offspring with local search, if any
+			if (localSearch != null) {
+				generation.setImprovedPopulation(localSearch.improvePopulation(generation.getMutatedPopulation()));
+				if (metrics != null)
+					lapStart = metrics.lap(Phase.LOCAL_SEARCH, lapStart);
+			}
 
-			//if this solution is greater than the incumbent reset stopping criterion and we have new incumbent, else increment stopping criterion
-			if (generation.getBestSolutionThisGeneration().compareTo(incumbent) < 0) {
-				generationSinceImprovedIncumbent = 0;
+			//take the final offspring and perform selection.
+			generation.setNextPopulation(selector.replace(generation.getParentPopulation(), generation.getImprovedPopulation()));
+			if (metrics != null)
+				lapStart = metrics.lap(Phase.REPLACE, lapStart);
+
+			//if this solution is better than the incumbent we have a new incumbent, the progress keeps the stopping criteria up to date
+			if (progress.endGeneration(generation.getBestSolutionThisGeneration().getFitness(), 8 + breeder.getEvaluationCount()))
 				incumbent = generation.getBestSolutionThisGeneration();
-			} else
-				generationSinceImprovedIncumbent++;
 
 			//record the current generation, and create the new generation from the current one
-			generation.addToTable(outputTable, incumbent);
-			generationHistory.add(generation);
+			reporter.reportGeneration(generation, incumbent);
+			history.record(generation);
+			if (metrics != null) {
+				metrics.lap(Phase.REPORT, lapStart);
+				metrics.endGeneration();
+			}
 			generation = generation.initialiseNextGeneration();
 
 		}
 
-		//print out the incumbent at the end
-		outputTable.addRow("", "", "TSP final best solution & fitness : ", incumbent + " (" + incumbent.getFitness() + ")", "", "", "", "");
-		outputTable.addHeavyRule();
-
-
-		//format the table, and print to console and output.txt
-		TA_Grid grid = TA_Grid.create("an ascii compliant grid")
-				.addCharacterMap(TA_GridConfig.RULESET_HEAVY, ' ', '#', '#', '#', '#', '#', '#', '#', '#', '#', '#', '#')
-				.addCharacterMap(TA_GridConfig.RULESET_NORMAL, ' ', '~', ' ', '~', '~', '~', '~', '~', '~', '~', '~', '~')
-				.addCharacterMap(TA_GridConfig.RULESET_LIGHT, ' ', '-', ' ', '-', '-', '-', '-', '-', '-', '-', '-', '-');
-		outputTable.getContext().setGrid(grid);
-		outputTable.setTextAlignment(TextAlignment.CENTER);
-		outputTable.getRenderer().setCWC(new CWC_LongestLine());
-		FileWriter output = new FileWriter("output.txt", true);
-		output.append(outputTable.render()).append("\n\n").close();
-		System.out.println(outputTable.render() + "\n\n");
+		//report the incumbent at the end
+		reporter.reportResult(incumbent);
+		return incumbent;
+	}
+
+	/**
+	 * a method that runs the arena based genetic algorithm on the TSP problem.
+	 * uses the same stopping criterion as runGeneticAlgorithm, but evolves a primitive population arena,
+	 * so generations allocate nothing. only a one line summary of each generation is printed
+	 *
+	 * @param evolution the arena genetic algorithm, already initialised with the problem for which we want to optimise the TSP route
+	 * @return the best solution found
+	 */
+	public static CandidateSolution runArenaGeneticAlgorithm(ArenaEvolution evolution) throws IOException {
+		return runArenaGeneticAlgorithm(evolution, TerminationCondition.fromSpecification(DEFAULT_TERMINATION), null, 1, null);
+	}
+
+	/**
+	 * a method that runs the arena based genetic algorithm on the TSP problem, checkpointing it to a file as it goes.
+	 * if the checkpoint file already exists the run resumes from it, carrying on with the same incumbent and stopping criterion.
+	 * the checkpoint file is deleted once the run finishes
+	 *
+	 * @param evolution          the arena genetic algorithm, already initialised with the problem for which we want to optimise the TSP route
+	 * @param termination        the conditions the run stops on, checked before every generation
+	 * @param checkpointFile     the file to checkpoint to and resume from, or null to not checkpoint
+	 * @param checkpointInterval the number of generations between checkpoints
+	 * @param metrics            the metrics the evolution times its phases into, which the reporting is timed into and each generation ended in,
+	 *                           or null if nothing is timed
+	 * @return the best solution found by the time the run stopped
+	 */
+	static CandidateSolution runArenaGeneticAlgorithm(ArenaEvolution evolution, TerminationCondition termination, Path checkpointFile,
+													  int checkpointInterval, PhaseMetrics metrics) throws IOException {
+
+		// create our incumbent and stopping criterion tracker
+		CandidateSolution incumbent = evolution.getBestSolution();
+		int generationSinceImprovedIncumbent = 0;
+
+		//resume from the last checkpoint, if there is one
+		if (checkpointFile != null && Files.exists(checkpointFile)) {
+			ArenaCheckpoint checkpoint = ArenaCheckpoint.read(checkpointFile);
+			checkpoint.restore(evolution);
+			incumbent = checkpoint.getIncumbent(evolution.getArena().getInstance());
+			generationSinceImprovedIncumbent = checkpoint.getGenerationsSinceImprovedIncumbent();
+			System.out.println("resumed from generation " + checkpoint.getGenerationNumber() + " of " + checkpointFile);
+		}
+
+		try (ArenaCheckpointer checkpointer = checkpointFile != null ? new ArenaCheckpointer(checkpointFile, checkpointInterval, evolution) : null) {
+			RunProgress progress = new RunProgress(incumbent.getFitness(), generationSinceImprovedIncumbent, evolution.getEvaluationCount());
+			incumbent = runArenaGeneticAlgorithm(evolution, termination, progress, checkpointer, metrics, incumbent);
+		}
+
+		//the run finished, so there is nothing left to resume
+		if (checkpointFile != null)
+			Files.deleteIfExists(checkpointFile);
+		return incumbent;
+	}
+
+	/**
+	 * the loop of the arena based genetic algorithm, from a given incumbent and progress
+	 *
+	 * @param evolution    the arena genetic algorithm
+	 * @param termination  the conditions the run stops on, checked before every generation
+	 * @param progress     the progress of the run so far, including the stopping criteria carried over from any checkpoint
+	 * @param checkpointer the checkpointer to checkpoint every generation through, or null to not checkpoint
+	 * @param metrics      the metrics the reporting is timed into and each generation ended in, or null
+	 * @param incumbent    the best solution found so far
+	 * @return the best solution found by the time the run stopped
+	 */
+	private static CandidateSolution runArenaGeneticAlgorithm(ArenaEvolution evolution, TerminationCondition termination, RunProgress progress,
+															  ArenaCheckpointer checkpointer, PhaseMetrics metrics,
+															  CandidateSolution incumbent) throws IOException {
+
+		//loop until the termination condition is met
+		while (!termination.isMet(progress)) {
+			evolution.evolveGeneration();
+
+			//only materialise the incumbent when it improves
+			if (progress.endGeneration(evolution.getBestFitness(), evolution.getEvaluationCount()))
+				incumbent = evolution.getBestSolution();
+
+			long lapStart = metrics != null ? PhaseMetrics.start() : 0;
+			String summary = "generation: " + evolution.getGenerationNumber() + "  incumbent fitness: " + progress.getIncumbentFitness()
+					+ "  mean fitness: " + evolution.meanFitness();
+			EdgeFrequencies edgeFrequencies = evolution.getEdgeFrequencies();
+			if (edgeFrequencies != null)
+				summary += String.format("  diversity: %.4f  backbone edges: %d  restarts: %d",
+						edgeFrequencies.diversity(), edgeFrequencies.backboneEdgeCount(), evolution.getRestartCount());
+			System.out.println(summary);
+
+			if (checkpointer != null)
+				checkpointer.checkpoint(evolution, incumbent, progress.getGenerationsSinceImprovedIncumbent());
+			if (metrics != null) {
+				metrics.lap(Phase.REPORT, lapStart);
+				metrics.endGeneration();
+			}
+		}
+		System.out.println("TSP final best solution & fitness : " + incumbent + " (" + incumbent.getFitness() + ")");
+		return incumbent;
+	}
+
+	/**
+	 * a method that runs an island model genetic algorithm on the TSP problem.
+	 * checks the termination condition between epochs, so stagnation counts epochs, printing a summary of each epoch
+	 *
+	 * @param islands     the island model, already initialised with the problem for which we want to optimise the TSP route
+	 * @param termination the conditions the run stops on, checked before every epoch
+	 * @return the best solution found by the time the run stopped
+	 */
+	public static CandidateSolution runIslandGeneticAlgorithm(IslandModel islands, TerminationCondition termination) throws InterruptedException {
+		RunProgress progress = new RunProgress(islands.getIncumbent().getFitness(), 0, islands.getEvaluationCount());
+
+		//loop until the termination condition is met
+		while (!termination.isMet(progress)) {
+			islands.evolveEpoch();
+			progress.endGeneration(islands.getIncumbent().getFitness(), islands.getEvaluationCount());
+
+			System.out.println("epoch: " + islands.getEpochNumber() + "  generation: " + islands.getGenerationNumber()
+					+ "  incumbent fitness: " + islands.getIncumbent().getFitness());
+		}
+		System.out.println("TSP final best solution & fitness : " + islands.getIncumbent() + " (" + islands.getIncumbent().getFitness() + ")");
+		return islands.getIncumbent();
 	}
 }
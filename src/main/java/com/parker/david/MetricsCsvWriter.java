@@ -0,0 +1,117 @@
+package com.parker.david;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * periodically dumps phase metrics to a CSV file, one line every dumpInterval generations and a last line when closed.
+ * each line holds the totals of the run so far: the generation, the tours evaluated and evaluations per second,
+ * the mean bytes allocated per generation, then the count, mean, 99th percentile and maximum latency in microseconds of every phase
+ */
+public class MetricsCsvWriter implements Closeable {
+
+	/**
+	 * the metrics being dumped
+	 */
+	private final PhaseMetrics metrics;
+
+	/**
+	 * the number of generations between dumps
+	 */
+	private final int dumpInterval;
+
+	/**
+	 * the file being written
+	 */
+	private final BufferedWriter writer;
+
+	/**
+	 * the generation of the last dump, so closing does not repeat it
+	 */
+	private long lastDumpedGeneration = -1;
+
+	/**
+	 * constructor, replaces the file with one holding just the header
+	 *
+	 * @param file         the CSV file
+	 * @param dumpInterval the number of generations between dumps
+	 * @param metrics      the metrics to dump
+	 * @throws IOException if the file cannot be written
+	 */
+	MetricsCsvWriter(Path file, int dumpInterval, PhaseMetrics metrics) throws IOException {
+		if (dumpInterval < 1)
+			throw new IllegalArgumentException("the dump interval must be at least 1, found " + dumpInterval);
+		this.metrics = metrics;
+		this.dumpInterval = dumpInterval;
+		this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+		StringBuilder header = new StringBuilder("generation,evaluations,evaluations per second,allocated bytes per generation");
+		for (Phase phase : Phase.values()) {
+			String name = phase.getReportName();
+			header.append(',').append(name).append(" count,").append(name).append(" mean us,")
+					.append(name).append(" p99 us,").append(name).append(" max us");
+		}
+		writer.write(header.toString());
+		writer.newLine();
+		writer.flush();
+	}
+
+	/**
+	 * dumps the metrics if a dump is due, to be called after each generation ends
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	void generationEnded() throws IOException {
+		if (metrics.getGenerations() % dumpInterval == 0)
+			dump();
+	}
+
+	/**
+	 * writes a line of the metrics so far, and flushes it so the file can be followed during the run
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	private void dump() throws IOException {
+		lastDumpedGeneration = metrics.getGenerations();
+		StringBuilder line = new StringBuilder();
+		line.append(lastDumpedGeneration).append(',').append(metrics.getEvaluations()).append(',')
+				.append(format(metrics.getEvaluationsPerSecond())).append(',').append(format(metrics.getAllocatedBytesPerGeneration()));
+		for (Phase phase : Phase.values()) {
+			LatencyHistogram histogram = metrics.getHistogram(phase);
+			line.append(',').append(histogram.getCount()).append(',').append(format(histogram.getMeanMicros()))
+					.append(',').append(format(histogram.getP99Micros())).append(',').append(format(histogram.getMaxMicros()));
+		}
+		writer.write(line.toString());
+		writer.newLine();
+		writer.flush();
+	}
+
+	/**
+	 * formats a number for the CSV file, independent of the default locale
+	 *
+	 * @param value the number
+	 * @return the number to three decimal places
+	 */
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+	/**
+	 * dumps the final metrics, unless the last generation was already dumped, and closes the file
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			if (metrics.getGenerations() != lastDumpedGeneration)
+				dump();
+		} finally {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.parker.david;
+
+/**
+ * the ways islands of an island model may be connected for migration
+ */
+public enum MigrationTopology {
+	/**
+	 * each island sends its migrants to the next island, and the last island sends to the first
+	 */
+	RING,
+
+	/**
+	 * each island sends its migrants to every other island
+	 */
+	FULLY_CONNECTED;
+
+	/**
+	 * checks if one island sends migrants to another under this topology
+	 *
+	 * @param fromIsland  the index of the island sending migrants
+	 * @param toIsland    the index of the island receiving migrants
+	 * @param islandCount the number of islands
+	 * @return true if fromIsland sends migrants to toIsland
+	 */
+	boolean sendsTo(int fromIsland, int toIsland, int islandCount) {
+		if (fromIsland == toIsland)
+			return false;
+		switch (this) {
+			case RING:
+				return (fromIsland + 1) % islandCount == toIsland;
+			case FULLY_CONNECTED:
+				return true;
+			default:
+				throw new IllegalStateException("unknown topology " + this);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package com.parker.david;
+
+/**
+ * the mutations available to an arena based run, by name
+ */
+public enum MutationMethod {
+	/**
+	 * swapping two cities picked uniformly at random
+	 */
+	SWAP,
+
+	/**
+	 * swapping a near neighbour of a random city in after it
+	 */
+	NEIGHBOUR;
+
+	/**
+	 * the number of nearest neighbours the neighbour swap draws a neighbour from
+	 */
+	private static final int NEIGHBOUR_SWAP_NEIGHBOURS = 8;
+
+	/**
+	 * creates a mutator of this kind
+	 *
+	 * @param instance the problem whose tours are mutated
+	 * @return the mutator
+	 */
+	ArenaMutator create(TSPInstance instance) {
+		switch (this) {
+			case SWAP:
+				return new SwapTwoCities();
+			case NEIGHBOUR:
+				return new SwapNeighbourCities(instance, NEIGHBOUR_SWAP_NEIGHBOURS);
+			default:
+				throw new IllegalStateException("unknown mutation " + this);
+		}
+	}
+
+	/**
+	 * finds a mutation by name, ignoring case
+	 *
+	 * @param name the name of the mutation
+	 * @return the mutation with that name
+	 */
+	static MutationMethod fromName(String name) {
+		try {
+			return valueOf(name.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("unknown mutation " + name + ", expected one of swap, neighbour");
+		}
+	}
+}
@@ -0,0 +1,192 @@
+package com.parker.david;
+
+import java.util.Arrays;
+
+/**
+ * the k nearest neighbours of every city, nearest first. operators can restrict their moves to edges between a city and
+ * one of its neighbours, as good tours are almost entirely made of such edges, which makes the work per move independent of the number of cities.
+ * for coordinate problems the lists are built with a k-d tree in O(n log n); for explicit matrices, by partial selection over each row
+ */
+public class NeighbourLists {
+
+	/**
+	 * the neighbours of every city, flattened: the neighbours of city c are at [c * neighbourCount, (c + 1) * neighbourCount), nearest first
+	 */
+	private final int[] neighbours;
+
+	/**
+	 * the number of neighbours of each city
+	 */
+	private final int neighbourCount;
+
+	/**
+	 * constructor, wraps already built lists
+	 *
+	 * @param neighbours     the flattened neighbour lists
+	 * @param neighbourCount the number of neighbours of each city
+	 */
+	private NeighbourLists(int[] neighbours, int neighbourCount) {
+		this.neighbours = neighbours;
+		this.neighbourCount = neighbourCount;
+	}
+
+	/**
+	 * builds the neighbour lists of a problem, choosing the fastest method the problem allows
+	 *
+	 * @param instance       the problem
+	 * @param neighbourCount the number of neighbours wanted per city, reduced to the number of other cities if there are fewer
+	 * @return the neighbour lists
+	 */
+	static NeighbourLists build(TSPInstance instance, int neighbourCount) {
+		int cityCount = instance.cityCount();
+		int k = Math.max(0, Math.min(neighbourCount, cityCount - 1));
+		CoordinateDistanceMatrix coordinates = instance.getCoordinates();
+		int[] neighbours = coordinates != null ? nearestByTree(coordinates, k) : nearestBySelection(instance.getDistances(), k);
+		sortByDistance(neighbours, k, instance.getDistances());
+		return new NeighbourLists(neighbours, k);
+	}
+
+	/**
+	 * finds the nearest neighbours of every city with a k-d tree over the cities' coordinates.
+	 * planar metrics search the coordinates directly; GEO coordinates are projected onto the unit sphere first, where straight line distance
+	 * orders neighbours the same way as distance over the surface
+	 *
+	 * @param coordinates the coordinates of the cities
+	 * @param k           the number of neighbours per city
+	 * @return the flattened, unsorted neighbour lists
+	 */
+	private static int[] nearestByTree(CoordinateDistanceMatrix coordinates, int k) {
+		int cityCount = coordinates.cityCount();
+		double[][] points;
+		if (coordinates.getMetric() == CoordinateMetric.GEO) {
+			points = new double[3][cityCount];
+			for (int city = 0; city < cityCount; city++) {
+				double latitude = coordinates.getX(city);
+				double longitude = coordinates.getY(city);
+				points[0][city] = Math.cos(latitude) * Math.cos(longitude);
+				points[1][city] = Math.cos(latitude) * Math.sin(longitude);
+				points[2][city] = Math.sin(latitude);
+			}
+		} else {
+			points = new double[2][cityCount];
+			for (int city = 0; city < cityCount; city++) {
+				points[0][city] = coordinates.getX(city);
+				points[1][city] = coordinates.getY(city);
+			}
+		}
+
+		KDTree tree = new KDTree(points);
+		int[] neighbours = new int[cityCount * k];
+		int[] found = new int[k];
+		double[] squaredDistances = new double[k];
+		for (int city = 0; city < cityCount; city++) {
+			tree.nearest(city, found, squaredDistances);
+			System.arraycopy(found, 0, neighbours, city * k, k);
+		}
+		return neighbours;
+	}
+
+	/**
+	 * finds the nearest neighbours of every city by scanning its row of the distance matrix, keeping the k nearest in a max-heap.
+	 * this is O(n^2 log k) overall, which is unavoidable when distances are only known through the matrix
+	 *
+	 * @param distances the distance matrix
+	 * @param k         the number of neighbours per city
+	 * @return the flattened, unsorted neighbour lists
+	 */
+	private static int[] nearestBySelection(DistanceMatrix distances, int k) {
+		int cityCount = distances.cityCount();
+		int[] neighbours = new int[cityCount * k];
+		int[] heap = new int[k];
+		int[] heapDistances = new int[k];
+		for (int city = 0; city < cityCount; city++) {
+			int found = 0;
+			for (int other = 0; other < cityCount; other++) {
+				if (other == city)
+					continue;
+				int distance = distances.getDistance(city, other);
+				if (found < k) {
+					//sift the new city up from the bottom of the heap
+					int child = found++;
+					while (child > 0 && heapDistances[(child - 1) / 2] < distance) {
+						heap[child] = heap[(child - 1) / 2];
+						heapDistances[child] = heapDistances[(child - 1) / 2];
+						child = (child - 1) / 2;
+					}
+					heap[child] = other;
+					heapDistances[child] = distance;
+				} else if (k > 0 && distance < heapDistances[0]) {
+					//replace the farthest city at the root, and sift the new city down
+					int parent = 0;
+					while (true) {
+						int child = 2 * parent + 1;
+						if (child >= k)
+							break;
+						if (child + 1 < k && heapDistances[child + 1] > heapDistances[child])
+							child++;
+						if (heapDistances[child] <= distance)
+							break;
+						heap[parent] = heap[child];
+						heapDistances[parent] = heapDistances[child];
+						parent = child;
+					}
+					heap[parent] = other;
+					heapDistances[parent] = distance;
+				}
+			}
+			System.arraycopy(heap, 0, neighbours, city * k, k);
+		}
+		return neighbours;
+	}
+
+	/**
+	 * sorts every city's neighbours nearest first, by the problem's own distances
+	 *
+	 * @param neighbours the flattened neighbour lists
+	 * @param k          the number of neighbours per city
+	 * @param distances  the distance matrix
+	 */
+	private static void sortByDistance(int[] neighbours, int k, DistanceMatrix distances) {
+		long[] keyed = new long[k];
+		for (int city = 0; city < neighbours.length / Math.max(1, k); city++) {
+			for (int i = 0; i < k; i++) {
+				int neighbour = neighbours[city * k + i];
+				keyed[i] = ((long) distances.getDistance(city, neighbour) << 32) | neighbour;
+			}
+			Arrays.sort(keyed);
+			for (int i = 0; i < k; i++) {
+				neighbours[city * k + i] = (int) keyed[i];
+			}
+		}
+	}
+
+	/**
+	 * the number of neighbours of each city
+	 *
+	 * @return the int number of neighbours
+	 */
+	public int neighbourCount() {
+		return neighbourCount;
+	}
+
+	/**
+	 * a single neighbour of a city
+	 *
+	 * @param cityId the ID of the city
+	 * @param rank   the rank of the neighbour, 0 for the nearest
+	 * @return the city ID of the neighbour
+	 */
+	public int getNeighbour(int cityId, int rank) {
+		return neighbours[cityId * neighbourCount + rank];
+	}
+
+	/**
+	 * accessor for the flattened neighbour lists, for operators that walk them directly.
+	 * the neighbours of city c are at [c * neighbourCount(), (c + 1) * neighbourCount()), nearest first. the array must not be modified
+	 *
+	 * @return the flattened neighbour lists
+	 */
+	int[] getNeighbours() {
+		return neighbours;
+	}
+}
@@ -0,0 +1,69 @@
+package com.parker.david;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * the implementation of order crossover (OX). each offspring keeps the section between two cut points of one parent in place,
+ * and takes the rest of its cities in the order they appear in the other parent, starting after the second cut point.
+ * this keeps the relative order of the other parent's cities, rather than their positions. runs in time linear in the number of cities
+ */
+public class OrderCrossover extends PairwiseCrossover {
+
+	/**
+	 * constructor, with a random number generator of its own
+	 */
+	OrderCrossover() {
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * constructor
+	 *
+	 * @param randomNumberGenerator the random number generator used by this object, this object takes ownership of it
+	 */
+	OrderCrossover(SplittableRandom randomNumberGenerator) {
+		super(randomNumberGenerator);
+	}
+
+	@Override
+	void crossTours(SplittableRandom randomNumberGenerator,
+					int[] parent1Tours, int parent1Offset, int[] parent2Tours, int parent2Offset,
+					int[] offspring1Tours, int offspring1Offset, int[] offspring2Tours, int offspring2Offset,
+					int count, BreedingWorkspace workspace) {
+		long cuts = cutPoints(randomNumberGenerator, count);
+		int cut1 = (int) (cuts >>> 32);
+		int cut2 = (int) cuts;
+
+		//mark which cities are in the section each parent keeps
+		boolean[] inParent1Section = workspace.inParent1Middle;
+		boolean[] inParent2Section = workspace.inParent2Middle;
+		Arrays.fill(inParent1Section, 0, count, false);
+		Arrays.fill(inParent2Section, 0, count, false);
+		for (int i = cut1; i < cut2; i++) {
+			inParent1Section[parent1Tours[parent1Offset + i]] = true;
+			inParent2Section[parent2Tours[parent2Offset + i]] = true;
+		}
+
+		//each offspring keeps its own parent's section in place
+		System.arraycopy(parent1Tours, parent1Offset + cut1, offspring1Tours, offspring1Offset + cut1, cut2 - cut1);
+		System.arraycopy(parent2Tours, parent2Offset + cut1, offspring2Tours, offspring2Offset + cut1, cut2 - cut1);
+
+		//then fills the positions from the second cut point round to the first with the other parent's remaining cities, in order
+		int offspring1Position = cut2;
+		int offspring2Position = cut2;
+		for (int i = cut2; i < cut2 + count; i++) {
+			int position = i < count ? i : i - count;
+			int parent1City = parent1Tours[parent1Offset + position];
+			int parent2City = parent2Tours[parent2Offset + position];
+			if (!inParent1Section[parent2City]) {
+				offspring1Tours[offspring1Offset + offspring1Position] = parent2City;
+				offspring1Position = offspring1Position + 1 == count ? 0 : offspring1Position + 1;
+			}
+			if (!inParent2Section[parent1City]) {
+				offspring2Tours[offspring2Offset + offspring2Position] = parent1City;
+				offspring2Position = offspring2Position + 1 == count ? 0 : offspring2Position + 1;
+			}
+		}
+	}
+}
@@ -0,0 +1,219 @@
+package com.parker.david;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+
+/**
+ * the common part of crossover algorithms that breed two offspring from each pair of parents.
+ * parents are picked by tournament selection, without replacement, and the parents of every offspring may be recorded in a lineage log.
+ * subclasses only provide the crossover itself, working on tours stored in primitive arrays at given offsets, so that the same
+ * crossover breeds into freshly allocated tours or into the slots of a population arena.
+ * breeding populations is not reentrant. breeding arena slots keeps no state, so is reentrant
+ */
+public abstract class PairwiseCrossover implements PopulationCrossover, ArenaCrossover {
+
+	/**
+	 * a random number generator, owned by this object. population methods must only be called from one thread at a time
+	 */
+	final SplittableRandom randomNumberGenerator;
+
+	/**
+	 * the log the parents of each offspring of population breeding are recorded in, or null to record nothing
+	 */
+	private LineageLog lineageLog;
+
+	/**
+	 * scratch space for breeding populations, allocated when first needed
+	 */
+	private BreedingWorkspace populationWorkspace;
+
+	/**
+	 * the metrics the selection, crossover and evaluation of population breeding are timed into, or null to not time them
+	 */
+	private PhaseMetrics metrics;
+
+	/**
+	 * the cache of fitnesses of tours already seen, looked up by tour hash before evaluating offspring, or null to always evaluate
+	 */
+	private FitnessCache fitnessCache;
+
+	/**
+	 * the number of offspring evaluated in full by population breeding, not counting those whose fitness was cached
+	 */
+	private long evaluationCount;
+
+	/**
+	 * constructor
+	 *
+	 * @param randomNumberGenerator the random number generator used by this object, this object takes ownership of it
+	 */
+	PairwiseCrossover(SplittableRandom randomNumberGenerator) {
+		this.randomNumberGenerator = randomNumberGenerator;
+	}
+
+	/**
+	 * sets the metrics to time the selection, crossover and evaluation of population breeding into
+	 *
+	 * @param metrics the metrics, or null to not time anything
+	 */
+	void setMetrics(PhaseMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * sets the cache of fitnesses looked up before evaluating the offspring of population breeding
+	 *
+	 * @param fitnessCache the cache, or null to always evaluate
+	 */
+	void setFitnessCache(FitnessCache fitnessCache) {
+		this.fitnessCache = fitnessCache;
+	}
+
+	/**
+	 * accessor for the number of offspring population breeding has evaluated in full, not counting those whose fitness was cached
+	 *
+	 * @return the long number of evaluations
+	 */
+	long getEvaluationCount() {
+		return evaluationCount;
+	}
+
+	/**
+	 * takes a population and breaks it down into sets of parents. each set of parents generates a set of offspring
+	 * the offspring sets are merged to form an offspring population.
+	 *
+	 * @param parents                 the population of parents
+	 * @param offspringPopulationSize the size of the desired offspring population
+	 * @return the population of offspring
+	 */
+	@Override
+	public SolutionPopulation breed(SolutionPopulation parents, int offspringPopulationSize) {
+		// set selection method, giving it a stream of random numbers split from our own so that runs stay reproducible
+		long lapStart = metrics != null ? PhaseMetrics.start() : 0;
+		ParentSelector parentSelector = new TournamentSelection(3, randomNumberGenerator.split());
+
+		//select all the parents up front, each parent leaving the pool of parents available for selection when it is selected
+		int pairCount = Math.max(1, offspringPopulationSize / 2);
+		int[] selectedParents = parentSelector.getParentIndices(parents, pairCount * 2);
+		if (metrics != null)
+			metrics.lap(Phase.SELECT, lapStart);
+
+		//crossover each pair of parents in the order they were selected
+		ArrayList<CandidateSolution> offspringSolutions = new ArrayList<>();
+		for (int pair = 0; pair < pairCount; pair++) {
+			int parent1Index = selectedParents[2 * pair];
+			int parent2Index = selectedParents[2 * pair + 1];
+			offspringSolutions.addAll(breedPair(parents.getSolutions().get(parent1Index), parents.getSolutions().get(parent2Index)));
+
+			//record the parents of both offspring by their index in the parent population, as the selector chose them
+			if (lineageLog != null) {
+				lineageLog.recordOffspring(parent1Index, parent2Index);
+				lineageLog.recordOffspring(parent1Index, parent2Index);
+			}
+		}
+		return new SolutionPopulation(offspringSolutions);
+	}
+
+	@Override
+	public void setLineageLog(LineageLog lineageLog) {
+		this.lineageLog = lineageLog;
+	}
+
+	/**
+	 * performs the crossover of the two parents and generates two offspring
+	 *
+	 * @param parent1 the first parent to breed
+	 * @param parent2 the second parent to breed
+	 * @return the offspring in an array list
+	 */
+	public ArrayList<CandidateSolution> breedPair(CandidateSolution parent1, CandidateSolution parent2) {
+		int count = parent1.cityCount();
+		if (populationWorkspace == null || populationWorkspace.positions.length != count)
+			populationWorkspace = new BreedingWorkspace(count);
+
+		// create our offspring city permutations, and breed into them
+		long lapStart = metrics != null ? PhaseMetrics.start() : 0;
+		int[] offspring1 = new int[count];
+		int[] offspring2 = new int[count];
+		crossTours(randomNumberGenerator, parent1.getTour(), 0, parent2.getTour(), 0, offspring1, 0, offspring2, 0, count, populationWorkspace);
+		if (metrics != null)
+			lapStart = metrics.lap(Phase.CROSSOVER, lapStart);
+
+		//return the offspring, which are evaluated as they are created
+		ArrayList<CandidateSolution> offspring = new ArrayList<>();
+		int evaluations = 0;
+		if (fitnessCache == null) {
+			offspring.add(new CandidateSolution(parent1.getInstance(), offspring1));
+			offspring.add(new CandidateSolution(parent2.getInstance(), offspring2));
+			evaluations = 2;
+		} else {
+			for (int[] tour : new int[][]{offspring1, offspring2}) {
+				long tourHash = TourHash.hash(tour, !parent1.getInstance().isSymmetric());
+				int fitness = fitnessCache.get(tourHash);
+				if (fitness == FitnessCache.MISSING) {
+					fitness = CandidateSolution.tourLength(tour, 0, count, parent1.getInstance().getDistances());
+					fitnessCache.put(tourHash, fitness);
+					evaluations++;
+				}
+				offspring.add(new CandidateSolution(parent1.getInstance(), tour, fitness, tourHash));
+			}
+		}
+		evaluationCount += evaluations;
+		if (metrics != null) {
+			metrics.countEvaluations(evaluations);
+			metrics.lap(Phase.EVALUATE, lapStart);
+		}
+		return offspring;
+	}
+
+	/**
+	 * breeds two parents of an arena into two offspring slots of the same arena.
+	 * no lineage is recorded, and no state of this object is touched, so this may be called from several threads at once
+	 */
+	@Override
+	public void breedSlots(PopulationArena arena, int parent1Slot, int parent2Slot, int offspring1Slot, int offspring2Slot,
+						   SplittableRandom randomNumberGenerator, BreedingWorkspace workspace) {
+		int[] tours = arena.getTours();
+		crossTours(randomNumberGenerator,
+				tours, arena.offset(parent1Slot), tours, arena.offset(parent2Slot),
+				tours, arena.offset(offspring1Slot), tours, arena.offset(offspring2Slot),
+				arena.cityCount(), workspace);
+	}
+
+	/**
+	 * the crossover itself, working on tours stored in primitive arrays at given offsets.
+	 * implementations must leave the parents intact, write a whole tour to each offspring offset, keep no mutable state,
+	 * and take all randomness from the given random number generator
+	 *
+	 * @param randomNumberGenerator the random number generator of the calling thread
+	 * @param parent1Tours          the array holding the first parent's tour
+	 * @param parent1Offset         the index of the first parent's first city
+	 * @param parent2Tours          the array holding the second parent's tour
+	 * @param parent2Offset         the index of the second parent's first city
+	 * @param offspring1Tours       the array the first offspring is written to
+	 * @param offspring1Offset      the index the first offspring's first city is written to
+	 * @param offspring2Tours       the array the second offspring is written to
+	 * @param offspring2Offset      the index the second offspring's first city is written to
+	 * @param count                 the number of cities in a tour
+	 * @param workspace             scratch space owned by the calling thread
+	 */
+	abstract void crossTours(SplittableRandom randomNumberGenerator,
+							 int[] parent1Tours, int parent1Offset, int[] parent2Tours, int parent2Offset,
+							 int[] offspring1Tours, int offspring1Offset, int[] offspring2Tours, int offspring2Offset,
+							 int count, BreedingWorkspace workspace);
+
+	/**
+	 * picks two distinct cut points, such that the section between them is neither empty nor the whole tour
+	 *
+	 * @param randomNumberGenerator the random number generator to draw from
+	 * @param count                 the number of cities in a tour, at least three
+	 * @return the cut points packed into a long, the lower one in the high half: the section runs from the lower up to, not including, the higher
+	 */
+	static long cutPoints(SplittableRandom randomNumberGenerator, int count) {
+		int cut1 = randomNumberGenerator.nextInt(1, count);
+		int cut2 = randomNumberGenerator.nextInt(1, count - 1);
+		if (cut2 >= cut1)
+			cut2++;
+		return cut1 < cut2 ? ((long) cut1 << 32) | cut2 : ((long) cut2 << 32) | cut1;
+	}
+}
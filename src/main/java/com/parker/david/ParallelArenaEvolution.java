@@ -0,0 +1,152 @@
+package com.parker.david;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * an arena genetic algorithm that produces each generation's offspring on a fork-join pool.
+ * the offspring slots are split into disjoint ranges, and each range has its parents selected, and is bred, evaluated and mutated
+ * on whichever pool thread picks it up. as the arena strategies are reentrant and each thread has its own workspace, no locking is needed.
+ * the ranges are joined before elitist replacement, which runs on the calling thread.
+ * random numbers are drawn per fixed size block of offspring, from a stream seeded by the generation and the block's index,
+ * so a run is reproducible from its seed no matter how many threads the pool has or which thread produces which block
+ */
+public class ParallelArenaEvolution extends ArenaEvolution {
+
+	/**
+	 * the number of offspring pairs sharing one stream of random numbers, and the fewest pairs handed to a pool thread as one task
+	 */
+	private static final int PAIRS_PER_BLOCK = 4;
+
+	/**
+	 * the pool offspring are produced on
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * the breeding workspace of each pool thread, created the first time a thread produces offspring and reused after that
+	 */
+	private final ThreadLocal<BreedingWorkspace> workspaces;
+
+	/**
+	 * constructor, uses the default strategies
+	 *
+	 * @param instance              the problem to solve
+	 * @param populationSize        the number of parents in a generation
+	 * @param offspringCount        the number of offspring bred each generation, must be even as offspring are bred in pairs
+	 * @param tournamentSize        the number of parents drawn into each tournament for parent selection
+	 * @param randomNumberGenerator the stream of random numbers this population evolves with, this object takes ownership of it
+	 * @param pool                  the fork-join pool offspring are produced on
+	 */
+	ParallelArenaEvolution(TSPInstance instance, int populationSize, int offspringCount, int tournamentSize,
+						   SplittableRandom randomNumberGenerator, ForkJoinPool pool) {
+		this(instance, populationSize, offspringCount, new TournamentSelection(tournamentSize), new TwoPointCrossOver(), new SwapTwoCities(),
+				randomNumberGenerator, pool);
+	}
+
+	/**
+	 * constructor
+	 *
+	 * @param instance              the problem to solve
+	 * @param populationSize        the number of parents in a generation
+	 * @param offspringCount        the number of offspring bred each generation, must be even as offspring are bred in pairs
+	 * @param selector              the reentrant strategy used to select parents for crossover
+	 * @param breeder               the reentrant strategy used to breed offspring
+	 * @param mutator               the reentrant strategy used to mutate an offspring
+	 * @param randomNumberGenerator the stream of random numbers this population evolves with, this object takes ownership of it
+	 * @param pool                  the fork-join pool offspring are produced on
+	 */
+	ParallelArenaEvolution(TSPInstance instance, int populationSize, int offspringCount,
+						   ArenaParentSelector selector, ArenaCrossover breeder, ArenaMutator mutator,
+						   SplittableRandom randomNumberGenerator, ForkJoinPool pool) {
+		super(instance, populationSize, offspringCount, selector, breeder, mutator, randomNumberGenerator);
+		this.pool = pool;
+		this.workspaces = ThreadLocal.withInitial(() -> new BreedingWorkspace(instance.cityCount()));
+	}
+
+	/**
+	 * produces every offspring of the current generation, split into ranges across the pool, and waits for them all
+	 *
+	 * @param mutatedSlot the first offspring slot that should be mutated, or -1 for none
+	 */
+	@Override
+	void produceOffspring(int mutatedSlot) {
+		PopulationArena arena = getArena();
+		int blockCount = (arena.getOffspringCount() / 2 + PAIRS_PER_BLOCK - 1) / PAIRS_PER_BLOCK;
+
+		//split the blocks so that every pool thread gets a few tasks to balance load
+		int blocksPerTask = Math.max(1, blockCount / (pool.getParallelism() * 4));
+		long generationSeed = getRandomNumberGenerator().nextLong();
+		pool.invoke(new OffspringRange(0, blockCount, blocksPerTask, mutatedSlot, generationSeed));
+	}
+
+	/**
+	 * a fork-join task producing a range of blocks of offspring, splitting itself in half until the range is small enough
+	 */
+	private class OffspringRange extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * the first block of the range
+		 */
+		private final int fromBlock;
+
+		/**
+		 * the block after the last block of the range
+		 */
+		private final int toBlock;
+
+		/**
+		 * the largest number of blocks produced without splitting further
+		 */
+		private final int blocksPerTask;
+
+		/**
+		 * the first offspring slot that should be mutated, or -1 for none
+		 */
+		private final int mutatedSlot;
+
+		/**
+		 * the seed of this generation, which each block's random numbers are derived from
+		 */
+		private final long generationSeed;
+
+		/**
+		 * constructor
+		 *
+		 * @param fromBlock      the first block of the range
+		 * @param toBlock        the block after the last block of the range
+		 * @param blocksPerTask  the largest number of blocks produced without splitting further
+		 * @param mutatedSlot    the first offspring slot that should be mutated, or -1 for none
+		 * @param generationSeed the seed of this generation
+		 */
+		OffspringRange(int fromBlock, int toBlock, int blocksPerTask, int mutatedSlot, long generationSeed) {
+			this.fromBlock = fromBlock;
+			this.toBlock = toBlock;
+			this.blocksPerTask = blocksPerTask;
+			this.mutatedSlot = mutatedSlot;
+			this.generationSeed = generationSeed;
+		}
+
+		@Override
+		protected void compute() {
+			if (toBlock - fromBlock > blocksPerTask) {
+				int middleBlock = (fromBlock + toBlock) >>> 1;
+				invokeAll(new OffspringRange(fromBlock, middleBlock, blocksPerTask, mutatedSlot, generationSeed),
+						new OffspringRange(middleBlock, toBlock, blocksPerTask, mutatedSlot, generationSeed));
+				return;
+			}
+
+			//produce each block with its own stream of random numbers
+			PopulationArena arena = getArena();
+			BreedingWorkspace workspace = workspaces.get();
+			for (int block = fromBlock; block < toBlock; block++) {
+				int fromSlot = arena.firstOffspringSlot() + block * PAIRS_PER_BLOCK * 2;
+				int toSlot = Math.min(arena.slotCount(), fromSlot + PAIRS_PER_BLOCK * 2);
+				produceOffspring(fromSlot, toSlot, mutatedSlot, RandomStreams.blockStream(generationSeed, block), workspace);
+			}
+		}
+	}
+}
@@ -1,5 +1,8 @@
 package com.parker.david;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
 /**
  * an interface allowing multiple methods of parent selection in crossover
  */
@@ -12,4 +15,51 @@ public interface ParentSelector {
 	 * @return a parent candidate solution from the parent population
 	 */
 	CandidateSolution getParent(SolutionPopulation population);
+
+	/**
+	 * method to get several distinct parents from a population, one after another, each chosen from the solutions not yet chosen.
+	 * this default copies the population and removes each parent from the copy as it is chosen, so costs time quadratic in the
+	 * population size. implementations should override it with something cheaper.
+	 * implementations must not modify the underlying data of the input population
+	 *
+	 * @param population  the parent population we want to select parents from
+	 * @param parentCount the number of parents to select, no more than the population size
+	 * @return the parents, in the order they were selected
+	 */
+	default ArrayList<CandidateSolution> getParents(SolutionPopulation population, int parentCount) {
+		if (parentCount > population.getPopulationSize())
+			throw new IllegalArgumentException("cannot select " + parentCount + " distinct parents from " + population.getPopulationSize() + " solutions");
+		SolutionPopulation parentPool = population.copy();
+		ArrayList<CandidateSolution> parents = new ArrayList<>();
+		while (parents.size() < parentCount) {
+			CandidateSolution parent = getParent(parentPool);
+			parentPool.getSolutions().remove(parent);
+			parents.add(parent);
+		}
+		return parents;
+	}
+
+	/**
+	 * selects several distinct parents from a population as getParents does, but answers with their indices in the population,
+	 * for callers that need to know where each parent came from. this default finds the index of each parent selected by getParents
+	 * through an identity map of the population, implementations that select by index should override it to return those indices directly.
+	 * implementations must not modify the underlying data of the input population
+	 *
+	 * @param population  the parent population we want to select parents from
+	 * @param parentCount the number of parents to select, no more than the population size
+	 * @return the index of each parent in the population, in the order they were selected
+	 */
+	default int[] getParentIndices(SolutionPopulation population, int parentCount) {
+		ArrayList<CandidateSolution> solutions = population.getSolutions();
+		IdentityHashMap<CandidateSolution, Integer> indices = new IdentityHashMap<>();
+		for (int i = solutions.size() - 1; i >= 0; i--) {
+			indices.put(solutions.get(i), i);
+		}
+		ArrayList<CandidateSolution> parents = getParents(population, parentCount);
+		int[] parentIndices = new int[parents.size()];
+		for (int i = 0; i < parentIndices.length; i++) {
+			parentIndices[i] = indices.get(parents.get(i));
+		}
+		return parentIndices;
+	}
 }
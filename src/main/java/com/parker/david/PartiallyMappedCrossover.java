@@ -0,0 +1,74 @@
+package com.parker.david;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * the implementation of partially mapped crossover (PMX). each offspring keeps the section between two cut points of one parent in place,
+ * and takes every other position from the other parent. where that city is already in the kept section, the mapping between the
+ * two parents' sections is followed until a city that is not is found.
+ * the mapping chains never share a city, so following them all costs time linear in the number of cities
+ */
+public class PartiallyMappedCrossover extends PairwiseCrossover {
+
+	/**
+	 * constructor, with a random number generator of its own
+	 */
+	PartiallyMappedCrossover() {
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * constructor
+	 *
+	 * @param randomNumberGenerator the random number generator used by this object, this object takes ownership of it
+	 */
+	PartiallyMappedCrossover(SplittableRandom randomNumberGenerator) {
+		super(randomNumberGenerator);
+	}
+
+	@Override
+	void crossTours(SplittableRandom randomNumberGenerator,
+					int[] parent1Tours, int parent1Offset, int[] parent2Tours, int parent2Offset,
+					int[] offspring1Tours, int offspring1Offset, int[] offspring2Tours, int offspring2Offset,
+					int count, BreedingWorkspace workspace) {
+		long cuts = cutPoints(randomNumberGenerator, count);
+		int cut1 = (int) (cuts >>> 32);
+		int cut2 = (int) cuts;
+
+		//mark which cities are in the section each parent keeps, and where each city is in each parent
+		boolean[] inParent1Section = workspace.inParent1Middle;
+		boolean[] inParent2Section = workspace.inParent2Middle;
+		int[] parent1Positions = workspace.positions;
+		int[] parent2Positions = workspace.otherPositions;
+		Arrays.fill(inParent1Section, 0, count, false);
+		Arrays.fill(inParent2Section, 0, count, false);
+		for (int i = 0; i < count; i++) {
+			parent1Positions[parent1Tours[parent1Offset + i]] = i;
+			parent2Positions[parent2Tours[parent2Offset + i]] = i;
+		}
+		for (int i = cut1; i < cut2; i++) {
+			inParent1Section[parent1Tours[parent1Offset + i]] = true;
+			inParent2Section[parent2Tours[parent2Offset + i]] = true;
+		}
+
+		//each offspring keeps its own parent's section in place
+		System.arraycopy(parent1Tours, parent1Offset + cut1, offspring1Tours, offspring1Offset + cut1, cut2 - cut1);
+		System.arraycopy(parent2Tours, parent2Offset + cut1, offspring2Tours, offspring2Offset + cut1, cut2 - cut1);
+
+		//and takes the rest from the other parent, mapping cities already in the section to the city they replaced
+		for (int i = 0; i < count; i++) {
+			if (i >= cut1 && i < cut2)
+				continue;
+			int city = parent2Tours[parent2Offset + i];
+			while (inParent1Section[city])
+				city = parent2Tours[parent2Offset + parent1Positions[city]];
+			offspring1Tours[offspring1Offset + i] = city;
+
+			city = parent1Tours[parent1Offset + i];
+			while (inParent2Section[city])
+				city = parent1Tours[parent1Offset + parent2Positions[city]];
+			offspring2Tours[offspring2Offset + i] = city;
+		}
+	}
+}
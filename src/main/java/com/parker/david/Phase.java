@@ -0,0 +1,55 @@
+package com.parker.david;
+
+/**
+ * the stages of a generation that are measured separately by phase metrics
+ */
+public enum Phase {
+	/**
+	 * creating the initial population
+	 */
+	INITIALISE,
+
+	/**
+	 * selecting parents for crossover
+	 */
+	SELECT,
+
+	/**
+	 * breeding offspring tours from parents
+	 */
+	CROSSOVER,
+
+	/**
+	 * mutating offspring
+	 */
+	MUTATE,
+
+	/**
+	 * improving offspring by local search
+	 */
+	LOCAL_SEARCH,
+
+	/**
+	 * calculating the fitness of new tours
+	 */
+	EVALUATE,
+
+	/**
+	 * selecting the next generation from parents and offspring
+	 */
+	REPLACE,
+
+	/**
+	 * reporting a completed generation
+	 */
+	REPORT;
+
+	/**
+	 * the name of this phase as used in reports and JMX names, in lower case with dashes
+	 *
+	 * @return the name of the phase
+	 */
+	String getReportName() {
+		return name().toLowerCase().replace('_', '-');
+	}
+}
@@ -0,0 +1,281 @@
+package com.parker.david;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * instrumentation of the stages of the generation loop: a latency histogram per phase, the number of tours evaluated,
+ * and the bytes allocated per generation by the thread evolving the population, where the JVM can count them.
+ * phases are timed in laps, each measured from the end of the last, so timing a sequence of phases reads the clock once per phase.
+ * latencies may be recorded from several threads at once, generations must only be ended on the thread evolving the population,
+ * and the totals may be read from any thread, such as the JMX agent's.
+ * the metrics can be registered as MXBeans under com.parker.david, one per phase and one for the run, and dumped to a CSV file as generations end
+ */
+public class PhaseMetrics implements RunMetricsMXBean, Closeable {
+
+	/**
+	 * the domain every MXBean is registered under
+	 */
+	private static final String DOMAIN = "com.parker.david";
+
+	/**
+	 * the latency histogram of each phase
+	 */
+	private final EnumMap<Phase, LatencyHistogram> histograms = new EnumMap<>(Phase.class);
+
+	/**
+	 * the number of tours evaluated
+	 */
+	private final AtomicLong evaluations = new AtomicLong();
+
+	/**
+	 * the number of generations ended
+	 */
+	private volatile long generations;
+
+	/**
+	 * the time the metrics were created, in nanoseconds
+	 */
+	private final long startNanos = System.nanoTime();
+
+	/**
+	 * the thread allocation counters of the JVM, or null if it has none
+	 */
+	private final com.sun.management.ThreadMXBean allocationCounter;
+
+	/**
+	 * the bytes the evolving thread had allocated when the last generation ended, or when the metrics were created
+	 */
+	private long allocatedAtLastGeneration;
+
+	/**
+	 * the bytes allocated in the last generation
+	 */
+	private volatile long lastGenerationAllocatedBytes = -1;
+
+	/**
+	 * the bytes allocated in all generations
+	 */
+	private volatile long totalAllocatedBytes;
+
+	/**
+	 * the names the MXBeans were registered under, null if they are not registered
+	 */
+	private ObjectName[] registeredNames;
+
+	/**
+	 * the CSV file the metrics are dumped to as generations end, null if they are not dumped
+	 */
+	private MetricsCsvWriter csvDump;
+
+	/**
+	 * constructor, must be called on the thread that will evolve the population so allocations are counted for that thread
+	 */
+	PhaseMetrics() {
+		for (Phase phase : Phase.values()) {
+			histograms.put(phase, new LatencyHistogram());
+		}
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		com.sun.management.ThreadMXBean counter = null;
+		if (threads instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+			counter = (com.sun.management.ThreadMXBean) threads;
+			counter.setThreadAllocatedMemoryEnabled(true);
+		}
+		this.allocationCounter = counter;
+		this.allocatedAtLastGeneration = allocatedBytes();
+	}
+
+	/**
+	 * creates metrics for a run on the calling thread, registers them over JMX and dumps them to a CSV file as generations end
+	 *
+	 * @param csvFile      the CSV file, replaced if it exists
+	 * @param dumpInterval the number of generations between dumps
+	 * @return the metrics, which must be closed once the run is over
+	 * @throws IOException if the CSV file cannot be written
+	 */
+	static PhaseMetrics open(Path csvFile, int dumpInterval) throws IOException {
+		PhaseMetrics metrics = new PhaseMetrics();
+		try {
+			metrics.registerMBeans();
+		} catch (JMException e) {
+			throw new IllegalStateException("could not register the metrics over JMX", e);
+		}
+		try {
+			metrics.dumpTo(csvFile, dumpInterval);
+		} catch (IOException e) {
+			metrics.close();
+			throw e;
+		}
+		return metrics;
+	}
+
+	/**
+	 * reads the clock, to start the first lap of a sequence of phases
+	 *
+	 * @return the time in nanoseconds
+	 */
+	static long start() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * records the time since the last lap as a latency of a phase
+	 *
+	 * @param phase    the phase that has just finished
+	 * @param lapStart the time the phase started, as returned by start or the previous lap
+	 * @return the time now, which is when the next phase starts
+	 */
+	long lap(Phase phase, long lapStart) {
+		long now = System.nanoTime();
+		histograms.get(phase).record(now - lapStart);
+		return now;
+	}
+
+	/**
+	 * counts tours evaluated
+	 *
+	 * @param count the number of tours evaluated
+	 */
+	void countEvaluations(int count) {
+		evaluations.addAndGet(count);
+	}
+
+	/**
+	 * ends a generation, counting the bytes allocated by the calling thread since the last one ended, and dumping the metrics if a dump is due
+	 *
+	 * @throws IOException if the metrics cannot be dumped
+	 */
+	void endGeneration() throws IOException {
+		if (allocationCounter != null) {
+			long allocated = allocatedBytes();
+			lastGenerationAllocatedBytes = allocated - allocatedAtLastGeneration;
+			totalAllocatedBytes += lastGenerationAllocatedBytes;
+			allocatedAtLastGeneration = allocated;
+		}
+		generations++;
+		if (csvDump != null)
+			csvDump.generationEnded();
+	}
+
+	/**
+	 * starts dumping these metrics to a CSV file as generations end, see MetricsCsvWriter
+	 *
+	 * @param file         the CSV file, replaced if it exists
+	 * @param dumpInterval the number of generations between dumps
+	 * @throws IOException if the file cannot be written
+	 */
+	void dumpTo(Path file, int dumpInterval) throws IOException {
+		if (csvDump != null)
+			csvDump.close();
+		csvDump = new MetricsCsvWriter(file, dumpInterval, this);
+	}
+
+	/**
+	 * the bytes allocated by the calling thread so far
+	 *
+	 * @return the long number of bytes, or -1 if the JVM cannot tell
+	 */
+	private long allocatedBytes() {
+		return allocationCounter == null ? -1 : allocationCounter.getThreadAllocatedBytes(Thread.currentThread().threadId());
+	}
+
+	/**
+	 * accessor for the latency histogram of a phase
+	 *
+	 * @param phase the phase
+	 * @return the histogram
+	 */
+	LatencyHistogram getHistogram(Phase phase) {
+		return histograms.get(phase);
+	}
+
+	@Override
+	public long getGenerations() {
+		return generations;
+	}
+
+	@Override
+	public long getEvaluations() {
+		return evaluations.get();
+	}
+
+	@Override
+	public double getEvaluationsPerSecond() {
+		double seconds = (System.nanoTime() - startNanos) / 1e9;
+		return seconds <= 0 ? 0 : evaluations.get() / seconds;
+	}
+
+	@Override
+	public double getAllocatedBytesPerGeneration() {
+		if (allocationCounter == null)
+			return -1;
+		return generations == 0 ? 0 : (double) totalAllocatedBytes / generations;
+	}
+
+	@Override
+	public long getLastGenerationAllocatedBytes() {
+		return lastGenerationAllocatedBytes;
+	}
+
+	/**
+	 * registers these metrics with the platform MBean server, the run as com.parker.david:type=RunMetrics,
+	 * and each phase as com.parker.david:type=PhaseMetrics,phase=name. any metrics already registered under those names are replaced
+	 *
+	 * @throws JMException if the MXBeans cannot be registered
+	 */
+	void registerMBeans() throws JMException {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		Phase[] phases = Phase.values();
+		ObjectName[] names = new ObjectName[phases.length + 1];
+		names[0] = new ObjectName(DOMAIN + ":type=RunMetrics");
+		for (Phase phase : phases) {
+			names[phase.ordinal() + 1] = new ObjectName(DOMAIN + ":type=PhaseMetrics,phase=" + phase.getReportName());
+		}
+		for (int i = 0; i < names.length; i++) {
+			Object mbean = i == 0 ? this : histograms.get(phases[i - 1]);
+			try {
+				server.registerMBean(mbean, names[i]);
+			} catch (InstanceAlreadyExistsException e) {
+				server.unregisterMBean(names[i]);
+				server.registerMBean(mbean, names[i]);
+			}
+		}
+		registeredNames = names;
+	}
+
+	/**
+	 * writes the last CSV dump, if the metrics are dumped, and unregisters the MXBeans, if they were registered
+	 *
+	 * @throws IOException if the last dump cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		if (registeredNames != null) {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			for (ObjectName name : registeredNames) {
+				try {
+					server.unregisterMBean(name);
+				} catch (InstanceNotFoundException e) {
+					//already gone, which is all we wanted
+				} catch (JMException e) {
+					throw new IllegalStateException("could not unregister " + name, e);
+				}
+			}
+			registeredNames = null;
+		}
+		if (csvDump != null) {
+			csvDump.close();
+			csvDump = null;
+		}
+	}
+}
@@ -0,0 +1,488 @@
+package com.parker.david;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * a population stored as primitives, every tour of the population lives in one contiguous int array, with a parallel int array of fitnesses.
+ * tour i occupies indices [i * cityCount, (i + 1) * cityCount) of the tour array, and its fitness is at index i of the fitness array.
+ * the arena is double buffered, the current generation is read from one buffer while the next generation is written into the other,
+ * and the two are swapped at the end of a generation. all buffers are allocated up front, so evolving within an arena allocates nothing.
+ * each buffer has room for the parents and the offspring of a generation, the offspring are bred into the slots after the parents.
+ * a checkpoint can pin the tour buffer holding the parents, and write them out from it on another thread, rather than copy them.
+ * while the parents are pinned, the arena takes a spare tour buffer in place of the pinned one before it writes any parent to it
+ */
+public class PopulationArena {
+
+	/**
+	 * the problem the tours of this arena belong to
+	 */
+	private final TSPInstance instance;
+
+	/**
+	 * the number of cities in every tour, which is also the stride between tours
+	 */
+	private final int cityCount;
+
+	/**
+	 * the number of parents in a generation
+	 */
+	private final int populationSize;
+
+	/**
+	 * the number of offspring bred each generation
+	 */
+	private final int offspringCount;
+
+	/**
+	 * the tours of the current generation, parents followed by offspring
+	 */
+	private int[] tours;
+
+	/**
+	 * the fitnesses of the current generation, indexed by slot
+	 */
+	private int[] fitness;
+
+	/**
+	 * the tours of the next generation, written during replacement
+	 */
+	private int[] nextTours;
+
+	/**
+	 * the fitnesses of the next generation, written during replacement
+	 */
+	private int[] nextFitness;
+
+	/**
+	 * a tour buffer that takes the place of a pinned buffer before parents are written to it,
+	 * null before the parents are first pinned, and while the pinned buffer has been taken out of use
+	 */
+	private int[] spareTours;
+
+	/**
+	 * the tour buffer holding the parents a checkpoint is being written from, whose parent slots the arena must not write, or null
+	 */
+	private int[] pinnedTours;
+
+	/**
+	 * scratch space for replacement strategies to rank the slots of a generation in, one element per slot
+	 */
+	private final long[] ranking;
+
+	/**
+	 * true while the parent slots of the current generation are in order of fitness, as replacement leaves them.
+	 * writing a parent slot in any other way clears this
+	 */
+	private boolean parentsSorted;
+
+	/**
+	 * the total fitness of the parents of the current generation, kept up to date while the parents are sorted
+	 */
+	private long parentFitnessSum;
+
+	/**
+	 * constructor, allocates both buffers
+	 *
+	 * @param instance       the problem the tours belong to
+	 * @param populationSize the number of parents in a generation
+	 * @param offspringCount the number of offspring bred each generation
+	 */
+	PopulationArena(TSPInstance instance, int populationSize, int offspringCount) {
+		this.instance = instance;
+		this.cityCount = instance.cityCount();
+		this.populationSize = populationSize;
+		this.offspringCount = offspringCount;
+		if ((long) slotCount() * cityCount > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("population of " + slotCount() + " tours of " + cityCount + " cities does not fit in an arena");
+		this.tours = new int[slotCount() * cityCount];
+		this.fitness = new int[slotCount()];
+		this.nextTours = new int[slotCount() * cityCount];
+		this.nextFitness = new int[slotCount()];
+		this.ranking = new long[slotCount()];
+	}
+
+	/**
+	 * accessor for the problem of this arena
+	 *
+	 * @return the TSP instance
+	 */
+	public TSPInstance getInstance() {
+		return instance;
+	}
+
+	/**
+	 * the number of cities in every tour
+	 *
+	 * @return the int number of cities
+	 */
+	public int cityCount() {
+		return cityCount;
+	}
+
+	/**
+	 * the number of parents in a generation
+	 *
+	 * @return the int population size
+	 */
+	public int getPopulationSize() {
+		return populationSize;
+	}
+
+	/**
+	 * the number of offspring bred each generation
+	 *
+	 * @return the int number of offspring
+	 */
+	public int getOffspringCount() {
+		return offspringCount;
+	}
+
+	/**
+	 * the number of slots in a buffer, room for both the parents and offspring of a generation
+	 *
+	 * @return the int number of slots
+	 */
+	int slotCount() {
+		return populationSize + offspringCount;
+	}
+
+	/**
+	 * the slot of the first offspring, offspring are stored directly after the parents
+	 *
+	 * @return the int slot of the first offspring
+	 */
+	int firstOffspringSlot() {
+		return populationSize;
+	}
+
+	/**
+	 * the index of a slot's first city in a tour array
+	 *
+	 * @param slot the slot
+	 * @return the int offset of the slot's tour
+	 */
+	int offset(int slot) {
+		return slot * cityCount;
+	}
+
+	/**
+	 * accessor for the tours of the current generation. the array is shared with the arena
+	 *
+	 * @return the current tour array
+	 */
+	int[] getTours() {
+		return tours;
+	}
+
+	/**
+	 * accessor for the fitnesses of the current generation. the array is shared with the arena
+	 *
+	 * @return the current fitness array
+	 */
+	int[] getFitness() {
+		return fitness;
+	}
+
+	/**
+	 * accessor for the tours of the next generation, which are about to be written. the array is shared with the arena
+	 *
+	 * @return the next tour array
+	 */
+	int[] getNextTours() {
+		unpinBeforeWriting(nextTours);
+		return nextTours;
+	}
+
+	/**
+	 * accessor for the fitnesses of the next generation. the array is shared with the arena
+	 *
+	 * @return the next fitness array
+	 */
+	int[] getNextFitness() {
+		return nextFitness;
+	}
+
+	/**
+	 * accessor for the ranking scratch space, which has one element per slot and may be freely overwritten
+	 *
+	 * @return the ranking scratch array
+	 */
+	long[] getRanking() {
+		return ranking;
+	}
+
+	/**
+	 * makes the next generation the current one. the old current buffer becomes the next buffer and will be overwritten
+	 */
+	void swapBuffers() {
+		int[] swappedTours = tours;
+		tours = nextTours;
+		nextTours = swappedTours;
+
+		int[] swappedFitness = fitness;
+		fitness = nextFitness;
+		nextFitness = swappedFitness;
+		parentsSorted = false;
+	}
+
+	/**
+	 * recalculates the fitness of a slot of the current generation from its tour
+	 *
+	 * @param slot the slot to evaluate
+	 * @return the int fitness of the slot, which is also stored
+	 */
+	int evaluate(int slot) {
+		if (slot < populationSize)
+			parentsSorted = false;
+		fitness[slot] = CandidateSolution.tourLength(tours, offset(slot), cityCount, instance.getDistances());
+		return fitness[slot];
+	}
+
+	/**
+	 * finds the fitness of a slot of the current generation from a fitness cache, only recalculating it from its tour if it is not cached
+	 *
+	 * @param slot  the slot to evaluate
+	 * @param cache the cache to look the fitness up in, and add it to if it is not there
+	 * @return the int fitness of the slot, which is also stored
+	 */
+	int evaluate(int slot, FitnessCache cache) {
+		long tourHash = TourHash.hash(tours, offset(slot), cityCount, !instance.isSymmetric());
+		int cached = cache.get(tourHash);
+		if (cached == FitnessCache.MISSING) {
+			cache.put(tourHash, evaluate(slot));
+			return fitness[slot];
+		}
+		if (slot < populationSize)
+			parentsSorted = false;
+		fitness[slot] = cached;
+		return cached;
+	}
+
+	/**
+	 * copies a slot of the current generation into a slot of the next generation, along with its fitness
+	 *
+	 * @param slot     the slot of the current generation to copy
+	 * @param nextSlot the slot of the next generation to copy to
+	 */
+	void copyToNext(int slot, int nextSlot) {
+		unpinBeforeWriting(nextTours);
+		System.arraycopy(tours, offset(slot), nextTours, offset(nextSlot), cityCount);
+		nextFitness[nextSlot] = fitness[slot];
+	}
+
+	/**
+	 * copies a slot of the current generation over another slot of the current generation, along with its fitness
+	 *
+	 * @param fromSlot the slot to copy
+	 * @param toSlot   the slot to overwrite
+	 */
+	void copySlot(int fromSlot, int toSlot) {
+		if (toSlot < populationSize) {
+			parentsSorted = false;
+			unpinBeforeWriting(tours);
+		}
+		System.arraycopy(tours, offset(fromSlot), tours, offset(toSlot), cityCount);
+		fitness[toSlot] = fitness[fromSlot];
+	}
+
+	/**
+	 * loads a population of candidate solutions into the parent slots of the current generation
+	 *
+	 * @param population a population of exactly populationSize solutions of this arena's problem
+	 */
+	void load(SolutionPopulation population) {
+		if (population.getPopulationSize() != populationSize)
+			throw new IllegalArgumentException("expected a population of " + populationSize + " solutions, found " + population.getPopulationSize());
+		parentsSorted = false;
+		for (int slot = 0; slot < populationSize; slot++) {
+			CandidateSolution solution = population.getSolutions().get(slot);
+			System.arraycopy(solution.getTour(), 0, tours, offset(slot), cityCount);
+			fitness[slot] = solution.getFitness();
+		}
+	}
+
+	/**
+	 * loads the parent slots of the current generation from primitive arrays, such as a checkpoint.
+	 * the parents are marked sorted if they are in order of fitness, as they are when replacement leaves them
+	 *
+	 * @param parentTours   populationSize tours of cityCount cities, one after another
+	 * @param parentFitness the fitnesses of the parents
+	 */
+	void loadParents(int[] parentTours, int[] parentFitness) {
+		if (parentTours.length != populationSize * cityCount || parentFitness.length != populationSize)
+			throw new IllegalArgumentException("expected " + populationSize + " tours of " + cityCount + " cities, found "
+					+ parentFitness.length + " fitnesses and " + parentTours.length + " cities");
+		unpinBeforeWriting(tours);
+		System.arraycopy(parentTours, 0, tours, 0, parentTours.length);
+		System.arraycopy(parentFitness, 0, fitness, 0, populationSize);
+		parentsSorted = false;
+		long total = 0;
+		boolean sorted = true;
+		for (int slot = 0; slot < populationSize; slot++) {
+			total += fitness[slot];
+			if (slot > 0 && fitness[slot] < fitness[slot - 1])
+				sorted = false;
+		}
+		if (sorted)
+			markParentsSorted(total);
+	}
+
+	/**
+	 * pins the tour buffer holding the parents of the current generation, so a checkpoint can read them on another thread
+	 * without copying them. the arena will not write to the parent slots of the pinned buffer until it is unpinned,
+	 * taking a spare buffer in its place instead, so the offspring slots of the current generation may still be written as usual,
+	 * but parent slots may only be written through the arena's methods, not directly through getTours, until the next swap of buffers
+	 *
+	 * @return the pinned tour array, whose first populationSize tours are the parents
+	 */
+	int[] pinParents() {
+		if (pinnedTours != null)
+			throw new IllegalStateException("the parents are already pinned");
+		if (spareTours == null)
+			spareTours = new int[tours.length];
+		pinnedTours = tours;
+		return tours;
+	}
+
+	/**
+	 * unpins the pinned tour buffer once the checkpoint reading it is done with it.
+	 * if the arena already took the spare buffer in its place, the pinned buffer becomes the spare
+	 */
+	void unpinParents() {
+		if (pinnedTours != tours && pinnedTours != nextTours)
+			spareTours = pinnedTours;
+		pinnedTours = null;
+	}
+
+	/**
+	 * takes the spare tour buffer in place of a buffer about to have parents written to it, if that buffer is pinned.
+	 * the next buffer is about to be overwritten, so the spare simply replaces it, the current buffer is copied into the spare first
+	 *
+	 * @param buffer the tour buffer about to have parents written to it
+	 */
+	private void unpinBeforeWriting(int[] buffer) {
+		if (buffer != pinnedTours)
+			return;
+		if (buffer == nextTours) {
+			nextTours = spareTours;
+		} else {
+			System.arraycopy(tours, 0, spareTours, 0, tours.length);
+			tours = spareTours;
+		}
+		spareTours = null;
+	}
+
+	/**
+	 * materialises a slot of the current generation as a candidate solution, for reporting
+	 *
+	 * @param slot the slot to materialise
+	 * @return a new candidate solution with a copy of the slot's tour
+	 */
+	CandidateSolution toSolution(int slot) {
+		return new CandidateSolution(instance, Arrays.copyOfRange(tours, offset(slot), offset(slot) + cityCount));
+	}
+
+	/**
+	 * materialises the parents of the current generation as a population, for reporting
+	 *
+	 * @return a new solution population holding copies of the parent tours
+	 */
+	SolutionPopulation toPopulation() {
+		ArrayList<CandidateSolution> solutions = new ArrayList<>(populationSize);
+		for (int slot = 0; slot < populationSize; slot++) {
+			solutions.add(toSolution(slot));
+		}
+		return new SolutionPopulation(solutions);
+	}
+
+	/**
+	 * overwrites a parent slot of the current generation with a candidate solution, such as a migrant from another population
+	 *
+	 * @param slot     the slot to overwrite
+	 * @param solution a solution of this arena's problem
+	 */
+	void store(int slot, CandidateSolution solution) {
+		if (slot < populationSize) {
+			parentsSorted = false;
+			unpinBeforeWriting(tours);
+		}
+		System.arraycopy(solution.getTour(), 0, tours, offset(slot), cityCount);
+		fitness[slot] = solution.getFitness();
+	}
+
+	/**
+	 * the parent slots of the current generation ordered from fittest to least fit.
+	 * this allocates the returned array, so is intended for occasional use such as migration rather than every generation
+	 *
+	 * @return an array of populationSize slots, ordered by fitness
+	 */
+	int[] rankedParentSlots() {
+		if (parentsSorted) {
+			int[] slots = new int[populationSize];
+			for (int slot = 0; slot < populationSize; slot++) {
+				slots[slot] = slot;
+			}
+			return slots;
+		}
+		for (int slot = 0; slot < populationSize; slot++) {
+			ranking[slot] = ((long) fitness[slot] << 32) | slot;
+		}
+		Arrays.sort(ranking, 0, populationSize);
+		int[] slots = new int[populationSize];
+		for (int rank = 0; rank < populationSize; rank++) {
+			slots[rank] = (int) ranking[rank];
+		}
+		return slots;
+	}
+
+	/**
+	 * the slot of the fittest parent of the current generation
+	 *
+	 * @return the int slot with the lowest fitness among the parents
+	 */
+	int bestSlot() {
+		if (parentsSorted)
+			return 0;
+		int best = 0;
+		for (int slot = 1; slot < populationSize; slot++) {
+			if (fitness[slot] < fitness[best])
+				best = slot;
+		}
+		return best;
+	}
+
+	/**
+	 * checks if the parent slots of the current generation are in order of fitness, fittest first, as replacement leaves them
+	 *
+	 * @return true if the parents are sorted
+	 */
+	boolean parentsSorted() {
+		return parentsSorted;
+	}
+
+	/**
+	 * records that replacement has just left the parent slots of the current generation in order of fitness
+	 *
+	 * @param parentFitnessSum the total fitness of the parents
+	 */
+	void markParentsSorted(long parentFitnessSum) {
+		this.parentsSorted = true;
+		this.parentFitnessSum = parentFitnessSum;
+	}
+
+	/**
+	 * the total fitness of the parents of the current generation, in constant time while the parents are sorted
+	 *
+	 * @return the long total fitness
+	 */
+	long parentFitnessSum() {
+		if (parentsSorted)
+			return parentFitnessSum;
+		long total = 0;
+		for (int slot = 0; slot < populationSize; slot++) {
+			total += fitness[slot];
+		}
+		return total;
+	}
+}
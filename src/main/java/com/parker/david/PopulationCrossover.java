@@ -1,7 +1,5 @@
 package com.parker.david;
 
-import java.util.ArrayList;
-
 /**
  * an interface allowing for multiple implementations of a population crossover function
  */
@@ -17,10 +15,9 @@ public interface PopulationCrossover {
 	SolutionPopulation breed(SolutionPopulation parents, int offspringPopulationSize);
 
 	/**
-	 * a bookkeeping method, after the offspring are generated, calling this method yields an array of family record objects
-	 * each family record object shows a set of parents and their offspring who are related
+	 * a bookkeeping method, sets the log the parents of each offspring are recorded in as the offspring are generated
 	 *
-	 * @return an arraylist of family records
+	 * @param lineageLog the lineage log, or null to record nothing
 	 */
-	ArrayList<FamilyRecord> getFamilies();
+	void setLineageLog(LineageLog lineageLog);
 }
@@ -0,0 +1,16 @@
+package com.parker.david;
+
+/**
+ * an interface that allows for multiple local search strategies, improving offspring after mutation and before replacement.
+ * combining a genetic algorithm with local search like this is known as a memetic algorithm
+ */
+public interface PopulationLocalSearch {
+
+	/**
+	 * a method that improves every solution of a population
+	 *
+	 * @param population the population which we wish to improve, which is left intact
+	 * @return a population of the same size, where each solution is the improved version of the solution at the same index
+	 */
+	SolutionPopulation improvePopulation(SolutionPopulation population);
+}
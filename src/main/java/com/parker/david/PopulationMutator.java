@@ -1,7 +1,5 @@
 package com.parker.david;
 
-import java.util.ArrayList;
-
 /**
  * an interface that allows for multiple implementations of a mutator
  */
@@ -16,10 +14,9 @@ public interface PopulationMutator {
 	SolutionPopulation mutatePopulation(SolutionPopulation population);
 
 	/**
-	 * a bookkeeping method, after the mutations are applied, calling this method yields an array of mutation record objects
-	 * each record shows how a solution was mutated
+	 * a bookkeeping method, sets the log each mutated solution is recorded in as the mutations are applied
 	 *
-	 * @return an array list of mutation records
+	 * @param lineageLog the lineage log, or null to record nothing
 	 */
-	ArrayList<MutantRecord> getMutations();
+	void setLineageLog(LineageLog lineageLog);
 }
@@ -2,8 +2,7 @@ package com.parker.david;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
 /**
  * an implementation of a population initialiser, generation is completely random.
@@ -12,27 +11,42 @@ import java.util.concurrent.ThreadLocalRandom;
 public class RandomGeneration implements PopulationInitialiser {
 
 	/**
-	 * a random number generator
+	 * a random number generator, owned by this object. population methods must only be called from one thread at a time
 	 */
-	private final Random randomNumberGenerator = ThreadLocalRandom.current();
+	private final SplittableRandom randomNumberGenerator;
 
+	/**
+	 * constructor, with a random number generator of its own
+	 */
+	RandomGeneration() {
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * constructor
+	 *
+	 * @param randomNumberGenerator the random number generator used by this object, this object takes ownership of it
+	 */
+	RandomGeneration(SplittableRandom randomNumberGenerator) {
+		this.randomNumberGenerator = randomNumberGenerator;
+	}
 
 	/**
 	 * generates an initial set of solutions, takes a set of cities and generates a single random solution,
 	 * adding it to a list until there are sufficient solutions in the population
 	 *
-	 * @param cities         the set of already create cities which are to be ordered in creating a solution
+	 * @param instance       the problem whose cities are to be ordered in creating a solution
 	 * @param populationSize the number of solutions to create to form the population. Be aware that this should be even for some generation strategies
 	 * @return a population of solutions
 	 */
 	@Override
-	public SolutionPopulation initialise(ArrayList<City> cities, int populationSize) {
+	public SolutionPopulation initialise(TSPInstance instance, int populationSize) {
 		//create our array list of solutions
 		ArrayList<CandidateSolution> solutions = new ArrayList<>();
 
 		//generate populationSize number of solutions and add them to the array list
 		for (int i = 0; i < populationSize; i++) {
-			solutions.add(generateSolution(cities));
+			solutions.add(generateSolution(instance));
 		}
 
 		//sort the solutions by fitness so they are easier to read on the printout
@@ -43,26 +57,53 @@ public class RandomGeneration implements PopulationInitialiser {
 	}
 
 	/**
-	 * the method used to generate a single solution randomly. This is done by creating a pool of cities,
-	 * and then drawing a random city from that pool every time and adding it to the solution as its next city to visit
+	 * the method used to generate a single solution randomly. This is done by a fisher-yates shuffle of the city IDs,
+	 * which for every position draws a random city from the pool of cities not yet placed, and places it there
 	 *
-	 * @param cities a set of pre-defined cities that should be ordered randomly to generate a solution
+	 * @param instance the problem whose cities should be ordered randomly to generate a solution
 	 * @return a single candidate solution
 	 */
-	private CandidateSolution generateSolution(ArrayList<City> cities) {
+	private CandidateSolution generateSolution(TSPInstance instance) {
 
-		//create a working set of cities
-		ArrayList<City> cityPool = (ArrayList<City>) cities.clone();
+		//create a randomly ordered tour, then create a solution from it and return it
+		int[] tour = new int[instance.cityCount()];
+		shuffleInto(tour, 0, tour.length, randomNumberGenerator);
+		return new CandidateSolution(instance, tour);
+	}
 
-		//create an empty list of cities
-		ArrayList<City> randomlyOrderedCities = new ArrayList<>();
+	/**
+	 * randomly initialises the parent slots of a population arena, and evaluates them
+	 *
+	 * @param arena                 the arena whose parents should be generated
+	 * @param randomNumberGenerator the random number generator used to order the cities
+	 */
+	void initialise(PopulationArena arena, SplittableRandom randomNumberGenerator) {
+		for (int slot = 0; slot < arena.getPopulationSize(); slot++) {
+			shuffleInto(arena.getTours(), arena.offset(slot), arena.cityCount(), randomNumberGenerator);
+			arena.evaluate(slot);
+		}
+	}
 
-		//while our working set of cities is not empty, randomly grab a city from it and put it into the randomly ordered list
-		while (!cityPool.isEmpty()) {
-			randomlyOrderedCities.add(cityPool.remove(randomNumberGenerator.nextInt(cityPool.size())));
+	/**
+	 * writes a uniformly random permutation of the city IDs into a tour at an offset of an array
+	 *
+	 * @param tours                 the array to write the tour to
+	 * @param offset                the index of the tour's first city
+	 * @param cityCount             the number of cities in the tour
+	 * @param randomNumberGenerator the random number generator used to order the cities
+	 */
+	private static void shuffleInto(int[] tours, int offset, int cityCount, SplittableRandom randomNumberGenerator) {
+		//create a tour visiting the cities in ID order
+		for (int i = 0; i < cityCount; i++) {
+			tours[offset + i] = i;
 		}
 
-		//create a solution from the randomly ordered list and return it
-		return new CandidateSolution(randomlyOrderedCities);
+		//walking back from the end, swap each position with a randomly drawn position from the unplaced cities before it
+		for (int i = cityCount - 1; i > 0; i--) {
+			int drawn = randomNumberGenerator.nextInt(i + 1);
+			int city = tours[offset + i];
+			tours[offset + i] = tours[offset + drawn];
+			tours[offset + drawn] = city;
+		}
 	}
 }
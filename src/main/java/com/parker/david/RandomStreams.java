@@ -0,0 +1,74 @@
+package com.parker.david;
+
+import java.util.SplittableRandom;
+
+/**
+ * a seeded source of random number generators. every worker, island or operator that needs random numbers takes its own stream from here,
+ * so that no random number generator is ever shared between threads, and a whole run can be replayed from its seed.
+ * streams are split from a single root generator, so the streams handed out depend only on the seed and the order they are requested in
+ */
+public class RandomStreams {
+
+	/**
+	 * an odd constant used to spread block indices across the seed space, the same golden ratio gamma SplittableRandom uses
+	 */
+	private static final long BLOCK_SEED_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * the seed this source was created from
+	 */
+	private final long seed;
+
+	/**
+	 * the root generator every stream is split from
+	 */
+	private final SplittableRandom root;
+
+	/**
+	 * constructor, creates a source that hands out the same streams every time for the same seed
+	 *
+	 * @param seed the seed of the run
+	 */
+	RandomStreams(long seed) {
+		this.seed = seed;
+		this.root = new SplittableRandom(seed);
+	}
+
+	/**
+	 * constructor, creates a source from a randomly chosen seed. the seed can be read back with getSeed so that the run can be replayed
+	 */
+	RandomStreams() {
+		this(new SplittableRandom().nextLong());
+	}
+
+	/**
+	 * accessor for the seed this source was created from
+	 *
+	 * @return the long seed
+	 */
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * hands out a new, independent stream of random numbers. the stream must only be used by one thread at a time
+	 *
+	 * @return a new splittable random number generator
+	 */
+	synchronized SplittableRandom newStream() {
+		return root.split();
+	}
+
+	/**
+	 * creates the stream for one block of work within a step, such as one range of offspring within a generation.
+	 * the stream depends only on the step's seed and the block's index, not on which thread runs the block or in what order,
+	 * so work stolen between threads still draws the same random numbers
+	 *
+	 * @param stepSeed   a seed drawn once for the whole step, by the thread coordinating it
+	 * @param blockIndex the index of the block within the step
+	 * @return a new random number generator for the block
+	 */
+	static SplittableRandom blockStream(long stepSeed, int blockIndex) {
+		return new SplittableRandom(stepSeed ^ (blockIndex * BLOCK_SEED_GAMMA));
+	}
+}
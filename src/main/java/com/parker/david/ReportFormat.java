@@ -0,0 +1,95 @@
+package com.parker.david;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * the formats a run can be reported in
+ */
+public enum ReportFormat {
+	/**
+	 * a pretty ascii table of every solution, appended to output.txt and echoed to the console
+	 */
+	TABLE("output.txt"),
+
+	/**
+	 * comma separated values, one line per generation, written to output.csv
+	 */
+	CSV("output.csv"),
+
+	/**
+	 * compact binary records, one per generation, written to output.bin
+	 */
+	BINARY("output.bin");
+
+	/**
+	 * the file the report is written to by default
+	 */
+	private final String defaultFileName;
+
+	ReportFormat(String defaultFileName) {
+		this.defaultFileName = defaultFileName;
+	}
+
+	/**
+	 * accessor for the file the report is written to by default
+	 *
+	 * @return the path of the default report file
+	 */
+	Path getDefaultFile() {
+		return Paths.get(defaultFileName);
+	}
+
+	/**
+	 * opens a reporter in this format. tables are appended to the file, and echoed to standard output,
+	 * the other formats replace the file, as they start with a header
+	 *
+	 * @param file           the file to write the report to
+	 * @param sampleInterval the number of generations between reported generations, 1 to report every generation
+	 * @return the reporter, which must be closed once the run is over
+	 * @throws IOException if the file cannot be opened
+	 */
+	RunReporter open(Path file, int sampleInterval) throws IOException {
+		switch (this) {
+			case TABLE:
+				FileChannel tableFile = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+				return new TableReporter(sampleInterval, new WritableByteChannel[]{tableFile, Channels.newChannel(System.out)}, new boolean[]{true, false});
+			case CSV:
+				return new CsvReporter(sampleInterval, new WritableByteChannel[]{openReplacing(file)}, new boolean[]{true});
+			case BINARY:
+				return new BinaryReporter(sampleInterval, new WritableByteChannel[]{openReplacing(file)}, new boolean[]{true});
+			default:
+				throw new IllegalStateException("unknown report format " + this);
+		}
+	}
+
+	/**
+	 * opens a file for writing, replacing anything already in it
+	 *
+	 * @param file the file to open
+	 * @return a channel writing to the file
+	 * @throws IOException if the file cannot be opened
+	 */
+	private static FileChannel openReplacing(Path file) throws IOException {
+		return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+	}
+
+	/**
+	 * finds a format by name, ignoring case
+	 *
+	 * @param name the name of the format
+	 * @return the format with that name
+	 */
+	static ReportFormat fromName(String name) {
+		try {
+			return valueOf(name.toUpperCase());
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("unknown report format " + name + ", expected one of table, csv, binary");
+		}
+	}
+}
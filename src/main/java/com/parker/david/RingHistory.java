@@ -0,0 +1,65 @@
+package com.parker.david;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * keeps a bounded number of generations in memory, in a ring buffer, so memory use does not grow with the length of the run.
+ * only every sampleInterval-th generation is kept, starting with generation 0, and once the ring is full each kept generation
+ * replaces the oldest. a capacity of 0 keeps nothing
+ */
+public class RingHistory implements GenerationHistory {
+
+	/**
+	 * the ring of kept generations
+	 */
+	private final GAPopulationGeneration[] ring;
+
+	/**
+	 * the number of generations between kept generations
+	 */
+	private final int sampleInterval;
+
+	/**
+	 * the number of generations kept so far, the next one goes in ring[kept % ring.length]
+	 */
+	private long kept;
+
+	/**
+	 * constructor
+	 *
+	 * @param capacity       the most generations to keep at once
+	 * @param sampleInterval the number of generations between kept generations, 1 to keep every generation
+	 */
+	RingHistory(int capacity, int sampleInterval) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("the capacity cannot be negative, found " + capacity);
+		if (sampleInterval < 1)
+			throw new IllegalArgumentException("the sample interval must be at least 1, found " + sampleInterval);
+		this.ring = new GAPopulationGeneration[capacity];
+		this.sampleInterval = sampleInterval;
+	}
+
+	@Override
+	public void record(GAPopulationGeneration generation) {
+		if (ring.length == 0 || generation.getGenerationNumber() % sampleInterval != 0)
+			return;
+		ring[(int) (kept % ring.length)] = generation;
+		kept++;
+	}
+
+	@Override
+	public int getRetainedSpan() {
+		return (int) Math.min(Integer.MAX_VALUE, (long) ring.length * sampleInterval);
+	}
+
+	@Override
+	public List<GAPopulationGeneration> getRetainedGenerations() {
+		int size = (int) Math.min(kept, ring.length);
+		ArrayList<GAPopulationGeneration> generations = new ArrayList<>(size);
+		for (long i = kept - size; i < kept; i++) {
+			generations.add(ring[(int) (i % ring.length)]);
+		}
+		return generations;
+	}
+}
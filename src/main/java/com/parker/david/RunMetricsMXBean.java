@@ -0,0 +1,32 @@
+package com.parker.david;
+
+/**
+ * the JMX view of the totals of a run's phase metrics
+ */
+public interface RunMetricsMXBean {
+
+	/**
+	 * @return the number of generations completed
+	 */
+	long getGenerations();
+
+	/**
+	 * @return the number of tours evaluated
+	 */
+	long getEvaluations();
+
+	/**
+	 * @return the number of tours evaluated per second since the metrics were created
+	 */
+	double getEvaluationsPerSecond();
+
+	/**
+	 * @return the mean number of bytes allocated per generation by the thread evolving the population, -1 if the JVM cannot tell
+	 */
+	double getAllocatedBytesPerGeneration();
+
+	/**
+	 * @return the number of bytes allocated in the last generation by the thread evolving the population, -1 if the JVM cannot tell
+	 */
+	long getLastGenerationAllocatedBytes();
+}
@@ -0,0 +1,112 @@
+package com.parker.david;
+
+/**
+ * the progress of a run so far, updated by the generation loop at the end of every generation and read by termination conditions.
+ * everything a condition needs is kept here, so checking a condition is a few comparisons rather than a look at the population
+ */
+public class RunProgress {
+
+	/**
+	 * the value of System.nanoTime when the run started
+	 */
+	private final long startNanos;
+
+	/**
+	 * the fitness of the best solution found so far
+	 */
+	private int incumbentFitness;
+
+	/**
+	 * the number of generations since the incumbent last improved
+	 */
+	private int generationsSinceImprovedIncumbent;
+
+	/**
+	 * the number of generations completed by this run
+	 */
+	private int generationCount;
+
+	/**
+	 * the number of tours whose fitness has been evaluated in full by this run
+	 */
+	private long evaluationCount;
+
+	/**
+	 * constructor, starting the clock
+	 *
+	 * @param incumbentFitness                  the fitness of the best solution before the first generation
+	 * @param generationsSinceImprovedIncumbent the number of generations since the incumbent improved, 0 unless the run is resumed
+	 * @param evaluationCount                   the number of evaluations made before the first generation, such as by initialisation
+	 */
+	RunProgress(int incumbentFitness, int generationsSinceImprovedIncumbent, long evaluationCount) {
+		this.startNanos = System.nanoTime();
+		this.incumbentFitness = incumbentFitness;
+		this.generationsSinceImprovedIncumbent = generationsSinceImprovedIncumbent;
+		this.evaluationCount = evaluationCount;
+	}
+
+	/**
+	 * records the end of a generation
+	 *
+	 * @param bestFitness     the fitness of the best solution of the generation
+	 * @param evaluationCount the number of evaluations made by the run so far
+	 * @return true if the generation improved on the incumbent
+	 */
+	boolean endGeneration(int bestFitness, long evaluationCount) {
+		generationCount++;
+		this.evaluationCount = evaluationCount;
+		if (bestFitness < incumbentFitness) {
+			incumbentFitness = bestFitness;
+			generationsSinceImprovedIncumbent = 0;
+			return true;
+		}
+		generationsSinceImprovedIncumbent++;
+		return false;
+	}
+
+	/**
+	 * accessor for the fitness of the best solution found so far
+	 *
+	 * @return the int incumbent fitness
+	 */
+	public int getIncumbentFitness() {
+		return incumbentFitness;
+	}
+
+	/**
+	 * accessor for the number of generations since the incumbent last improved
+	 *
+	 * @return the int number of generations
+	 */
+	public int getGenerationsSinceImprovedIncumbent() {
+		return generationsSinceImprovedIncumbent;
+	}
+
+	/**
+	 * accessor for the number of generations completed by this run
+	 *
+	 * @return the int number of generations
+	 */
+	public int getGenerationCount() {
+		return generationCount;
+	}
+
+	/**
+	 * accessor for the number of tours whose fitness has been evaluated in full by this run.
+	 * fitnesses found in a fitness cache or derived by delta, as mutation and local search do, are not counted
+	 *
+	 * @return the long number of evaluations
+	 */
+	public long getEvaluationCount() {
+		return evaluationCount;
+	}
+
+	/**
+	 * the time since the run started
+	 *
+	 * @return the long elapsed time in nanoseconds
+	 */
+	public long elapsedNanos() {
+		return System.nanoTime() - startNanos;
+	}
+}
@@ -0,0 +1,28 @@
+package com.parker.david;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * an interface allowing for multiple ways of reporting a run of the genetic algorithm as it happens.
+ * a reporter is given each generation as it completes, so it can write it out straight away rather than keep the whole run in memory
+ */
+public interface RunReporter extends Closeable {
+
+	/**
+	 * reports a generation once selection has completed it
+	 *
+	 * @param generation the completed generation
+	 * @param incumbent  the best solution found so far in the run
+	 * @throws IOException if the report cannot be written
+	 */
+	void reportGeneration(GAPopulationGeneration generation, CandidateSolution incumbent) throws IOException;
+
+	/**
+	 * reports the result of the run, once the last generation has been reported
+	 *
+	 * @param incumbent the best solution found in the run
+	 * @throws IOException if the report cannot be written
+	 */
+	void reportResult(CandidateSolution incumbent) throws IOException;
+}
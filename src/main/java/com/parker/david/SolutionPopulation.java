@@ -13,7 +13,8 @@ import java.util.stream.Collectors;
 public class SolutionPopulation {
 
 	/**
-	 * the accessor to the underlying solution data structure
+	 * the accessor to the underlying solution data structure.
+	 * the list of a sorted population must not be changed, change a copy instead
 	 *
 	 * @return an array list of candidate solutions
 	 */
@@ -26,6 +27,16 @@ public class SolutionPopulation {
 	 */
 	private final ArrayList<CandidateSolution> solutions;
 
+	/**
+	 * true if the solutions are in order of fitness, fittest first
+	 */
+	private final boolean sorted;
+
+	/**
+	 * the total fitness of the solutions, only kept for sorted populations, whose solutions may not change
+	 */
+	private final long fitnessSum;
+
 	/**
 	 * constructor
 	 *
@@ -33,6 +44,45 @@ public class SolutionPopulation {
 	 */
 	SolutionPopulation(ArrayList<CandidateSolution> solutionSet) {
 		this.solutions = solutionSet;
+		this.sorted = false;
+		this.fitnessSum = 0;
+	}
+
+	/**
+	 * constructor for a sorted population, which sums the fitness of its solutions up front
+	 *
+	 * @param sortedSolutions an array list of solutions in order of fitness, which must not be changed afterwards
+	 * @param fitnessSum      the total fitness of the solutions
+	 */
+	private SolutionPopulation(ArrayList<CandidateSolution> sortedSolutions, long fitnessSum) {
+		this.solutions = sortedSolutions;
+		this.sorted = true;
+		this.fitnessSum = fitnessSum;
+	}
+
+	/**
+	 * creates a population from solutions already in order of fitness, so that its best solution and mean fitness take constant time
+	 *
+	 * @param sortedSolutions an array list of solutions in order of fitness, fittest first, which must not be changed afterwards
+	 * @return a sorted population
+	 */
+	static SolutionPopulation ofSorted(ArrayList<CandidateSolution> sortedSolutions) {
+		long fitnessSum = 0;
+		for (int i = 0; i < sortedSolutions.size(); i++) {
+			if (i > 0 && sortedSolutions.get(i - 1).compareTo(sortedSolutions.get(i)) > 0)
+				throw new IllegalArgumentException("solutions are not in order of fitness at index " + i);
+			fitnessSum += sortedSolutions.get(i).getFitness();
+		}
+		return new SolutionPopulation(sortedSolutions, fitnessSum);
+	}
+
+	/**
+	 * checks if the solutions of this population are in order of fitness, fittest first
+	 *
+	 * @return true if this population is sorted
+	 */
+	boolean isSorted() {
+		return sorted;
 	}
 
 	/**
@@ -46,27 +96,32 @@ public class SolutionPopulation {
 
 	/**
 	 * an accessor for the best solution contained within this population
-	 * according to the comparison method defined in the solution class
+	 * according to the comparison method defined in the solution class. constant time for sorted populations
 	 *
 	 * @return the best candidate solution in this population
 	 */
 	public CandidateSolution getBestSolution() {
+		if (sorted)
+			return solutions.get(0);
 		return Collections.min(solutions);
 	}
 
 	/**
-	 * get the average (mean) fitness of this population
+	 * get the average (mean) fitness of this population. constant time for sorted populations
 	 *
 	 * @return a double for mean population fitness
 	 */
 	double meanFitness() {
+		if (sorted)
+			return (double) fitnessSum / solutions.size();
 		return solutions.stream().mapToInt(CandidateSolution::getFitness).summaryStatistics().getAverage();
 	}
 
 	/**
 	 * a semi-deep copy method, the array list in the new object is not linked to that of the old one. The solutions themselves are shared.
 	 * changes to the internal array list of the new object do not affect the array list of the old one.
-	 * If the solutions themselves are changed (this should not happen), then both the new and old solution populations are affected
+	 * If the solutions themselves are changed (this should not happen), then both the new and old solution populations are affected.
+	 * the copy is never sorted, as its list may be changed
 	 *
 	 * @return a new population with a new array list containing solutions from the old population
 	 */
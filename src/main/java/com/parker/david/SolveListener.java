@@ -0,0 +1,16 @@
+package com.parker.david;
+
+/**
+ * an interface for following a solve as it runs. it is called on the thread running the solve, between generations,
+ * so implementations must be quick and must not block, or they hold up the solve and every solve queued behind it
+ */
+public interface SolveListener {
+
+	/**
+	 * called whenever the incumbent improves, and every progress interval generations
+	 *
+	 * @param progress  the progress of the solve so far, only valid until this call returns
+	 * @param incumbent the best solution found so far
+	 */
+	void onProgress(RunProgress progress, CandidateSolution incumbent);
+}
@@ -0,0 +1,210 @@
+package com.parker.david;
+
+/**
+ * a TSP problem to solve with a TspSolver, along with how to solve it. the problem is solved by the arena based genetic algorithm,
+ * by default with a population of 8, 6 offspring a generation, two-point crossover, a random seed,
+ * and the stagnation:10 stopping criterion of the command line
+ */
+public class SolveRequest {
+
+	/**
+	 * the problem to solve
+	 */
+	private final TSPInstance instance;
+
+	/**
+	 * the conditions the solve stops on
+	 */
+	private TerminationCondition termination = TerminationCondition.fromSpecification(Main.DEFAULT_TERMINATION);
+
+	/**
+	 * the number of parents in a generation
+	 */
+	private int populationSize = 8;
+
+	/**
+	 * the number of offspring bred each generation
+	 */
+	private int offspringCount = 6;
+
+	/**
+	 * the crossover offspring are bred with
+	 */
+	private CrossoverMethod crossover = CrossoverMethod.TWO_POINT;
+
+	/**
+	 * the source of the random numbers of the solve
+	 */
+	private RandomStreams randomStreams = new RandomStreams();
+
+	/**
+	 * true to adapt mutation to the diversity of the population, see DiversityControl
+	 */
+	private boolean adaptive;
+
+	/**
+	 * the listener following the solve, or null for none
+	 */
+	private SolveListener listener;
+
+	/**
+	 * the number of generations between progress calls, on top of those made when the incumbent improves, or 0 for only those
+	 */
+	private int progressInterval;
+
+	/**
+	 * constructor
+	 *
+	 * @param instance the problem to solve
+	 */
+	public SolveRequest(TSPInstance instance) {
+		this.instance = instance;
+	}
+
+	/**
+	 * sets the conditions the solve stops on, such as TerminationCondition.fromSpecification("deadline:50,stagnation:10")
+	 *
+	 * @param termination the termination condition
+	 */
+	public void setTermination(TerminationCondition termination) {
+		this.termination = termination;
+	}
+
+	/**
+	 * sets the size of the population
+	 *
+	 * @param populationSize the number of parents in a generation, at least 2
+	 * @param offspringCount the number of offspring bred each generation, which must be even
+	 */
+	public void setPopulation(int populationSize, int offspringCount) {
+		if (populationSize < 2)
+			throw new IllegalArgumentException("at least two parents are needed to breed, found " + populationSize);
+		if (offspringCount < 2 || offspringCount % 2 != 0)
+			throw new IllegalArgumentException("offspring are bred in pairs, so the offspring count must be even and positive, found " + offspringCount);
+		this.populationSize = populationSize;
+		this.offspringCount = offspringCount;
+	}
+
+	/**
+	 * sets the crossover offspring are bred with
+	 *
+	 * @param crossover the crossover method
+	 */
+	public void setCrossover(CrossoverMethod crossover) {
+		this.crossover = crossover;
+	}
+
+	/**
+	 * seeds every random number generator of the solve, so that a solve stopped by stagnation, an evaluation cap or a target
+	 * fitness can be replayed exactly
+	 *
+	 * @param seed the seed
+	 */
+	public void setSeed(long seed) {
+		this.randomStreams = new RandomStreams(seed);
+	}
+
+	/**
+	 * sets whether mutation adapts to the diversity of the population, as --adaptive does
+	 *
+	 * @param adaptive true to adapt
+	 */
+	public void setAdaptive(boolean adaptive) {
+		this.adaptive = adaptive;
+	}
+
+	/**
+	 * sets the listener following the solve
+	 *
+	 * @param listener         the listener, or null for none
+	 * @param progressInterval the number of generations between progress calls, on top of those made when the incumbent improves,
+	 *                         or 0 for only those
+	 */
+	public void setListener(SolveListener listener, int progressInterval) {
+		if (progressInterval < 0)
+			throw new IllegalArgumentException("the progress interval cannot be negative, found " + progressInterval);
+		this.listener = listener;
+		this.progressInterval = progressInterval;
+	}
+
+	/**
+	 * accessor for the problem to solve
+	 *
+	 * @return the TSP instance
+	 */
+	public TSPInstance getInstance() {
+		return instance;
+	}
+
+	/**
+	 * accessor for the conditions the solve stops on
+	 *
+	 * @return the termination condition
+	 */
+	TerminationCondition getTermination() {
+		return termination;
+	}
+
+	/**
+	 * accessor for the number of parents in a generation
+	 *
+	 * @return the int population size
+	 */
+	int getPopulationSize() {
+		return populationSize;
+	}
+
+	/**
+	 * accessor for the number of offspring bred each generation
+	 *
+	 * @return the int offspring count
+	 */
+	int getOffspringCount() {
+		return offspringCount;
+	}
+
+	/**
+	 * accessor for the crossover offspring are bred with
+	 *
+	 * @return the crossover method
+	 */
+	CrossoverMethod getCrossover() {
+		return crossover;
+	}
+
+	/**
+	 * accessor for the source of the random numbers of the solve
+	 *
+	 * @return the random streams
+	 */
+	RandomStreams getRandomStreams() {
+		return randomStreams;
+	}
+
+	/**
+	 * checks if mutation adapts to the diversity of the population
+	 *
+	 * @return true to adapt
+	 */
+	boolean isAdaptive() {
+		return adaptive;
+	}
+
+	/**
+	 * accessor for the listener following the solve
+	 *
+	 * @return the listener, or null for none
+	 */
+	SolveListener getListener() {
+		return listener;
+	}
+
+	/**
+	 * accessor for the number of generations between progress calls
+	 *
+	 * @return the int progress interval, 0 for calls only when the incumbent improves
+	 */
+	int getProgressInterval() {
+		return progressInterval;
+	}
+}
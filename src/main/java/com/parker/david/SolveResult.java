@@ -0,0 +1,101 @@
+package com.parker.david;
+
+/**
+ * the outcome of a solve: the best solution found by the time the solve stopped, and what it took to find it
+ */
+public class SolveResult {
+
+	/**
+	 * the best solution found
+	 */
+	private final CandidateSolution solution;
+
+	/**
+	 * the number of generations evolved
+	 */
+	private final int generationCount;
+
+	/**
+	 * the number of tours evaluated in full
+	 */
+	private final long evaluationCount;
+
+	/**
+	 * the time the solve took, in nanoseconds, not counting time spent queued
+	 */
+	private final long elapsedNanos;
+
+	/**
+	 * constructor
+	 *
+	 * @param solution        the best solution found
+	 * @param generationCount the number of generations evolved
+	 * @param evaluationCount the number of tours evaluated in full
+	 * @param elapsedNanos    the time the solve took, in nanoseconds
+	 */
+	SolveResult(CandidateSolution solution, int generationCount, long evaluationCount, long elapsedNanos) {
+		this.solution = solution;
+		this.generationCount = generationCount;
+		this.evaluationCount = evaluationCount;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/**
+	 * accessor for the best solution found
+	 *
+	 * @return the candidate solution
+	 */
+	public CandidateSolution getSolution() {
+		return solution;
+	}
+
+	/**
+	 * the length of the best tour found
+	 *
+	 * @return the int fitness
+	 */
+	public int getFitness() {
+		return solution.getFitness();
+	}
+
+	/**
+	 * the city IDs of the best tour found, in tour order
+	 *
+	 * @return a new array of city IDs
+	 */
+	public int[] getTour() {
+		return solution.getTour().clone();
+	}
+
+	/**
+	 * accessor for the number of generations evolved
+	 *
+	 * @return the int generation count
+	 */
+	public int getGenerationCount() {
+		return generationCount;
+	}
+
+	/**
+	 * accessor for the number of tours evaluated in full
+	 *
+	 * @return the long evaluation count
+	 */
+	public long getEvaluationCount() {
+		return evaluationCount;
+	}
+
+	/**
+	 * accessor for the time the solve took, not counting time spent queued
+	 *
+	 * @return the long elapsed time in nanoseconds
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return solution + " (" + solution.getFitness() + ")";
+	}
+}
@@ -0,0 +1,378 @@
+package com.parker.david;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * a local HTTP server solving TSP problems posted to it as JSON, so that many jobs share one warm JVM whose operators are already
+ * JIT compiled, rather than each paying for starting and warming up its own.
+ * each HTTP exchange is handled on its own virtual thread, which parses the request and then waits, cheaply, for the solve.
+ * the solves themselves run on a TspSolver's fixed pool of platform threads, one per core by default, behind a bounded queue.
+ * a request that cannot join the queue within the queue wait is turned away with 503 and a Retry-After header,
+ * so clients back off rather than piling up work the server cannot get to.
+ * every solve also stops at the server's maximum solve time, whatever it asked for, so no request can hold a solver thread for good,
+ * and a request whose solve is not done in time is answered with 503 and its solve cancelled. request bodies, populations
+ * and the arena a solve needs are capped, so one request cannot exhaust the memory every solve shares.
+ * the server only listens on the loopback address.
+ *
+ * POST /solve takes an object with the problem as either "coordinates", an array of [x, y] pairs measured by the TSPLIB "metric"
+ * (EUC_2D unless given), or "distances", a square array of integer distances, along with any of "population" and "offspring",
+ * "crossover" (two-point, order, partially-mapped, edge-recombination or edge-assembly), "seed", "adaptive", and "stop" (as --stop).
+ * it answers with the "fitness" and "tour" of the best solution, the number of "generations" and "evaluations", and "elapsedMillis".
+ * GET /health answers with the number of solves in flight
+ */
+public class SolveServer implements AutoCloseable {
+
+	/**
+	 * the fewest cities a posted problem may have, with fewer every tour is the same tour and there is nothing to solve
+	 */
+	static final int MIN_CITY_COUNT = 3;
+
+	/**
+	 * the largest request body, in bytes, larger bodies are answered with 413
+	 */
+	static final int MAX_BODY_BYTES = 8 << 20;
+
+	/**
+	 * the most parents, and the most offspring, a posted solve may ask for
+	 */
+	static final int MAX_POPULATION = 1000;
+
+	/**
+	 * the most cities a solve's arena may hold across both of its buffers, parents and offspring, which bounds the arena's memory
+	 */
+	static final long MAX_ARENA_CITIES = 1L << 24;
+
+	/**
+	 * the HTTP server
+	 */
+	private final HttpServer server;
+
+	/**
+	 * the virtual threads exchanges are handled on
+	 */
+	private final ExecutorService handlerThreads;
+
+	/**
+	 * the solver requests are solved by
+	 */
+	private final TspSolver solver;
+
+	/**
+	 * the longest time, in milliseconds, a request waits to join the queue before it is turned away
+	 */
+	private final long queueWaitMillis;
+
+	/**
+	 * the longest time, in milliseconds, a solve may run before it is stopped, whatever its own termination condition
+	 */
+	private final long maxSolveMillis;
+
+	/**
+	 * the longest time, in milliseconds, a request waits for its solve once it has joined the queue,
+	 * long enough for every solve ahead of it to run for the maximum solve time, and then its own
+	 */
+	private final long responseTimeoutMillis;
+
+	/**
+	 * constructor, binding to a port of the loopback address and starting to serve
+	 *
+	 * @param port            the port to listen on, or 0 for any free port
+	 * @param threadCount     the number of solves to run at once
+	 * @param queueCapacity   the number of solves that may wait for a thread
+	 * @param queueWaitMillis the longest time, in milliseconds, a request waits to join a full queue before it is turned away
+	 * @param maxSolveMillis  the longest time, in milliseconds, a solve may run, whatever its own termination condition
+	 * @throws IOException if the port cannot be bound
+	 */
+	public SolveServer(int port, int threadCount, int queueCapacity, long queueWaitMillis, long maxSolveMillis) throws IOException {
+		if (maxSolveMillis < 1)
+			throw new IllegalArgumentException("the maximum solve time must be at least a millisecond, found " + maxSolveMillis);
+		this.solver = new TspSolver(threadCount, queueCapacity);
+		this.queueWaitMillis = queueWaitMillis;
+		this.maxSolveMillis = maxSolveMillis;
+		this.responseTimeoutMillis = maxSolveMillis * ((queueCapacity + threadCount - 1) / threadCount + 1);
+		this.handlerThreads = Executors.newVirtualThreadPerTaskExecutor();
+		this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		server.setExecutor(handlerThreads);
+		server.createContext("/solve", this::handleSolve);
+		server.createContext("/health", this::handleHealth);
+		server.start();
+	}
+
+	/**
+	 * accessor for the address the server is listening on
+	 *
+	 * @return the socket address
+	 */
+	public InetSocketAddress getAddress() {
+		return server.getAddress();
+	}
+
+	/**
+	 * handles POST /solve: reads the request, solves it, and answers with the result
+	 *
+	 * @param exchange the HTTP exchange
+	 */
+	private void handleSolve(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			if (!exchange.getRequestMethod().equals("POST")) {
+				exchange.getResponseHeaders().set("Allow", "POST");
+				respond(exchange, 405, error("use POST"));
+				return;
+			}
+
+			byte[] body;
+			try (InputStream in = exchange.getRequestBody()) {
+				body = in.readNBytes(MAX_BODY_BYTES + 1);
+			}
+			if (body.length > MAX_BODY_BYTES) {
+				respond(exchange, 413, error("the request is larger than " + MAX_BODY_BYTES + " bytes"));
+				return;
+			}
+
+			SolveRequest request;
+			try {
+				request = readRequest(new String(body, StandardCharsets.UTF_8));
+			} catch (IllegalArgumentException | ClassCastException | NullPointerException e) {
+				respond(exchange, 400, error(e.getMessage()));
+				return;
+			}
+
+			//stop the solve at the server's maximum solve time, whatever it asked for
+			request.setTermination(new AnyTermination(List.of(request.getTermination(), new DeadlineTermination(maxSolveMillis))));
+
+			CompletableFuture<SolveResult> solve = solver.solve(request, queueWaitMillis, TimeUnit.MILLISECONDS);
+			try {
+				SolveResult result = solve.get(responseTimeoutMillis, TimeUnit.MILLISECONDS);
+				respond(exchange, 200, writeResult(result));
+			} catch (TimeoutException e) {
+				exchange.getResponseHeaders().set("Retry-After", "1");
+				respond(exchange, 503, error("the solve did not finish within " + responseTimeoutMillis + " ms"));
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof RejectedExecutionException) {
+					exchange.getResponseHeaders().set("Retry-After", "1");
+					respond(exchange, 503, error(e.getCause().getMessage()));
+				} else {
+					respond(exchange, 500, error(String.valueOf(e.getCause())));
+				}
+			} catch (CancellationException e) {
+				respond(exchange, 503, error("the server is stopping"));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				respond(exchange, 503, error("the server is stopping"));
+			} finally {
+				//nobody is waiting for a solve that timed out, or whose exchange failed, so stop it freeing its thread
+				solve.cancel(false);
+			}
+		}
+	}
+
+	/**
+	 * handles GET /health, answering with the number of solves in flight
+	 *
+	 * @param exchange the HTTP exchange
+	 */
+	private void handleHealth(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			respond(exchange, 200, "{\"inFlight\":" + solver.getInFlightCount() + "}");
+		}
+	}
+
+	/**
+	 * reads a solve request from its JSON
+	 *
+	 * @param json the JSON object of the request
+	 * @return the solve request
+	 * @throws IllegalArgumentException if the JSON is malformed, does not describe a problem of at least MIN_CITY_COUNT cities,
+	 *                                  or asks for a population larger than MAX_POPULATION or an arena larger than MAX_ARENA_CITIES
+	 * @throws ClassCastException       if a member has the wrong type
+	 * @throws NullPointerException     if a member that must have a value is null
+	 */
+	@SuppressWarnings("unchecked")
+	static SolveRequest readRequest(String json) {
+		Object parsed = Json.parse(json);
+		if (!(parsed instanceof Map))
+			throw new IllegalArgumentException("expected a JSON object");
+		Map<String, Object> members = (Map<String, Object>) parsed;
+
+		SolveRequest request = new SolveRequest(readInstance(members));
+		if (members.containsKey("population") || members.containsKey("offspring")) {
+			int populationSize = readInt(members, "population", 8);
+			int offspringCount = readInt(members, "offspring", 6);
+			if (populationSize > MAX_POPULATION || offspringCount > MAX_POPULATION)
+				throw new IllegalArgumentException("the population and offspring may each be at most " + MAX_POPULATION
+						+ ", found " + populationSize + " and " + offspringCount);
+			request.setPopulation(populationSize, offspringCount);
+		}
+		long arenaCities = 2L * (request.getPopulationSize() + request.getOffspringCount()) * request.getInstance().cityCount();
+		if (arenaCities > MAX_ARENA_CITIES)
+			throw new IllegalArgumentException("the problem and population need room for " + arenaCities + " cities, at most "
+					+ MAX_ARENA_CITIES + " are allowed");
+		if (members.get("crossover") != null)
+			request.setCrossover(CrossoverMethod.fromName((String) members.get("crossover")));
+		if (members.get("seed") != null)
+			request.setSeed(((Double) members.get("seed")).longValue());
+		if (members.get("adaptive") != null)
+			request.setAdaptive((Boolean) members.get("adaptive"));
+		if (members.get("stop") != null)
+			request.setTermination(TerminationCondition.fromSpecification((String) members.get("stop")));
+		return request;
+	}
+
+	/**
+	 * reads the problem of a solve request, from either its coordinates or its distances
+	 *
+	 * @param members the members of the request
+	 * @return the TSP instance
+	 */
+	@SuppressWarnings("unchecked")
+	private static TSPInstance readInstance(Map<String, Object> members) {
+		if (members.get("coordinates") != null) {
+			List<Object> coordinates = (List<Object>) members.get("coordinates");
+			checkCityCount(coordinates.size());
+			CoordinateMetric metric = CoordinateMetric.EUC_2D;
+			if (members.get("metric") != null) {
+				try {
+					metric = CoordinateMetric.valueOf(((String) members.get("metric")).toUpperCase());
+				} catch (IllegalArgumentException e) {
+					throw new IllegalArgumentException("unknown metric " + members.get("metric") + ", expected one of EUC_2D, CEIL_2D, ATT, GEO");
+				}
+			}
+			double[] xCoordinates = new double[coordinates.size()];
+			double[] yCoordinates = new double[coordinates.size()];
+			for (int i = 0; i < coordinates.size(); i++) {
+				List<Object> point = (List<Object>) coordinates.get(i);
+				if (point == null || point.size() != 2)
+					throw new IllegalArgumentException("coordinate " + i + " is not an [x, y] pair");
+				xCoordinates[i] = readNumber(point.get(0), "the x coordinate of city " + i);
+				yCoordinates[i] = readNumber(point.get(1), "the y coordinate of city " + i);
+			}
+			return TSPInstance.fromCoordinates(metric, xCoordinates, yCoordinates);
+		}
+		if (members.get("distances") != null) {
+			List<Object> rows = (List<Object>) members.get("distances");
+			checkCityCount(rows.size());
+			int[][] distances = new int[rows.size()][];
+			for (int i = 0; i < rows.size(); i++) {
+				List<Object> row = (List<Object>) rows.get(i);
+				if (row == null)
+					throw new IllegalArgumentException("row " + i + " of the distances is null");
+				distances[i] = new int[row.size()];
+				for (int j = 0; j < row.size(); j++) {
+					distances[i][j] = (int) readNumber(row.get(j), "the distance from city " + i + " to city " + j);
+				}
+			}
+			return TSPInstance.fromDistances(distances);
+		}
+		throw new IllegalArgumentException("no problem given, expected coordinates or distances");
+	}
+
+	/**
+	 * checks that a posted problem has enough cities to be worth solving
+	 *
+	 * @param cityCount the number of cities of the problem
+	 */
+	private static void checkCityCount(int cityCount) {
+		if (cityCount < MIN_CITY_COUNT)
+			throw new IllegalArgumentException("a problem needs at least " + MIN_CITY_COUNT + " cities, found " + cityCount);
+	}
+
+	/**
+	 * reads a number that must be given, such as a coordinate or a distance
+	 *
+	 * @param value the value read from the JSON
+	 * @param name  what the number is, for the error if it is missing
+	 * @return the double value
+	 */
+	private static double readNumber(Object value, String name) {
+		if (!(value instanceof Double))
+			throw new IllegalArgumentException(name + " must be a number, found " + value);
+		return (Double) value;
+	}
+
+	/**
+	 * reads an optional integer member of a request
+	 *
+	 * @param members      the members of the request
+	 * @param name         the name of the member
+	 * @param defaultValue the value if the member is missing
+	 * @return the int value
+	 */
+	private static int readInt(Map<String, Object> members, String name, int defaultValue) {
+		Object value = members.get(name);
+		return value != null ? ((Double) value).intValue() : defaultValue;
+	}
+
+	/**
+	 * writes the result of a solve as JSON
+	 *
+	 * @param result the result
+	 * @return the JSON object of the result
+	 */
+	static String writeResult(SolveResult result) {
+		StringBuilder json = new StringBuilder("{\"fitness\":").append(result.getFitness()).append(",\"tour\":[");
+		int[] tour = result.getTour();
+		for (int i = 0; i < tour.length; i++) {
+			if (i > 0)
+				json.append(',');
+			json.append(tour[i]);
+		}
+		return json.append("],\"generations\":").append(result.getGenerationCount())
+				.append(",\"evaluations\":").append(result.getEvaluationCount())
+				.append(",\"elapsedMillis\":").append(TimeUnit.NANOSECONDS.toMillis(result.getElapsedNanos()))
+				.append('}').toString();
+	}
+
+	/**
+	 * the JSON object of an error
+	 *
+	 * @param message what went wrong
+	 * @return the JSON object
+	 */
+	private static String error(String message) {
+		return Json.quote(new StringBuilder("{\"error\":"), String.valueOf(message)).append('}').toString();
+	}
+
+	/**
+	 * sends a JSON response
+	 *
+	 * @param exchange the HTTP exchange
+	 * @param status   the HTTP status code
+	 * @param json     the JSON body
+	 */
+	private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	/**
+	 * stops accepting requests, cancels any solves still in flight, and shuts down the solver's threads
+	 */
+	@Override
+	public void close() {
+		server.stop(0);
+		solver.close();
+		handlerThreads.close();
+	}
+}
@@ -0,0 +1,95 @@
+package com.parker.david;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * appends every generation to a log file as it completes, and keeps none of them in memory.
+ * the log is big endian binary, and is appended to, so several runs can share a file. each generation is the int MAGIC,
+ * the int generation number, then the parent, offspring, mutated, final offspring and next populations in that order.
+ * each population is the int number of solutions, then for each solution its int fitness, the int number of cities and the int city IDs of its tour.
+ * the lineage of the offspring is not written, as the offspring, mutated and final offspring populations line up by position
+ */
+public class SpillingHistory implements GenerationHistory {
+
+	/**
+	 * the first four bytes of every generation in the log, "TSPG" in ascii
+	 */
+	static final int MAGIC = 0x54535047;
+
+	/**
+	 * the stream the log is written through
+	 */
+	private final DataOutputStream log;
+
+	/**
+	 * constructor, opens the log file for appending, creating it if needed
+	 *
+	 * @param file the log file
+	 * @throws IOException if the file cannot be opened
+	 */
+	SpillingHistory(Path file) throws IOException {
+		this.log = new DataOutputStream(new BufferedOutputStream(
+				Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)));
+	}
+
+	@Override
+	public void record(GAPopulationGeneration generation) throws IOException {
+		log.writeInt(MAGIC);
+		log.writeInt(generation.getGenerationNumber());
+		writePopulation(generation.getParentPopulation());
+		writePopulation(generation.getOffspringPopulation());
+		writePopulation(generation.getMutatedPopulation());
+		writePopulation(generation.getImprovedPopulation());
+		writePopulation(generation.getNextPopulation());
+	}
+
+	/**
+	 * writes a population to the log
+	 *
+	 * @param population the population to write
+	 * @throws IOException if the log cannot be written to
+	 */
+	private void writePopulation(SolutionPopulation population) throws IOException {
+		log.writeInt(population.getPopulationSize());
+		for (CandidateSolution solution : population.getSolutions()) {
+			int[] tour = solution.getTour();
+			log.writeInt(solution.getFitness());
+			log.writeInt(tour.length);
+			for (int city : tour) {
+				log.writeInt(city);
+			}
+		}
+	}
+
+	/**
+	 * nothing is kept in memory, the generations are all in the log
+	 *
+	 * @return an empty list
+	 */
+	@Override
+	public List<GAPopulationGeneration> getRetainedGenerations() {
+		return Collections.emptyList();
+	}
+
+	/**
+	 * nothing is kept in memory
+	 *
+	 * @return 0
+	 */
+	@Override
+	public int getRetainedSpan() {
+		return 0;
+	}
+
+	@Override
+	public void close() throws IOException {
+		log.close();
+	}
+}
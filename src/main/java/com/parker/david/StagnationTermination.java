@@ -0,0 +1,29 @@
+package com.parker.david;
+
+/**
+ * stops a run once the incumbent has not improved for more than a given number of generations in a row,
+ * the original stopping criterion of both genetic algorithms with a limit of 10
+ */
+public class StagnationTermination implements TerminationCondition {
+
+	/**
+	 * the most generations in a row that may go by without improving the incumbent
+	 */
+	private final int generationLimit;
+
+	/**
+	 * constructor
+	 *
+	 * @param generationLimit the most generations in a row that may go by without improving the incumbent
+	 */
+	StagnationTermination(int generationLimit) {
+		if (generationLimit < 0)
+			throw new IllegalArgumentException("the generation limit cannot be negative, found " + generationLimit);
+		this.generationLimit = generationLimit;
+	}
+
+	@Override
+	public boolean isMet(RunProgress progress) {
+		return progress.getGenerationsSinceImprovedIncumbent() > generationLimit;
+	}
+}
@@ -0,0 +1,87 @@
+package com.parker.david;
+
+import java.util.SplittableRandom;
+
+/**
+ * an arena mutator that only makes promising swaps. a random city is picked, then one of its nearest neighbours,
+ * and the neighbour is swapped into the position following the city, creating an edge between two nearby cities.
+ * a uniformly random swap on a large problem almost always creates two long edges, so is almost always rejected by selection.
+ * the neighbour's position is searched for outward from the city and the city following it, no further than SEARCH_RADIUS positions,
+ * so a mutation costs constant time however large the problem. a neighbour further away in the tour is left where it is:
+ * swapping it in would break two edges far from the city as well, so would almost always be rejected by selection anyway.
+ * the fitness is updated by the constant time swap delta
+ */
+public class SwapNeighbourCities implements ArenaMutator {
+
+	/**
+	 * the furthest number of positions before the city, or after the city following it, that the neighbour is searched for
+	 */
+	static final int SEARCH_RADIUS = 32;
+
+	/**
+	 * the nearest neighbours of every city
+	 */
+	private final NeighbourLists neighbourLists;
+
+	/**
+	 * the number of nearest neighbours a neighbour is drawn from
+	 */
+	private final int neighbourCount;
+
+	/**
+	 * constructor
+	 *
+	 * @param instance       the problem whose tours are mutated
+	 * @param neighbourCount the number of nearest neighbours a neighbour is drawn from
+	 */
+	SwapNeighbourCities(TSPInstance instance, int neighbourCount) {
+		this.neighbourLists = instance.getNeighbourLists(neighbourCount);
+		this.neighbourCount = Math.min(neighbourCount, neighbourLists.neighbourCount());
+	}
+
+	/**
+	 * mutates a slot of a population arena in place, swapping a random city's near neighbour in after it.
+	 * no state of this object is touched, so this may be called from several threads at once
+	 *
+	 * @param arena                 the arena holding the tour to mutate
+	 * @param slot                  the slot of the current generation to mutate
+	 * @param randomNumberGenerator the random number generator used to pick the cities
+	 */
+	@Override
+	public void mutateSlot(PopulationArena arena, int slot, SplittableRandom randomNumberGenerator) {
+		int cityCount = arena.cityCount();
+		if (neighbourCount == 0)
+			return;
+		int[] tours = arena.getTours();
+		int offset = arena.offset(slot);
+
+		//pick a city, and one of its near neighbours
+		int position = randomNumberGenerator.nextInt(cityCount);
+		int neighbour = neighbourLists.getNeighbour(tours[offset + position], randomNumberGenerator.nextInt(neighbourCount));
+
+		//the neighbour already following the city leaves nothing to do
+		int followingPosition = (position + 1) % cityCount;
+		if (tours[offset + followingPosition] == neighbour)
+			return;
+
+		//find where the neighbour is, nearest positions first, giving up on a neighbour that is not near the city in the tour
+		int neighbourPosition = -1;
+		int searchRadius = Math.min(SEARCH_RADIUS, cityCount / 2);
+		for (int distance = 1; distance <= searchRadius && neighbourPosition < 0; distance++) {
+			int before = (position - distance + cityCount) % cityCount;
+			int after = (followingPosition + distance) % cityCount;
+			if (tours[offset + before] == neighbour)
+				neighbourPosition = before;
+			else if (tours[offset + after] == neighbour)
+				neighbourPosition = after;
+		}
+		if (neighbourPosition < 0)
+			return;
+
+		//update the fitness before the swap, as the delta is priced on the unswapped tour, then swap those cities
+		arena.getFitness()[slot] += CandidateSolution.swapDelta(tours, offset, cityCount, arena.getInstance().getDistances(), followingPosition, neighbourPosition);
+		int swappedCity = tours[offset + followingPosition];
+		tours[offset + followingPosition] = tours[offset + neighbourPosition];
+		tours[offset + neighbourPosition] = swappedCity;
+	}
+}
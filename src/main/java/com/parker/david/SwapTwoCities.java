@@ -1,25 +1,43 @@
 package com.parker.david;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
 /**
  * an implementation of a mutator, first it selects an element of the population randomly.
  * Then it selects two cities within that solution randomly and swaps them.
  */
-public class SwapTwoCities implements PopulationMutator {
+public class SwapTwoCities implements PopulationMutator, ArenaMutator {
 
 	/**
-	 * a random number generator
+	 * the number of random positions tried when looking for one off the backbone, before settling for the last one tried
 	 */
-	private final Random randomNumberGenerator = ThreadLocalRandom.current();
+	private static final int FREE_POSITION_PICKS = 16;
 
 	/**
-	 * an internal record of the last population mutation performed as stored by a mutant record
+	 * a random number generator, owned by this object. population methods must only be called from one thread at a time
 	 */
-	private ArrayList<MutantRecord> mutations = new ArrayList<>();
+	private final SplittableRandom randomNumberGenerator;
+
+	/**
+	 * the log each mutated offspring of population mutation is recorded in, or null to record nothing
+	 */
+	private LineageLog lineageLog;
+
+	/**
+	 * constructor, with a random number generator of its own
+	 */
+	SwapTwoCities() {
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * constructor
+	 *
+	 * @param randomNumberGenerator the random number generator used by this object, this object takes ownership of it
+	 */
+	SwapTwoCities(SplittableRandom randomNumberGenerator) {
+		this.randomNumberGenerator = randomNumberGenerator;
+	}
 
 	/**
 	 * this method takes a population and performs a mutation on a single solution in that population, picked at random
@@ -39,48 +57,126 @@ public class SwapTwoCities implements PopulationMutator {
 		//mutate the solution
 		CandidateSolution mutated = mutateSolution(mutatedPopulation.getSolutions().get(solutionToMutate));
 
-		//swap out the original solution with the mutated one and return
+		//swap out the original solution with the mutated one, record the mutation, and return
 		mutatedPopulation.getSolutions().set(solutionToMutate, mutated);
+		if (lineageLog != null)
+			lineageLog.recordMutation(solutionToMutate);
 		return mutatedPopulation;
 	}
 
-	/**
-	 * a method that returns an array list of mutations that occurred in the last population mutation.
-	 * For this implementation it will always contain only 1 element
-	 *
-	 * @return an array list of mutant records containing a single mutant record
-	 */
 	@Override
-	public ArrayList<MutantRecord> getMutations() {
-		return mutations;
+	public void setLineageLog(LineageLog lineageLog) {
+		this.lineageLog = lineageLog;
 	}
 
 	/**
 	 * method that takes a single solution and returns a mutated version of it
-	 * the original solution object is left intact
+	 * the original solution object is left intact, and the fitness of the mutant is derived from the original's fitness
 	 *
 	 * @param unmutatedSolution the original solution before mutation
 	 * @return the mutated candidate solution derived by swapping two cities in the original solution
 	 */
 	private CandidateSolution mutateSolution(CandidateSolution unmutatedSolution) {
-		//reset mutations to empty
-		mutations = new ArrayList<>();
+		//randomly select two cities
+		int city1 = randomNumberGenerator.nextInt(unmutatedSolution.cityCount());
+		int city2;
+		do {
+			city2 = randomNumberGenerator.nextInt(unmutatedSolution.cityCount());
+		} while (city1 == city2);
+
+		//swap those cities in a copy that does not affect the original solution.
+		//the mutated fitness is a constant time delta over the original's, as only the edges around the two cities change
+		return unmutatedSolution.swapCities(city1, city2);
+	}
 
-		//create a copy of the solution that does not affect the original solution
-		CandidateSolution mutatedSolution = unmutatedSolution.copy();
+	/**
+	 * mutates a slot of a population arena in place, by swapping two randomly selected cities of its tour.
+	 * the fitness of the slot is updated by the constant time swap delta, nothing is copied or allocated.
+	 * no lineage is recorded for arena mutations, and no state of this object is touched, so this may be called from several threads at once
+	 *
+	 * @param arena                 the arena holding the tour to mutate
+	 * @param slot                  the slot of the current generation to mutate
+	 * @param randomNumberGenerator the random number generator used to pick the cities
+	 */
+	@Override
+	public void mutateSlot(PopulationArena arena, int slot, SplittableRandom randomNumberGenerator) {
+		int cityCount = arena.cityCount();
 
 		//randomly select two cities
-		int city1 = randomNumberGenerator.nextInt(mutatedSolution.cityCount());
+		int city1 = randomNumberGenerator.nextInt(cityCount);
 		int city2;
 		do {
-			city2 = randomNumberGenerator.nextInt(mutatedSolution.cityCount());
+			city2 = randomNumberGenerator.nextInt(cityCount);
 		} while (city1 == city2);
+		swapPositions(arena, slot, city1, city2);
+	}
+
+	/**
+	 * mutates a slot of a population arena in place, by swapping two cities of its tour that are off the backbone.
+	 * a city is off the backbone when neither of its edges is shared by every parent, so swapping two such cities keeps every
+	 * backbone edge. if no such city turns up within a few random picks, the last pick is swapped anyway
+	 *
+	 * @param arena                 the arena holding the tour to mutate
+	 * @param slot                  the slot of the current generation to mutate
+	 * @param randomNumberGenerator the random number generator used to pick the cities
+	 * @param fixedEdges            the edge frequencies of the parents, or null to pick any two cities
+	 */
+	@Override
+	public void mutateSlot(PopulationArena arena, int slot, SplittableRandom randomNumberGenerator, EdgeFrequencies fixedEdges) {
+		if (fixedEdges == null) {
+			mutateSlot(arena, slot, randomNumberGenerator);
+			return;
+		}
+		int position1 = freePosition(arena, slot, randomNumberGenerator, fixedEdges, -1);
+		int position2 = freePosition(arena, slot, randomNumberGenerator, fixedEdges, position1);
+		swapPositions(arena, slot, position1, position2);
+	}
+
+	/**
+	 * picks a random position of a slot's tour whose city is off the backbone, trying a bounded number of positions
+	 *
+	 * @param arena                 the arena holding the tour
+	 * @param slot                  the slot of the current generation
+	 * @param randomNumberGenerator the random number generator used to pick positions
+	 * @param fixedEdges            the edge frequencies of the parents
+	 * @param excludedPosition      a position that must not be picked, or -1 for none
+	 * @return the int position
+	 */
+	private static int freePosition(PopulationArena arena, int slot, SplittableRandom randomNumberGenerator, EdgeFrequencies fixedEdges,
+									int excludedPosition) {
+		int cityCount = arena.cityCount();
+		int[] tours = arena.getTours();
+		int offset = arena.offset(slot);
+		int position = -1;
+		for (int pick = 0; pick < FREE_POSITION_PICKS; pick++) {
+			do {
+				position = randomNumberGenerator.nextInt(cityCount);
+			} while (position == excludedPosition);
+			int city = tours[offset + position];
+			if (!fixedEdges.isBackbone(tours[offset + (position + cityCount - 1) % cityCount], city)
+					&& !fixedEdges.isBackbone(city, tours[offset + (position + 1) % cityCount]))
+				break;
+		}
+		return position;
+	}
 
-		//swap those cities
-		Collections.swap(mutatedSolution.getCities(), city1, city2);
+	/**
+	 * swaps the cities at two positions of a slot's tour, updating its fitness by the constant time swap delta
+	 *
+	 * @param arena     the arena holding the tour
+	 * @param slot      the slot of the current generation
+	 * @param position1 the position of the first city to swap
+	 * @param position2 the position of the second city to swap
+	 */
+	private static void swapPositions(PopulationArena arena, int slot, int position1, int position2) {
+		int cityCount = arena.cityCount();
+		int[] tours = arena.getTours();
+		int offset = arena.offset(slot);
 
-		//record the mutation and return the result
-		mutations.add(new MutantRecord(unmutatedSolution, mutatedSolution));
-		return mutatedSolution;
+		//update the fitness before the swap, as the delta is priced on the unswapped tour, then swap those cities
+		arena.getFitness()[slot] += CandidateSolution.swapDelta(tours, offset, cityCount, arena.getInstance().getDistances(), position1, position2);
+		int swappedCity = tours[offset + position1];
+		tours[offset + position1] = tours[offset + position2];
+		tours[offset + position2] = swappedCity;
 	}
 }
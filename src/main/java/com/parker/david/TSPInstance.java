@@ -0,0 +1,187 @@
+package com.parker.david;
+
+import java.util.ArrayList;
+
+/**
+ * a single TSP problem, the set of cities and the distance matrix between them.
+ * solutions refer to cities only by ID, the city objects held here are used to materialise solutions when reporting them
+ */
+public class TSPInstance {
+
+	/**
+	 * the cities of this problem, each city's ID is also its index in this list
+	 */
+	private final ArrayList<City> cities;
+
+	/**
+	 * the distances between all cities of this problem
+	 */
+	private final DistanceMatrix distances;
+
+	/**
+	 * the coordinates of the cities, if this problem was given by coordinates, otherwise null
+	 */
+	private final CoordinateDistanceMatrix coordinates;
+
+	/**
+	 * true if the distance from a to b is the same as from b to a for every pair of cities, checked once on construction
+	 */
+	private final boolean symmetric;
+
+	/**
+	 * the nearest neighbour lists of the cities, built on first request
+	 */
+	private NeighbourLists neighbourLists;
+
+	/**
+	 * constructor, creates a city for every entry in the distance matrix
+	 *
+	 * @param distances the distances between all the cities of the problem
+	 */
+	TSPInstance(DistanceMatrix distances) {
+		this(distances, distances instanceof CoordinateDistanceMatrix ? (CoordinateDistanceMatrix) distances : null);
+	}
+
+	/**
+	 * constructor, for a problem given by coordinates whose distances may have been precomputed into another matrix.
+	 * the coordinates are kept so that geometric structures, such as neighbour lists, can be built from them
+	 *
+	 * @param distances   the distances between all the cities of the problem
+	 * @param coordinates the coordinates of the cities, or null if the problem has none
+	 */
+	TSPInstance(DistanceMatrix distances, CoordinateDistanceMatrix coordinates) {
+		this.distances = distances;
+		this.coordinates = coordinates;
+		this.cities = new ArrayList<>(distances.cityCount());
+		for (int cityId = 0; cityId < distances.cityCount(); cityId++) {
+			cities.add(new City(cityId, distances));
+		}
+		this.symmetric = distances.isSymmetric();
+	}
+
+	/**
+	 * constructor, wraps an already created set of cities. all cities must share the same distance matrix,
+	 * and each city's ID must be its index in the list
+	 *
+	 * @param cities the already created cities of the problem
+	 */
+	TSPInstance(ArrayList<City> cities) {
+		if (cities.isEmpty())
+			throw new IllegalArgumentException("a TSP instance needs at least one city");
+		this.cities = cities;
+		this.distances = cities.get(0).getDistanceMatrix();
+		this.coordinates = distances instanceof CoordinateDistanceMatrix ? (CoordinateDistanceMatrix) distances : null;
+		for (int i = 0; i < cities.size(); i++) {
+			City city = cities.get(i);
+			if (city.getCityId() != i || city.getDistanceMatrix() != distances)
+				throw new IllegalArgumentException("city " + city + " does not belong at index " + i + " of this instance");
+		}
+		this.symmetric = distances.isSymmetric();
+	}
+
+	/**
+	 * creates a problem from a full matrix of distances, such as one of travel times between stops
+	 *
+	 * @param rows the distance from each city to every city, a square matrix
+	 * @return the TSP instance
+	 */
+	public static TSPInstance fromDistances(int[][] rows) {
+		if (rows.length == 0)
+			throw new IllegalArgumentException("a TSP instance needs at least one city");
+		return new TSPInstance(DistanceMatrix.fromRows(rows));
+	}
+
+	/**
+	 * creates a problem from the coordinates of its cities, as they would be written in a TSPLIB file for the metric.
+	 * small problems have every distance computed up front, as TSPLIB files of the same size are, larger ones compute them on demand
+	 *
+	 * @param metric       the metric distances are measured by
+	 * @param xCoordinates the x coordinate of each city, indexed by city ID
+	 * @param yCoordinates the y coordinate of each city, indexed by city ID
+	 * @return the TSP instance
+	 */
+	public static TSPInstance fromCoordinates(CoordinateMetric metric, double[] xCoordinates, double[] yCoordinates) {
+		if (xCoordinates.length != yCoordinates.length)
+			throw new IllegalArgumentException("expected as many y coordinates as x coordinates, found "
+					+ yCoordinates.length + " and " + xCoordinates.length);
+		if (xCoordinates.length == 0)
+			throw new IllegalArgumentException("a TSP instance needs at least one city");
+		int cityCount = xCoordinates.length;
+		double[] internalX = new double[cityCount];
+		double[] internalY = new double[cityCount];
+		for (int city = 0; city < cityCount; city++) {
+			internalX[city] = metric.toInternal(xCoordinates[city]);
+			internalY[city] = metric.toInternal(yCoordinates[city]);
+		}
+		return TSPLibLoader.coordinateInstance(metric, internalX, internalY, null, TSPLibLoader.DEFAULT_DISTANCE_CACHE_SIZE);
+	}
+
+	/**
+	 * accessor for the distance matrix of this problem
+	 *
+	 * @return the distance matrix shared by all cities
+	 */
+	public DistanceMatrix getDistances() {
+		return distances;
+	}
+
+	/**
+	 * checks if the distance from a to b is the same as from b to a for every pair of cities. unlike the distance matrix's own check,
+	 * this is answered in constant time, so it can be asked every time a tour is hashed
+	 *
+	 * @return true if the problem is symmetric
+	 */
+	public boolean isSymmetric() {
+		return symmetric;
+	}
+
+	/**
+	 * accessor for the coordinates of the cities
+	 *
+	 * @return the coordinates, or null if this problem was not given by coordinates
+	 */
+	public CoordinateDistanceMatrix getCoordinates() {
+		return coordinates;
+	}
+
+	/**
+	 * accessor for the nearest neighbour lists of the cities. the lists are built on the first request,
+	 * and rebuilt only if more neighbours per city are requested than were built
+	 *
+	 * @param neighbourCount the number of neighbours wanted per city
+	 * @return neighbour lists with at least neighbourCount neighbours per city, or every other city if there are fewer
+	 */
+	public synchronized NeighbourLists getNeighbourLists(int neighbourCount) {
+		if (neighbourLists == null || neighbourLists.neighbourCount() < Math.min(neighbourCount, cityCount() - 1))
+			neighbourLists = NeighbourLists.build(this, neighbourCount);
+		return neighbourLists;
+	}
+
+	/**
+	 * accessor for a single city
+	 *
+	 * @param cityId the ID of the city
+	 * @return the city with that ID
+	 */
+	public City getCity(int cityId) {
+		return cities.get(cityId);
+	}
+
+	/**
+	 * accessor for all the cities of this problem
+	 *
+	 * @return an array list of cities, indexed by city ID
+	 */
+	public ArrayList<City> getCities() {
+		return cities;
+	}
+
+	/**
+	 * the number of cities in this problem
+	 *
+	 * @return the int number of cities
+	 */
+	public int cityCount() {
+		return cities.size();
+	}
+}
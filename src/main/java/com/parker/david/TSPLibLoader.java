@@ -0,0 +1,479 @@
+package com.parker.david;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * a loader for TSP problems in the TSPLIB format. supports coordinate instances using the EUC_2D, CEIL_2D, ATT and GEO metrics,
+ * and explicit instances given as a full matrix or as any of the upper or lower triangular row or column formats.
+ * the file is memory mapped and parsed a byte at a time, numbers are parsed straight from the mapped bytes into primitives,
+ * so no strings are built for the (possibly very large) data sections, and distances are written straight into a distance matrix.
+ * coordinate problems are either precomputed into a triangular matrix, or kept as coordinates with distances computed on demand,
+ * which is done automatically for problems too large to precompute
+ */
+public class TSPLibLoader {
+
+	/**
+	 * the largest coordinate problem whose distances are precomputed by default, a triangle of about 50 million distances (200MB)
+	 */
+	static final int PRECOMPUTED_CITY_LIMIT = 10000;
+
+	/**
+	 * the number of distances cached by default when distances are computed on demand
+	 */
+	static final int DEFAULT_DISTANCE_CACHE_SIZE = 1 << 20;
+
+	/**
+	 * the mapped file being parsed
+	 */
+	private final MappedByteBuffer buffer;
+
+	/**
+	 * the name of the file, for error messages
+	 */
+	private final String fileName;
+
+	/**
+	 * the DIMENSION of the problem, the number of cities
+	 */
+	private int dimension = -1;
+
+	/**
+	 * the EDGE_WEIGHT_TYPE of the problem
+	 */
+	private String edgeWeightType;
+
+	/**
+	 * the EDGE_WEIGHT_FORMAT of the problem, only used for explicit problems
+	 */
+	private String edgeWeightFormat;
+
+	/**
+	 * the city coordinates, in the metric's internal form, once the NODE_COORD_SECTION has been read
+	 */
+	private double[] xCoordinates;
+
+	/**
+	 * see xCoordinates
+	 */
+	private double[] yCoordinates;
+
+	/**
+	 * the distance matrix, once it has been built from an EDGE_WEIGHT_SECTION
+	 */
+	private DistanceMatrix explicitDistances;
+
+	/**
+	 * true if coordinate distances should be computed on demand rather than precomputed, or null to decide by the problem size
+	 */
+	private final Boolean computeOnDemand;
+
+	/**
+	 * the number of distances to cache when distances are computed on demand, 0 for none
+	 */
+	private final int cacheSize;
+
+	/**
+	 * constructor, maps the whole file into memory
+	 *
+	 * @param file            the TSPLIB file to load
+	 * @param computeOnDemand true to compute coordinate distances on demand, false to precompute them, null to decide by problem size
+	 * @param cacheSize       the number of distances to cache when computing on demand, 0 for none
+	 */
+	private TSPLibLoader(Path file, Boolean computeOnDemand, int cacheSize) throws IOException {
+		this.fileName = file.toString();
+		this.computeOnDemand = computeOnDemand;
+		this.cacheSize = cacheSize;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE)
+				throw new IOException(fileName + " is too large to map, " + channel.size() + " bytes");
+			this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	/**
+	 * loads a TSP problem from a TSPLIB file. coordinate problems of up to PRECOMPUTED_CITY_LIMIT cities have their distances precomputed,
+	 * larger ones compute distances on demand with a cache of DEFAULT_DISTANCE_CACHE_SIZE distances
+	 *
+	 * @param file the TSPLIB file to load
+	 * @return the TSP instance described by the file
+	 * @throws IOException if the file cannot be read, or is not a supported TSPLIB problem
+	 */
+	public static TSPInstance load(Path file) throws IOException {
+		return new TSPLibLoader(file, null, DEFAULT_DISTANCE_CACHE_SIZE).parse();
+	}
+
+	/**
+	 * loads a TSP problem from a TSPLIB file, keeping only the coordinates of a coordinate problem and computing distances on demand.
+	 * explicit problems are loaded as usual, as their distances are already given
+	 *
+	 * @param file      the TSPLIB file to load
+	 * @param cacheSize the number of distances to cache, or 0 for no cache
+	 * @return the TSP instance described by the file
+	 * @throws IOException if the file cannot be read, or is not a supported TSPLIB problem
+	 */
+	public static TSPInstance loadComputingOnDemand(Path file, int cacheSize) throws IOException {
+		return new TSPLibLoader(file, true, cacheSize).parse();
+	}
+
+	/**
+	 * parses the header and every section of the file, and builds the instance
+	 *
+	 * @return the TSP instance described by the file
+	 */
+	private TSPInstance parse() throws IOException {
+		while (true) {
+			skipWhitespace();
+			if (!buffer.hasRemaining())
+				break;
+			String keyword = readKeyword();
+			if (keyword.equals("EOF"))
+				break;
+			switch (keyword) {
+				case "NODE_COORD_SECTION":
+					readCoordinates();
+					break;
+				case "EDGE_WEIGHT_SECTION":
+					readEdgeWeights();
+					break;
+				case "DISPLAY_DATA_SECTION":
+					readCoordinateLines(null, null);//display coordinates do not affect distances
+					break;
+				case "DIMENSION":
+					dimension = Integer.parseInt(readValue());
+					break;
+				case "EDGE_WEIGHT_TYPE":
+					edgeWeightType = readValue();
+					break;
+				case "EDGE_WEIGHT_FORMAT":
+					edgeWeightFormat = readValue();
+					break;
+				case "TYPE":
+					String type = readValue();
+					if (!type.equals("TSP") && !type.equals("ATSP"))
+						throw malformed("unsupported problem TYPE " + type);
+					break;
+				default:
+					readValue();//NAME, COMMENT, NODE_COORD_TYPE, DISPLAY_DATA_TYPE and any other header lines do not affect the problem
+			}
+		}
+
+		if (explicitDistances != null)
+			return new TSPInstance(explicitDistances);
+		if (xCoordinates != null)
+			return coordinateInstance(metric(), xCoordinates, yCoordinates, computeOnDemand, cacheSize);
+		throw malformed("no NODE_COORD_SECTION or EDGE_WEIGHT_SECTION found");
+	}
+
+	/**
+	 * the metric named by the EDGE_WEIGHT_TYPE, for coordinate problems
+	 *
+	 * @return the coordinate metric
+	 */
+	private CoordinateMetric metric() throws IOException {
+		if (edgeWeightType == null)
+			throw malformed("coordinates found before an EDGE_WEIGHT_TYPE");
+		try {
+			return CoordinateMetric.valueOf(edgeWeightType);
+		} catch (IllegalArgumentException e) {
+			throw malformed("unsupported EDGE_WEIGHT_TYPE " + edgeWeightType);
+		}
+	}
+
+	/**
+	 * reads the NODE_COORD_SECTION, converting each coordinate to the metric's internal form
+	 */
+	private void readCoordinates() throws IOException {
+		requireDimension();
+		CoordinateMetric metric = metric();
+		xCoordinates = new double[dimension];
+		yCoordinates = new double[dimension];
+		readCoordinateLines(xCoordinates, yCoordinates);
+		for (int city = 0; city < dimension; city++) {
+			xCoordinates[city] = metric.toInternal(xCoordinates[city]);
+			yCoordinates[city] = metric.toInternal(yCoordinates[city]);
+		}
+	}
+
+	/**
+	 * reads dimension lines of "id x y", storing the coordinates by id (ids in the file start at 1)
+	 *
+	 * @param x the array to store x coordinates in, or null to discard them
+	 * @param y the array to store y coordinates in, or null to discard them
+	 */
+	private void readCoordinateLines(double[] x, double[] y) throws IOException {
+		requireDimension();
+		for (int line = 0; line < dimension; line++) {
+			int city = (int) readLong() - 1;
+			if (city < 0 || city >= dimension)
+				throw malformed("city id " + (city + 1) + " is outside the DIMENSION of " + dimension);
+			double cityX = readDouble();
+			double cityY = readDouble();
+			if (x != null) {
+				x[city] = cityX;
+				y[city] = cityY;
+			}
+		}
+	}
+
+	/**
+	 * creates a coordinate problem, either computing distances on demand from the coordinates,
+	 * or computing every distance into a triangular matrix, as coordinate metrics are all symmetric.
+	 * the coordinates are kept either way, so that geometric structures can be built from them
+	 *
+	 * @param metric          the metric distances are measured by
+	 * @param xCoordinates    the x coordinate of each city, in the metric's internal form
+	 * @param yCoordinates    the y coordinate of each city, in the metric's internal form
+	 * @param computeOnDemand true to compute distances on demand, false to precompute them,
+	 *                        null to precompute them for problems of up to PRECOMPUTED_CITY_LIMIT cities
+	 * @param cacheSize       the number of distances to cache when computing on demand, 0 for none
+	 * @return the TSP instance
+	 */
+	static TSPInstance coordinateInstance(CoordinateMetric metric, double[] xCoordinates, double[] yCoordinates,
+										  Boolean computeOnDemand, int cacheSize) {
+		int cityCount = xCoordinates.length;
+		boolean onDemand = computeOnDemand != null ? computeOnDemand : cityCount > PRECOMPUTED_CITY_LIMIT;
+		if (onDemand)
+			return new TSPInstance(new CoordinateDistanceMatrix(metric, xCoordinates, yCoordinates, cacheSize));
+
+		TriangularDistanceMatrix distances = new TriangularDistanceMatrix(cityCount);
+		for (int from = 0; from < cityCount; from++) {
+			for (int to = 0; to < from; to++) {
+				distances.setDistance(from, to, metric.distance(xCoordinates[from], yCoordinates[from], xCoordinates[to], yCoordinates[to]));
+			}
+		}
+		return new TSPInstance(distances, new CoordinateDistanceMatrix(metric, xCoordinates, yCoordinates));
+	}
+
+	/**
+	 * reads the EDGE_WEIGHT_SECTION of an EXPLICIT problem, in the layout given by the EDGE_WEIGHT_FORMAT,
+	 * straight into a flat matrix for FULL_MATRIX or a triangular matrix for the triangular formats.
+	 * a FULL_MATRIX that turns out to be symmetric is packed into a triangular matrix, halving the memory it is held in
+	 */
+	private void readEdgeWeights() throws IOException {
+		requireDimension();
+		if (!"EXPLICIT".equals(edgeWeightType))
+			throw malformed("EDGE_WEIGHT_SECTION found for EDGE_WEIGHT_TYPE " + edgeWeightType);
+		if (edgeWeightFormat == null)
+			throw malformed("EDGE_WEIGHT_SECTION found before an EDGE_WEIGHT_FORMAT");
+
+		if (edgeWeightFormat.equals("FULL_MATRIX")) {
+			if ((long) dimension * dimension > Integer.MAX_VALUE)
+				throw malformed("DIMENSION " + dimension + " is too large for a full matrix");
+			int[] weights = new int[dimension * dimension];
+			for (int i = 0; i < weights.length; i++) {
+				weights[i] = (int) readLong();
+			}
+			explicitDistances = isSymmetric(weights, dimension) ? packTriangle(weights, dimension) : new FlatDistanceMatrix(weights, dimension);
+			return;
+		}
+
+		//every triangular format is a row format, or a column format that is laid out the same as the opposite row format
+		boolean upper;
+		boolean diagonal;
+		switch (edgeWeightFormat) {
+			case "UPPER_ROW":
+			case "LOWER_COL":
+				upper = true;
+				diagonal = false;
+				break;
+			case "LOWER_ROW":
+			case "UPPER_COL":
+				upper = false;
+				diagonal = false;
+				break;
+			case "UPPER_DIAG_ROW":
+			case "LOWER_DIAG_COL":
+				upper = true;
+				diagonal = true;
+				break;
+			case "LOWER_DIAG_ROW":
+			case "UPPER_DIAG_COL":
+				upper = false;
+				diagonal = true;
+				break;
+			default:
+				throw malformed("unsupported EDGE_WEIGHT_FORMAT " + edgeWeightFormat);
+		}
+
+		TriangularDistanceMatrix distances = new TriangularDistanceMatrix(dimension);
+		for (int row = 0; row < dimension; row++) {
+			int from = upper ? (diagonal ? row : row + 1) : 0;
+			int to = upper ? dimension : (diagonal ? row + 1 : row);
+			for (int column = from; column < to; column++) {
+				distances.setDistance(row, column, (int) readLong());
+			}
+		}
+		explicitDistances = distances;
+	}
+
+	/**
+	 * checks if a full row-major matrix of weights has the same distance from a to b as from b to a for every pair of cities
+	 *
+	 * @param weights   the row-major weights
+	 * @param cityCount the number of cities
+	 * @return true if the weights are symmetric
+	 */
+	private static boolean isSymmetric(int[] weights, int cityCount) {
+		for (int from = 0; from < cityCount; from++) {
+			for (int to = 0; to < from; to++) {
+				if (weights[from * cityCount + to] != weights[to * cityCount + from])
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * packs the lower triangle of a full row-major matrix of symmetric weights into a triangular matrix
+	 *
+	 * @param weights   the row-major weights, which must be symmetric
+	 * @param cityCount the number of cities
+	 * @return the triangular matrix
+	 */
+	private static TriangularDistanceMatrix packTriangle(int[] weights, int cityCount) {
+		TriangularDistanceMatrix distances = new TriangularDistanceMatrix(cityCount);
+		for (int from = 0; from < cityCount; from++) {
+			for (int to = 0; to <= from; to++) {
+				distances.setDistance(from, to, weights[from * cityCount + to]);
+			}
+		}
+		return distances;
+	}
+
+	/**
+	 * checks the DIMENSION has been read before a section that needs it
+	 */
+	private void requireDimension() throws IOException {
+		if (dimension < 0)
+			throw malformed("data section found before the DIMENSION");
+	}
+
+	/**
+	 * skips spaces, tabs and line breaks
+	 */
+	private void skipWhitespace() {
+		while (buffer.hasRemaining()) {
+			byte next = buffer.get(buffer.position());
+			if (next != ' ' && next != '\t' && next != '\r' && next != '\n')
+				return;
+			buffer.get();
+		}
+	}
+
+	/**
+	 * reads a header keyword or section name, which ends at whitespace or a colon
+	 *
+	 * @return the keyword
+	 */
+	private String readKeyword() {
+		StringBuilder keyword = new StringBuilder();
+		while (buffer.hasRemaining()) {
+			byte next = buffer.get(buffer.position());
+			if (next == ':' || next == ' ' || next == '\t' || next == '\r' || next == '\n')
+				break;
+			keyword.append((char) buffer.get());
+		}
+		return keyword.toString();
+	}
+
+	/**
+	 * reads the value of a header line, everything after the colon up to the end of the line, trimmed
+	 *
+	 * @return the value
+	 */
+	private String readValue() {
+		StringBuilder value = new StringBuilder();
+		while (buffer.hasRemaining()) {
+			byte next = buffer.get();
+			if (next == '\n')
+				break;
+			value.append((char) next);
+		}
+		String trimmed = value.toString().trim();
+		return trimmed.startsWith(":") ? trimmed.substring(1).trim() : trimmed;
+	}
+
+	/**
+	 * reads an integer straight from the mapped bytes, skipping any whitespace before it
+	 *
+	 * @return the long value
+	 */
+	private long readLong() throws IOException {
+		skipWhitespace();
+		boolean negative = false;
+		if (buffer.hasRemaining() && (buffer.get(buffer.position()) == '-' || buffer.get(buffer.position()) == '+'))
+			negative = buffer.get() == '-';
+		long value = 0;
+		int digits = 0;
+		while (buffer.hasRemaining()) {
+			byte next = buffer.get(buffer.position());
+			if (next < '0' || next > '9')
+				break;
+			value = value * 10 + (buffer.get() - '0');
+			digits++;
+		}
+		if (digits == 0)
+			throw malformed("expected a number at byte " + buffer.position());
+		return negative ? -value : value;
+	}
+
+	/**
+	 * reads a decimal number, which may have a fraction and an exponent, straight from the mapped bytes.
+	 * the digits are accumulated into a long and scaled by a power of ten once, which is exact for numbers of up to 15 significant digits
+	 *
+	 * @return the double value
+	 */
+	private double readDouble() throws IOException {
+		skipWhitespace();
+		boolean negative = false;
+		if (buffer.hasRemaining() && (buffer.get(buffer.position()) == '-' || buffer.get(buffer.position()) == '+'))
+			negative = buffer.get() == '-';
+
+		long mantissa = 0;
+		int exponent = 0;
+		int digits = 0;
+		boolean fraction = false;
+		while (buffer.hasRemaining()) {
+			byte next = buffer.get(buffer.position());
+			if (next == '.' && !fraction) {
+				fraction = true;
+			} else if (next >= '0' && next <= '9') {
+				if (mantissa < Long.MAX_VALUE / 10) {
+					mantissa = mantissa * 10 + (next - '0');
+					if (fraction)
+						exponent--;
+				} else if (!fraction) {
+					exponent++;//digits beyond the precision of a long only scale the value
+				}
+				digits++;
+			} else {
+				break;
+			}
+			buffer.get();
+		}
+		if (digits == 0)
+			throw malformed("expected a number at byte " + buffer.position());
+
+		if (buffer.hasRemaining() && (buffer.get(buffer.position()) == 'e' || buffer.get(buffer.position()) == 'E')) {
+			buffer.get();
+			exponent += (int) readLong();
+		}
+
+		double value = exponent < 0 ? mantissa / Math.pow(10, -exponent) : mantissa * Math.pow(10, exponent);
+		return negative ? -value : value;
+	}
+
+	/**
+	 * creates an exception for a file that is not a supported TSPLIB problem
+	 *
+	 * @param problem what is wrong with the file
+	 * @return an exception naming the file and the problem
+	 */
+	private IOException malformed(String problem) {
+		return new IOException("cannot load TSPLIB file " + fileName + ": " + problem);
+	}
+}
@@ -0,0 +1,86 @@
+package com.parker.david;
+
+import de.vandermeer.asciitable.AsciiTable;
+import de.vandermeer.asciitable.CWC_LongestLine;
+import de.vandermeer.asciithemes.TA_Grid;
+import de.vandermeer.asciithemes.TA_GridConfig;
+import de.vandermeer.skb.interfaces.transformers.textformat.TextAlignment;
+
+import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * reports a run as a pretty ascii table, showing every solution of each reported generation with its parents, mutation and selection.
+ * each generation is rendered as its own table as soon as it completes, so only one generation is ever held in memory,
+ * and each generation's columns are sized to fit that generation
+ */
+public class TableReporter extends ChannelReporter {
+
+	/**
+	 * the grid tables are drawn with: heavy rules around the whole report, light rules before each generation's summary,
+	 * and normal rules between generations
+	 */
+	private static final TA_Grid GRID = TA_Grid.create("an ascii compliant grid")
+			.addCharacterMap(TA_GridConfig.RULESET_HEAVY, ' ', '#', '#', '#', '#', '#', '#', '#', '#', '#', '#', '#')
+			.addCharacterMap(TA_GridConfig.RULESET_NORMAL, ' ', '~', ' ', '~', '~', '~', '~', '~', '~', '~', '~', '~')
+			.addCharacterMap(TA_GridConfig.RULESET_LIGHT, ' ', '-', ' ', '-', '-', '-', '-', '-', '-', '-', '-', '-');
+
+	/**
+	 * true until the first table is written, which opens the report with a heavy rule
+	 */
+	private boolean first = true;
+
+	/**
+	 * constructor
+	 *
+	 * @param sampleInterval the number of generations between reported generations, 1 to report every generation
+	 * @param channels       the channels the report is written to
+	 * @param owned          for each channel, true if this reporter should close it when it is closed
+	 */
+	TableReporter(int sampleInterval, WritableByteChannel[] channels, boolean[] owned) {
+		super(sampleInterval, channels, owned);
+	}
+
+	@Override
+	void writeGeneration(GAPopulationGeneration generation, CandidateSolution incumbent) throws IOException {
+		AsciiTable table = newTable();
+		generation.addToTable(table, incumbent);
+		write(render(table) + "\n");
+	}
+
+	@Override
+	void writeResult(CandidateSolution incumbent) throws IOException {
+		//print out the incumbent at the end, in a table of its own as it has nothing to line up with
+		AsciiTable table = newTable();
+		table.addRow("TSP final best solution & fitness : " + incumbent + " (" + incumbent.getFitness() + ")");
+		table.addHeavyRule();
+		write(render(table) + "\n\n");
+	}
+
+	/**
+	 * creates a table for the next part of the report, starting with a heavy rule if it is the first
+	 *
+	 * @return an empty table
+	 */
+	private AsciiTable newTable() {
+		AsciiTable table = new AsciiTable();
+		if (first) {
+			table.addHeavyRule();
+			first = false;
+		}
+		return table;
+	}
+
+	/**
+	 * formats and renders a table
+	 *
+	 * @param table the table to render
+	 * @return the rendered table
+	 */
+	private static String render(AsciiTable table) {
+		table.getContext().setGrid(GRID);
+		table.setTextAlignment(TextAlignment.CENTER);
+		table.getRenderer().setCWC(new CWC_LongestLine());
+		return table.render();
+	}
+}
@@ -0,0 +1,26 @@
+package com.parker.david;
+
+/**
+ * stops a run once the incumbent is at least as good as a target fitness, such as a known optimum or a good enough tour length
+ */
+public class TargetFitnessTermination implements TerminationCondition {
+
+	/**
+	 * the fitness to reach
+	 */
+	private final int targetFitness;
+
+	/**
+	 * constructor
+	 *
+	 * @param targetFitness the fitness to reach
+	 */
+	TargetFitnessTermination(int targetFitness) {
+		this.targetFitness = targetFitness;
+	}
+
+	@Override
+	public boolean isMet(RunProgress progress) {
+		return progress.getIncumbentFitness() <= targetFitness;
+	}
+}
@@ -0,0 +1,56 @@
+package com.parker.david;
+
+import java.util.ArrayList;
+
+/**
+ * an interface allowing for multiple conditions for stopping a run. the generation loop checks its condition before every generation,
+ * against the progress of the run so far, and once the condition is met the best solution found is the result
+ */
+public interface TerminationCondition {
+
+	/**
+	 * checks if the run should stop. this is called before every generation, so must be cheap
+	 *
+	 * @param progress the progress of the run so far
+	 * @return true to stop the run
+	 */
+	boolean isMet(RunProgress progress);
+
+	/**
+	 * makes a condition from a specification: a comma separated list of conditions, any one of which stops the run.
+	 * "stagnation:n" stops once n generations in a row have not improved the incumbent, "deadline:ms" stops once the run has taken
+	 * that many milliseconds, "evaluations:n" stops once n tours have been evaluated, and "target:f" stops once the incumbent
+	 * has a fitness of f or better
+	 *
+	 * @param specification the conditions
+	 * @return the condition
+	 */
+	static TerminationCondition fromSpecification(String specification) {
+		ArrayList<TerminationCondition> conditions = new ArrayList<>();
+		for (String condition : specification.split(",")) {
+			int separator = condition.indexOf(':');
+			if (separator < 0)
+				throw new IllegalArgumentException("unknown termination condition " + condition
+						+ ", expected a list of stagnation:n, deadline:ms, evaluations:n, target:f");
+			String argument = condition.substring(separator + 1).trim();
+			switch (condition.substring(0, separator).trim().toLowerCase()) {
+				case "stagnation":
+					conditions.add(new StagnationTermination(Integer.parseInt(argument)));
+					break;
+				case "deadline":
+					conditions.add(new DeadlineTermination(Long.parseLong(argument)));
+					break;
+				case "evaluations":
+					conditions.add(new EvaluationTermination(Long.parseLong(argument)));
+					break;
+				case "target":
+					conditions.add(new TargetFitnessTermination(Integer.parseInt(argument)));
+					break;
+				default:
+					throw new IllegalArgumentException("unknown termination condition " + condition
+							+ ", expected a list of stagnation:n, deadline:ms, evaluations:n, target:f");
+			}
+		}
+		return conditions.size() == 1 ? conditions.get(0) : new AnyTermination(conditions);
+	}
+}
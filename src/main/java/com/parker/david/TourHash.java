@@ -0,0 +1,134 @@
+package com.parker.david;
+
+/**
+ * a canonical 64 bit hash of a tour, the same for every rotation and for the reversal of a tour.
+ * a tour is hashed as the set of undirected edges it uses: each edge is hashed from its two cities, smaller city first,
+ * and the edge hashes are summed. the sum does not depend on where the tour starts or which way it runs,
+ * and swapping two cities only changes the (at most four) edges touching them, so the hash of a swapped tour is found in constant time.
+ * on an asymmetric problem a tour and its reversal have different lengths, so are different solutions. tours of such problems
+ * are hashed as the set of directed edges they use instead, each edge hashed from its cities in the order the tour visits them,
+ * which is still the same for every rotation of a tour, but not for its reversal
+ */
+final class TourHash {
+
+	private TourHash() {
+	}
+
+	/**
+	 * the hash of an undirected edge
+	 *
+	 * @param city1 the city at one end of the edge
+	 * @param city2 the city at the other end of the edge
+	 * @return the long hash of the edge, the same whichever way round the cities are given
+	 */
+	static long edgeHash(int city1, int city2) {
+		return mix(city1 < city2 ? ((long) city1 << 32) | city2 : ((long) city2 << 32) | city1);
+	}
+
+	/**
+	 * the hash of an edge, directed or not
+	 *
+	 * @param from     the city the edge departs from
+	 * @param to       the city the edge arrives at
+	 * @param directed true if the edge from a to b is a different edge to the one from b to a
+	 * @return the long hash of the edge
+	 */
+	private static long edgeHash(int from, int to, boolean directed) {
+		return directed ? mix(((long) from << 32) | to) : edgeHash(from, to);
+	}
+
+	/**
+	 * the splitmix64 finaliser, so that every bit of both cities of an edge affects every bit of its hash
+	 *
+	 * @param key the two cities of an edge packed into a long
+	 * @return the long hash of the key
+	 */
+	private static long mix(long key) {
+		key = (key ^ (key >>> 30)) * 0xBF58476D1CE4E5B9L;
+		key = (key ^ (key >>> 27)) * 0x94D049BB133111EBL;
+		return key ^ (key >>> 31);
+	}
+
+	/**
+	 * the hash of a tour
+	 *
+	 * @param tour     the tour of city IDs
+	 * @param directed true to hash the directed edges of the tour, as for an asymmetric problem, so its reversal hashes differently
+	 * @return the long hash of the tour
+	 */
+	static long hash(int[] tour, boolean directed) {
+		return hash(tour, 0, tour.length, directed);
+	}
+
+	/**
+	 * the hash of a tour stored at an offset of a larger array, such as a population arena
+	 *
+	 * @param tours     the array holding the tour
+	 * @param offset    the index of the tour's first city
+	 * @param cityCount the number of cities in the tour
+	 * @param directed  true to hash the directed edges of the tour, as for an asymmetric problem, so its reversal hashes differently
+	 * @return the long hash of the tour
+	 */
+	static long hash(int[] tours, int offset, int cityCount, boolean directed) {
+		if (cityCount == 0)
+			return 0;
+		long hash = 0;
+		for (int i = 0; i < cityCount - 1; i++) {
+			hash += edgeHash(tours[offset + i], tours[offset + i + 1], directed);
+		}
+		return hash + edgeHash(tours[offset + cityCount - 1], tours[offset], directed);
+	}
+
+	/**
+	 * the change in hash that swapping the cities at two positions of a tour would cause, without changing the tour.
+	 * as in CandidateSolution.swapDelta, edges shared by adjacent positions are only counted once
+	 *
+	 * @param tours     the array holding the tour
+	 * @param offset    the index of the tour's first city
+	 * @param cityCount the number of cities in the tour
+	 * @param position1 the position of the first city to swap
+	 * @param position2 the position of the second city to swap
+	 * @param directed  true if the tour is hashed by its directed edges
+	 * @return the long to add to the hash of the tour to get the hash of the swapped tour
+	 */
+	static long swapDelta(int[] tours, int offset, int cityCount, int position1, int position2, boolean directed) {
+		if (position1 == position2)
+			return 0;
+
+		//the edges touching a position start at the position before it, and at the position itself
+		int edge1 = (position1 + cityCount - 1) % cityCount;
+		int edge2 = position1;
+		int edge3 = (position2 + cityCount - 1) % cityCount;
+		int edge4 = position2;
+
+		long delta = edgeDelta(tours, offset, cityCount, position1, position2, edge1, directed);
+		if (edge2 != edge1)
+			delta += edgeDelta(tours, offset, cityCount, position1, position2, edge2, directed);
+		if (edge3 != edge1 && edge3 != edge2)
+			delta += edgeDelta(tours, offset, cityCount, position1, position2, edge3, directed);
+		if (edge4 != edge1 && edge4 != edge2 && edge4 != edge3)
+			delta += edgeDelta(tours, offset, cityCount, position1, position2, edge4, directed);
+		return delta;
+	}
+
+	/**
+	 * the change in hash of the single edge starting at a position of a tour, if the cities at two positions were swapped
+	 *
+	 * @param tours     the array holding the tour
+	 * @param offset    the index of the tour's first city
+	 * @param cityCount the number of cities in the tour
+	 * @param position1 the position of the first city to swap
+	 * @param position2 the position of the second city to swap
+	 * @param edgeStart the position the edge departs from, the edge arrives at the next position in the cycle
+	 * @param directed  true if the tour is hashed by its directed edges
+	 * @return the new edge hash minus the old edge hash
+	 */
+	private static long edgeDelta(int[] tours, int offset, int cityCount, int position1, int position2, int edgeStart, boolean directed) {
+		int edgeEnd = (edgeStart + 1) % cityCount;
+		long before = edgeHash(tours[offset + edgeStart], tours[offset + edgeEnd], directed);
+		long after = edgeHash(
+				tours[offset + CandidateSolution.positionAfterSwap(position1, position2, edgeStart)],
+				tours[offset + CandidateSolution.positionAfterSwap(position1, position2, edgeEnd)], directed);
+		return after - before;
+	}
+}
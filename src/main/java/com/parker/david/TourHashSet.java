@@ -0,0 +1,89 @@
+package com.parker.david;
+
+import java.util.Arrays;
+
+/**
+ * a set of tour hashes that is emptied in constant time, for finding duplicate tours among a run of solutions of equal fitness.
+ * the hashes are held in an open addressing table allocated up front, and each bucket is stamped with the clear it was filled after,
+ * so clearing just moves on to a new stamp. the set must only be used by one thread at a time
+ */
+final class TourHashSet {
+
+	/**
+	 * the hash in each bucket
+	 */
+	private final long[] hashes;
+
+	/**
+	 * the stamp of the clear each bucket was filled after, buckets with any other stamp are empty
+	 */
+	private final int[] stamps;
+
+	/**
+	 * the number of buckets minus one, the number of buckets is a power of two at least twice the capacity
+	 */
+	private final int mask;
+
+	/**
+	 * the most hashes the set holds between clears
+	 */
+	private final int capacity;
+
+	/**
+	 * the stamp of the current clear
+	 */
+	private int stamp = 1;
+
+	/**
+	 * constructor
+	 *
+	 * @param capacity the most hashes the set must hold between clears
+	 */
+	TourHashSet(int capacity) {
+		if (capacity < 1 || capacity > 1 << 28)
+			throw new IllegalArgumentException("the capacity must be between 1 and " + (1 << 28) + ", found " + capacity);
+		this.capacity = capacity;
+		this.hashes = new long[Integer.highestOneBit(capacity) << 2];
+		this.stamps = new int[hashes.length];
+		this.mask = hashes.length - 1;
+	}
+
+	/**
+	 * the most hashes the set holds between clears
+	 *
+	 * @return the int capacity
+	 */
+	int capacity() {
+		return capacity;
+	}
+
+	/**
+	 * empties the set
+	 */
+	void clear() {
+		stamp++;
+		if (stamp == 0) {
+			//the stamps have wrapped around, so old buckets could look filled
+			Arrays.fill(stamps, 0);
+			stamp = 1;
+		}
+	}
+
+	/**
+	 * adds a hash to the set
+	 *
+	 * @param tourHash the hash
+	 * @return true if the hash was added, false if it was already in the set
+	 */
+	boolean add(long tourHash) {
+		int bucket = (int) (tourHash ^ (tourHash >>> 32)) & mask;
+		while (stamps[bucket] == stamp) {
+			if (hashes[bucket] == tourHash)
+				return false;
+			bucket = (bucket + 1) & mask;
+		}
+		stamps[bucket] = stamp;
+		hashes[bucket] = tourHash;
+		return true;
+	}
+}
@@ -1,16 +1,14 @@
 package com.parker.david;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.SplittableRandom;
 
 /**
  * a tournament selection method of selecting a parent for breeding.
  * selects a number of parents from the parent pool, and puts them into a tournament.
  * selection is based on a probability that is proportional to the fitness of the solution
  */
-public class TournamentSelection implements ParentSelector {
+public class TournamentSelection implements ParentSelector, ArenaParentSelector {
 
 	/**
 	 * the size of a tournament if the population pool is unrestricted
@@ -18,15 +16,28 @@ public class TournamentSelection implements ParentSelector {
 	private final int tournamentSize;
 
 	/**
-	 * a random number generator
+	 * a random number generator, owned by this object. population methods must only be called from one thread at a time
 	 */
-	private final Random randomNumberGenerator = ThreadLocalRandom.current();
+	private final SplittableRandom randomNumberGenerator;
 
 	/**
-	 * constructor
+	 * constructor, with a random number generator of its own
+	 *
+	 * @param tournamentSize the size of a tournament if the population pool is unrestricted
 	 */
 	TournamentSelection(int tournamentSize) {
+		this(tournamentSize, new SplittableRandom());
+	}
+
+	/**
+	 * constructor
+	 *
+	 * @param tournamentSize        the size of a tournament if the population pool is unrestricted
+	 * @param randomNumberGenerator the random number generator used by getParent, this object takes ownership of it
+	 */
+	TournamentSelection(int tournamentSize, SplittableRandom randomNumberGenerator) {
 		this.tournamentSize = tournamentSize;
+		this.randomNumberGenerator = randomNumberGenerator;
 	}
 
 	/**
@@ -38,53 +49,118 @@ public class TournamentSelection implements ParentSelector {
 	 */
 	@Override
 	public CandidateSolution getParent(SolutionPopulation population) {
-		//create a working population from which we may remove solutions
-		SolutionPopulation parentPool = population.copy();
-
-		//
-		ArrayList<CandidateSolution> tournament = new ArrayList<>();
+		return getParents(population, 1).get(0);
+	}
 
-		while (tournament.size() < tournamentSize && !parentPool.getSolutions().isEmpty()) {
-			int removeIndex = weightedRandomIndex(parentPool.getSolutions(), parentPool.meanFitness());
-			tournament.add(parentPool.getSolutions().remove(removeIndex));
+	/**
+	 * selects distinct parents by repeated tournaments, each winner leaving the pool for the tournaments after it
+	 *
+	 * @param population  the parent population we want to select parents from
+	 * @param parentCount the number of parents to select, no more than the population size
+	 * @return the parents, in the order they were selected
+	 */
+	@Override
+	public ArrayList<CandidateSolution> getParents(SolutionPopulation population, int parentCount) {
+		int[] parentIndices = getParentIndices(population, parentCount);
+		ArrayList<CandidateSolution> parents = new ArrayList<>(parentCount);
+		for (int parentIndex : parentIndices) {
+			parents.add(population.getSolutions().get(parentIndex));
 		}
-		return Collections.min(tournament);
+		return parents;
 	}
 
 	/**
-	 * a weighted random selection, first gets all candidates to have a chance in proportion to their index
-	 * then selects one randomly using a roulette selection-esque method to decide on an element
-	 * 1 / (population size) * (fitness / mean fitness)
-	 * thus if all are equal total of all probabilities is 1 / popsize * ((fitness/meanfitness) * popsize) = 1
+	 * selects distinct parents by repeated tournaments, each winner leaving the pool for the tournaments after it.
+	 * the weights of the pool are kept in a Fenwick tree, so drawing a contender, and taking a winner out of the pool, costs time
+	 * logarithmic in the population size, and nothing is copied
 	 *
-	 * @param solutions   the set of solutions
-	 * @param meanFitness the mean fitness of all the solutions
-	 * @return the index of the solution which we wish to remove
+	 * @param population  the parent population we want to select parents from
+	 * @param parentCount the number of parents to select, no more than the population size
+	 * @return the index of each parent in the population, in the order they were selected
 	 */
-	private int weightedRandomIndex(ArrayList<CandidateSolution> solutions, double meanFitness) {
+	@Override
+	public int[] getParentIndices(SolutionPopulation population, int parentCount) {
+		ArrayList<CandidateSolution> solutions = population.getSolutions();
+		if (parentCount > solutions.size())
+			throw new IllegalArgumentException("cannot select " + parentCount + " distinct parents from " + solutions.size() + " solutions");
 
-		//an arraylist with the upper threshold of each segment
-		ArrayList<Double> probabilityThresholds = new ArrayList<>();
-		double thresholdAccumulator = 0;
-		for (CandidateSolution solution : solutions) {
-			//calculate probability an add to the threshold accumulator
-			double probability = solution.getFitness() * 1.0 / solutions.size() / meanFitness;
-			thresholdAccumulator += probability;
+		FenwickSampler pool = new FenwickSampler(selectionWeights(solutions));
+		int[] contenders = new int[tournamentSize];
+		int[] parentIndices = new int[parentCount];
+		for (int selected = 0; selected < parentCount; selected++) {
+			//draw contenders without replacement, by taking each out of the pool as it is drawn
+			int drawn = 0;
+			while (drawn < tournamentSize && pool.remaining() > 0) {
+				int contender = pool.draw(randomNumberGenerator);
+				contenders[drawn++] = contender;
+				pool.setWeight(contender, 0);
+			}
 
-			//accumulator is now the upper limit of this element
-			probabilityThresholds.add(thresholdAccumulator);
-		}
+			//the fittest contender wins, the earliest drawn on a tie
+			int winner = 0;
+			for (int i = 1; i < drawn; i++) {
+				if (solutions.get(contenders[i]).compareTo(solutions.get(contenders[winner])) < 0)
+					winner = i;
+			}
 
-		//generate a value between 0 and 1
-		double selectedValue = randomNumberGenerator.nextDouble();
+			//put the losers back in the pool, the winner stays out of it
+			for (int i = 0; i < drawn; i++) {
+				if (i != winner)
+					pool.setWeight(contenders[i], selectionWeight(solutions.get(contenders[i])));
+			}
+			parentIndices[selected] = contenders[winner];
+		}
+		return parentIndices;
+	}
 
-		//if value at index < random value, the value is from that index
-		for (int index = 0; index < probabilityThresholds.size(); index++) {
-			if (probabilityThresholds.get(index) < selectedValue)
-				return index;
+	/**
+	 * the weights of a set of solutions for drawing into a tournament
+	 *
+	 * @param solutions the set of solutions
+	 * @return the weight of each solution
+	 */
+	private static long[] selectionWeights(ArrayList<CandidateSolution> solutions) {
+		long[] weights = new long[solutions.size()];
+		for (int i = 0; i < weights.length; i++) {
+			weights[i] = selectionWeight(solutions.get(i));
 		}
+		return weights;
+	}
+
+	/**
+	 * the weight of a solution for drawing into a tournament. the chance of a solution being drawn is in proportion to its fitness,
+	 * that is 1 / (population size) * (fitness / mean fitness). one is added so that a tour of length zero can still be drawn
+	 *
+	 * @param solution the solution
+	 * @return the long weight
+	 */
+	private static long selectionWeight(CandidateSolution solution) {
+		return solution.getFitness() + 1L;
+	}
 
-		//we should never actually hit this condition, but java requires it to compile, so our never-occuring default value is the last index
-		return probabilityThresholds.size() - 1;
+	/**
+	 * selects a parent slot from the parents of a population arena, without copying or allocating anything.
+	 * tournamentSize slots are drawn uniformly at random, and the fittest of them wins.
+	 * a slot may be excluded, so that the second parent of a pair is never the same as the first
+	 *
+	 * @param arena                 the arena holding the parent population
+	 * @param excludedSlot          a slot that may not be selected, or -1 if any slot may be selected
+	 * @param randomNumberGenerator the random number generator used to draw the tournament
+	 * @return the int slot of the tournament winner
+	 */
+	@Override
+	public int getParentSlot(PopulationArena arena, int excludedSlot, SplittableRandom randomNumberGenerator) {
+		int[] fitness = arena.getFitness();
+		int populationSize = arena.getPopulationSize();
+		int winner = -1;
+		for (int drawn = 0; drawn < tournamentSize; drawn++) {
+			int contender;
+			do {
+				contender = randomNumberGenerator.nextInt(populationSize);
+			} while (contender == excludedSlot && populationSize > 1);
+			if (winner == -1 || fitness[contender] < fitness[winner])
+				winner = contender;
+		}
+		return winner;
 	}
 }
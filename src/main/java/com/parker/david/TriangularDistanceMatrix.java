@@ -0,0 +1,95 @@
+package com.parker.david;
+
+/**
+ * a symmetric distance matrix, only the lower triangle (including the diagonal) is stored, packed into a single primitive array.
+ * this uses roughly half the memory of a full matrix, and may only be used where the distance from a to b is the same as from b to a
+ */
+public class TriangularDistanceMatrix implements DistanceMatrix {
+
+	/**
+	 * the largest number of cities whose packed triangle fits in a java array, and whose row offsets can be computed without overflow
+	 */
+	private static final int MAX_CITY_COUNT = 65535;
+
+	/**
+	 * the packed lower triangle. the distance between city a and city b (a >= b) is at index a * (a + 1) / 2 + b
+	 */
+	private final int[] distances;
+
+	/**
+	 * the number of cities in the matrix
+	 */
+	private final int cityCount;
+
+	/**
+	 * constructor, packs the lower triangle of a square symmetric array of rows.
+	 * the upper triangle is ignored, it is the caller's responsibility to ensure the rows are symmetric
+	 *
+	 * @param rows a square array of distances where rows[i][j] is the distance between city i and city j
+	 */
+	TriangularDistanceMatrix(int[][] rows) {
+		this(rows.length);
+		for (int from = 0; from < cityCount; from++) {
+			System.arraycopy(rows[from], 0, distances, rowOffset(from), from + 1);
+		}
+	}
+
+	/**
+	 * constructor, creates an empty matrix of the given size to be filled in through {@link #setDistance(int, int, int)}
+	 *
+	 * @param cityCount the number of cities
+	 */
+	TriangularDistanceMatrix(int cityCount) {
+		if (cityCount > MAX_CITY_COUNT)
+			throw new IllegalArgumentException("too many cities for a triangular distance matrix: " + cityCount);
+		this.cityCount = cityCount;
+		this.distances = new int[rowOffset(cityCount)];
+	}
+
+	/**
+	 * the index at which a row of the packed triangle starts.
+	 * the unsigned shift keeps this correct for rows up to MAX_CITY_COUNT, where row * (row + 1) no longer fits in a signed int
+	 *
+	 * @param row the row (city ID) we want the start of
+	 * @return the index of the first element of the row
+	 */
+	private static int rowOffset(int row) {
+		return (row * (row + 1)) >>> 1;
+	}
+
+	/**
+	 * set the distance between two cities, in both directions
+	 *
+	 * @param cityA    the first city ID
+	 * @param cityB    the second city ID
+	 * @param distance the distance between the two cities
+	 */
+	void setDistance(int cityA, int cityB, int distance) {
+		if (cityA >= cityB)
+			distances[rowOffset(cityA) + cityB] = distance;
+		else
+			distances[rowOffset(cityB) + cityA] = distance;
+	}
+
+	@Override
+	public int getDistance(int fromCityId, int toCityId) {
+		if (fromCityId >= toCityId)
+			return distances[rowOffset(fromCityId) + toCityId];
+		return distances[rowOffset(toCityId) + fromCityId];
+	}
+
+	@Override
+	public int cityCount() {
+		return cityCount;
+	}
+
+	/**
+	 * only one distance is stored per pair of cities, so this matrix is always symmetric
+	 *
+	 * @return true
+	 */
+	@Override
+	public boolean isSymmetric() {
+		return true;
+	}
+}
@@ -0,0 +1,267 @@
+package com.parker.david;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * solves TSP problems asynchronously, for embedding the genetic algorithm in a larger program that has many problems to solve.
+ * each solve runs the arena based genetic algorithm on one thread, printing nothing, so solves run side by side without sharing
+ * anything but the read only problem they were given. the number of solves in flight, running or queued, is bounded: once the bound
+ * is reached, solve blocks until an earlier solve finishes, so a caller submitting a large batch is held back rather than queueing
+ * every problem, and every arena, at once.
+ * a solve stops on the termination condition of its request, or when its future is cancelled, whichever comes first,
+ * either way within a generation
+ */
+public class TspSolver implements AutoCloseable {
+
+	/**
+	 * the threads solves run on
+	 */
+	private final ExecutorService executor;
+
+	/**
+	 * true if the executor was created by this solver, and so is shut down with it
+	 */
+	private final boolean ownsExecutor;
+
+	/**
+	 * a permit for each solve that may be in flight, running or queued
+	 */
+	private final Semaphore inFlight;
+
+	/**
+	 * the most solves that may be in flight
+	 */
+	private final int maxInFlight;
+
+	/**
+	 * the futures of the solves in flight, cancelled if this solver is closed before they finish
+	 */
+	private final Set<CompletableFuture<SolveResult>> unfinished = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * constructor, creating a pool of threads to run solves on
+	 *
+	 * @param threadCount   the number of solves to run at once
+	 * @param queueCapacity the number of solves that may wait for a thread, before submitting another blocks
+	 */
+	public TspSolver(int threadCount, int queueCapacity) {
+		if (threadCount < 1)
+			throw new IllegalArgumentException("at least one thread is needed to solve on, found " + threadCount);
+		if (queueCapacity < 0)
+			throw new IllegalArgumentException("the queue capacity cannot be negative, found " + queueCapacity);
+		AtomicInteger threadNumber = new AtomicInteger();
+		//the permits keep the queue within its capacity, so it needs no bound of its own
+		this.executor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+			Thread thread = new Thread(runnable, "tsp-solver-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.ownsExecutor = true;
+		this.maxInFlight = threadCount + queueCapacity;
+		this.inFlight = new Semaphore(maxInFlight);
+	}
+
+	/**
+	 * constructor, running solves on a shared executor, which is left running when this solver is closed
+	 *
+	 * @param executor    the executor to run solves on
+	 * @param maxInFlight the most solves that may be in flight, running or queued, before submitting another blocks
+	 */
+	public TspSolver(ExecutorService executor, int maxInFlight) {
+		if (maxInFlight < 1)
+			throw new IllegalArgumentException("at least one solve must be allowed in flight, found " + maxInFlight);
+		this.executor = executor;
+		this.ownsExecutor = false;
+		this.maxInFlight = maxInFlight;
+		this.inFlight = new Semaphore(maxInFlight);
+	}
+
+	/**
+	 * submits a problem to solve, blocking while the most solves are already in flight
+	 *
+	 * @param request the problem to solve, and how to solve it
+	 * @return a future completed with the result once the solve stops, which can be cancelled to stop the solve early.
+	 * if the calling thread is interrupted while blocked, the future fails with the InterruptedException and the thread stays interrupted
+	 */
+	public CompletableFuture<SolveResult> solve(SolveRequest request) {
+		CompletableFuture<SolveResult> future = new CompletableFuture<>();
+		try {
+			inFlight.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.completeExceptionally(e);
+			return future;
+		}
+		return submit(request, future);
+	}
+
+	/**
+	 * submits a problem to solve, waiting a limited time while the most solves are already in flight,
+	 * for callers that would rather turn work away than queue it without bound
+	 *
+	 * @param request the problem to solve, and how to solve it
+	 * @param timeout the longest time to wait for a solve to finish, if the most solves are already in flight
+	 * @param unit    the unit of the timeout
+	 * @return a future completed with the result once the solve stops, which can be cancelled to stop the solve early.
+	 * if no solve finished in time, the future fails with a RejectedExecutionException
+	 */
+	public CompletableFuture<SolveResult> solve(SolveRequest request, long timeout, TimeUnit unit) {
+		CompletableFuture<SolveResult> future = new CompletableFuture<>();
+		try {
+			if (!inFlight.tryAcquire(timeout, unit)) {
+				future.completeExceptionally(new RejectedExecutionException("the solver is busy, " + maxInFlight + " solves are already in flight"));
+				return future;
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			future.completeExceptionally(e);
+			return future;
+		}
+		return submit(request, future);
+	}
+
+	/**
+	 * the number of solves running or queued
+	 *
+	 * @return the int number of solves in flight
+	 */
+	public int getInFlightCount() {
+		return maxInFlight - inFlight.availablePermits();
+	}
+
+	/**
+	 * hands a solve that holds a permit to the executor
+	 *
+	 * @param request the problem to solve
+	 * @param future  the future of the solve
+	 * @return the future
+	 */
+	private CompletableFuture<SolveResult> submit(SolveRequest request, CompletableFuture<SolveResult> future) {
+		unfinished.add(future);
+		try {
+			executor.execute(() -> run(request, future));
+		} catch (RuntimeException e) {
+			//such as when the executor has been shut down
+			unfinished.remove(future);
+			inFlight.release();
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * submits a batch of problems to solve, blocking while the most solves are already in flight,
+	 * so this returns once the last problem has been submitted
+	 *
+	 * @param requests the problems to solve
+	 * @return a future completed with the results, in the order of the requests, once every solve has stopped,
+	 * or failed as soon as any solve fails
+	 */
+	public CompletableFuture<List<SolveResult>> solveAll(List<SolveRequest> requests) {
+		List<CompletableFuture<SolveResult>> futures = new ArrayList<>(requests.size());
+		for (SolveRequest request : requests) {
+			futures.add(solve(request));
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(ignored -> {
+			List<SolveResult> results = new ArrayList<>(futures.size());
+			for (CompletableFuture<SolveResult> future : futures) {
+				results.add(future.join());
+			}
+			return results;
+		});
+	}
+
+	/**
+	 * runs a solve to completion on the current thread, completing its future, and releasing its permit however it ends
+	 *
+	 * @param request the problem to solve
+	 * @param future  the future of the solve, checked for cancellation every generation
+	 */
+	private void run(SolveRequest request, CompletableFuture<SolveResult> future) {
+		try {
+			//a solve cancelled while it was queued never starts
+			if (!future.isDone())
+				future.complete(evolve(request, future));
+		} catch (Throwable e) {
+			future.completeExceptionally(e);
+		} finally {
+			unfinished.remove(future);
+			inFlight.release();
+		}
+	}
+
+	/**
+	 * runs the arena based genetic algorithm on a request's problem until its termination condition is met or its future is cancelled
+	 *
+	 * @param request the problem to solve
+	 * @param future  the future of the solve
+	 * @return the result of the solve
+	 */
+	private static SolveResult evolve(SolveRequest request, CompletableFuture<SolveResult> future) {
+		TSPInstance instance = request.getInstance();
+		RandomStreams randomStreams = request.getRandomStreams();
+
+		//with fewer than three cities every tour is the same tour
+		if (instance.cityCount() < 3) {
+			int[] tour = new int[instance.cityCount()];
+			for (int i = 0; i < tour.length; i++) {
+				tour[i] = i;
+			}
+			return new SolveResult(new CandidateSolution(instance, tour), 0, 1, 0);
+		}
+
+		ArenaEvolution evolution = new ArenaEvolution(instance, request.getPopulationSize(), request.getOffspringCount(), new TournamentSelection(3),
+				request.getCrossover().create(instance, randomStreams.newStream()), new SwapTwoCities(), randomStreams.newStream());
+		if (request.isAdaptive())
+			evolution.setDiversityControl(DiversityControl.defaults());
+
+		TerminationCondition termination = request.getTermination();
+		SolveListener listener = request.getListener();
+		int progressInterval = request.getProgressInterval();
+		CandidateSolution incumbent = evolution.getBestSolution();
+		RunProgress progress = new RunProgress(incumbent.getFitness(), 0, evolution.getEvaluationCount());
+
+		//loop until the termination condition is met, or the solve is cancelled
+		while (!future.isCancelled() && !termination.isMet(progress)) {
+			evolution.evolveGeneration();
+
+			//only materialise the incumbent when it improves
+			boolean improved = progress.endGeneration(evolution.getBestFitness(), evolution.getEvaluationCount());
+			if (improved)
+				incumbent = evolution.getBestSolution();
+			if (listener != null && (improved || (progressInterval > 0 && progress.getGenerationCount() % progressInterval == 0)))
+				listener.onProgress(progress, incumbent);
+		}
+		return new SolveResult(incumbent, progress.getGenerationCount(), progress.getEvaluationCount(), progress.elapsedNanos());
+	}
+
+	/**
+	 * cancels any solves that have not finished, then, if this solver created the threads solves run on,
+	 * shuts them down and waits for the running solves to stop
+	 */
+	@Override
+	public void close() {
+		for (CompletableFuture<SolveResult> future : unfinished) {
+			future.cancel(false);
+		}
+		if (!ownsExecutor)
+			return;
+		executor.shutdownNow();
+		try {
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
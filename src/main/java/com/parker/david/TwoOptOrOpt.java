@@ -0,0 +1,419 @@
+package com.parker.david;
+
+import java.util.ArrayList;
+
+/**
+ * a local search improving tours with 2-opt and or-opt moves, restricted to nearest neighbour lists and driven by don't-look bits.
+ * a 2-opt move removes two edges and reconnects the tour the other way, reversing the section between them.
+ * an or-opt move takes a section of one to three cities out of the tour, and puts it back between two other cities, either way round.
+ * only moves that create an edge from a city to one of its nearest neighbours are tried, and a city is only looked at again
+ * once an edge next to it has changed, so a pass costs time proportional to the number of cities, not its square.
+ * moves reverse parts of the tour, so this is only valid for symmetric problems
+ */
+public class TwoOptOrOpt implements PopulationLocalSearch, ArenaLocalSearch {
+
+	/**
+	 * the longest section an or-opt move moves
+	 */
+	private static final int MAX_SEGMENT_LENGTH = 3;
+
+	/**
+	 * the problem whose tours are improved
+	 */
+	private final TSPInstance instance;
+
+	/**
+	 * the nearest neighbours of every city
+	 */
+	private final NeighbourLists neighbourLists;
+
+	/**
+	 * the number of nearest neighbours tried for each city
+	 */
+	private final int neighbourCount;
+
+	/**
+	 * scratch space for improving populations, which is only ever done from one thread at a time
+	 */
+	private BreedingWorkspace populationWorkspace;
+
+	/**
+	 * constructor
+	 *
+	 * @param instance       the problem whose tours are improved, which must be symmetric
+	 * @param neighbourCount the number of nearest neighbours tried for each city
+	 */
+	TwoOptOrOpt(TSPInstance instance, int neighbourCount) {
+		if (!instance.getDistances().isSymmetric())
+			throw new IllegalArgumentException("2-opt and or-opt reverse sections of tours, so can only improve symmetric problems");
+		this.instance = instance;
+		this.neighbourLists = instance.getNeighbourLists(neighbourCount);
+		this.neighbourCount = Math.min(neighbourCount, neighbourLists.neighbourCount());
+	}
+
+	/**
+	 * improves every solution of a population. the solutions are left intact, and improved copies are returned
+	 *
+	 * @param population the population which we wish to improve
+	 * @return a population where each solution is the improved version of the solution at the same index
+	 */
+	@Override
+	public SolutionPopulation improvePopulation(SolutionPopulation population) {
+		if (populationWorkspace == null)
+			populationWorkspace = new BreedingWorkspace(instance.cityCount());
+		ArrayList<CandidateSolution> improved = new ArrayList<>(population.getPopulationSize());
+		for (CandidateSolution solution : population.getSolutions()) {
+			int[] tour = solution.getTour().clone();
+			int delta = improve(tour, 0, populationWorkspace);
+			improved.add(delta == 0 ? solution : new CandidateSolution(solution.getInstance(), tour, solution.getFitness() + delta));
+		}
+		return new SolutionPopulation(improved);
+	}
+
+	/**
+	 * improves a slot of a population arena in place. no state of this object is touched, so this may be called from several threads at once
+	 *
+	 * @param arena     the arena holding the tour to improve
+	 * @param slot      the slot to improve
+	 * @param workspace scratch space owned by the calling thread
+	 */
+	@Override
+	public void improveSlot(PopulationArena arena, int slot, BreedingWorkspace workspace) {
+		arena.getFitness()[slot] += improve(arena.getTours(), arena.offset(slot), workspace);
+	}
+
+	/**
+	 * improves a tour until no move from any city improves it any more, a local optimum for these moves
+	 *
+	 * @param tours     the array holding the tour
+	 * @param offset    the index of the tour's first city
+	 * @param workspace scratch space for the positions and the queue of cities to look at
+	 * @return the change in tour length, zero or negative
+	 */
+	int improve(int[] tours, int offset, BreedingWorkspace workspace) {
+		int cityCount = instance.cityCount();
+		if (cityCount < 5 || neighbourCount == 0)
+			return 0;//a tour of four or fewer cities has no distinct 2-opt or or-opt moves worth making
+		Tour tour = new Tour(tours, offset, cityCount, workspace);
+
+		//every city starts in the queue, with its don't-look bit off
+		int head = 0;
+		int size = cityCount;
+		for (int position = 0; position < cityCount; position++) {
+			workspace.queue[position] = tours[offset + position];
+			workspace.queued[tours[offset + position]] = true;
+		}
+
+		int totalDelta = 0;
+		while (size > 0) {
+			int city = workspace.queue[head];
+			head = (head + 1) % cityCount;
+			size--;
+			workspace.queued[city] = false;
+
+			//keep improving from this city until no move works, then its don't-look bit stays on
+			int delta;
+			while ((delta = improveCity(tour, city)) < 0) {
+				totalDelta += delta;
+				//queue the ends of every edge the move changed
+				for (int i = 0; i < tour.changedCount; i++) {
+					int changed = tour.changed[i];
+					if (!workspace.queued[changed] && changed != city) {
+						workspace.queue[(head + size) % cityCount] = changed;
+						workspace.queued[changed] = true;
+						size++;
+					}
+				}
+			}
+		}
+		return totalDelta;
+	}
+
+	/**
+	 * tries the moves from a city: 2-opt in either direction, then or-opt of the sections starting at the city.
+	 * the first improving move found is made
+	 *
+	 * @param tour the tour being improved
+	 * @param a    the city to improve from
+	 * @return the change in tour length of the move made, or 0 if no move improves the tour
+	 */
+	private int improveCity(Tour tour, int a) {
+		int delta = twoOpt(tour, a, true);
+		if (delta < 0)
+			return delta;
+		delta = twoOpt(tour, a, false);
+		if (delta < 0)
+			return delta;
+		for (int length = 1; length <= MAX_SEGMENT_LENGTH; length++) {
+			delta = orOpt(tour, a, length);
+			if (delta < 0)
+				return delta;
+		}
+		return 0;
+	}
+
+	/**
+	 * tries 2-opt moves replacing the edge from a to its successor (or predecessor) with an edge from a to one of its neighbours
+	 *
+	 * @param tour    the tour being improved
+	 * @param a       the city to improve from
+	 * @param forward true to replace the edge to a's successor, false for its predecessor
+	 * @return the change in tour length of the move made, or 0 if none improves the tour
+	 */
+	private int twoOpt(Tour tour, int a, boolean forward) {
+		DistanceMatrix distances = instance.getDistances();
+		int b = forward ? tour.successor(a) : tour.predecessor(a);
+		int removedAB = distances.getDistance(a, b);
+		for (int rank = 0; rank < neighbourCount; rank++) {
+			int c = neighbourLists.getNeighbour(a, rank);
+			int partialGain = removedAB - distances.getDistance(a, c);
+			if (partialGain <= 0)
+				break;//neighbours are nearest first, so no further neighbour can gain either
+			int d = forward ? tour.successor(c) : tour.predecessor(c);
+			if (c == b || d == a)
+				continue;
+			int gain = partialGain + distances.getDistance(c, d) - distances.getDistance(b, d);
+			if (gain > 0) {
+				//forward: a b ... c d becomes a c ... b d. backward: d c ... b a becomes d b ... c a
+				if (forward)
+					tour.reverse(tour.position(b), tour.position(c));
+				else
+					tour.reverse(tour.position(c), tour.position(b));
+				tour.changed(a, b, c, d);
+				return -gain;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * tries or-opt moves taking the section of the given length starting at a out of the tour,
+	 * and putting it back next to one of a's neighbours, either way round
+	 *
+	 * @param tour   the tour being improved
+	 * @param a      the first city of the section
+	 * @param length the number of cities in the section
+	 * @return the change in tour length of the move made, or 0 if none improves the tour
+	 */
+	private int orOpt(Tour tour, int a, int length) {
+		int cityCount = tour.cityCount;
+		if (cityCount < length + 3)
+			return 0;
+		DistanceMatrix distances = instance.getDistances();
+		int start = tour.position(a);
+		int end = (start + length - 1) % cityCount;
+		int last = tour.cityAt(end);
+		int p = tour.predecessor(a);
+		int n = tour.successor(last);
+		int removalGain = distances.getDistance(p, a) + distances.getDistance(last, n) - distances.getDistance(p, n);
+		if (removalGain <= 0)
+			return 0;
+
+		for (int rank = 0; rank < neighbourCount; rank++) {
+			int c = neighbourLists.getNeighbour(a, rank);
+			int partialGain = removalGain - distances.getDistance(a, c);
+			if (partialGain <= 0)
+				break;
+			if (tour.inSection(c, start, length))
+				continue;
+
+			//put the section after c the same way round: c a ... last e
+			int e = tour.successor(c);
+			if (!tour.inSection(e, start, length)) {
+				int gain = partialGain - distances.getDistance(last, e) + distances.getDistance(c, e);
+				if (gain > 0) {
+					tour.moveSection(start, length, tour.position(c), false);
+					tour.changed(p, n, a, last, c, e);
+					return -gain;
+				}
+			}
+
+			//put the section before c the other way round: e last ... a c
+			e = tour.predecessor(c);
+			if (!tour.inSection(e, start, length)) {
+				int gain = partialGain - distances.getDistance(e, last) + distances.getDistance(e, c);
+				if (gain > 0) {
+					tour.moveSection(start, length, tour.position(e), true);
+					tour.changed(p, n, a, last, c, e);
+					return -gain;
+				}
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * a tour being improved, held in place in its array, with the position of every city kept up to date as it changes
+	 */
+	private static class Tour {
+
+		/**
+		 * the array holding the tour
+		 */
+		private final int[] tours;
+
+		/**
+		 * the index of the tour's first city
+		 */
+		private final int offset;
+
+		/**
+		 * the number of cities in the tour
+		 */
+		private final int cityCount;
+
+		/**
+		 * the position of every city, indexed by city ID
+		 */
+		private final int[] positions;
+
+		/**
+		 * the ends of the edges changed by the last move
+		 */
+		private final int[] changed = new int[6];
+
+		/**
+		 * the number of cities in changed
+		 */
+		private int changedCount;
+
+		/**
+		 * constructor, fills in the position of every city
+		 *
+		 * @param tours     the array holding the tour
+		 * @param offset    the index of the tour's first city
+		 * @param cityCount the number of cities in the tour
+		 * @param workspace the workspace whose positions array is used
+		 */
+		Tour(int[] tours, int offset, int cityCount, BreedingWorkspace workspace) {
+			this.tours = tours;
+			this.offset = offset;
+			this.cityCount = cityCount;
+			this.positions = workspace.positions;
+			for (int position = 0; position < cityCount; position++) {
+				positions[tours[offset + position]] = position;
+			}
+		}
+
+		int cityAt(int position) {
+			return tours[offset + position];
+		}
+
+		int position(int city) {
+			return positions[city];
+		}
+
+		int successor(int city) {
+			int position = positions[city] + 1;
+			return tours[offset + (position == cityCount ? 0 : position)];
+		}
+
+		int predecessor(int city) {
+			int position = positions[city];
+			return tours[offset + (position == 0 ? cityCount - 1 : position - 1)];
+		}
+
+		/**
+		 * checks if a city is within the section of the given length starting at the given position
+		 *
+		 * @param city   the city
+		 * @param start  the position of the first city of the section
+		 * @param length the number of cities in the section
+		 * @return true if the city is in the section
+		 */
+		boolean inSection(int city, int start, int length) {
+			return (positions[city] - start + cityCount) % cityCount < length;
+		}
+
+		/**
+		 * records the cities at the ends of the two edges a 2-opt move changed
+		 */
+		void changed(int a, int b, int c, int d) {
+			changed[0] = a;
+			changed[1] = b;
+			changed[2] = c;
+			changed[3] = d;
+			changedCount = 4;
+		}
+
+		/**
+		 * records the cities at the ends of the three edges an or-opt move changed
+		 */
+		void changed(int a, int b, int c, int d, int e, int f) {
+			changed(a, b, c, d);
+			changed[4] = e;
+			changed[5] = f;
+			changedCount = 6;
+		}
+
+		/**
+		 * reverses the section running forward from one position to another, inclusive.
+		 * if the section is more than half the tour, the rest of the tour is reversed instead, which gives the same cycle of edges
+		 *
+		 * @param from the position of the first city of the section
+		 * @param to   the position of the last city of the section
+		 */
+		void reverse(int from, int to) {
+			int length = (to - from + cityCount) % cityCount + 1;
+			if (length * 2 > cityCount) {
+				int complementFrom = (to + 1) % cityCount;
+				reverseExactly(complementFrom, cityCount - length);
+				return;
+			}
+			reverseExactly(from, length);
+		}
+
+		/**
+		 * reverses exactly the section of the given length starting at a position, wrapping around the end of the tour
+		 *
+		 * @param from   the position of the first city of the section
+		 * @param length the number of cities in the section
+		 */
+		void reverseExactly(int from, int length) {
+			int left = from;
+			int right = (from + length - 1) % cityCount;
+			for (int swaps = length / 2; swaps > 0; swaps--) {
+				int leftCity = tours[offset + left];
+				int rightCity = tours[offset + right];
+				tours[offset + left] = rightCity;
+				tours[offset + right] = leftCity;
+				positions[rightCity] = left;
+				positions[leftCity] = right;
+				left = left + 1 == cityCount ? 0 : left + 1;
+				right = right == 0 ? cityCount - 1 : right - 1;
+			}
+		}
+
+		/**
+		 * moves a section so it follows the city at a given position, keeping the rest of the tour in order.
+		 * the section is moved past whichever side of the tour is shorter, as a rotation done with reversals
+		 *
+		 * @param start    the position of the first city of the section
+		 * @param length   the number of cities in the section
+		 * @param after    the position of the city the section will follow, which must not be in the section
+		 * @param reversed true to put the section back the other way round
+		 */
+		void moveSection(int start, int length, int after, boolean reversed) {
+			//the cities after the section up to and including the city at after, which the section moves forward past
+			int forwardFrom = (start + length) % cityCount;
+			int forwardLength = (after - forwardFrom + cityCount) % cityCount + 1;
+			//the cities after the city at after up to the section, which the section moves backward past
+			int backwardFrom = (after + 1) % cityCount;
+			int backwardLength = cityCount - length - forwardLength;
+
+			if (forwardLength <= backwardLength) {
+				//[section][middle] becomes [middle][section], or [middle][reversed section]
+				if (!reversed)
+					reverseExactly(start, length);
+				reverseExactly(forwardFrom, forwardLength);
+				reverseExactly(start, length + forwardLength);
+			} else {
+				//[middle][section] becomes [section][middle], or [reversed section][middle]
+				reverseExactly(backwardFrom, backwardLength);
+				if (!reversed)
+					reverseExactly(start, length);
+				reverseExactly(backwardFrom, backwardLength + length);
+			}
+		}
+	}
+}
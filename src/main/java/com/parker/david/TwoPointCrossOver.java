@@ -1,106 +1,99 @@
 package com.parker.david;
 
-import java.util.ArrayList;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Arrays;
+import java.util.SplittableRandom;
 
 /**
  * the implementation of a population crossover algorithm, in this case the algorithm is 2point crossover.
+ * breeding populations keeps a record of the families bred, so is not reentrant. breeding arena slots keeps no state, so is reentrant
  */
-public class TwoPointCrossOver implements PopulationCrossover {
+public class TwoPointCrossOver extends PairwiseCrossover {
 
 	/**
-	 * a random number generator
+	 * constructor, with a random number generator of its own
 	 */
-	private final Random randomNumberGenerator = ThreadLocalRandom.current();
+	TwoPointCrossOver() {
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * constructor
+	 *
+	 * @param randomNumberGenerator the random number generator used by this object, this object takes ownership of it
+	 */
+	TwoPointCrossOver(SplittableRandom randomNumberGenerator) {
+		super(randomNumberGenerator);
+	}
 
 	/**
-	 * an internal record of the last population breeding performed as stored by a family record
+	 * a value passed as the blacklisted number when the full range is needed, it is never in a valid range of crossover points
 	 */
-	private ArrayList<FamilyRecord> families = new ArrayList<>();
+	private static final int NO_BLACKLIST = -1;
 
 	/**
 	 * a random number generator wrapper that will generate (inclusive) from lowest possible value to highest possible value.
 	 * also supports a blacklisted value, this value will not be generated.
 	 *
-	 * @param lowestPossibleValue  the lowest value that may be generated
-	 * @param highestPossibleValue the highest value that may be generated
-	 * @param blacklistedNumber    a number in the range that is not generated, set to null if full range is needed
+	 * @param randomNumberGenerator the random number generator to draw from
+	 * @param lowestPossibleValue   the lowest value that may be generated
+	 * @param highestPossibleValue  the highest value that may be generated
+	 * @param blacklistedNumber     a number in the range that is not generated, set to NO_BLACKLIST if full range is needed
 	 * @return a random int
 	 */
-	private int randomNumberGenerator(Integer lowestPossibleValue, Integer highestPossibleValue, Integer blacklistedNumber) {
-		Integer rand;
+	private static int randomNumberGenerator(SplittableRandom randomNumberGenerator, int lowestPossibleValue, int highestPossibleValue, int blacklistedNumber) {
+		int rand;
 		do {
 			rand = randomNumberGenerator.nextInt(highestPossibleValue + 1 - lowestPossibleValue) + lowestPossibleValue;
-		} while (rand.equals(blacklistedNumber));
+		} while (rand == blacklistedNumber);
 		return rand;
 	}
 
 	/**
-	 * takes a population and breaks it down into sets of parents. each set of parents generates a set of offspring
-	 * the offspring sets are merged to form an offspring population.
-	 *
-	 * @param parents                 the population of parents
-	 * @param offspringPopulationSize the size of the desired offspring population
-	 * @return the population of offspring
-	 */
-	@Override
-	public SolutionPopulation breed(SolutionPopulation parents, int offspringPopulationSize) {
-		// reset families to empty
-		families = new ArrayList<>();
-
-		// set selection method
-		ParentSelector parentSelector = new TournamentSelection(3);
-
-		//create offspring solution set
-		ArrayList<CandidateSolution> offspringSolutions = new ArrayList<>();
-
-		//create a working(temporary) population of parents
-		SolutionPopulation parentPool = parents.copy();
-
-		//select 2 parents and crossover, repeat until we have offspringPopulationSize parents
-		do {
-			//select 2 parents using parent selection strategy,
-			// remove the parent from the pool of parents available for selection when it is selected
-			CandidateSolution parent1 = parentSelector.getParent(parentPool);
-			parentPool.getSolutions().remove(parent1);
-			CandidateSolution parent2 = parentSelector.getParent(parentPool);
-			parentPool.getSolutions().remove(parent2);
-
-			//breed and add offspring
-			offspringSolutions.addAll(breedPair(parent1, parent2));
-		} while (offspringSolutions.size() / 2 < offspringPopulationSize / 2);
-		return new SolutionPopulation(offspringSolutions);
-	}
-
-	/**
-	 * accessor for the families records, will contain information regarding which parents generated which offspring
+	 * randomly selects two crossover points such that there are at least 1 element at the beginning
+	 * and 1 element at the end of the original set of cities.
+	 * from there, the middles of the two parents are swapped to create two offspring.
 	 */
 	@Override
-	public ArrayList<FamilyRecord> getFamilies() {
-		return families;
+	void crossTours(SplittableRandom randomNumberGenerator,
+					int[] parent1Tours, int parent1Offset, int[] parent2Tours, int parent2Offset,
+					int[] offspring1Tours, int offspring1Offset, int[] offspring2Tours, int offspring2Offset,
+					int count, BreedingWorkspace workspace) {
+		breedPair(randomNumberGenerator, parent1Tours, parent1Offset, parent2Tours, parent2Offset,
+				offspring1Tours, offspring1Offset, offspring2Tours, offspring2Offset,
+				count, workspace.inParent1Middle, workspace.inParent2Middle);
 	}
 
 	/**
-	 * this is the function that performs the crossover of the two parents and generates two offspring.
-	 * it is done by randomly selecting two crossover points such that there are at least 1 element at the beginning
-	 * and 1 element at the end of the original set of cities.
-	 * from there, the middles of the two parents are swapped to create two offspring.
+	 * the two-point crossover itself, working on tours stored in primitive arrays at given offsets.
+	 * this lets the same crossover breed into freshly allocated tours, or into slots of a population arena, without allocating.
+	 * the parents are left intact, and the offspring are written to their offsets
 	 *
-	 * @param parent1 the first parent to breed
-	 * @param parent2 the second parent to breed
-	 * @return the offspring in an array list
+	 * @param randomNumberGenerator the random number generator used to pick the crossover points
+	 * @param parent1Tours          the array holding the first parent's tour
+	 * @param parent1Offset         the index of the first parent's first city
+	 * @param parent2Tours          the array holding the second parent's tour
+	 * @param parent2Offset         the index of the second parent's first city
+	 * @param offspring1Tours       the array the first offspring is written to
+	 * @param offspring1Offset      the index the first offspring's first city is written to
+	 * @param offspring2Tours       the array the second offspring is written to
+	 * @param offspring2Offset      the index the second offspring's first city is written to
+	 * @param count                 the number of cities in a tour
+	 * @param inParent1Middle       scratch space of at least count elements, used to mark the middle of the first parent
+	 * @param inParent2Middle       scratch space of at least count elements, used to mark the middle of the second parent
 	 */
-	public ArrayList<CandidateSolution> breedPair(CandidateSolution parent1, CandidateSolution parent2) {
+	static void breedPair(SplittableRandom randomNumberGenerator,
+						  int[] parent1Tours, int parent1Offset, int[] parent2Tours, int parent2Offset,
+						  int[] offspring1Tours, int offspring1Offset, int[] offspring2Tours, int offspring2Offset,
+						  int count, boolean[] inParent1Middle, boolean[] inParent2Middle) {
 		//since crossover points are actually between elements, we generate as:
 		//crossover point = between the element at index <n-1> and <n> where n is randomly generated.
 		//this way element n is the first element to be swapped. for the next crossover section
 		int lowerBound = 1; //n may not be the first element, 0
-		int upperBound = parent1.cityCount() - 1;//n may be the last element, element cityCount-1
+		int upperBound = count - 1;//n may be the last element, element cityCount-1
 
 		//generate the crossover points
-		int crossover1 = randomNumberGenerator(lowerBound, upperBound, null);
-		int crossover2 = randomNumberGenerator(lowerBound, upperBound, crossover1);
+		int crossover1 = randomNumberGenerator(randomNumberGenerator, lowerBound, upperBound, NO_BLACKLIST);
+		int crossover2 = randomNumberGenerator(randomNumberGenerator, lowerBound, upperBound, crossover1);
 		//ensure that crossover1 has the smaller value
 		if (crossover1 > crossover2) {
 			int temp = crossover2;
@@ -108,49 +101,36 @@ public class TwoPointCrossOver implements PopulationCrossover {
 			crossover1 = temp;
 		}
 
+		// mark which cities are in the middle of each parent, so each city can be checked in constant time
+		Arrays.fill(inParent1Middle, 0, count, false);
+		Arrays.fill(inParent2Middle, 0, count, false);
+		for (int i = crossover1; i < crossover2; i++) {
+			inParent1Middle[parent1Tours[parent1Offset + i]] = true;
+			inParent2Middle[parent2Tours[parent2Offset + i]] = true;
+		}
 
 		//offspring1=parent1 with the middle from parent2, vica versa
 		//do this in a for loop
-		ArrayList<City> parent1_cities = parent1.getCities();
-		ArrayList<City> parent2_cities = parent2.getCities();
-
-		// extract middle from the first parent
-		ArrayList<City> offspring1_parent1cities = new ArrayList<>(parent1_cities.subList(crossover1, crossover2));
-		ArrayList<City> offspring2_parent2cities = new ArrayList<>(parent2_cities.subList(crossover1, crossover2));
-
-		// create our offspring city permutation
-		ArrayList<City> offspring1 = new ArrayList<>();
-		ArrayList<City> offspring2 = new ArrayList<>();
-
-		int count = parent2.cityCount();
+		int offspring1Length = 0;
+		int offspring2Length = 0;
 		for (int i = crossover2; i < crossover2 + count; i++) {
+			int parent1City = parent1Tours[parent1Offset + i % count];
+			int parent2City = parent2Tours[parent2Offset + i % count];
+
 			//if the offspring will not get this city from the first parent, add the city from the second parent
-			if (!offspring1_parent1cities.contains(parent2_cities.get(i % count)))
-				offspring1.add(parent2_cities.get(i % count));
-			if (!offspring2_parent2cities.contains(parent1_cities.get(i % count)))
-				offspring2.add(parent1_cities.get(i % count));
+			if (!inParent1Middle[parent2City])
+				offspring1Tours[offspring1Offset + offspring1Length++] = parent2City;
+			if (!inParent2Middle[parent1City])
+				offspring2Tours[offspring2Offset + offspring2Length++] = parent1City;
 
-			//if we are at the end of the arraylist, and about to loop back around, add in all the cities from the first parent
+			//if we are at the end of the tour, and about to loop back around, add in all the cities from the first parent
 			if (i == count - 1) {
-				offspring1.addAll(offspring1_parent1cities);
-				offspring2.addAll(offspring2_parent2cities);
+				System.arraycopy(parent1Tours, parent1Offset + crossover1, offspring1Tours, offspring1Offset + offspring1Length, crossover2 - crossover1);
+				System.arraycopy(parent2Tours, parent2Offset + crossover1, offspring2Tours, offspring2Offset + offspring2Length, crossover2 - crossover1);
+				offspring1Length += crossover2 - crossover1;
+				offspring2Length += crossover2 - crossover1;
 			}
 		}
-
-
-		//return the offspring
-		ArrayList<CandidateSolution> offspring = new ArrayList<>();
-		offspring.add(new CandidateSolution(offspring1));
-		offspring.add(new CandidateSolution(offspring2));
-
-		//add the parents for family
-		ArrayList<CandidateSolution> parents = new ArrayList<>();
-		parents.add(parent1);
-		parents.add(parent2);
-
-		//record the family and return the result
-		families.add(new FamilyRecord(parents, offspring));
-		return offspring;
 	}
 
 }